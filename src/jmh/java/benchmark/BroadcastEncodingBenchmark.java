@@ -0,0 +1,102 @@
+package benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gerson.network.Frame;
+
+/**
+ * Coste de codificar y escribir una difusión a 10, 100 y 1000 clientes.
+ * {@code printStreamPerClient} es el camino original: un
+ * {@code PrintStream} por socket y un {@code println} por cliente, que
+ * vuelve a codificar el texto en cada uno. {@code sharedFrame} es el actual:
+ * el mensaje se codifica una vez en un {@link Frame} y cada escritor envía
+ * una vista de solo lectura de sus bytes. Los sockets se sustituyen por
+ * destinos que descartan lo escrito; con {@code -prof gc} se comparan los
+ * bytes reservados por difusión.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BroadcastEncodingBenchmark {
+    private static final String MESSAGE = "1:30\n2:40\n3:50\n4:60";
+
+    @Param({ "10", "100", "1000" })
+    public int clients;
+
+    private PrintStream[] outputs;
+    private WritableByteChannel[] channels;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        outputs = new PrintStream[clients];
+        channels = new WritableByteChannel[clients];
+        for (int i = 0; i < clients; i++) {
+            // Igual que el ClientHandler original: sin autoflush sobre el flujo del socket
+            outputs[i] = new PrintStream(OutputStream.nullOutputStream());
+            channels[i] = new DiscardChannel();
+        }
+    }
+
+    @Benchmark
+    public void printStreamPerClient() {
+        for (PrintStream out : outputs) {
+            out.println(MESSAGE);
+        }
+    }
+
+    @Benchmark
+    public int sharedFrame() throws Exception {
+        Frame frame = Frame.droppable(MESSAGE);
+        int written = 0;
+        for (WritableByteChannel channel : channels) {
+            written += channel.write(frame.buffer());
+        }
+        return written;
+    }
+
+    /**
+     * Canal que consume los bytes sin copiarlos, como un socket con sitio
+     * en su búfer. Guarda el último búfer para que su vista no se elimine
+     * por análisis de escape, igual que cuando espera en una cola.
+     */
+    private static final class DiscardChannel implements WritableByteChannel {
+        private ByteBuffer last;
+
+        @Override
+        public int write(ByteBuffer src) {
+            last = src;
+            int length = src.remaining();
+            src.position(src.limit());
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gerson.logic.RaceRoom;
+import com.gerson.model.Player;
+
+/**
+ * Difusión de un mensaje a 10, 100 y 1000 clientes. En una sala sin ticks
+ * cada clic se difunde de inmediato a todos sus canales, así que cada
+ * operación es una difusión completa.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BroadcastFanOutBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int clients;
+
+    private RaceRoom room;
+    private Player clicker;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Races.quietLogging();
+        room = new RaceRoom("difusion");
+        Races.unthrottled(room);
+        for (int id = 1; id <= clients; id++) {
+            Player player = new Player(id, new Races.CountingSink());
+            room.join(player);
+            if (clicker == null) {
+                clicker = player;
+            }
+        }
+        Races.forceStarted(room);
+    }
+
+    @Benchmark
+    public int broadcastProgress() {
+        room.click(clicker);
+        int progress = clicker.getProgress();
+        if (progress >= 90) {
+            clicker.resetRace();
+        }
+        return progress;
+    }
+}
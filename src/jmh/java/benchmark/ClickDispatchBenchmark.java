@@ -0,0 +1,87 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gerson.logic.GameManager;
+import com.gerson.logic.RaceRoom;
+import com.gerson.model.Player;
+
+/**
+ * {@code GameManager.processClientMessage} con varios hilos haciendo clic a
+ * la vez, todos en la misma sala (compiten por su candado) o cada uno en la
+ * suya. El progreso se devuelve a la salida antes de llegar a la meta para
+ * que la carrera no termine durante la medición.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ClickDispatchBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Game {
+        @Param({ "shared", "per-thread" })
+        public String rooms;
+
+        GameManager gameManager;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            Races.quietLogging();
+            gameManager = GameManager.getGamemanagerinstance();
+            gameManager.getRoomManager().clear();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            gameManager.getRoomManager().clear();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Horse {
+        Player player;
+
+        @Setup(Level.Trial)
+        public void setUp(Game game) {
+            player = game.gameManager.createPlayer(new Races.CountingSink());
+            String room = "shared".equals(game.rooms) ? "bench" : "bench-" + player.getId();
+            RaceRoom joined = game.gameManager.joinRoom(player, room);
+            Races.unthrottled(joined);
+            Races.forceStarted(joined);
+        }
+    }
+
+    @Benchmark
+    public int click(Game game, Horse horse) {
+        game.gameManager.processClientMessage(horse.player, "click");
+        int progress = horse.player.getProgress();
+        if (progress >= 90) {
+            horse.player.resetRace();
+        }
+        return progress;
+    }
+
+    @Benchmark
+    public int clicksSent(Game game, Horse horse) {
+        game.gameManager.processClientMessage(horse.player, "clicks_sent:1234");
+        return horse.player.getReportedClicks();
+    }
+}
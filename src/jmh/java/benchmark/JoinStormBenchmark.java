@@ -0,0 +1,60 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gerson.logic.RaceRoom;
+import com.gerson.model.Player;
+
+/**
+ * Avalancha de llegadas: un jugador entra en una sala con muchos jugadores,
+ * lo que difunde la lista completa de jugadores y el estado de inicio, y
+ * luego sale. Mide el coste de {@code broadcastPlayerList} según el tamaño
+ * de la sala.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JoinStormBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int players;
+
+    private RaceRoom room;
+    private int nextId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Races.quietLogging();
+        room = new RaceRoom("llegadas");
+        for (nextId = 1; nextId <= players; nextId++) {
+            Player player = new Player(nextId, new Races.CountingSink());
+            room.join(player);
+        }
+    }
+
+    @Benchmark
+    public int joinAndLeave() {
+        Player newcomer = new Player(nextId++, new Races.CountingSink());
+        room.join(newcomer);
+        room.notifyNewPlayer(newcomer);
+        room.removePlayer(newcomer);
+        newcomer.release();
+        return room.getPlayerCount();
+    }
+}
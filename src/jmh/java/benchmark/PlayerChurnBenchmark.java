@@ -0,0 +1,58 @@
+package benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gerson.logic.GameManager;
+import com.gerson.model.Player;
+
+/**
+ * Altas y bajas continuas de jugadores desde varios hilos con
+ * {@code registerPlayer} y {@code removePlayer}.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class PlayerChurnBenchmark {
+
+    private final PrintStream output = new PrintStream(OutputStream.nullOutputStream());
+    private GameManager gameManager;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Races.quietLogging();
+        gameManager = GameManager.getGamemanagerinstance();
+        gameManager.getRoomManager().clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        gameManager.getRoomManager().clear();
+    }
+
+    @Benchmark
+    public int registerAndRemove() {
+        Player player = gameManager.registerPlayer(output);
+        gameManager.removePlayer(player);
+        return player.getId();
+    }
+}
@@ -0,0 +1,71 @@
+package benchmark;
+
+import java.lang.reflect.Field;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.gerson.logic.ClickRateLimiter;
+import com.gerson.logic.RaceRoom;
+import com.gerson.network.ClientSink;
+import com.gerson.network.Frame;
+
+/**
+ * Utilidades comunes de los benchmarks.
+ */
+final class Races {
+    // Referencia fuerte para que el nivel configurado no se pierda
+    private static final Logger GAME_LOGGER = Logger.getLogger("com.gerson");
+
+    private Races() {
+    }
+
+    /**
+     * Silencia las trazas informativas del juego: se mide el motor, no la
+     * escritura en consola.
+     */
+    static void quietLogging() {
+        GAME_LOGGER.setLevel(Level.WARNING);
+    }
+
+    /**
+     * Pone la carrera de la sala en marcha sin esperar la cuenta regresiva,
+     * igual que hacen las pruebas.
+     */
+    static void forceStarted(RaceRoom room) {
+        try {
+            Field raceStarted = RaceRoom.class.getDeclaredField("raceStarted");
+            raceStarted.setAccessible(true);
+            raceStarted.set(room, true);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Quita el límite de ritmo de clics de la sala: con el compartido, que
+     * admite 20 por segundo, el benchmark mediría sobre todo el descarte.
+     */
+    static void unthrottled(RaceRoom room) {
+        room.setClickLimiter(new ClickRateLimiter(0, 1));
+    }
+
+    /**
+     * Canal que solo recuerda el último marco recibido, para medir la
+     * difusión sin red.
+     */
+    static final class CountingSink implements ClientSink {
+        Frame last;
+        long received;
+
+        @Override
+        public void send(Frame frame) {
+            last = frame;
+            received++;
+        }
+
+        @Override
+        public void close() {
+            // Nada que cerrar
+        }
+    }
+}
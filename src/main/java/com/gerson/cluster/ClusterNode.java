@@ -0,0 +1,105 @@
+package com.gerson.cluster;
+
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.gerson.logic.RaceRoom;
+import com.gerson.logic.RoomListener;
+import com.gerson.logic.RoomManager;
+
+/**
+ * Nodo de un clúster de carreras. Se registra en el {@link RoomDirectory}
+ * con la dirección en la que acepta clientes, reclama cada sala que crea su
+ * {@link RoomManager} y la libera al retirarla. Si otro nodo ya aloja la
+ * sala, no la crea: así un cliente que llega sin preámbulo y saluda con otra
+ * sala no la duplica. Un fallo del directorio no impide crear ni retirar
+ * salas: solo se registra.
+ */
+public final class ClusterNode implements RoomListener, AutoCloseable {
+  private static final Logger logger = Logger.getLogger(ClusterNode.class.getName());
+
+  private final RoomDirectory directory;
+  private final String nodeId;
+  private final InetSocketAddress address;
+  private RoomManager roomManager;
+
+  /**
+   * Crea un nodo sin registrarlo todavía.
+   * 
+   * @param directory directorio compartido del clúster
+   * @param nodeId    identificador único del nodo
+   * @param address   dirección en la que el nodo acepta clientes
+   */
+  public ClusterNode(RoomDirectory directory, String nodeId, InetSocketAddress address) {
+    this.directory = directory;
+    this.nodeId = nodeId;
+    this.address = address;
+  }
+
+  /**
+   * Registra el nodo, reclama las salas que ya existan y empieza a seguir
+   * las que se creen y se retiren.
+   * 
+   * @param roomManager gestor de salas del nodo
+   */
+  public void start(RoomManager roomManager) {
+    this.roomManager = roomManager;
+    directory.registerNode(nodeId, address);
+    roomManager.setRoomListener(this);
+    for (RaceRoom room : roomManager.getRooms()) {
+      // Ya existen con jugadores: si otro nodo las aloja, solo se avisa
+      roomCreated(room.getName());
+    }
+    logger.info("[CLUSTER] Nodo " + nodeId + " registrado en " + address);
+  }
+
+  @Override
+  public boolean roomCreated(String room) {
+    try {
+      String owner = directory.claim(room, nodeId);
+      if (!nodeId.equals(owner)) {
+        logger.warning("[CLUSTER] La sala " + room + " ya la aloja el nodo " + owner);
+        return false;
+      }
+    } catch (UncheckedIOException e) {
+      logger.log(Level.WARNING, "[CLUSTER] No se pudo reclamar la sala " + room, e);
+    }
+    return true;
+  }
+
+  @Override
+  public void roomRetired(String room) {
+    try {
+      directory.release(room, nodeId);
+    } catch (UncheckedIOException e) {
+      logger.log(Level.WARNING, "[CLUSTER] No se pudo liberar la sala " + room, e);
+    }
+  }
+
+  /**
+   * Devuelve el identificador del nodo.
+   * 
+   * @return identificador del nodo
+   */
+  public String getNodeId() {
+    return nodeId;
+  }
+
+  /**
+   * Da de baja el nodo y libera sus salas en el directorio.
+   */
+  @Override
+  public void close() {
+    if (roomManager != null) {
+      roomManager.setRoomListener(null);
+    }
+    try {
+      directory.unregisterNode(nodeId);
+      logger.info("[CLUSTER] Nodo " + nodeId + " dado de baja");
+    } catch (UncheckedIOException e) {
+      logger.log(Level.WARNING, "[CLUSTER] No se pudo dar de baja el nodo " + nodeId, e);
+    }
+  }
+}
@@ -0,0 +1,171 @@
+package com.gerson.cluster;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Directorio sobre un directorio local compartido por varios procesos de la
+ * misma máquina. Cada nodo es un archivo {@code nodes/<id>} con su
+ * {@code host:puerto} y cada sala reclamada, un archivo {@code rooms/<sala>}
+ * con el identificador de su dueño.
+ *
+ * <p>
+ * Los archivos se escriben completos en un temporal y se publican de forma
+ * atómica: los nodos con un renombrado y las reclamaciones con un enlace
+ * duro, que falla si la sala ya tiene dueño. Así dos procesos que reclaman
+ * la misma sala a la vez nunca leen un archivo a medio escribir ni se
+ * pisan.
+ */
+public final class FileRoomDirectory implements RoomDirectory {
+  private static final String TEMP_PREFIX = ".tmp-";
+
+  private final Path nodesDir;
+  private final Path roomsDir;
+
+  /**
+   * Abre el directorio y crea sus subdirectorios si no existen.
+   * 
+   * @param dir directorio compartido
+   * @throws IOException si no se pueden crear los subdirectorios
+   */
+  public FileRoomDirectory(Path dir) throws IOException {
+    this.nodesDir = Files.createDirectories(dir.resolve("nodes"));
+    this.roomsDir = Files.createDirectories(dir.resolve("rooms"));
+  }
+
+  @Override
+  public void registerNode(String nodeId, InetSocketAddress address) {
+    try {
+      Path temp = writeTemp(nodesDir, address.getHostString() + ":" + address.getPort());
+      Files.move(temp, nodesDir.resolve(encode(nodeId)), StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      throw new UncheckedIOException("No se pudo registrar el nodo " + nodeId, e);
+    }
+  }
+
+  @Override
+  public void unregisterNode(String nodeId) {
+    try {
+      Files.deleteIfExists(nodesDir.resolve(encode(nodeId)));
+      for (String room : list(roomsDir)) {
+        release(room, nodeId);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("No se pudo dar de baja el nodo " + nodeId, e);
+    }
+  }
+
+  @Override
+  public Set<String> nodeIds() {
+    try {
+      return list(nodesDir);
+    } catch (IOException e) {
+      throw new UncheckedIOException("No se pudo leer la lista de nodos", e);
+    }
+  }
+
+  @Override
+  public InetSocketAddress nodeAddress(String nodeId) {
+    String address = read(nodesDir.resolve(encode(nodeId)));
+    if (address == null) {
+      return null;
+    }
+    int separator = address.lastIndexOf(':');
+    return new InetSocketAddress(address.substring(0, separator),
+        Integer.parseInt(address.substring(separator + 1).trim()));
+  }
+
+  @Override
+  public String claim(String room, String nodeId) {
+    Path target = roomsDir.resolve(encode(room));
+    Path temp = null;
+    try {
+      temp = writeTemp(roomsDir, nodeId);
+      Files.createLink(target, temp);
+      return nodeId;
+    } catch (FileAlreadyExistsException e) {
+      String owner = read(target);
+      // Si el dueño la liberó entre medias, se vuelve a intentar
+      return owner != null ? owner : claim(room, nodeId);
+    } catch (IOException e) {
+      throw new UncheckedIOException("No se pudo reclamar la sala " + room, e);
+    } finally {
+      deleteQuietly(temp);
+    }
+  }
+
+  @Override
+  public void release(String room, String nodeId) {
+    Path path = roomsDir.resolve(encode(room));
+    if (nodeId.equals(read(path))) {
+      deleteQuietly(path);
+    }
+  }
+
+  @Override
+  public String owner(String room) {
+    return read(roomsDir.resolve(encode(room)));
+  }
+
+  private static Path writeTemp(Path dir, String content) throws IOException {
+    Path temp = Files.createTempFile(dir, TEMP_PREFIX, null);
+    Files.writeString(temp, content, StandardCharsets.UTF_8);
+    return temp;
+  }
+
+  private static String read(Path path) {
+    try {
+      return Files.readString(path, StandardCharsets.UTF_8);
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException e) {
+      throw new UncheckedIOException("No se pudo leer " + path, e);
+    }
+  }
+
+  private static Set<String> list(Path dir) throws IOException {
+    Set<String> names = new LinkedHashSet<>();
+    try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+      for (Path entry : entries) {
+        String name = entry.getFileName().toString();
+        if (!name.startsWith(".")) {
+          names.add(URLDecoder.decode(name, StandardCharsets.UTF_8));
+        }
+      }
+    }
+    return names;
+  }
+
+  private static void deleteQuietly(Path path) {
+    if (path == null) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      // Un temporal huérfano no afecta al directorio: se ignora al listar
+    }
+  }
+
+  /**
+   * Convierte un nombre en un nombre de archivo seguro. Los puntos también
+   * se codifican para que ningún nombre sea {@code .} o {@code ..} ni empiece
+   * como un temporal.
+   */
+  private static String encode(String name) {
+    return URLEncoder.encode(name, StandardCharsets.UTF_8).replace(".", "%2E").replace("*", "%2A");
+  }
+}
@@ -0,0 +1,263 @@
+package com.gerson.cluster;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.gerson.logic.RoomManager;
+import com.gerson.metrics.ServerMetrics;
+import com.gerson.server.ServerConfig;
+
+/**
+ * Pasarela TCP del clúster. Acepta a los clientes en el puerto público, lee
+ * su preámbulo opcional {@code route:<sala>}, pregunta al
+ * {@link RoomDirectory} qué nodo aloja esa sala y, desde entonces, solo
+ * copia bytes en ambos sentidos entre el cliente y el nodo. No interpreta el
+ * protocolo del juego, así que el texto y el binario pasan igual.
+ *
+ * <p>
+ * El protocolo normal empieza con el servidor enviando el identificador, de
+ * modo que un cliente sin preámbulo no envía nada: tras esperarlo
+ * {@link ServerConfig#gatewayPreambleMillis()}, se le envía al nodo de la
+ * sala principal. Para jugar en otra sala a través de la pasarela, el
+ * cliente envía el preámbulo antes que nada.
+ */
+public class Gateway {
+  public static final String ROUTE_PREFIX = "route:";
+  private static final Logger logger = Logger.getLogger(Gateway.class.getName());
+  private static final byte[] ROUTE_BYTES = ROUTE_PREFIX.getBytes(StandardCharsets.US_ASCII);
+  private static final int MAX_PREAMBLE = 256;
+  private static final int BUFFER_SIZE = 8192;
+  private static final int CONNECT_TIMEOUT_MILLIS = 2000;
+
+  private final int port;
+  private final RoomDirectory directory;
+  private final long preambleMillis;
+  private final ExecutorService executor;
+  private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+  private ServerSocket serverSocket;
+  private volatile boolean running;
+
+  /**
+   * Crea la pasarela.
+   * 
+   * @param port           puerto público (0 para uno libre)
+   * @param directory      directorio del clúster
+   * @param preambleMillis espera máxima del preámbulo; 0 no lo espera
+   * @param executor       ejecutor de las tareas de copia, dos por cliente
+   */
+  public Gateway(int port, RoomDirectory directory, long preambleMillis, ExecutorService executor) {
+    this.port = port;
+    this.directory = directory;
+    this.preambleMillis = Math.max(0, preambleMillis);
+    this.executor = executor;
+  }
+
+  /**
+   * Línea de preámbulo que elige la sala de un cliente.
+   * 
+   * @param room nombre de la sala
+   * @return preámbulo con su salto de línea
+   */
+  public static String preamble(String room) {
+    return ROUTE_PREFIX + room + "\n";
+  }
+
+  /**
+   * Abre el puerto público.
+   * 
+   * @throws IOException si no se puede abrir el puerto
+   */
+  public void start() throws IOException {
+    serverSocket = new ServerSocket();
+    serverSocket.bind(new InetSocketAddress(port), ServerConfig.acceptBacklog());
+    running = true;
+  }
+
+  /**
+   * Acepta clientes hasta que se detenga la pasarela. Bloquea el hilo que la
+   * invoca.
+   */
+  public void acceptLoop() {
+    while (running && !serverSocket.isClosed()) {
+      try {
+        Socket client = serverSocket.accept();
+        ServerMetrics.ACCEPTED_CONNECTIONS.increment();
+        executor.execute(() -> serve(client));
+      } catch (IOException e) {
+        if (running) {
+          logger.log(Level.WARNING, "[X] Error al aceptar conexión en la pasarela", e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Devuelve el puerto local en el que escucha la pasarela.
+   * 
+   * @return puerto local, o -1 si aún no se ha iniciado
+   */
+  public int getLocalPort() {
+    return serverSocket == null ? -1 : serverSocket.getLocalPort();
+  }
+
+  /**
+   * Deja de aceptar clientes y cierra las conexiones abiertas.
+   */
+  public void stop() {
+    running = false;
+    closeQuietly(serverSocket);
+    for (Socket socket : sockets) {
+      closeQuietly(socket);
+    }
+    executor.shutdown();
+  }
+
+  /**
+   * Enruta un cliente y copia sus bytes hacia el nodo. Los del nodo hacia el
+   * cliente se copian en otra tarea del ejecutor.
+   */
+  private void serve(Socket client) {
+    sockets.add(client);
+    Socket node = null;
+    try {
+      client.setTcpNoDelay(true);
+      byte[] preamble = new byte[MAX_PREAMBLE];
+      int length = readPreamble(client, preamble);
+      if (length < 0) {
+        closeQuietly(client);
+        return;
+      }
+      int newline = indexOf(preamble, length, (byte) '\n');
+      String room = RoomManager.DEFAULT_ROOM;
+      int forwardFrom = 0;
+      if (newline >= 0 && matchesRoutePrefix(preamble, newline)) {
+        room = RoomManager.normalize(
+            new String(preamble, ROUTE_BYTES.length, newline - ROUTE_BYTES.length, StandardCharsets.UTF_8));
+        forwardFrom = newline + 1;
+      }
+      InetSocketAddress target = directory.route(room);
+      if (target == null) {
+        throw new IOException("No hay nodos registrados para la sala " + room);
+      }
+      node = new Socket();
+      sockets.add(node);
+      node.connect(target, CONNECT_TIMEOUT_MILLIS);
+      node.setTcpNoDelay(true);
+      if (forwardFrom < length) {
+        node.getOutputStream().write(preamble, forwardFrom, length - forwardFrom);
+      }
+      ServerMetrics.GATEWAY_ROUTED.increment();
+    } catch (IOException | RuntimeException e) {
+      ServerMetrics.GATEWAY_FAILURES.increment();
+      logger.log(Level.WARNING, "[X] La pasarela no pudo enrutar al cliente", e);
+      close(client, node);
+      return;
+    }
+    Socket routed = node;
+    executor.execute(() -> pump(routed, client));
+    pump(client, routed);
+  }
+
+  /**
+   * Lee el preámbulo sin esperar más de lo configurado. Deja de leer en
+   * cuanto los bytes recibidos no pueden ser un preámbulo.
+   * 
+   * @return bytes leídos, o -1 si el cliente cerró la conexión
+   */
+  private int readPreamble(Socket client, byte[] buffer) throws IOException {
+    if (preambleMillis == 0) {
+      return 0;
+    }
+    int length = 0;
+    client.setSoTimeout((int) Math.min(Integer.MAX_VALUE, preambleMillis));
+    try {
+      InputStream in = client.getInputStream();
+      while (length < buffer.length && matchesRoutePrefix(buffer, length)
+          && indexOf(buffer, length, (byte) '\n') < 0) {
+        int read = in.read(buffer, length, buffer.length - length);
+        if (read < 0) {
+          return -1;
+        }
+        length += read;
+      }
+    } catch (SocketTimeoutException e) {
+      // Sin preámbulo: el cliente espera a que el servidor hable primero
+    }
+    client.setSoTimeout(0);
+    return length;
+  }
+
+  /**
+   * Copia bytes de un socket a otro hasta que alguno se cierre, y entonces
+   * cierra los dos.
+   */
+  private void pump(Socket from, Socket to) {
+    byte[] buffer = new byte[BUFFER_SIZE];
+    try {
+      InputStream in = from.getInputStream();
+      OutputStream out = to.getOutputStream();
+      int read;
+      while ((read = in.read(buffer)) >= 0) {
+        out.write(buffer, 0, read);
+      }
+    } catch (IOException e) {
+      // Una de las dos conexiones se cerró
+    } finally {
+      close(from, to);
+    }
+  }
+
+  /**
+   * Indica si los primeros bytes coinciden con el prefijo de ruta, hasta
+   * donde alcancen.
+   */
+  private static boolean matchesRoutePrefix(byte[] buffer, int length) {
+    for (int i = 0; i < Math.min(length, ROUTE_BYTES.length); i++) {
+      if (buffer[i] != ROUTE_BYTES[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int indexOf(byte[] buffer, int length, byte value) {
+    for (int i = 0; i < length; i++) {
+      if (buffer[i] == value) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private void close(Socket first, Socket second) {
+    for (Socket socket : new Socket[] { first, second }) {
+      if (socket != null) {
+        sockets.remove(socket);
+        closeQuietly(socket);
+      }
+    }
+  }
+
+  private static void closeQuietly(Closeable closeable) {
+    if (closeable == null) {
+      return;
+    }
+    try {
+      closeable.close();
+    } catch (IOException e) {
+      logger.log(Level.FINE, "Error al cerrar conexión de la pasarela", e);
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package com.gerson.cluster;
+
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Directorio en memoria, para nodos y pasarela que corren en el mismo
+ * proceso (pruebas y despliegues de una sola JVM).
+ */
+public final class InMemoryRoomDirectory implements RoomDirectory {
+  private final ConcurrentMap<String, InetSocketAddress> nodes = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, String> rooms = new ConcurrentHashMap<>();
+
+  @Override
+  public void registerNode(String nodeId, InetSocketAddress address) {
+    nodes.put(nodeId, address);
+  }
+
+  @Override
+  public void unregisterNode(String nodeId) {
+    nodes.remove(nodeId);
+    rooms.values().removeIf(nodeId::equals);
+  }
+
+  @Override
+  public Set<String> nodeIds() {
+    return Collections.unmodifiableSet(nodes.keySet());
+  }
+
+  @Override
+  public InetSocketAddress nodeAddress(String nodeId) {
+    return nodes.get(nodeId);
+  }
+
+  @Override
+  public String claim(String room, String nodeId) {
+    String owner = rooms.putIfAbsent(room, nodeId);
+    return owner == null ? nodeId : owner;
+  }
+
+  @Override
+  public void release(String room, String nodeId) {
+    rooms.remove(room, nodeId);
+  }
+
+  @Override
+  public String owner(String room) {
+    return rooms.get(room);
+  }
+}
@@ -0,0 +1,116 @@
+package com.gerson.cluster;
+
+import java.net.InetSocketAddress;
+import java.util.Set;
+
+/**
+ * Directorio compartido del clúster: qué nodos hay, en qué dirección
+ * atienden y qué nodo aloja cada sala. Los nodos se registran al arrancar y
+ * reclaman las salas que crean; la {@link Gateway} lo consulta para enviar
+ * cada cliente al nodo de su sala.
+ *
+ * <p>
+ * Una sala sin dueño se asigna por <i>rendezvous hashing</i> entre los nodos
+ * registrados: la elección es estable, reparte las salas nuevas entre todos
+ * los nodos y, al añadir uno, solo se le asignan salas nuevas.
+ */
+public interface RoomDirectory {
+
+  /**
+   * Registra un nodo o actualiza su dirección.
+   * 
+   * @param nodeId  identificador del nodo
+   * @param address dirección en la que el nodo acepta clientes
+   */
+  void registerNode(String nodeId, InetSocketAddress address);
+
+  /**
+   * Da de baja un nodo y libera todas sus salas.
+   * 
+   * @param nodeId identificador del nodo
+   */
+  void unregisterNode(String nodeId);
+
+  /**
+   * Devuelve los nodos registrados.
+   * 
+   * @return identificadores de los nodos
+   */
+  Set<String> nodeIds();
+
+  /**
+   * Devuelve la dirección de un nodo.
+   * 
+   * @param nodeId identificador del nodo
+   * @return dirección del nodo, o null si no está registrado
+   */
+  InetSocketAddress nodeAddress(String nodeId);
+
+  /**
+   * Reclama una sala para un nodo si aún no tiene dueño.
+   * 
+   * @param room   nombre de la sala
+   * @param nodeId nodo que la reclama
+   * @return dueño de la sala tras la llamada, que puede ser otro nodo
+   */
+  String claim(String room, String nodeId);
+
+  /**
+   * Libera una sala si su dueño es el nodo indicado.
+   * 
+   * @param room   nombre de la sala
+   * @param nodeId nodo que la libera
+   */
+  void release(String room, String nodeId);
+
+  /**
+   * Devuelve el nodo que aloja una sala.
+   * 
+   * @param room nombre de la sala
+   * @return identificador del dueño, o null si la sala no tiene
+   */
+  String owner(String room);
+
+  /**
+   * Resuelve el nodo que debe atender una sala. Si la sala no tiene dueño, o
+   * su dueño ya no está registrado, se asigna a uno de los nodos
+   * registrados.
+   * 
+   * @param room nombre de la sala
+   * @return dirección del nodo, o null si no hay ningún nodo registrado
+   */
+  default InetSocketAddress route(String room) {
+    String owner = owner(room);
+    if (owner != null) {
+      InetSocketAddress address = nodeAddress(owner);
+      if (address != null) {
+        return address;
+      }
+      release(room, owner);
+    }
+    String chosen = null;
+    long best = Long.MIN_VALUE;
+    for (String nodeId : nodeIds()) {
+      long score = rendezvousScore(room, nodeId);
+      if (chosen == null || score > best) {
+        chosen = nodeId;
+        best = score;
+      }
+    }
+    return chosen == null ? null : nodeAddress(claim(room, chosen));
+  }
+
+  /**
+   * Peso de un nodo para una sala: gana el nodo con el peso más alto.
+   * 
+   * @param room   nombre de la sala
+   * @param nodeId identificador del nodo
+   * @return peso pseudoaleatorio y estable
+   */
+  static long rendezvousScore(String room, String nodeId) {
+    long hash = (room.hashCode() * 31L + nodeId.hashCode()) * 0x9E3779B97F4A7C15L;
+    hash ^= hash >>> 32;
+    hash *= 0xD6E8FEB86659FD93L;
+    return hash ^ (hash >>> 32);
+  }
+}
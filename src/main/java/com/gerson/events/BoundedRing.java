@@ -0,0 +1,120 @@
+package com.gerson.events;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Búfer circular acotado con varios productores y un único consumidor. Las
+ * posiciones se reservan al crearlo y se reutilizan: el productor reserva
+ * una con {@link #claim()}, rellena sus campos y la publica; el consumidor
+ * las recorre en orden con {@link #peek()} y {@link #release()}.
+ *
+ * <p>
+ * Cada posición lleva un número de secuencia que indica si está libre para
+ * la vuelta actual, publicada o aún ocupada por la anterior. Si el búfer
+ * está lleno, reservar falla al instante y se cuenta en
+ * {@link #getDroppedCount()}: producir nunca bloquea ni reserva memoria. Lo
+ * usan {@link EventLog} y {@link com.gerson.journal.Journal}.
+ *
+ * @param <E> tipo de las posiciones
+ */
+public final class BoundedRing<E> {
+  private final E[] slots;
+  private final AtomicLongArray sequences;
+  private final int mask;
+  private final AtomicLong tail = new AtomicLong();
+  private final LongAdder dropped = new LongAdder();
+  private long head;
+
+  /**
+   * Crea el búfer y todas sus posiciones.
+   * 
+   * @param capacity posiciones del búfer; se redondea a potencia de dos
+   * @param factory  crea cada posición
+   */
+  @SuppressWarnings("unchecked")
+  public BoundedRing(int capacity, Supplier<E> factory) {
+    int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+    this.slots = (E[]) new Object[size];
+    this.sequences = new AtomicLongArray(size);
+    for (int i = 0; i < size; i++) {
+      slots[i] = factory.get();
+      sequences.set(i, i);
+    }
+    this.mask = size - 1;
+  }
+
+  /**
+   * Reserva la siguiente posición libre. Tras rellenarla, el productor debe
+   * publicarla con {@link #publish(long)}.
+   * 
+   * @return número de la posición reservada, o -1 si el búfer está lleno
+   */
+  public long claim() {
+    long position = tail.get();
+    while (true) {
+      long difference = sequences.get((int) (position & mask)) - position;
+      if (difference == 0) {
+        if (tail.compareAndSet(position, position + 1)) {
+          return position;
+        }
+        position = tail.get();
+      } else if (difference < 0) {
+        dropped.increment();
+        return -1;
+      } else {
+        position = tail.get();
+      }
+    }
+  }
+
+  /**
+   * Devuelve la posición reservada para que el productor la rellene.
+   * 
+   * @param position número devuelto por {@link #claim()}
+   * @return posición del búfer
+   */
+  public E get(long position) {
+    return slots[(int) (position & mask)];
+  }
+
+  /**
+   * Publica una posición ya rellenada para el consumidor.
+   * 
+   * @param position número devuelto por {@link #claim()}
+   */
+  public void publish(long position) {
+    sequences.lazySet((int) (position & mask), position + 1);
+  }
+
+  /**
+   * Devuelve la siguiente posición publicada sin retirarla. Solo debe
+   * invocarlo el consumidor.
+   * 
+   * @return posición publicada, o null si no hay ninguna
+   */
+  public E peek() {
+    int index = (int) (head & mask);
+    return sequences.get(index) == head + 1 ? slots[index] : null;
+  }
+
+  /**
+   * Devuelve a los productores la posición obtenida con {@link #peek()}.
+   * Solo debe invocarlo el consumidor.
+   */
+  public void release() {
+    sequences.lazySet((int) (head & mask), head + slots.length);
+    head++;
+  }
+
+  /**
+   * Reservas rechazadas por encontrar el búfer lleno.
+   * 
+   * @return total de descartes
+   */
+  public long getDroppedCount() {
+    return dropped.sum();
+  }
+}
@@ -0,0 +1,222 @@
+package com.gerson.events;
+
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.gerson.logic.GameConfig;
+
+/**
+ * Registro asíncrono de eventos del juego. Quien registra un evento solo
+ * copia unos pocos campos en una posición de un {@link BoundedRing}
+ * reservado de antemano; un hilo escritor los formatea como pares
+ * {@code clave=valor} y los entrega a {@code java.util.logging} fuera de los
+ * candados de las salas.
+ *
+ * <p>
+ * Cada tipo de evento se muestrea por separado (por defecto uno de cada mil
+ * clics) con un sorteo local al hilo, sin contadores compartidos. Si el
+ * búfer está lleno, el evento se descarta y se cuenta en
+ * {@link #getDroppedCount()}: registrar nunca bloquea.
+ */
+public final class EventLog {
+  private static final Logger logger = Logger.getLogger("com.gerson.events");
+  private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+  private final BoundedRing<Event> ring;
+  private final int[] sampleEvery = new int[EventType.values().length];
+  private final Consumer<String> output;
+  private final StringBuilder line = new StringBuilder(128);
+  private final Thread writer;
+  private volatile boolean stopped;
+
+  /**
+   * Crea un registro que escribe en {@code java.util.logging} con su propio
+   * hilo escritor.
+   * 
+   * @param capacity posiciones del búfer; se redondea a potencia de dos
+   */
+  public EventLog(int capacity) {
+    this(capacity, message -> logger.info(message), true);
+  }
+
+  private EventLog(int capacity, Consumer<String> output, boolean start) {
+    this.ring = new BoundedRing<>(capacity, Event::new);
+    this.output = output;
+    for (EventType type : EventType.values()) {
+      sampleEvery[type.ordinal()] = GameConfig.logSampleEvery(type);
+    }
+    if (start) {
+      writer = new Thread(this::run, "event-log");
+      writer.setDaemon(true);
+      writer.start();
+    } else {
+      writer = null;
+    }
+  }
+
+  /**
+   * Crea un registro sin hilo escritor que solo se vacía con
+   * {@link #drain()}. Pensado para pruebas deterministas.
+   * 
+   * @param capacity posiciones del búfer
+   * @param output   destino de las líneas formateadas
+   * @return registro manual
+   */
+  public static EventLog manual(int capacity, Consumer<String> output) {
+    return new EventLog(capacity, output, false);
+  }
+
+  /**
+   * Devuelve el registro compartido por el servidor, con la capacidad de
+   * {@link GameConfig#logBufferSize()}.
+   * 
+   * @return registro compartido
+   */
+  public static EventLog shared() {
+    return Shared.INSTANCE;
+  }
+
+  /**
+   * Cambia el muestreo de un tipo de evento.
+   * 
+   * @param type  tipo de evento
+   * @param every registrar uno de cada tantos; 0 lo desactiva
+   */
+  public void setSampleEvery(EventType type, int every) {
+    sampleEvery[type.ordinal()] = Math.max(0, every);
+  }
+
+  /**
+   * Registra un evento si supera el muestreo y hay sitio en el búfer. No
+   * bloquea ni reserva memoria.
+   * 
+   * @param type   tipo de evento
+   * @param room   sala del evento
+   * @param player identificador del jugador, o -1 si no aplica
+   * @param value  valor numérico, con la clave {@link EventType#valueKey()}
+   * @param detail detalle de texto, con la clave
+   *               {@link EventType#detailKey()}; puede ser null
+   * @return true si el evento entró en el búfer
+   */
+  public boolean log(EventType type, String room, int player, long value, String detail) {
+    if (!isSampled(type)) {
+      return false;
+    }
+    long position = ring.claim();
+    if (position < 0) {
+      return false;
+    }
+    Event event = ring.get(position);
+    event.timestamp = System.currentTimeMillis();
+    event.type = type;
+    event.room = room;
+    event.player = player;
+    event.value = value;
+    event.detail = detail;
+    ring.publish(position);
+    return true;
+  }
+
+  /**
+   * Indica si un evento de este tipo debe registrarse. Permite evitar
+   * cálculos previos cuando el evento se va a descartar.
+   * 
+   * @param type tipo de evento
+   * @return true si el evento pasa el muestreo
+   */
+  public boolean isSampled(EventType type) {
+    int every = sampleEvery[type.ordinal()];
+    if (every == 0 || !logger.isLoggable(Level.INFO) && writer != null) {
+      return false;
+    }
+    return every == 1 || ThreadLocalRandom.current().nextInt(every) == 0;
+  }
+
+  /**
+   * Escribe todos los eventos disponibles. Solo debe invocarlo un hilo: el
+   * escritor propio o, en un registro manual, el llamante.
+   * 
+   * @return eventos escritos
+   */
+  public int drain() {
+    int written = 0;
+    Event event;
+    while ((event = ring.peek()) != null) {
+      String text = format(event);
+      event.room = null;
+      event.detail = null;
+      ring.release();
+      output.accept(text);
+      written++;
+    }
+    return written;
+  }
+
+  /**
+   * Eventos descartados por encontrar el búfer lleno.
+   * 
+   * @return total de eventos descartados
+   */
+  public long getDroppedCount() {
+    return ring.getDroppedCount();
+  }
+
+  /**
+   * Detiene el hilo escritor después de vaciar el búfer.
+   */
+  public void stop() {
+    stopped = true;
+    if (writer != null) {
+      LockSupport.unpark(writer);
+    }
+  }
+
+  private void run() {
+    while (!stopped) {
+      if (drain() == 0) {
+        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+      }
+    }
+    drain();
+  }
+
+  private String format(Event event) {
+    EventType type = event.type;
+    line.setLength(0);
+    line.append("ts=").append(Instant.ofEpochMilli(event.timestamp))
+        .append(" event=").append(type.key())
+        .append(" room=").append(event.room);
+    if (event.player >= 0) {
+      line.append(" player=").append(event.player);
+    }
+    if (type.valueKey() != null) {
+      line.append(' ').append(type.valueKey()).append('=').append(event.value);
+    }
+    if (type.detailKey() != null && event.detail != null) {
+      line.append(' ').append(type.detailKey()).append("=\"").append(event.detail).append('"');
+    }
+    return line.toString();
+  }
+
+  /**
+   * Posición del búfer. Se reutiliza: sus campos se sobrescriben en cada
+   * vuelta.
+   */
+  private static final class Event {
+    private long timestamp;
+    private EventType type;
+    private String room;
+    private int player;
+    private long value;
+    private String detail;
+  }
+
+  private static final class Shared {
+    private static final EventLog INSTANCE = new EventLog(GameConfig.logBufferSize());
+  }
+}
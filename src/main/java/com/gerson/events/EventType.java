@@ -0,0 +1,72 @@
+package com.gerson.events;
+
+/**
+ * Tipos de evento del juego. Cada tipo define las claves con las que se
+ * escriben su valor numérico y su detalle, y cada cuántos eventos se
+ * registra uno por defecto.
+ */
+public enum EventType {
+  JOIN("join", null, "name", 1),
+  LEAVE("leave", "remaining", null, 1),
+  SUSPEND("suspend", "players", null, 1),
+  RESUME("resume", "players", null, 1),
+  RENAME("rename", null, "name", 1),
+  READY("ready", "ready_count", null, 1),
+  CLICK("click", "progress", null, 1000),
+  CLICKS_REPORTED("clicks_reported", "clicks", null, 100),
+  START_STATUS("start_status", "players", "status", 1),
+  RACE_START("race_start", "players", null, 1),
+  RACE_TIMEOUT("race_timeout", "players", null, 1),
+  WIN("win", "progress", "name", 1),
+  CHEAT_FLAG("cheat_flag", "dropped", "reason", 1),
+  KICK("kick", null, "reason", 1);
+
+  private final String key;
+  private final String valueKey;
+  private final String detailKey;
+  private final int defaultSampleEvery;
+
+  EventType(String key, String valueKey, String detailKey, int defaultSampleEvery) {
+    this.key = key;
+    this.valueKey = valueKey;
+    this.detailKey = detailKey;
+    this.defaultSampleEvery = defaultSampleEvery;
+  }
+
+  /**
+   * Nombre del evento en la salida y en la propiedad
+   * {@code horse.log.sample.<clave>}.
+   * 
+   * @return clave del tipo
+   */
+  public String key() {
+    return key;
+  }
+
+  /**
+   * Clave con la que se escribe el valor numérico del evento.
+   * 
+   * @return clave del valor, o null si el tipo no lo usa
+   */
+  public String valueKey() {
+    return valueKey;
+  }
+
+  /**
+   * Clave con la que se escribe el detalle de texto del evento.
+   * 
+   * @return clave del detalle, o null si el tipo no lo usa
+   */
+  public String detailKey() {
+    return detailKey;
+  }
+
+  /**
+   * Muestreo por defecto: se registra uno de cada tantos eventos.
+   * 
+   * @return 1 para registrarlos todos
+   */
+  public int defaultSampleEvery() {
+    return defaultSampleEvery;
+  }
+}
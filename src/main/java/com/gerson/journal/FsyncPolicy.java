@@ -0,0 +1,36 @@
+package com.gerson.journal;
+
+/**
+ * Cuándo fuerza el diario sus escrituras al disco con
+ * {@link java.nio.channels.FileChannel#force(boolean)}.
+ */
+public enum FsyncPolicy {
+  /** Tras cada escritura agrupada: no se pierde nada de lo escrito. */
+  ALWAYS,
+  /**
+   * Como mucho una vez por intervalo: una caída puede perder los registros
+   * del último intervalo.
+   */
+  INTERVAL,
+  /** Nunca, salvo al rotar o cerrar: el sistema operativo decide. */
+  NEVER;
+
+  /**
+   * Convierte un texto (sin distinguir mayúsculas) en una política.
+   * 
+   * @param value         texto a interpretar, puede ser null
+   * @param defaultPolicy política a usar si el texto no es válido
+   * @return la política correspondiente
+   */
+  public static FsyncPolicy parse(String value, FsyncPolicy defaultPolicy) {
+    if (value == null || value.isBlank()) {
+      return defaultPolicy;
+    }
+    for (FsyncPolicy policy : values()) {
+      if (policy.name().equalsIgnoreCase(value.trim())) {
+        return policy;
+      }
+    }
+    return defaultPolicy;
+  }
+}
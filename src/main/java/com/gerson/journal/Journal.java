@@ -0,0 +1,435 @@
+package com.gerson.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import com.gerson.events.BoundedRing;
+import com.gerson.logic.GameConfig;
+import com.gerson.protocol.Varint;
+
+/**
+ * Diario binario de solo anexado con los eventos de cada carrera. Quien
+ * registra un evento solo copia unos campos en un {@link BoundedRing}, el
+ * mismo búfer que usa {@link com.gerson.events.EventLog}; un hilo escritor los
+ * codifica y los escribe en segmentos con un {@link FileChannel}, fuera de
+ * los candados de las salas.
+ *
+ * <p>
+ * Las escrituras se agrupan: cada vuelta del escritor vuelca de una vez
+ * todos los registros pendientes y, según la {@link FsyncPolicy}, los
+ * fuerza al disco. Al superar el tamaño máximo, el segmento se cierra y se
+ * abre el siguiente ({@code journal-<n>.hrj}). Si el búfer se llena, el
+ * registro se descarta y el escritor deja constancia con un registro
+ * {@link RecordType#GAP}: registrar nunca bloquea.
+ *
+ * <p>
+ * Formato de un segmento: la cabecera {@code HRJ1} y, por cada registro,
+ * {@code varint(longitud) + crc32 + tipo + instante + varint(jugador + 1) +
+ * varint(valor) + sala + detalle}, con las cadenas como
+ * {@code varint(bytes) + UTF-8}. Lo lee {@link JournalReader}.
+ */
+public final class Journal {
+  static final byte[] MAGIC = { 'H', 'R', 'J', '1' };
+  static final String SEGMENT_PREFIX = "journal-";
+  static final String SEGMENT_SUFFIX = ".hrj";
+
+  private static final Logger logger = Logger.getLogger(Journal.class.getName());
+  private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+  private static final int BATCH_BYTES = 256 * 1024;
+  private static final Journal DISABLED = new Journal();
+
+  private final BoundedRing<Entry> ring;
+  private final Path directory;
+  private final long segmentBytes;
+  private final FsyncPolicy fsyncPolicy;
+  private final long fsyncIntervalNanos;
+  private final ByteBuffer batch;
+  private final CRC32 crc = new CRC32();
+  private final Thread writer;
+  private byte[] scratch = new byte[256];
+  private FileChannel channel;
+  private long segmentIndex;
+  private long segmentSize;
+  private long reportedDrops;
+  private volatile long written;
+  private boolean unforced;
+  private long lastForce = System.nanoTime();
+  private volatile boolean stopped;
+
+  /**
+   * Abre un diario en el directorio indicado con su propio hilo escritor.
+   * Empieza siempre un segmento nuevo, a continuación de los existentes.
+   * 
+   * @param directory      directorio de los segmentos; se crea si no existe
+   * @param capacity       posiciones del búfer; se redondea a potencia de dos
+   * @param segmentBytes   tamaño a partir del cual se rota el segmento
+   * @param fsyncPolicy    cuándo forzar las escrituras al disco
+   * @param fsyncMillis    intervalo de {@link FsyncPolicy#INTERVAL}
+   * @throws IOException si no se puede crear el primer segmento
+   */
+  public Journal(Path directory, int capacity, long segmentBytes, FsyncPolicy fsyncPolicy, long fsyncMillis)
+      throws IOException {
+    this(directory, capacity, segmentBytes, fsyncPolicy, fsyncMillis, true);
+  }
+
+  private Journal(Path directory, int capacity, long segmentBytes, FsyncPolicy fsyncPolicy, long fsyncMillis,
+      boolean start) throws IOException {
+    this.ring = new BoundedRing<>(capacity, Entry::new);
+    this.directory = directory;
+    this.segmentBytes = Math.max(MAGIC.length + 1, segmentBytes);
+    this.fsyncPolicy = fsyncPolicy;
+    this.fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, fsyncMillis));
+    this.batch = ByteBuffer.allocate(BATCH_BYTES);
+    Files.createDirectories(directory);
+    List<Path> existing = JournalReader.segments(directory);
+    segmentIndex = existing.isEmpty() ? 0 : segmentNumber(existing.get(existing.size() - 1));
+    openNextSegment();
+    if (start) {
+      writer = new Thread(this::run, "journal");
+      writer.setDaemon(true);
+      writer.start();
+    } else {
+      writer = null;
+    }
+  }
+
+  /**
+   * Diario desactivado: no reserva búfer ni abre ficheros.
+   */
+  private Journal() {
+    this.ring = null;
+    this.directory = null;
+    this.segmentBytes = 0;
+    this.fsyncPolicy = FsyncPolicy.NEVER;
+    this.fsyncIntervalNanos = 0;
+    this.batch = null;
+    this.writer = null;
+    this.stopped = true;
+  }
+
+  /**
+   * Abre un diario sin hilo escritor que solo escribe con {@link #flush()}.
+   * Pensado para pruebas deterministas.
+   * 
+   * @param directory    directorio de los segmentos
+   * @param capacity     posiciones del búfer
+   * @param segmentBytes tamaño a partir del cual se rota el segmento
+   * @param fsyncPolicy  cuándo forzar las escrituras al disco
+   * @return diario manual
+   * @throws IOException si no se puede crear el primer segmento
+   */
+  public static Journal manual(Path directory, int capacity, long segmentBytes, FsyncPolicy fsyncPolicy)
+      throws IOException {
+    return new Journal(directory, capacity, segmentBytes, fsyncPolicy, 0, false);
+  }
+
+  /**
+   * Devuelve el diario compartido por el servidor. Solo está activo si
+   * {@link GameConfig#journalDir()} indica un directorio; si no, o si no se
+   * puede abrir, registrar no hace nada.
+   * 
+   * @return diario compartido
+   */
+  public static Journal shared() {
+    return Shared.INSTANCE;
+  }
+
+  /**
+   * Indica si el diario escribe en disco.
+   * 
+   * @return false si está desactivado
+   */
+  public boolean isEnabled() {
+    return ring != null;
+  }
+
+  /**
+   * Registra un evento si hay sitio en el búfer. No bloquea ni reserva
+   * memoria.
+   * 
+   * @param type   tipo de registro
+   * @param room   sala del evento
+   * @param player identificador del jugador, o -1 si no aplica
+   * @param value  valor numérico no negativo, según el tipo
+   * @param detail detalle de texto; puede ser null
+   * @return true si el registro entró en el búfer
+   */
+  public boolean append(RecordType type, String room, int player, int value, String detail) {
+    if (ring == null || stopped) {
+      return false;
+    }
+    long position = ring.claim();
+    if (position < 0) {
+      return false;
+    }
+    Entry entry = ring.get(position);
+    entry.timestamp = System.currentTimeMillis();
+    entry.type = type;
+    entry.room = room;
+    entry.player = player;
+    entry.value = value;
+    entry.detail = detail;
+    ring.publish(position);
+    return true;
+  }
+
+  /**
+   * Escribe de una vez todos los registros disponibles y aplica la política
+   * de fsync. Solo debe invocarlo un hilo: el escritor propio o, en un
+   * diario manual, el llamante.
+   * 
+   * @return registros escritos
+   * @throws IOException si falla la escritura
+   */
+  public int flush() throws IOException {
+    if (ring == null) {
+      return 0;
+    }
+    int count = 0;
+    long drops = ring.getDroppedCount();
+    if (drops > reportedDrops) {
+      encode(RecordType.GAP, System.currentTimeMillis(), "", -1, (int) Math.min(Integer.MAX_VALUE,
+          drops - reportedDrops), null);
+      reportedDrops = drops;
+      count++;
+    }
+    Entry entry;
+    while ((entry = ring.peek()) != null) {
+      encode(entry.type, entry.timestamp, entry.room, entry.player, entry.value, entry.detail);
+      entry.room = null;
+      entry.detail = null;
+      ring.release();
+      count++;
+    }
+    writeBatch();
+    written += count;
+    if (unforced && (fsyncPolicy == FsyncPolicy.ALWAYS
+        || fsyncPolicy == FsyncPolicy.INTERVAL && System.nanoTime() - lastForce >= fsyncIntervalNanos)) {
+      force();
+    }
+    return count;
+  }
+
+  /**
+   * Registros descartados por encontrar el búfer lleno.
+   * 
+   * @return total de registros descartados
+   */
+  public long getDroppedCount() {
+    return ring == null ? 0 : ring.getDroppedCount();
+  }
+
+  /**
+   * Registros escritos en los segmentos, incluidos los de tipo
+   * {@link RecordType#GAP}.
+   * 
+   * @return total de registros escritos
+   */
+  public long getWrittenCount() {
+    return written;
+  }
+
+  /**
+   * Devuelve el segmento en el que se escribe ahora.
+   * 
+   * @return ruta del segmento actual, o null si el diario está desactivado
+   */
+  public Path getCurrentSegment() {
+    return ring == null ? null : segmentPath(directory, segmentIndex);
+  }
+
+  /**
+   * Deja de aceptar registros, escribe los pendientes, los fuerza al disco
+   * y cierra el segmento.
+   */
+  public void close() {
+    if (ring == null) {
+      return;
+    }
+    stopped = true;
+    if (writer != null) {
+      LockSupport.unpark(writer);
+      try {
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    } else {
+      closeChannel();
+    }
+  }
+
+  private void run() {
+    while (!stopped) {
+      try {
+        if (flush() == 0) {
+          LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+        }
+      } catch (IOException e) {
+        logger.log(Level.SEVERE, "[ERROR] No se pudo escribir el diario de carreras", e);
+        LockSupport.parkNanos(this, TimeUnit.SECONDS.toNanos(1));
+      }
+    }
+    closeChannel();
+  }
+
+  private void closeChannel() {
+    try {
+      flush();
+      force();
+      channel.close();
+    } catch (IOException e) {
+      logger.log(Level.SEVERE, "[ERROR] No se pudo cerrar el diario de carreras", e);
+    }
+  }
+
+  /**
+   * Codifica un registro en el lote. Si no cabe en el segmento actual, vuelca
+   * el lote y rota antes de añadirlo.
+   */
+  private void encode(RecordType type, long timestamp, String room, int player, int value, String detail)
+      throws IOException {
+    byte[] roomBytes = room.getBytes(StandardCharsets.UTF_8);
+    byte[] detailBytes = detail == null ? null : detail.getBytes(StandardCharsets.UTF_8);
+    int detailLength = detailBytes == null ? 0 : detailBytes.length;
+    int payload = 1 + Long.BYTES + Varint.size(player + 1) + Varint.size(value)
+        + Varint.size(roomBytes.length) + roomBytes.length + Varint.size(detailLength) + detailLength;
+    if (scratch.length < payload) {
+      scratch = new byte[Math.max(payload, scratch.length * 2)];
+    }
+    int offset = 0;
+    scratch[offset++] = (byte) type.code();
+    for (int shift = 56; shift >= 0; shift -= 8) {
+      scratch[offset++] = (byte) (timestamp >>> shift);
+    }
+    offset = Varint.write(player + 1, scratch, offset);
+    offset = Varint.write(value, scratch, offset);
+    offset = Varint.write(roomBytes.length, scratch, offset);
+    System.arraycopy(roomBytes, 0, scratch, offset, roomBytes.length);
+    offset += roomBytes.length;
+    offset = Varint.write(detailLength, scratch, offset);
+    if (detailBytes != null) {
+      System.arraycopy(detailBytes, 0, scratch, offset, detailLength);
+    }
+    crc.reset();
+    crc.update(scratch, 0, payload);
+
+    int recordBytes = Varint.size(payload) + Integer.BYTES + payload;
+    long pendingSize = segmentSize + batch.position();
+    if (pendingSize + recordBytes > segmentBytes && pendingSize > MAGIC.length) {
+      writeBatch();
+      rotate();
+    }
+    if (batch.remaining() < recordBytes) {
+      writeBatch();
+    }
+    if (batch.remaining() < recordBytes) {
+      // Registro mayor que el lote: se escribe directamente
+      ByteBuffer large = ByteBuffer.allocate(recordBytes);
+      putRecord(large, payload);
+      large.flip();
+      writeFully(large);
+      return;
+    }
+    putRecord(batch, payload);
+  }
+
+  private void putRecord(ByteBuffer target, int payload) {
+    int lengthSize = Varint.write(payload, target.array(), target.arrayOffset() + target.position())
+        - target.arrayOffset() - target.position();
+    target.position(target.position() + lengthSize);
+    target.putInt((int) crc.getValue());
+    target.put(scratch, 0, payload);
+  }
+
+  private void writeBatch() throws IOException {
+    if (batch.position() == 0) {
+      return;
+    }
+    batch.flip();
+    writeFully(batch);
+    batch.clear();
+  }
+
+  private void writeFully(ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      segmentSize += channel.write(buffer);
+    }
+    unforced = true;
+  }
+
+  private void force() throws IOException {
+    if (unforced) {
+      channel.force(false);
+      unforced = false;
+    }
+    lastForce = System.nanoTime();
+  }
+
+  private void rotate() throws IOException {
+    force();
+    channel.close();
+    openNextSegment();
+  }
+
+  private void openNextSegment() throws IOException {
+    segmentIndex++;
+    channel = FileChannel.open(segmentPath(directory, segmentIndex), StandardOpenOption.CREATE_NEW,
+        StandardOpenOption.WRITE);
+    segmentSize = 0;
+    writeFully(ByteBuffer.wrap(MAGIC));
+  }
+
+  static Path segmentPath(Path directory, long index) {
+    return directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+  }
+
+  static long segmentNumber(Path segment) {
+    String name = segment.getFileName().toString();
+    return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+  }
+
+  /**
+   * Posición del búfer. Se reutiliza: sus campos se sobrescriben en cada
+   * vuelta.
+   */
+  private static final class Entry {
+    private long timestamp;
+    private RecordType type;
+    private String room;
+    private int player;
+    private int value;
+    private String detail;
+  }
+
+  private static final class Shared {
+    private static final Journal INSTANCE = open();
+
+    private static Journal open() {
+      String dir = GameConfig.journalDir();
+      if (dir == null) {
+        return DISABLED;
+      }
+      try {
+        Journal journal = new Journal(Path.of(dir), GameConfig.journalBufferSize(),
+            GameConfig.journalSegmentBytes(), GameConfig.journalFsync(), GameConfig.journalFsyncMillis());
+        logger.info("[OK] Diario de carreras en " + journal.getCurrentSegment());
+        return journal;
+      } catch (IOException e) {
+        logger.log(Level.WARNING, "[!] No se pudo abrir el diario de carreras en " + dir, e);
+        return DISABLED;
+      }
+    }
+  }
+}
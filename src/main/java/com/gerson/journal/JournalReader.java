@@ -0,0 +1,147 @@
+package com.gerson.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import com.gerson.protocol.Varint;
+
+/**
+ * Lee los segmentos escritos por {@link Journal}. Cada segmento se proyecta
+ * en memoria y se recorre en orden; un registro incompleto o con CRC
+ * incorrecto (por ejemplo, el final de un segmento escrito durante una
+ * caída) termina la lectura de ese segmento y se pasa al siguiente.
+ */
+public final class JournalReader {
+  private static final Logger logger = Logger.getLogger(JournalReader.class.getName());
+
+  private JournalReader() {
+  }
+
+  /**
+   * Devuelve los segmentos de un directorio, del más antiguo al más
+   * reciente.
+   * 
+   * @param directory directorio del diario
+   * @return segmentos ordenados; vacío si el directorio no existe
+   * @throws IOException si no se puede listar el directorio
+   */
+  public static List<Path> segments(Path directory) throws IOException {
+    List<Path> segments = new ArrayList<>();
+    if (!Files.isDirectory(directory)) {
+      return segments;
+    }
+    try (Stream<Path> files = Files.list(directory)) {
+      files.filter(JournalReader::isSegment).sorted().forEach(segments::add);
+    }
+    return segments;
+  }
+
+  /**
+   * Lee todos los registros de un directorio en orden.
+   * 
+   * @param directory directorio del diario
+   * @param consumer  receptor de cada registro
+   * @return registros leídos
+   * @throws IOException si no se puede leer algún segmento
+   */
+  public static long read(Path directory, Consumer<JournalRecord> consumer) throws IOException {
+    long count = 0;
+    for (Path segment : segments(directory)) {
+      count += readSegment(segment, consumer);
+    }
+    return count;
+  }
+
+  /**
+   * Lee los registros válidos de un segmento.
+   * 
+   * @param segment  fichero del segmento
+   * @param consumer receptor de cada registro
+   * @return registros leídos
+   * @throws IOException si no se puede leer el fichero o no es un segmento
+   */
+  public static long readSegment(Path segment, Consumer<JournalRecord> consumer) throws IOException {
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      byte[] magic = new byte[Journal.MAGIC.length];
+      if (buffer.remaining() < magic.length) {
+        throw new IOException("Segmento sin cabecera: " + segment);
+      }
+      buffer.get(magic);
+      if (!Arrays.equals(magic, Journal.MAGIC)) {
+        throw new IOException("No es un segmento del diario: " + segment);
+      }
+      CRC32 crc = new CRC32();
+      long count = 0;
+      while (buffer.hasRemaining()) {
+        JournalRecord record = next(buffer, crc);
+        if (record == null) {
+          logger.warning("[!] Registro incompleto o dañado en " + segment + ", posición " + buffer.position());
+          break;
+        }
+        consumer.accept(record);
+        count++;
+      }
+      return count;
+    }
+  }
+
+  /**
+   * Decodifica el siguiente registro.
+   * 
+   * @return registro, o null si está incompleto o dañado
+   */
+  private static JournalRecord next(ByteBuffer buffer, CRC32 crc) {
+    try {
+      int length = Varint.read(buffer);
+      if (length == Varint.INCOMPLETE || length < 0 || buffer.remaining() < Integer.BYTES + length) {
+        return null;
+      }
+      int expected = buffer.getInt();
+      ByteBuffer payload = buffer.slice(buffer.position(), length);
+      crc.reset();
+      crc.update(payload.duplicate());
+      if ((int) crc.getValue() != expected) {
+        return null;
+      }
+      buffer.position(buffer.position() + length);
+      RecordType type = RecordType.fromCode(payload.get() & 0xFF);
+      long timestamp = payload.getLong();
+      int player = Varint.read(payload) - 1;
+      int value = Varint.read(payload);
+      String room = readString(payload);
+      String detail = readString(payload);
+      if (type == null) {
+        return null;
+      }
+      return new JournalRecord(type, timestamp, room, player, value, detail.isEmpty() ? null : detail);
+    } catch (IOException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  private static String readString(ByteBuffer payload) throws IOException {
+    int length = Varint.read(payload);
+    byte[] bytes = new byte[length];
+    payload.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static boolean isSegment(Path path) {
+    String name = path.getFileName().toString();
+    return name.startsWith(Journal.SEGMENT_PREFIX) && name.endsWith(Journal.SEGMENT_SUFFIX);
+  }
+}
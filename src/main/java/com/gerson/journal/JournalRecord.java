@@ -0,0 +1,92 @@
+package com.gerson.journal;
+
+/**
+ * Registro leído del diario de carreras.
+ */
+public final class JournalRecord {
+  private final RecordType type;
+  private final long timestamp;
+  private final String room;
+  private final int player;
+  private final int value;
+  private final String detail;
+
+  /**
+   * Crea un registro.
+   * 
+   * @param type      tipo de registro
+   * @param timestamp instante en milisegundos desde la época
+   * @param room      sala del evento
+   * @param player    identificador del jugador, o -1 si no aplica
+   * @param value     valor numérico, según el tipo
+   * @param detail    detalle de texto, o null
+   */
+  public JournalRecord(RecordType type, long timestamp, String room, int player, int value, String detail) {
+    this.type = type;
+    this.timestamp = timestamp;
+    this.room = room;
+    this.player = player;
+    this.value = value;
+    this.detail = detail;
+  }
+
+  /**
+   * Devuelve el tipo de registro.
+   * 
+   * @return tipo de registro
+   */
+  public RecordType getType() {
+    return type;
+  }
+
+  /**
+   * Devuelve el instante del evento.
+   * 
+   * @return milisegundos desde la época
+   */
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  /**
+   * Devuelve la sala del evento.
+   * 
+   * @return nombre de la sala
+   */
+  public String getRoom() {
+    return room;
+  }
+
+  /**
+   * Devuelve el jugador del evento.
+   * 
+   * @return identificador del jugador, o -1 si no aplica
+   */
+  public int getPlayer() {
+    return player;
+  }
+
+  /**
+   * Devuelve el valor numérico del evento, según su tipo.
+   * 
+   * @return valor del evento
+   */
+  public int getValue() {
+    return value;
+  }
+
+  /**
+   * Devuelve el detalle de texto del evento.
+   * 
+   * @return detalle, o null
+   */
+  public String getDetail() {
+    return detail;
+  }
+
+  @Override
+  public String toString() {
+    return type + " room=" + room + " player=" + player + " value=" + value
+        + (detail != null ? " detail=" + detail : "");
+  }
+}
@@ -0,0 +1,69 @@
+package com.gerson.journal;
+
+/**
+ * Tipos de registro del diario de carreras. El código de cada tipo se
+ * escribe en disco, así que no debe cambiar aunque se añadan tipos nuevos.
+ */
+public enum RecordType {
+  /** El jugador se unió a la sala; el detalle es su nombre. */
+  JOIN(1),
+  /** El jugador se marcó listo; el valor es el número de listos. */
+  READY(2),
+  /** Aviso de la cuenta regresiva; el valor son los segundos restantes. */
+  COUNTDOWN(3),
+  /** Salida de la carrera; el valor es el número de jugadores. */
+  RACE_START(4),
+  /** Clic aceptado; el valor es el progreso resultante. */
+  ADVANCE(5),
+  /** Clics que el cliente dice haber enviado. */
+  CLICKS_REPORTED(6),
+  /** Fin de la carrera; el valor es el progreso y el detalle, el nombre. */
+  WIN(7),
+  /** El jugador salió de la sala; el valor son los jugadores restantes. */
+  LEAVE(8),
+  /** La conexión del jugador se cortó y su posición se conserva. */
+  SUSPEND(9),
+  /** El jugador retomó su sesión desde una conexión nueva. */
+  RESUME(10),
+  /** El jugador fue expulsado; el detalle es el motivo. */
+  KICK(11),
+  /** Venció el límite de tiempo de la carrera. */
+  RACE_TIMEOUT(12),
+  /** El jugador cambió de nombre; el detalle es el nombre nuevo. */
+  RENAME(13),
+  /** Registros perdidos por encontrar lleno el búfer; el valor es cuántos. */
+  GAP(127);
+
+  private static final RecordType[] BY_CODE = new RecordType[128];
+
+  static {
+    for (RecordType type : values()) {
+      BY_CODE[type.code] = type;
+    }
+  }
+
+  private final int code;
+
+  RecordType(int code) {
+    this.code = code;
+  }
+
+  /**
+   * Código con el que el tipo se escribe en disco.
+   * 
+   * @return código de un byte
+   */
+  public int code() {
+    return code;
+  }
+
+  /**
+   * Devuelve el tipo de un código leído de disco.
+   * 
+   * @param code código leído
+   * @return tipo correspondiente, o null si no se conoce
+   */
+  public static RecordType fromCode(int code) {
+    return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+  }
+}
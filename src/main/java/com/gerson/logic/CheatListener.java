@@ -0,0 +1,63 @@
+package com.gerson.logic;
+
+import com.gerson.model.Player;
+
+/**
+ * Recibe los jugadores que la conciliación de clics marca al terminar una
+ * carrera. La sala ya registró el evento {@code cheat_flag} y la métrica
+ * {@code horse_players_flagged_total}; el oyente decide qué más hacer.
+ *
+ * <p>
+ * Se invoca con el candado de la sala adquirido, al cerrarse la ventana de
+ * informes que sigue a la victoria o antes, si otra carrera empieza o el
+ * jugador se va. Los clics del jugador siguen siendo los de la carrera
+ * terminada. Debe ser breve y no bloquear.
+ */
+@FunctionalInterface
+public interface CheatListener {
+
+  /**
+   * Motivo por el que se marca a un jugador.
+   */
+  enum Reason {
+    /** Se descartaron más clics suyos por ritmo que el umbral admitido. */
+    RATE_LIMIT("rate_limit"),
+    /** Los clics recibidos no cuadran con los que el cliente informó. */
+    REPORT_MISMATCH("report_mismatch");
+
+    private final String key;
+
+    Reason(String key) {
+      this.key = key;
+    }
+
+    /**
+     * Nombre del motivo en el registro de eventos.
+     * 
+     * @return clave del motivo
+     */
+    public String key() {
+      return key;
+    }
+  }
+
+  /**
+   * Oyente que no hace nada más que lo que ya registra la sala.
+   * 
+   * @return oyente vacío
+   */
+  static CheatListener none() {
+    return (room, player, reason, dropped) -> {
+    };
+  }
+
+  /**
+   * Notifica que un jugador fue marcado.
+   * 
+   * @param room    nombre de la sala
+   * @param player  jugador marcado
+   * @param reason  motivo de la marca
+   * @param dropped clics descartados por superar el ritmo máximo
+   */
+  void flagged(String room, Player player, Reason reason, int dropped);
+}
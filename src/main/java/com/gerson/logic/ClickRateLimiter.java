@@ -0,0 +1,176 @@
+package com.gerson.logic;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Límite de ritmo de clics por jugador con ventana deslizante. Cada posición
+ * de jugador ({@link com.gerson.model.Player#getSlot()}) tiene un anillo de
+ * tamaño fijo con los instantes de sus últimos clics aceptados: un clic se
+ * acepta si el más antiguo del anillo ya salió de la ventana, y entonces
+ * ocupa su lugar. Comprobar un clic cuesta O(1) y no reserva memoria.
+ *
+ * <p>
+ * Los anillos viven en arreglos primitivos divididos en segmentos, como en
+ * {@link com.gerson.model.RaceState}. Cada posición solo la toca la sala de
+ * su jugador con el candado adquirido, así que las lecturas y escrituras no
+ * se sincronizan; solo crecer añade un segmento bajo candado.
+ */
+public final class ClickRateLimiter {
+  private static final int SEGMENT_BITS = 10;
+  private static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+  private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+  /** Instante de un hueco vacío del anillo: siempre fuera de la ventana. */
+  private static final long EMPTY = Long.MIN_VALUE / 2;
+
+  private final int maxClicks;
+  private final long windowMillis;
+  private final ReentrantLock growthLock = new ReentrantLock();
+  private volatile Segment[] segments = new Segment[0];
+
+  /**
+   * Crea un límite de ritmo.
+   * 
+   * @param maxClicks    clics admitidos dentro de la ventana; 0 lo desactiva
+   * @param windowMillis duración de la ventana deslizante
+   */
+  public ClickRateLimiter(int maxClicks, long windowMillis) {
+    this.maxClicks = Math.max(0, maxClicks);
+    this.windowMillis = Math.max(1, windowMillis);
+  }
+
+  /**
+   * Devuelve el límite compartido por las salas del servidor, configurado
+   * con {@link GameConfig#clickRateMax()} y
+   * {@link GameConfig#clickRateWindowMillis()}.
+   * 
+   * @return límite compartido
+   */
+  public static ClickRateLimiter shared() {
+    return Shared.INSTANCE;
+  }
+
+  /**
+   * Indica si el límite está activo.
+   * 
+   * @return false si admite cualquier ritmo
+   */
+  public boolean isEnabled() {
+    return maxClicks > 0;
+  }
+
+  /**
+   * Devuelve los clics admitidos dentro de la ventana.
+   * 
+   * @return capacidad del anillo de cada jugador
+   */
+  public int getMaxClicks() {
+    return maxClicks;
+  }
+
+  /**
+   * Devuelve la duración de la ventana deslizante.
+   * 
+   * @return milisegundos de la ventana
+   */
+  public long getWindowMillis() {
+    return windowMillis;
+  }
+
+  /**
+   * Vacía el anillo y los clics descartados de una posición, para un jugador
+   * nuevo o una carrera nueva. Crea su segmento si aún no existe.
+   * 
+   * @param slot posición del jugador
+   */
+  public void reset(int slot) {
+    if (!isEnabled()) {
+      return;
+    }
+    Segment segment = segmentFor(slot);
+    int index = slot & SEGMENT_MASK;
+    int base = index * maxClicks;
+    Arrays.fill(segment.times, base, base + maxClicks, EMPTY);
+    segment.heads[index] = 0;
+    segment.dropped[index] = 0;
+  }
+
+  /**
+   * Comprueba un clic y, si cabe en la ventana, lo anota.
+   * 
+   * @param slot posición del jugador
+   * @param now  instante del clic en milisegundos, de un reloj monótono
+   * @return true si el clic se acepta; false si supera el ritmo máximo
+   */
+  public boolean tryAcquire(int slot, long now) {
+    if (!isEnabled()) {
+      return true;
+    }
+    Segment segment = segmentFor(slot);
+    int index = slot & SEGMENT_MASK;
+    int head = segment.heads[index];
+    int oldest = index * maxClicks + head;
+    if (now - segment.times[oldest] < windowMillis) {
+      segment.dropped[index]++;
+      return false;
+    }
+    segment.times[oldest] = now;
+    segment.heads[index] = head + 1 == maxClicks ? 0 : head + 1;
+    return true;
+  }
+
+  /**
+   * Devuelve los clics descartados desde el último {@link #reset(int)}.
+   * 
+   * @param slot posición del jugador
+   * @return clics descartados
+   */
+  public int dropped(int slot) {
+    Segment[] current = segments;
+    int segmentIndex = slot >>> SEGMENT_BITS;
+    return segmentIndex < current.length ? current[segmentIndex].dropped[slot & SEGMENT_MASK] : 0;
+  }
+
+  /**
+   * Devuelve el segmento de la posición, creándolo si hace falta. Solo la
+   * primera posición de cada segmento paga la reserva.
+   */
+  private Segment segmentFor(int slot) {
+    int segmentIndex = slot >>> SEGMENT_BITS;
+    Segment[] current = segments;
+    if (segmentIndex < current.length) {
+      return current[segmentIndex];
+    }
+    growthLock.lock();
+    try {
+      current = segments;
+      if (segmentIndex >= current.length) {
+        Segment[] grown = Arrays.copyOf(current, segmentIndex + 1);
+        for (int i = current.length; i < grown.length; i++) {
+          grown[i] = new Segment(maxClicks);
+        }
+        segments = grown;
+        current = grown;
+      }
+      return current[segmentIndex];
+    } finally {
+      growthLock.unlock();
+    }
+  }
+
+  private static final class Segment {
+    private final long[] times;
+    private final int[] heads = new int[SEGMENT_SIZE];
+    private final int[] dropped = new int[SEGMENT_SIZE];
+
+    private Segment(int maxClicks) {
+      times = new long[SEGMENT_SIZE * maxClicks];
+      Arrays.fill(times, EMPTY);
+    }
+  }
+
+  private static final class Shared {
+    private static final ClickRateLimiter INSTANCE = new ClickRateLimiter(GameConfig.clickRateMax(),
+        GameConfig.clickRateWindowMillis());
+  }
+}
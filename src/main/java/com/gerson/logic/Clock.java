@@ -0,0 +1,49 @@
+package com.gerson.logic;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Fuente de tiempo de la lógica de juego. Todos los plazos de las salas
+ * (cuenta regresiva, límite de carrera, expulsiones, ticks de progreso y
+ * plazo de reanudación) se programan en la rueda de su reloj, de modo que un
+ * {@link VirtualClock} puede simular carreras completas sin esperar.
+ */
+public interface Clock {
+
+  /**
+   * Devuelve el reloj del sistema, con la rueda compartida
+   * {@link TimerWheel#shared()}.
+   * 
+   * @return reloj de tiempo real
+   */
+  static Clock system() {
+    return SystemClock.INSTANCE;
+  }
+
+  /**
+   * Tiempo monótono en milisegundos. Solo sirve para medir intervalos.
+   * 
+   * @return milisegundos desde un origen arbitrario
+   */
+  long millis();
+
+  /**
+   * Rueda en la que se programan los plazos del juego.
+   * 
+   * @return rueda de temporizadores del reloj
+   */
+  TimerWheel timers();
+
+  /**
+   * Espera a que se cumpla una condición que depende de los plazos del
+   * juego. El reloj del sistema la comprueba periódicamente; uno virtual
+   * avanza el tiempo hasta que se cumpla, sin esperar.
+   * 
+   * @param condition condición a esperar
+   * @param timeout   tiempo máximo, real o simulado
+   * @param unit      unidad del tiempo máximo
+   * @return true si la condición se cumplió
+   */
+  boolean waitUntil(BooleanSupplier condition, long timeout, TimeUnit unit);
+}
@@ -0,0 +1,252 @@
+package com.gerson.logic;
+
+import com.gerson.events.EventType;
+import com.gerson.journal.FsyncPolicy;
+
+/**
+ * Parámetros de la lógica de juego. Los valores se leen de propiedades del
+ * sistema ({@code -Dhorse.*}) con valores por defecto razonables.
+ */
+public final class GameConfig {
+  public static final int DEFAULT_TICK_HZ = 30;
+  private static final int MAX_TICK_HZ = 1000;
+
+  private GameConfig() {
+  }
+
+  /**
+   * Frecuencia de la simulación, en ticks por segundo. Con 0 se desactiva la
+   * agrupación de clics y cada clic se difunde de inmediato.
+   * 
+   * @return valor de {@code horse.tick.hz} acotado entre 0 y 1000
+   */
+  public static int tickHz() {
+    int hz = Integer.getInteger("horse.tick.hz", DEFAULT_TICK_HZ);
+    return Math.max(0, Math.min(MAX_TICK_HZ, hz));
+  }
+
+  /**
+   * Duración de un tick de simulación en milisegundos.
+   * 
+   * @return milisegundos por tick, o 0 si la agrupación está desactivada
+   */
+  public static long tickIntervalMillis() {
+    int hz = tickHz();
+    return hz == 0 ? 0 : Math.max(1, 1000L / hz);
+  }
+
+  /**
+   * Duración de cada casillero de la rueda de temporizadores.
+   * 
+   * @return valor de {@code horse.timer.tick.ms}, 10 por defecto
+   */
+  public static long timerTickMillis() {
+    return Math.max(1, Long.getLong("horse.timer.tick.ms", 10));
+  }
+
+  /**
+   * Número de casilleros de la rueda de temporizadores.
+   * 
+   * @return valor de {@code horse.timer.wheel.size}, 512 por defecto
+   */
+  public static int timerWheelSize() {
+    return Math.max(2, Integer.getInteger("horse.timer.wheel.size", 512));
+  }
+
+  /**
+   * Duración máxima de una carrera. Al vencer, gana el caballo más
+   * adelantado.
+   * 
+   * @return valor de {@code horse.race.limit.seconds} en milisegundos; 0
+   *         desactiva el límite
+   */
+  public static long raceTimeLimitMillis() {
+    return seconds("horse.race.limit.seconds", 180);
+  }
+
+  /**
+   * Tiempo que los jugadores tienen para marcarse listos una vez que alguno
+   * lo está y la sala puede empezar. Al vencer, se expulsa a quienes no lo
+   * estén.
+   * 
+   * @return valor de {@code horse.ready.timeout.seconds} en milisegundos; 0
+   *         lo desactiva
+   */
+  public static long readyTimeoutMillis() {
+    return seconds("horse.ready.timeout.seconds", 60);
+  }
+
+  /**
+   * Tiempo sin mensajes tras el cual se expulsa a un jugador durante la
+   * carrera.
+   * 
+   * @return valor de {@code horse.idle.timeout.seconds} en milisegundos; 0
+   *         lo desactiva
+   */
+  public static long idleTimeoutMillis() {
+    return seconds("horse.idle.timeout.seconds", 30);
+  }
+
+  /**
+   * Tiempo durante el que se conserva la posición de un jugador desconectado
+   * para que retome la sesión con su token.
+   * 
+   * @return valor de {@code horse.resume.grace.seconds} en milisegundos, 15
+   *         s por defecto; 0 desactiva la reanudación
+   */
+  public static long resumeGraceMillis() {
+    return seconds("horse.resume.grace.seconds", 15);
+  }
+
+  /**
+   * Ventana en la que se agrupan las llegadas, salidas y cambios de nombre
+   * de una sala antes de difundirlos en un único delta de roster.
+   * 
+   * @return valor de {@code horse.roster.coalesce.ms}, 50 por defecto; 0
+   *         difunde cada cambio de inmediato
+   */
+  public static long rosterCoalesceMillis() {
+    return Math.max(0, Long.getLong("horse.roster.coalesce.ms", 50));
+  }
+
+  /**
+   * Clics que un jugador puede enviar dentro de la ventana de
+   * {@link #clickRateWindowMillis()}. Los que la superan se descartan.
+   * 
+   * @return valor de {@code horse.click.rate.max}, 20 por defecto; 0
+   *         desactiva el límite
+   */
+  public static int clickRateMax() {
+    return Math.max(0, Integer.getInteger("horse.click.rate.max", 20));
+  }
+
+  /**
+   * Ventana deslizante en la que se cuentan los clics de un jugador.
+   * 
+   * @return valor de {@code horse.click.rate.window.ms}, 1000 por defecto
+   */
+  public static long clickRateWindowMillis() {
+    return Math.max(1, Long.getLong("horse.click.rate.window.ms", 1000));
+  }
+
+  /**
+   * Parte fija de la diferencia admitida al terminar la carrera entre los
+   * clics que recibió el servidor y los que el cliente dice haber enviado.
+   * Se suma a {@link #clickReportTolerancePercent()}.
+   * 
+   * @return valor de {@code horse.click.report.tolerance}, 2 por defecto
+   */
+  public static int clickReportTolerance() {
+    return Math.max(0, Integer.getInteger("horse.click.report.tolerance", 2));
+  }
+
+  /**
+   * Parte proporcional de la diferencia admitida entre clics recibidos e
+   * informados, en porcentaje de los recibidos.
+   * 
+   * @return valor de {@code horse.click.report.tolerance.pct}, 10 por
+   *         defecto
+   */
+  public static int clickReportTolerancePercent() {
+    return Math.max(0, Integer.getInteger("horse.click.report.tolerance.pct", 10));
+  }
+
+  /**
+   * Tiempo que se esperan los últimos informes de clics tras la victoria
+   * antes de conciliarlos. El cliente informa cada cierto tiempo, así que
+   * sin esta espera su informe final llegaría tarde.
+   * 
+   * @return valor de {@code horse.click.report.window.ms}, 1500 por defecto;
+   *         0 concilia al anunciar la victoria
+   */
+  public static long clickReportWindowMillis() {
+    return Math.max(0, Long.getLong("horse.click.report.window.ms", 1500));
+  }
+
+  /**
+   * Clics descartados por ritmo que se admiten en una carrera antes de
+   * marcar al jugador. Un humano puede pasarse del ritmo en una ráfaga.
+   * 
+   * @return valor de {@code horse.click.drop.threshold}, 2 por defecto; se
+   *         marca a quien lo supera
+   */
+  public static int clickDropThreshold() {
+    return Math.max(0, Integer.getInteger("horse.click.drop.threshold", 2));
+  }
+
+  /**
+   * Posiciones del búfer del registro asíncrono de eventos.
+   * 
+   * @return valor de {@code horse.log.buffer}, 8192 por defecto
+   */
+  public static int logBufferSize() {
+    return Math.max(2, Integer.getInteger("horse.log.buffer", 8192));
+  }
+
+  /**
+   * Muestreo de un tipo de evento del registro asíncrono: se registra uno de
+   * cada tantos.
+   * 
+   * @param type tipo de evento
+   * @return valor de {@code horse.log.sample.<tipo>} (por ejemplo
+   *         {@code horse.log.sample.click}) o el del tipo por defecto; 0
+   *         desactiva el tipo
+   */
+  public static int logSampleEvery(EventType type) {
+    return Math.max(0, Integer.getInteger("horse.log.sample." + type.key(), type.defaultSampleEvery()));
+  }
+
+  /**
+   * Directorio del diario binario de carreras.
+   * 
+   * @return valor de {@code horse.journal.dir}, o null (por defecto) si el
+   *         diario está desactivado
+   */
+  public static String journalDir() {
+    String dir = System.getProperty("horse.journal.dir");
+    return dir == null || dir.isBlank() ? null : dir;
+  }
+
+  /**
+   * Posiciones del búfer de entrega al escritor del diario.
+   * 
+   * @return valor de {@code horse.journal.buffer}, 65536 por defecto
+   */
+  public static int journalBufferSize() {
+    return Math.max(2, Integer.getInteger("horse.journal.buffer", 65536));
+  }
+
+  /**
+   * Tamaño a partir del cual el diario rota a un segmento nuevo.
+   * 
+   * @return valor de {@code horse.journal.segment.mb} en bytes, 64 MB por
+   *         defecto
+   */
+  public static long journalSegmentBytes() {
+    return Math.max(1, Long.getLong("horse.journal.segment.mb", 64)) * 1024 * 1024;
+  }
+
+  /**
+   * Cuándo fuerza el diario sus escrituras al disco.
+   * 
+   * @return valor de {@code horse.journal.fsync} ({@code always},
+   *         {@code interval} o {@code never}), {@link FsyncPolicy#INTERVAL}
+   *         por defecto
+   */
+  public static FsyncPolicy journalFsync() {
+    return FsyncPolicy.parse(System.getProperty("horse.journal.fsync"), FsyncPolicy.INTERVAL);
+  }
+
+  /**
+   * Intervalo entre dos fsync del diario con {@link FsyncPolicy#INTERVAL}.
+   * 
+   * @return valor de {@code horse.journal.fsync.ms}, 1000 por defecto
+   */
+  public static long journalFsyncMillis() {
+    return Math.max(0, Long.getLong("horse.journal.fsync.ms", 1000));
+  }
+
+  private static long seconds(String property, long defaultSeconds) {
+    return Math.max(0, Long.getLong(property, defaultSeconds)) * 1000;
+  }
+}
@@ -2,31 +2,64 @@ package com.gerson.logic;
 
 import java.io.PrintStream;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import com.gerson.metrics.ServerMetrics;
 import com.gerson.model.Player;
+import com.gerson.network.ClientSink;
+import com.gerson.network.Frame;
+import com.gerson.network.PrintStreamSink;
+import com.gerson.snapshot.RoomSnapshot;
 
 /**
  * Clase principal que gestiona la lógica del juego.
- * Controla el registro de jugadores, el inicio de la carrera,
- * la recepción de mensajes de los clientes y la sincronización del estado.
+ * Asigna identificadores a los jugadores, los reparte entre salas de carrera
+ * independientes ({@link RaceRoom}) y delega en la sala de cada jugador el
+ * procesamiento de sus mensajes. Cada sala tiene su propio candado, por lo que
+ * el rendimiento crece con el número de salas en lugar de serializarse en un
+ * único objeto.
+ *
+ * <p>
+ * Al unirse a una sala, cada jugador recibe un token de reanudación. Si su
+ * conexión se corta, su posición se conserva durante un plazo de gracia
+ * ({@link GameConfig#resumeGraceMillis()}) sin difundir su salida; una
+ * conexión nueva que presente el token la retoma y recibe un único
+ * snapshot.
+ *
+ * <p>
+ * Todos los plazos del juego se programan en la rueda de un {@link Clock}.
+ * Con {@link #setClock(Clock)} y un {@link VirtualClock}, las carreras
+ * corren en tiempo simulado, sin esperas reales.
+ *
+ * <p>
+ * En un reinicio, {@link #handOff()} guarda el estado de todas las
+ * salas y {@link #restore(List)} lo recupera en el proceso nuevo: cada
+ * jugador vuelve suspendido, con su token, y el plazo de gracia empieza de
+ * nuevo.
  */
 public class GameManager {
   private static final GameManager gameManagerInstance = new GameManager();
-  private static final Logger logger = Logger.getLogger(GameManager.class.getName());
+  /** Canal de los jugadores recuperados hasta que retoman su sesión. */
+  private static final ClientSink DETACHED = new ClientSink() {
+    @Override
+    public void send(Frame frame) {
+      // Sin conexión todavía
+    }
+
+    @Override
+    public void close() {
+      // Sin conexión todavía
+    }
+  };
 
-  private final Map<Integer, Player> players = new HashMap<>();
-  private final List<PrintStream> clients = new ArrayList<>();
-  private final Set<Integer> readyPlayers = new HashSet<>();
-  private static final int MINIMUM_PLAYER_SIZE = 2;
-  private boolean raceStarted = false;
-  private int nextPlayerId = 1;
+  private final RoomManager roomManager = new RoomManager();
+  private final AtomicInteger nextPlayerId = new AtomicInteger(1);
+  private final ResumeTokens resumeTokens = new ResumeTokens();
+  private final ConcurrentHashMap<Player, TimerWheel.Timeout> suspended = new ConcurrentHashMap<>();
+  private volatile Clock clock = Clock.system();
 
   private GameManager() {
   }
@@ -41,164 +74,447 @@ public class GameManager {
   }
 
   /**
-   * Registra un nuevo jugador con su canal de salida asociado.
+   * Devuelve el gestor de salas.
+   * 
+   * @return gestor de salas del juego
+   */
+  public RoomManager getRoomManager() {
+    return roomManager;
+  }
+
+  /**
+   * Cambia el reloj del juego: el plazo de reanudación y las salas que se
+   * creen a partir de ahora usan su rueda de temporizadores.
+   * 
+   * @param clock reloj del juego
+   */
+  public void setClock(Clock clock) {
+    this.clock = clock;
+    roomManager.setClock(clock);
+  }
+
+  /**
+   * Cambia el oyente que recibe los jugadores marcados al conciliar los
+   * clics de cada carrera.
+   * 
+   * @param cheatListener oyente de jugadores marcados
+   */
+  public void setCheatListener(CheatListener cheatListener) {
+    roomManager.setCheatListener(cheatListener);
+  }
+
+  /**
+   * Devuelve el reloj del juego.
+   * 
+   * @return reloj vigente
+   */
+  public Clock getClock() {
+    return clock;
+  }
+
+  /**
+   * Registra un nuevo jugador en la sala principal con su canal de salida
+   * asociado.
    * 
    * @param output canal de salida para enviar mensajes al jugador
    * @return el nuevo objeto Player registrado
    */
-  public synchronized Player registerPlayer(PrintStream output) {
-    int id = nextPlayerId++;
-    Player player = new Player(id, output);
-    players.put(id, player);
-    clients.add(output);
+  public Player registerPlayer(PrintStream output) {
+    return registerPlayer(RoomManager.DEFAULT_ROOM, output);
+  }
+
+  /**
+   * Registra un nuevo jugador en la sala indicada, creándola si no existe.
+   * 
+   * @param roomName nombre de la sala
+   * @param output   canal de salida para enviar mensajes al jugador
+   * @return el nuevo objeto Player registrado
+   */
+  public Player registerPlayer(String roomName, PrintStream output) {
+    Player player = createPlayer(output);
+    joinRoom(player, roomName);
     return player;
   }
 
   /**
-   * Notifica a todos los clientes sobre la llegada de un nuevo jugador
+   * Crea un jugador con un identificador nuevo sin unirlo a ninguna sala.
+   * Se usa durante el saludo inicial, antes de conocer la sala elegida.
+   * 
+   * @param output canal de salida para enviar mensajes al jugador
+   * @return el jugador creado
+   */
+  public Player createPlayer(PrintStream output) {
+    return createPlayer(new PrintStreamSink(output));
+  }
+
+  /**
+   * Crea un jugador con un identificador nuevo y el canal de salida indicado,
+   * sin unirlo a ninguna sala.
+   * 
+   * @param sink canal por el que se envían los mensajes al jugador
+   * @return el jugador creado
+   */
+  public Player createPlayer(ClientSink sink) {
+    return createPlayer(reservePlayerId(), sink);
+  }
+
+  /**
+   * Reserva un identificador de jugador sin crear el jugador. Las conexiones
+   * lo envían al cliente nada más aceptarlas, pero solo crean el jugador
+   * cuando el saludo termina.
+   * 
+   * @return identificador nuevo
+   */
+  public int reservePlayerId() {
+    return nextPlayerId.getAndIncrement();
+  }
+
+  /**
+   * Crea un jugador con un identificador ya reservado, sin unirlo a ninguna
+   * sala.
+   * 
+   * @param id   identificador obtenido con {@link #reservePlayerId()}
+   * @param sink canal por el que se envían los mensajes al jugador
+   * @return el jugador creado
+   */
+  public Player createPlayer(int id, ClientSink sink) {
+    ServerMetrics.CONNECTED_CLIENTS.increment();
+    return new Player(id, sink);
+  }
+
+  /**
+   * Une un jugador a la sala indicada, creándola si no existe.
+   * 
+   * @param player   jugador a unir
+   * @param roomName nombre de la sala
+   * @return la sala a la que se unió el jugador, o null si la sala no se
+   *         puede alojar aquí (en un clúster, la aloja otro nodo)
+   */
+  public RaceRoom joinRoom(Player player, String roomName) {
+    while (true) {
+      RaceRoom room = roomManager.getOrCreate(roomName);
+      if (room == null) {
+        return null;
+      }
+      if (room.join(player)) {
+        return room;
+      }
+      // La sala se retiró mientras nos uníamos: se vuelve a crear
+    }
+  }
+
+  /**
+   * Notifica a los clientes de la sala del jugador sobre su llegada
    * y actualiza el estado del juego en consecuencia.
    * 
    * @param newPlayer jugador recién conectado
    */
-  public synchronized void notifyNewPlayer(Player newPlayer) {
-    logger.info("[:D] " + newPlayer.getName() + " (Caballo " + newPlayer.getId() + ") conectado.");
-    broadcastPlayerList();
-    notifyStartStatus();
+  public void notifyNewPlayer(Player newPlayer) {
+    RaceRoom room = roomOf(newPlayer);
+    if (room != null) {
+      room.notifyNewPlayer(newPlayer);
+    }
   }
 
   /**
-   * Procesa los mensajes recibidos desde un cliente.
+   * Procesa los mensajes recibidos desde un cliente delegando en su sala.
    * Puede marcar al jugador como listo, avanzar en la carrera o
    * actualizar el número de clics reportados.
    * 
    * @param player  jugador que envió el mensaje
    * @param message contenido del mensaje
    */
-  public synchronized void processClientMessage(Player player, String message) {
-    if (message.equalsIgnoreCase("ready")) {
-      readyPlayers.add(player.getId());
+  public void processClientMessage(Player player, String message) {
+    RaceRoom room = roomOf(player);
+    if (room != null) {
+      room.processClientMessage(player, message);
+    }
+  }
 
-      int totalReady = readyPlayers.size();
-      int totalConnected = players.size();
+  /**
+   * Marca al jugador como listo en su sala.
+   * 
+   * @param player jugador listo
+   */
+  public void processReady(Player player) {
+    RaceRoom room = roomOf(player);
+    if (room != null) {
+      room.ready(player);
+    }
+  }
 
-      if (logger.isLoggable(Level.INFO)) {
-        logger.info(String.format(
-            "[READY] %s listo (%d/%d)",
-            player.getName(),
-            totalReady,
-            totalConnected));
-      }
-      if (readyPlayers.size() == players.size()) {
-        startCountdown();
-      }
-    } else if (message.equalsIgnoreCase("click") && raceStarted) {
-      player.advance(10);
-      logger.info("[>>>] Caballo " + player.getId() + " avanzó a " + player.getProgress() + "%");
-      broadcastMessage(player.getId() + ":" + player.getProgress());
-      if (player.getProgress() >= 100) {
-        announceWinner(player);
-      }
-    } else if (message.startsWith("clicks_sent:")) {
-      int clicksReported = Integer.parseInt(message.split(":")[1]);
-      player.setReportedClicks(clicksReported);
-      if (logger.isLoggable(Level.INFO)) {
-        logger.info(String.format(
-            "[>] Caballo %d -> Clics reportados: %d",
-            player.getId(),
-            clicksReported));
-      }
+  /**
+   * Aplica un clic del jugador en su sala.
+   * 
+   * @param player jugador que hizo clic
+   */
+  public void processClick(Player player) {
+    RaceRoom room = roomOf(player);
+    if (room != null) {
+      room.click(player);
+    }
+  }
+
+  /**
+   * Registra los clics que el cliente dice haber enviado.
+   * 
+   * @param player jugador que informa
+   * @param clicks clics reportados
+   */
+  public void processClicksReported(Player player, int clicks) {
+    RaceRoom room = roomOf(player);
+    if (room != null) {
+      room.reportClicks(player, clicks);
+    }
+  }
+
+  /**
+   * Cambia el nombre del jugador en su sala.
+   * 
+   * @param player jugador que cambia de nombre
+   * @param name   nombre nuevo
+   */
+  public void processRename(Player player, String name) {
+    RaceRoom room = roomOf(player);
+    if (room != null) {
+      room.rename(player, name);
+    }
+  }
+
+  /**
+   * Envía al jugador el estado completo de su sala.
+   * 
+   * @param player jugador que pidió sincronizarse
+   */
+  public void processResync(Player player) {
+    RaceRoom room = roomOf(player);
+    if (room != null) {
+      room.resync(player);
     }
   }
 
   /**
-   * Elimina a un jugador y su canal de salida del sistema.
+   * Elimina a un jugador y su canal de salida de su sala. Si la sala queda
+   * vacía, se retira.
    * 
    * @param player jugador a eliminar
-   * @param output canal de salida asociado al jugador
+   * @param output canal de salida asociado al jugador (se conserva por
+   *               compatibilidad; se usa el canal del propio jugador)
+   */
+  public void removePlayer(Player player, PrintStream output) {
+    removePlayer(player);
+  }
+
+  /**
+   * Elimina a un jugador de su sala y libera su posición en el almacén de
+   * estado. Si la sala queda vacía, se retira.
+   * 
+   * @param player jugador a eliminar, puede ser null
+   */
+  public void removePlayer(Player player) {
+    if (player == null) {
+      return;
+    }
+    resumeTokens.revoke(player);
+    TimerWheel.Timeout grace = suspended.remove(player);
+    if (grace != null) {
+      grace.cancel();
+    }
+    RaceRoom room = roomOf(player);
+    if (room != null) {
+      room.removePlayer(player);
+      roomManager.retireIfEmpty(room);
+    }
+    if (player.release()) {
+      ServerMetrics.CONNECTED_CLIENTS.decrement();
+    }
+  }
+
+  /**
+   * Emite el token con el que el jugador podrá retomar su sesión, si la
+   * reanudación está activada.
+   * 
+   * @param player jugador que acaba de unirse a una sala
+   * @return token, o null si la reanudación está desactivada
    */
-  public synchronized void removePlayer(Player player, PrintStream output) {
-    if (player != null) {
-      players.remove(player.getId());
-      readyPlayers.remove(player.getId());
+  public String issueResumeToken(Player player) {
+    return GameConfig.resumeGraceMillis() > 0 ? resumeTokens.issue(player) : null;
+  }
+
+  /**
+   * Procesa el cierre de una conexión. Si el jugador puede retomar la
+   * sesión, se suspende: sigue en su sala, sin canal de salida, hasta que
+   * una conexión nueva presente su token o venza el plazo de gracia. Si no,
+   * se elimina como con {@link #removePlayer(Player)}.
+   * 
+   * @param player jugador de la conexión, puede ser null
+   * @param sink   canal de la conexión que se cerró
+   */
+  public void disconnectPlayer(Player player, ClientSink sink) {
+    if (player == null || player.getSink() != sink) {
+      // Otra conexión ya retomó la sesión de este jugador
+      return;
+    }
+    long grace = GameConfig.resumeGraceMillis();
+    RaceRoom room = roomOf(player);
+    if (grace == 0 || room == null || !player.isResumable() || !room.suspend(player)) {
+      removePlayer(player);
+      return;
+    }
+    TimerWheel.Timeout timeout = clock.timers().schedule(() -> expireSuspension(player), grace,
+        TimeUnit.MILLISECONDS);
+    TimerWheel.Timeout previous = suspended.put(player, timeout);
+    if (previous != null) {
+      previous.cancel();
     }
-    clients.remove(output);
-    notifyStartStatus();
+  }
 
-    if (!raceStarted && readyPlayers.size() == players.size() && !players.isEmpty()) {
-      logger.info("[INFO] Todos los jugadores restantes están listos. Iniciando carrera.");
-      startCountdown();
+  /**
+   * Retoma la sesión de un token con el canal de una conexión nueva. Si la
+   * conexión anterior sigue abierta, se desconecta: la nueva la sustituye.
+   * 
+   * @param token token presentado por el cliente
+   * @param sink  canal de la nueva conexión
+   * @return jugador retomado, o null si el token no es válido o el plazo
+   *         de gracia venció
+   */
+  public Player resumePlayer(String token, ClientSink sink) {
+    Player player = resumeTokens.find(token);
+    RaceRoom room = roomOf(player);
+    if (room == null) {
+      return null;
     }
+    TimerWheel.Timeout grace = suspended.remove(player);
+    if (grace != null) {
+      grace.cancel();
+    }
+    ClientSink previous = player.getSink();
+    if (!room.resume(player, sink)) {
+      return null;
+    }
+    if (previous != sink) {
+      previous.disconnect();
+    }
+    return player;
   }
 
   /**
-   * Envía la lista actual de jugadores conectados a todos los clientes.
+   * Entrega todas las salas a otro proceso: congela sus relojes y guarda su
+   * estado. Las salas vacías no se guardan. Los clientes no reciben nada
+   * hasta {@link #announce(String)}.
+   * 
+   * @return estado de cada sala con jugadores
    */
-  private void broadcastPlayerList() {
-    StringBuilder message = new StringBuilder("players:");
-    for (Player player : players.values()) {
-      message.append(player.getId()).append("-").append(player.getName()).append(",");
+  public List<RoomSnapshot> handOff() {
+    List<RoomSnapshot> snapshots = new ArrayList<>();
+    for (RaceRoom room : roomManager.getRooms()) {
+      RoomSnapshot snapshot = room.handOff();
+      if (!snapshot.getPlayers().isEmpty()) {
+        snapshots.add(snapshot);
+      }
     }
-    broadcastMessage(message.toString());
+    return snapshots;
   }
 
   /**
-   * Notifica si la carrera puede comenzar o si faltan jugadores.
+   * Envía un aviso a los clientes conectados de todas las salas.
+   * 
+   * @param notice mensaje a enviar
    */
-  private void notifyStartStatus() {
-    String status = players.size() >= MINIMUM_PLAYER_SIZE ? "can_start" : "wait_players";
-    if (logger.isLoggable(Level.INFO)) {
-      logger.info(String.format("[!] Enviando estado de inicio: %s", status));
+  public void announce(String notice) {
+    for (RaceRoom room : roomManager.getRooms()) {
+      room.announce(notice);
     }
-    broadcastMessage(status);
   }
 
   /**
-   * Inicia la cuenta regresiva en un hilo nuevo antes de comenzar la carrera.
-   * Captura interrupciones y registra advertencias si ocurren errores.
+   * Recupera el estado que otro proceso guardó con {@link #handOff()}.
+   * Cada jugador con token vuelve a su sala suspendido y con su mismo
+   * identificador, y tiene un plazo de gracia completo para retomar su
+   * sesión; los identificadores nuevos continúan tras el mayor recuperado.
+   * Sin reanudación no hay forma de retomar nada y no se recupera ningún
+   * jugador.
+   * 
+   * @param snapshots estado de las salas
+   * @return jugadores recuperados
    */
-  private void startCountdown() {
-    new Thread(() -> {
-      try {
-        for (int i = 3; i > 0; i--) {
-          broadcastMessage("countdown:" + i);
-          Thread.sleep(1000);
+  public int restore(List<RoomSnapshot> snapshots) {
+    long grace = GameConfig.resumeGraceMillis();
+    if (grace == 0) {
+      return 0;
+    }
+    int count = 0;
+    for (RoomSnapshot snapshot : snapshots) {
+      List<Player> restored = new ArrayList<>(snapshot.getPlayers().size());
+      for (RoomSnapshot.PlayerSnapshot saved : snapshot.getPlayers()) {
+        if (saved.getResumeToken() == null) {
+          // Nadie podría retomar esta posición
+          continue;
         }
-        raceStarted = true;
-        broadcastMessage("go");
-        logger.info("[GO] ¡Carrera iniciada!");
-      } catch (InterruptedException e) {
-        Thread.currentThread().interrupt();
-        logger.warning("Hilo interrumpido: " + e.getMessage());
+        Player player = createPlayer(saved.getId(), DETACHED);
+        player.setName(saved.getName());
+        player.restoreRace(saved.getProgress(), saved.getClicks());
+        player.setReportedClicks(saved.getReportedClicks());
+        player.setReady(saved.isReady());
+        player.setConnected(false);
+        resumeTokens.restore(player, saved.getResumeToken());
+        nextPlayerId.accumulateAndGet(saved.getId() + 1, Math::max);
+        restored.add(player);
       }
-    }).start();
+      RaceRoom room = restored.isEmpty() ? null : roomManager.getOrCreate(snapshot.getName());
+      if (room == null || !room.restore(snapshot, restored)) {
+        for (Player player : restored) {
+          removePlayer(player);
+        }
+        continue;
+      }
+      for (Player player : restored) {
+        suspended.put(player, clock.timers().schedule(() -> expireSuspension(player), grace,
+            TimeUnit.MILLISECONDS));
+      }
+      count += restored.size();
+    }
+    return count;
   }
 
   /**
-   * Envía un mensaje de victoria a todos los clientes y reinicia el estado de la
-   * carrera.
+   * Número de jugadores desconectados a la espera de retomar su sesión.
    * 
-   * @param player jugador que ganó la carrera
+   * @return jugadores suspendidos
    */
-  private void announceWinner(Player player) {
-    String winnerMessage = "win:" + player.getName();
-    broadcastMessage(winnerMessage);
-    logger.info(
-        "[!!!] Caballo "
-            + player.getId()
-            + " ("
-            + player.getName()
-            + ") ganó la carrera.");
-    raceStarted = false;
+  public int getSuspendedCount() {
+    return suspended.size();
   }
 
   /**
-   * Envía un mensaje a todos los canales de salida conectados.
-   * 
-   * @param message mensaje a enviar
+   * Elimina a un jugador suspendido cuyo plazo de gracia venció, salvo que
+   * haya retomado la sesión mientras tanto. Se ejecuta en el hilo de la
+   * rueda de temporizadores.
    */
-  private void broadcastMessage(String message) {
-    for (PrintStream out : clients) {
-      out.println(message);
+  private void expireSuspension(Player player) {
+    TimerWheel.Timeout timeout = suspended.get(player);
+    if (timeout == null || !timeout.isExpired() || !suspended.remove(player, timeout)) {
+      return;
+    }
+    RaceRoom room = roomOf(player);
+    if (room == null || !room.removeSuspended(player)) {
+      // Retomó la sesión justo antes de vencer, o ya no está en la sala
+      return;
     }
+    resumeTokens.revoke(player);
+    roomManager.retireIfEmpty(room);
+    if (player.release()) {
+      ServerMetrics.CONNECTED_CLIENTS.decrement();
+    }
+  }
+
+  /**
+   * Devuelve la sala en la que está el jugador.
+   * 
+   * @param player jugador a consultar
+   * @return su sala, o null si aún no se ha unido a ninguna
+   */
+  public RaceRoom roomOf(Player player) {
+    return player == null ? null : roomManager.find(player.getRoomName());
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,1332 @@
+package com.gerson.logic;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.gerson.events.EventLog;
+import com.gerson.events.EventType;
+import com.gerson.journal.Journal;
+import com.gerson.journal.RecordType;
+import com.gerson.metrics.Counter;
+import com.gerson.metrics.ServerMetrics;
+import com.gerson.model.Player;
+import com.gerson.network.ClientSink;
+import com.gerson.network.Frame;
+import com.gerson.protocol.Messages;
+import com.gerson.protocol.RacePhase;
+import com.gerson.protocol.RosterChange;
+import com.gerson.protocol.TextDecoder;
+import com.gerson.snapshot.RoomSnapshot;
+
+/**
+ * Sala de carrera independiente. Cada sala tiene sus propios jugadores,
+ * su propio estado de carrera y su propio candado, de modo que varias
+ * carreras avanzan en paralelo sin competir por un mismo monitor.
+ *
+ * <p>
+ * Los clics se aplican al instante, pero el progreso se difunde una sola vez
+ * por tick de simulación: los caballos que avanzaron durante el tick se
+ * envían juntos en un único marco de líneas {@code id:progreso}. La detección
+ * del ganador no espera al tick.
+ *
+ * <p>
+ * El progreso, los clics y el indicador de listo de cada jugador viven en el
+ * almacén primitivo {@link com.gerson.model.RaceState}; la sala solo guarda
+ * la lista de sus jugadores y cuántos están listos.
+ *
+ * <p>
+ * Cada difusión de progreso es un delta con un número de secuencia propio
+ * de la sala. Quien llega tarde, o quien detecta un salto porque su cola
+ * descartó un delta, recibe un único snapshot completo con la secuencia
+ * vigente en lugar de que se reenvíe todo a toda la sala.
+ *
+ * <p>
+ * La lista de jugadores también se difunde por deltas: las llegadas, salidas
+ * y cambios de nombre de una ventana ({@link GameConfig#rosterCoalesceMillis()})
+ * se agrupan en un único marco {@code roster:n} versionado, y el estado de
+ * inicio solo se difunde cuando cambia. La lista completa solo la recibe el
+ * recién llegado (o quien retoma su sesión), de modo que una avalancha de N
+ * llegadas no cuesta O(N²) bytes.
+ *
+ * <p>
+ * Cada jugador tiene un ritmo máximo de clics ({@link ClickRateLimiter}):
+ * los clics que lo superan se descartan antes de tocar el estado o la
+ * difusión. Tras la victoria, la sala espera un momento los últimos informes
+ * de clics, concilia los clics recibidos (también los que llegaron fuera de
+ * la carrera) con los que cada cliente informó y notifica los jugadores
+ * sospechosos a un {@link CheatListener}.
+ *
+ * <p>
+ * Los eventos de la sala se registran en {@link EventLog}, que solo copia
+ * unos campos en un búfer: con el candado adquirido no se formatea ni se
+ * escribe nada en consola.
+ *
+ * <p>
+ * En un reinicio, {@link #handOff()} congela los relojes de la sala y
+ * guarda su estado en un {@link RoomSnapshot}; el proceso nuevo lo recupera
+ * con {@link #restore(RoomSnapshot, List)} y los clientes retoman su sesión
+ * con su token.
+ */
+public class RaceRoom {
+  private static final int MINIMUM_PLAYER_SIZE = 2;
+  private static final int DIRECT_FRAME_THRESHOLD = 32;
+  private static final String CLICKS_SENT_PREFIX = "clicks_sent:";
+  private static final String RENAME_PREFIX = "rename:";
+  private static final int COUNTDOWN_SECONDS = 3;
+
+  private final String name;
+  private final long tickIntervalMillis;
+  private final ScheduledExecutorService ticker;
+  private final TimerWheel timers;
+  private final long raceTimeLimitMillis;
+  private final long readyTimeoutMillis;
+  private final long idleTimeoutMillis;
+  private final long rosterWindowMillis;
+  private final int clickReportTolerance;
+  private final int clickReportTolerancePercent;
+  private final long clickReportWindowMillis;
+  private final int clickDropThreshold;
+  private final List<Player> players = new ArrayList<>();
+  private final List<ClientSink> clients = new ArrayList<>();
+  private final Runnable flushTask = this::tick;
+  private final Map<Integer, PendingChange> pendingRoster = new LinkedHashMap<>();
+  private final Map<ClientSink, RosterView> freshClients = new HashMap<>();
+  private final ReentrantLock lock = new ReentrantLock();
+  private volatile ClickRateLimiter clickLimiter = ClickRateLimiter.shared();
+  private volatile CheatListener cheatListener = CheatListener.none();
+  private int readyCount = 0;
+  private boolean raceStarted = false;
+  private boolean retired = false;
+  private boolean flushScheduled = false;
+  private Player[] pendingProgress = new Player[8];
+  private int pendingCount;
+  private ScheduledFuture<?> flushFuture;
+  private TimerWheel.Timeout flushTimer;
+  private boolean announcedCanStart = false;
+  private int countdownRemaining;
+  private int stateSeq;
+  private int rosterVersion;
+  private int rosterOrder;
+  private long progressPendingSince;
+  private long lockedAt;
+  private TimerWheel.Timeout countdownTimer;
+  private TimerWheel.Timeout raceTimer;
+  private TimerWheel.Timeout readyTimer;
+  private TimerWheel.Timeout idleTimer;
+  private TimerWheel.Timeout rosterTimer;
+  private TimerWheel.Timeout reconcileTimer;
+
+  /**
+   * Crea una sala vacía que difunde cada clic de inmediato, sin agrupar.
+   * 
+   * @param name nombre de la sala
+   */
+  public RaceRoom(String name) {
+    this(name, 0, null);
+  }
+
+  /**
+   * Crea una sala vacía que agrupa el progreso por ticks de simulación.
+   * 
+   * @param name               nombre de la sala
+   * @param tickIntervalMillis duración del tick; 0 para difundir cada clic
+   * @param ticker             planificador compartido que ejecuta los ticks
+   */
+  public RaceRoom(String name, long tickIntervalMillis, ScheduledExecutorService ticker) {
+    this(name, tickIntervalMillis, ticker, TimerWheel.shared());
+  }
+
+  /**
+   * Crea una sala vacía con su propia rueda de temporizadores para la cuenta
+   * regresiva, el límite de la carrera y las expulsiones. Los plazos se leen
+   * de {@link GameConfig}.
+   * 
+   * @param name               nombre de la sala
+   * @param tickIntervalMillis duración del tick; 0 para difundir cada clic
+   * @param ticker             planificador compartido que ejecuta los ticks;
+   *                           si es null, los ticks se programan en la rueda
+   * @param timers             rueda de temporizadores compartida
+   */
+  public RaceRoom(String name, long tickIntervalMillis, ScheduledExecutorService ticker, TimerWheel timers) {
+    this.name = name;
+    this.tickIntervalMillis = Math.max(0, tickIntervalMillis);
+    this.ticker = ticker;
+    this.timers = timers;
+    this.raceTimeLimitMillis = GameConfig.raceTimeLimitMillis();
+    this.readyTimeoutMillis = GameConfig.readyTimeoutMillis();
+    this.idleTimeoutMillis = GameConfig.idleTimeoutMillis();
+    this.rosterWindowMillis = GameConfig.rosterCoalesceMillis();
+    this.clickReportTolerance = GameConfig.clickReportTolerance();
+    this.clickReportTolerancePercent = GameConfig.clickReportTolerancePercent();
+    this.clickReportWindowMillis = GameConfig.clickReportWindowMillis();
+    this.clickDropThreshold = GameConfig.clickDropThreshold();
+  }
+
+  /**
+   * Cambia el límite de ritmo de clics de la sala. Por defecto se usa
+   * {@link ClickRateLimiter#shared()}.
+   * 
+   * @param clickLimiter límite de ritmo
+   */
+  public void setClickLimiter(ClickRateLimiter clickLimiter) {
+    this.clickLimiter = clickLimiter;
+  }
+
+  /**
+   * Cambia el oyente que recibe los jugadores marcados por la conciliación
+   * de clics.
+   * 
+   * @param cheatListener oyente de jugadores marcados
+   */
+  public void setCheatListener(CheatListener cheatListener) {
+    this.cheatListener = cheatListener;
+  }
+
+  /**
+   * Devuelve el nombre de la sala.
+   * 
+   * @return nombre de la sala
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Indica si el jugador sigue en esta sala. Un mensaje que llega después
+   * de eliminarlo no debe tocar su posición en
+   * {@link com.gerson.model.RaceState}, que puede estar ya en manos de otro
+   * jugador. Debe invocarse con el candado adquirido.
+   */
+  private boolean isMember(Player player) {
+    return name.equals(player.getRoomName());
+  }
+
+  /**
+   * Añade un jugador a la sala. Falla si la sala ya fue retirada.
+   * 
+   * @param player jugador que se une
+   * @return true si el jugador quedó en la sala
+   */
+  public boolean join(Player player) {
+    acquireLock();
+    try {
+      if (retired) {
+        return false;
+      }
+      players.add(player);
+      clients.add(player.getSink());
+      clickLimiter.reset(player.getSlot());
+      player.setRoomName(name);
+      return true;
+    } finally {
+      releaseLock();
+    }
+  }
+
+  /**
+   * Anuncia la llegada de un nuevo jugador. Él recibe la lista completa, el
+   * estado de inicio y un snapshot; el resto de la sala recibe su
+   * {@code player_joined} en el próximo delta de roster.
+   * 
+   * @param newPlayer jugador recién conectado
+   */
+  public void notifyNewPlayer(Player newPlayer) {
+    acquireLock();
+    try {
+      EventLog.shared().log(EventType.JOIN, name, newPlayer.getId(), 0, newPlayer.getName());
+      Journal.shared().append(RecordType.JOIN, name, newPlayer.getId(), 0, newPlayer.getName());
+      queueRosterChange(RosterChange.joined(newPlayer.getId(), newPlayer.getName()));
+      sendRoomState(newPlayer);
+      scheduleRosterFlush();
+    } finally {
+      releaseLock();
+    }
+  }
+
+  /**
+   * Cambia el nombre de un jugador y lo anuncia en el próximo delta de
+   * roster. Los nombres vacíos se ignoran.
+   * 
+   * @param player  jugador que cambia de nombre
+   * @param newName nombre nuevo
+   */
+  public void rename(Player player, String newName) {
+    String trimmed = newName == null ? "" : newName.trim();
+    if (trimmed.isEmpty()) {
+      return;
+    }
+    acquireLock();
+    try {
+      if (!isMember(player) || trimmed.equals(player.getName())) {
+        return;
+      }
+      player.markActive();
+      player.setName(trimmed);
+      EventLog.shared().log(EventType.RENAME, name, player.getId(), 0, trimmed);
+      Journal.shared().append(RecordType.RENAME, name, player.getId(), 0, trimmed);
+      queueRosterChange(RosterChange.renamed(player.getId(), trimmed));
+      scheduleRosterFlush();
+    } finally {
+      releaseLock();
+    }
+  }
+
+  /**
+   * Envía al jugador el estado completo de la sala, con la secuencia del
+   * último delta difundido. Lo pide un cliente que detectó un salto en la
+   * secuencia; el resto de la sala no recibe nada.
+   * 
+   * @param player jugador que pidió sincronizarse
+   */
+  public void resync(Player player) {
+    acquireLock();
+    try {
+      if (!isMember(player)) {
+        return;
+      }
+      player.markActive();
+      sendSnapshot(player);
+    } finally {
+      releaseLock();
+    }
+  }
+
+  /**
+   * Procesa los mensajes de texto recibidos desde un cliente de la sala.
+   * Puede marcar al jugador como listo, avanzar en la carrera,
+   * actualizar el número de clics reportados, cambiar su nombre o pedir el
+   * estado completo.
+   * 
+   * @param player  jugador que envió el mensaje
+   * @param message contenido del mensaje
+   */
+  public void processClientMessage(Player player, String message) {
+    if (message.equalsIgnoreCase("ready")) {
+      ready(player);
+    } else if (message.equalsIgnoreCase("click")) {
+      click(player);
+    } else if (message.equalsIgnoreCase("resync")) {
+      resync(player);
+    } else if (message.startsWith(CLICKS_SENT_PREFIX)) {
+      // Mismo criterio que TextDecoder: un recuento mal formado se ignora
+      byte[] bytes = message.getBytes(StandardCharsets.US_ASCII);
+      int clicks = TextDecoder.parseInt(bytes, CLICKS_SENT_PREFIX.length(), bytes.length);
+      if (clicks >= 0) {
+        reportClicks(player, clicks);
+      }
+    } else if (message.startsWith(RENAME_PREFIX)) {
+      rename(player, message.substring(RENAME_PREFIX.length()));
+    }
+  }
+
+  /**
+   * Marca al jugador como listo e inicia la cuenta regresiva cuando todos lo
+   * están. Si faltan jugadores por marcarse, arranca el plazo para hacerlo.
+   * 
+   * @param player jugador listo
+   */
+  public void ready(Player player) {
+    acquireLock();
+    try {
+      if (!isMember(player)) {
+        return;
+      }
+      player.markActive();
+      if (player.setReady(true)) {
+        readyCount++;
+      }
+
+      EventLog.shared().log(EventType.READY, name, player.getId(), readyCount, null);
+      Journal.shared().append(RecordType.READY, name, player.getId(), readyCount, null);
+      if (readyCount == players.size()) {
+        startCountdown();
+      } else {
+        scheduleReadyTimeout();
+      }
+    } finally {
+      releaseLock();
+    }
+  }
+
+  /**
+   * Aplica un clic del jugador si la carrera está en curso y no supera su
+   * ritmo máximo. Fuera de la carrera solo se cuenta para la conciliación.
+   * Es el camino más frecuente: con el progreso agrupado por ticks no
+   * reserva memoria y su evento se muestrea en el registro asíncrono
+   * {@link EventLog}.
+   * 
+   * @param player jugador que hizo clic
+   */
+  public void click(Player player) {
+    acquireLock();
+    try {
+      if (!isMember(player)) {
+        return;
+      }
+      if (!raceStarted) {
+        // El cliente lo cuenta en sus informes aunque no avance
+        player.ignoreClick();
+        return;
+      }
+      if (!clickLimiter.tryAcquire(player.getSlot(), timers.millis())) {
+        ServerMetrics.CLICKS_DROPPED.increment();
+        return;
+      }
+      player.markActive();
+      int progress = player.click(10);
+      EventLog.shared().log(EventType.CLICK, name, player.getId(), progress, null);
+      Journal.shared().append(RecordType.ADVANCE, name, player.getId(), progress, null);
+      if (progress >= 100) {
+        markProgressPending(player);
+        flushProgress();
+        announceWinner(player);
+      } else if (tickIntervalMillis == 0) {
+        long clickedAt = System.nanoTime();
+        broadcast(Messages.progress(++stateSeq, player, useDirectFrames()), ServerMetrics.PROGRESS_OUT);
+        ServerMetrics.CLICK_TO_BROADCAST.record(System.nanoTime() - clickedAt);
+      } else {
+        markProgressPending(player);
+        scheduleFlush();
+      }
+    } finally {
+      releaseLock();
+    }
+  }
+
+  /**
+   * Registra los clics que el cliente dice haber enviado.
+   * 
+   * @param player jugador que informa
+   * @param clicks clics reportados
+   */
+  public void reportClicks(Player player, int clicks) {
+    acquireLock();
+    try {
+      if (!isMember(player)) {
+        return;
+      }
+      player.markActive();
+      player.setReportedClicks(clicks);
+      EventLog.shared().log(EventType.CLICKS_REPORTED, name, player.getId(), clicks, null);
+      Journal.shared().append(RecordType.CLICKS_REPORTED, name, player.getId(), clicks, null);
+    } finally {
+      releaseLock();
+    }
+  }
+
+  /**
+   * Elimina a un jugador y su canal de salida de la sala y anuncia su
+   * {@code player_left} en el próximo delta de roster. Si la sala queda
+   * vacía, cancela sus temporizadores. El jugador deja de apuntar a la sala,
+   * así que sus mensajes tardíos ya no llegan a ella.
+   * 
+   * @param player jugador a eliminar
+   */
+  public void removePlayer(Player player) {
+    acquireLock();
+    try {
+      boolean removed = players.remove(player);
+      if (removed && reconcileTimer != null) {
+        // Quien se va tras la victoria no espera a que cierre la ventana
+        reconcile(player);
+      }
+      if (removed && player.isReady()) {
+        readyCount--;
+      }
+      if (removed) {
+        player.setRoomName(null);
+        EventLog.shared().log(EventType.LEAVE, name, player.getId(), players.size(), null);
+        Journal.shared().append(RecordType.LEAVE, name, player.getId(), players.size(), null);
+      }
+      removePendingProgress(player);
+      clients.remove(player.getSink());
+      freshClients.remove(player.getSink());
+      if (players.isEmpty()) {
+        // Sin jugadores no hay cuenta regresiva ni carrera que vigilar, ni
+        // nadie a quien difundir la lista
+        cancelTimers();
+        pendingRoster.clear();
+        rosterOrder = 0;
+        announcedCanStart = false;
+        raceStarted = false;
+      }
+      if (removed && !players.isEmpty()) {
+        queueRosterChange(RosterChange.left(player.getId()));
+        scheduleRosterFlush();
+      }
+
+      if (!raceStarted && readyCount == players.size() && !players.isEmpty()) {
+        // Todos los jugadores restantes están listos
+        startCountdown();
+      }
+    } finally {
+      releaseLock();
+    }
+  }
+
+  /**
+   * Suspende a un jugador cuya conexión se cortó: deja de recibir
+   * difusiones pero conserva su posición, su progreso y su estado de listo.
+   * No se difunde nada al resto de la sala.
+   * 
+   * @param player jugador desconectado
+   * @return false si el jugador ya no está en la sala
+   */
+  public boolean suspend(Player player) {
+    acquireLock();
+    try {
+      if (!players.contains(player)) {
+        return false;
+      }
+      clients.remove(player.getSink());
+      freshClients.remove(player.getSink());
+      player.setConnected(false);
+      EventLog.shared().log(EventType.SUSPEND, name, player.getId(), players.size(), null);
+      Journal.shared().append(RecordType.SUSPEND, name, player.getId(), players.size(), null);
+      return true;
+    } finally {
+      releaseLock();
+    }
+  }
+
+  /**
+   * Vuelve a conectar a un jugador con el canal de una conexión nueva y le
+   * envía {@code resumed:id} seguido de la lista completa, el estado de
+   * inicio y un snapshot de la sala, ya que pudo perder deltas. Si la
+   * conexión anterior seguía activa, su canal deja de recibir difusiones.
+   * 
+   * @param player jugador que retoma la sesión
+   * @param sink   canal de la nueva conexión
+   * @return false si el jugador ya no está en la sala
+   */
+  public boolean resume(Player player, ClientSink sink) {
+    acquireLock();
+    try {
+      if (!players.contains(player)) {
+        return false;
+      }
+      clients.remove(player.getSink());
+      freshClients.remove(player.getSink());
+      player.setSink(sink);
+      clients.add(sink);
+      player.setConnected(true);
+      player.markActive();
+      sink.send("resumed:" + player.getId());
+      sendRoomState(player);
+      EventLog.shared().log(EventType.RESUME, name, player.getId(), players.size(), null);
+      Journal.shared().append(RecordType.RESUME, name, player.getId(), players.size(), null);
+      return true;
+    } finally {
+      releaseLock();
+    }
+  }
+
+  /**
+   * Elimina a un jugador suspendido cuyo plazo de gracia venció. No hace
+   * nada si retomó la sesión mientras tanto.
+   * 
+   * @param player jugador suspendido
+   * @return true si se eliminó
+   */
+  public boolean removeSuspended(Player player) {
+    acquireLock();
+    try {
+      if (player.isConnected() || !players.contains(player)) {
+        return false;
+      }
+      removePlayer(player);
+      return true;
+    } finally {
+      releaseLock();
+    }
+  }
+
+  /**
+   * Devuelve el número de jugadores en la sala.
+   * 
+   * @return cantidad de jugadores
+   */
+  public int getPlayerCount() {
+    acquireLock();
+    try {
+      return players.size();
+    } finally {
+      releaseLock();
+    }
+  }
+
+  /**
+   * Indica si la carrera de la sala está en curso.
+   * 
+   * @return true si la carrera ya comenzó y aún no tiene ganador
+   */
+  public boolean isRaceStarted() {
+    acquireLock();
+    try {
+      return raceStarted;
+    } finally {
+      releaseLock();
+    }
+  }
+
+  /**
+   * Devuelve la fase de la sala.
+   * 
+   * @return fase actual
+   */
+  public RacePhase getPhase() {
+    acquireLock();
+    try {
+      return phase();
+    } finally {
+      releaseLock();
+    }
+  }
+
+  /**
+   * Entrega la sala a otro proceso: guarda su estado y cancela sus
+   * temporizadores para que ni la cuenta regresiva ni los plazos avancen
+   * desde ese momento. Los jugadores siguen en la sala hasta que se cierren
+   * sus conexiones.
+   * 
+   * @return estado de la sala
+   */
+  public RoomSnapshot handOff() {
+    acquireLock();
+    try {
+      RacePhase phase = phase();
+      reconcilePending();
+      cancelTimers();
+      List<RoomSnapshot.PlayerSnapshot> saved = new ArrayList<>(players.size());
+      for (Player player : players) {
+        saved.add(new RoomSnapshot.PlayerSnapshot(player.getId(), player.getName(), player.getProgress(),
+            player.getClicks(), player.getReportedClicks(), player.isReady(), player.getResumeToken()));
+      }
+      return new RoomSnapshot(name, phase, stateSeq, rosterVersion, saved);
+    } finally {
+      releaseLock();
+    }
+  }
+
+  /**
+   * Envía un aviso a todos los clientes conectados de la sala, como el que
+   * les pide volver a conectarse tras guardar su estado.
+   * 
+   * @param notice mensaje a enviar
+   */
+  public void announce(String notice) {
+    acquireLock();
+    try {
+      for (ClientSink client : clients) {
+        client.send(notice);
+      }
+    } finally {
+      releaseLock();
+    }
+  }
+
+  /**
+   * Recupera el estado que otro proceso entregó con
+   * {@link #handOff()}. Los jugadores llegan suspendidos, sin
+   * conexión, a la espera de retomar su sesión con su token. Una carrera en
+   * curso sigue con el progreso guardado y un límite de tiempo nuevo; una
+   * cuenta regresiva vuelve a empezar.
+   * 
+   * @param snapshot estado guardado de la sala
+   * @param restored jugadores recuperados, en el orden del estado guardado
+   * @return false si la sala ya fue retirada
+   */
+  public boolean restore(RoomSnapshot snapshot, List<Player> restored) {
+    acquireLock();
+    try {
+      if (retired) {
+        return false;
+      }
+      for (Player player : restored) {
+        players.add(player);
+        clickLimiter.reset(player.getSlot());
+        player.setRoomName(name);
+        // Cuenta como activo hasta la primera comprobación de inactividad
+        player.markActive();
+        if (player.isReady()) {
+          readyCount++;
+        }
+      }
+      stateSeq = snapshot.getStateSeq();
+      rosterVersion = snapshot.getRosterVersion();
+      announcedCanStart = players.size() >= MINIMUM_PLAYER_SIZE;
+      if (snapshot.getPhase() == RacePhase.RACING) {
+        raceStarted = true;
+        scheduleRaceTimers();
+      } else if (snapshot.getPhase() == RacePhase.COUNTDOWN) {
+        startCountdown();
+      } else {
+        scheduleReadyTimeout();
+      }
+      return true;
+    } finally {
+      releaseLock();
+    }
+  }
+
+  /**
+   * Marca la sala como retirada si no tiene jugadores ni clientes. Una sala
+   * retirada ya no admite nuevos jugadores.
+   * 
+   * @return true si la sala quedó retirada
+   */
+  boolean retireIfEmpty() {
+    acquireLock();
+    try {
+      if (!players.isEmpty() || !clients.isEmpty()) {
+        return false;
+      }
+      retired = true;
+      return true;
+    } finally {
+      releaseLock();
+    }
+  }
+
+  /**
+   * Difunde en un solo marco el progreso de todos los caballos que avanzaron
+   * desde el último tick. Se invoca desde el planificador compartido.
+   */
+  public void tick() {
+    acquireLock();
+    try {
+      flushProgress();
+    } finally {
+      releaseLock();
+    }
+  }
+
+  /**
+   * Programa la difusión periódica del progreso pendiente, si aún no está
+   * programada. Se repite hasta que termina la carrera, así que los ticks
+   * siguientes no reservan ningún temporizador. Debe invocarse con el
+   * candado adquirido.
+   */
+  private void scheduleFlush() {
+    if (!flushScheduled) {
+      flushScheduled = true;
+      if (ticker != null) {
+        flushFuture = ticker.scheduleAtFixedRate(flushTask, tickIntervalMillis, tickIntervalMillis,
+            TimeUnit.MILLISECONDS);
+      } else {
+        flushTimer = timers.scheduleAtFixedRate(flushTask, tickIntervalMillis, TimeUnit.MILLISECONDS);
+      }
+    }
+  }
+
+  /**
+   * Detiene la difusión periódica del progreso. Debe invocarse con el
+   * candado adquirido.
+   */
+  private void cancelFlush() {
+    flushScheduled = false;
+    flushTimer = cancel(flushTimer);
+    if (flushFuture != null) {
+      flushFuture.cancel(false);
+      flushFuture = null;
+    }
+  }
+
+  /**
+   * Añade un caballo al progreso pendiente y, si es el primero desde la
+   * última difusión, anota cuándo empezó a esperar. El indicador de la
+   * posición del jugador evita repetirlo sin recorrer el arreglo. Debe
+   * invocarse con el candado adquirido.
+   */
+  private void markProgressPending(Player player) {
+    if (!player.markProgressPending()) {
+      return;
+    }
+    if (pendingCount == 0) {
+      progressPendingSince = System.nanoTime();
+    }
+    if (pendingCount == pendingProgress.length) {
+      pendingProgress = Arrays.copyOf(pendingProgress, pendingCount * 2);
+    }
+    pendingProgress[pendingCount++] = player;
+  }
+
+  /**
+   * Quita a un jugador del progreso pendiente. Debe invocarse con el
+   * candado adquirido.
+   */
+  private void removePendingProgress(Player player) {
+    if (!player.clearProgressPending()) {
+      return;
+    }
+    for (int i = 0; i < pendingCount; i++) {
+      if (pendingProgress[i] == player) {
+        System.arraycopy(pendingProgress, i + 1, pendingProgress, i, pendingCount - i - 1);
+        pendingProgress[--pendingCount] = null;
+        return;
+      }
+    }
+  }
+
+  /**
+   * Vacía el progreso pendiente. Debe invocarse con el candado adquirido.
+   */
+  private void clearPendingProgress() {
+    for (int i = 0; i < pendingCount; i++) {
+      pendingProgress[i].clearProgressPending();
+      pendingProgress[i] = null;
+    }
+    pendingCount = 0;
+  }
+
+  /**
+   * Envía un único mensaje con una línea {@code id:progreso} por cada caballo
+   * que avanzó. Debe invocarse con el candado adquirido.
+   */
+  private void flushProgress() {
+    if (pendingCount == 0) {
+      return;
+    }
+    Frame frame = Messages.progress(++stateSeq, pendingProgress, pendingCount, useDirectFrames());
+    clearPendingProgress();
+    broadcast(frame, ServerMetrics.PROGRESS_OUT);
+    ServerMetrics.CLICK_TO_BROADCAST.record(System.nanoTime() - progressPendingSince);
+  }
+
+  /**
+   * Envía solo al jugador indicado un snapshot de la sala. Debe invocarse
+   * con el candado adquirido.
+   */
+  private void sendSnapshot(Player player) {
+    if (!players.contains(player)) {
+      return;
+    }
+    player.getSink().send(Messages.snapshot(stateSeq, phase(), players, false));
+    ServerMetrics.SNAPSHOT_OUT.increment();
+  }
+
+  private RacePhase phase() {
+    return raceStarted ? RacePhase.RACING : countdownTimer != null ? RacePhase.COUNTDOWN : RacePhase.WAITING;
+  }
+
+  /**
+   * Envía solo al jugador indicado la lista completa de la sala, el estado
+   * de inicio y un snapshot. La lista ya incluye los cambios pendientes, así
+   * que del próximo delta solo recibirá los posteriores. Debe invocarse con
+   * el candado adquirido.
+   */
+  private void sendRoomState(Player player) {
+    if (!players.contains(player)) {
+      return;
+    }
+    ClientSink sink = player.getSink();
+    boolean canStart = players.size() >= MINIMUM_PLAYER_SIZE;
+    // Versión del último delta difundido: el pendiente se aplica encima
+    sink.send(Messages.playerList(rosterVersion, players, false));
+    ServerMetrics.PLAYERS_OUT.increment();
+    sink.send(Messages.startStatus(canStart, false));
+    ServerMetrics.START_STATUS_OUT.increment();
+    freshClients.put(sink, new RosterView(rosterOrder, canStart));
+    sendSnapshot(player);
+  }
+
+  /**
+   * Añade un cambio al próximo delta de roster y lo combina con el cambio
+   * pendiente del mismo jugador. Una llegada y una salida en la misma
+   * ventana se anulan, salvo que algún recién llegado ya viera al jugador
+   * en su lista completa. Debe invocarse con el candado adquirido.
+   */
+  private void queueRosterChange(RosterChange change) {
+    int order = ++rosterOrder;
+    PendingChange previous = pendingRoster.remove(change.getPlayerId());
+    RosterChange merged = previous == null ? change : previous.change.then(change);
+    if (merged == null && seenByFreshClient(previous.order)) {
+      merged = change;
+    }
+    if (merged != null) {
+      pendingRoster.put(change.getPlayerId(), new PendingChange(merged, order));
+    }
+  }
+
+  private boolean seenByFreshClient(int order) {
+    for (RosterView view : freshClients.values()) {
+      if (view.seenOrder >= order) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Programa la difusión de los cambios de roster al final de la ventana, o
+   * la hace ya si la agrupación está desactivada. Debe invocarse con el
+   * candado adquirido.
+   */
+  private void scheduleRosterFlush() {
+    if (rosterWindowMillis == 0) {
+      flushRoster();
+    } else if (rosterTimer == null) {
+      rosterTimer = timers.schedule(this::rosterWindowElapsed, rosterWindowMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Difunde los cambios de roster agrupados durante la ventana. Se ejecuta
+   * en el hilo de la rueda de temporizadores.
+   */
+  private void rosterWindowElapsed() {
+    acquireLock();
+    try {
+      rosterTimer = null;
+      flushRoster();
+    } finally {
+      releaseLock();
+    }
+  }
+
+  /**
+   * Envía en un único marco los cambios de roster pendientes y, a quien no
+   * lo conozca, el estado de inicio. Los recién llegados de la ventana solo
+   * reciben lo que su lista completa no incluía. Debe invocarse con el
+   * candado adquirido.
+   */
+  private void flushRoster() {
+    rosterTimer = cancel(rosterTimer);
+    long start = System.nanoTime();
+    int sent = 0;
+    if (!pendingRoster.isEmpty()) {
+      // La versión solo avanza si alguien recibe el delta
+      int version = rosterVersion + 1;
+      Frame frame = null;
+      for (ClientSink client : clients) {
+        RosterView view = freshClients.get(client);
+        if (view == null) {
+          if (frame == null) {
+            frame = Messages.rosterDelta(version, changesAfter(0), useDirectFrames());
+          }
+          client.send(frame);
+          sent++;
+        } else {
+          List<RosterChange> missed = changesAfter(view.seenOrder);
+          if (!missed.isEmpty()) {
+            client.send(Messages.rosterDelta(version, missed, false));
+            sent++;
+          }
+        }
+      }
+      if (sent > 0) {
+        rosterVersion = version;
+      }
+      ServerMetrics.ROSTER_OUT.add(sent);
+    }
+
+    boolean canStart = players.size() >= MINIMUM_PLAYER_SIZE;
+    if (canStart != announcedCanStart || !freshClients.isEmpty()) {
+      Frame status = null;
+      sent = 0;
+      for (ClientSink client : clients) {
+        RosterView view = freshClients.get(client);
+        if ((view == null ? announcedCanStart : view.canStart) != canStart) {
+          if (status == null) {
+            EventLog.shared().log(EventType.START_STATUS, name, -1, players.size(),
+                canStart ? "can_start" : "wait_players");
+            status = Messages.startStatus(canStart, useDirectFrames());
+          }
+          client.send(status);
+          sent++;
+        }
+      }
+      ServerMetrics.START_STATUS_OUT.add(sent);
+      announcedCanStart = canStart;
+    }
+    ServerMetrics.BROADCAST_FAN_OUT.record(System.nanoTime() - start);
+    pendingRoster.clear();
+    freshClients.clear();
+    rosterOrder = 0;
+  }
+
+  private List<RosterChange> changesAfter(int order) {
+    List<RosterChange> changes = new ArrayList<>(pendingRoster.size());
+    for (PendingChange pending : pendingRoster.values()) {
+      if (pending.order > order) {
+        changes.add(pending.change);
+      }
+    }
+    return changes;
+  }
+
+  /**
+   * Inicia la cuenta regresiva antes de comenzar la carrera. Cada segundo es
+   * un temporizador de la rueda compartida, así que no ocupa ningún hilo y
+   * puede cancelarse. No hace nada si ya hay una cuenta regresiva o una
+   * carrera en curso. Debe invocarse con el candado adquirido.
+   */
+  private void startCountdown() {
+    if (raceStarted || countdownTimer != null) {
+      return;
+    }
+    readyTimer = cancel(readyTimer);
+    if (rosterTimer != null) {
+      // Quien vaya a correr debe conocer la lista antes de la cuenta regresiva
+      flushRoster();
+    }
+    // El primer aviso sale en el siguiente tick de la rueda, fuera del
+    // mensaje que completó la lista de jugadores listos
+    countdownRemaining = COUNTDOWN_SECONDS + 1;
+    countdownTimer = timers.schedule(this::countdownStep, 0, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Avanza la cuenta regresiva un segundo y da la salida al llegar a cero.
+   * Se ejecuta en el hilo de la rueda de temporizadores.
+   */
+  private void countdownStep() {
+    acquireLock();
+    try {
+      if (countdownTimer == null || countdownTimer.isCancelled()) {
+        return;
+      }
+      countdownRemaining--;
+      if (countdownRemaining > 0) {
+        Journal.shared().append(RecordType.COUNTDOWN, name, -1, countdownRemaining, null);
+        broadcast(Messages.countdown(countdownRemaining, useDirectFrames()), ServerMetrics.COUNTDOWN_OUT);
+        countdownTimer = timers.schedule(this::countdownStep, 1, TimeUnit.SECONDS);
+      } else {
+        countdownTimer = null;
+        startRace();
+      }
+    } finally {
+      releaseLock();
+    }
+  }
+
+  /**
+   * Da la salida con todos los caballos a cero y programa el límite de
+   * tiempo de la carrera y la comprobación de inactividad. Debe invocarse con el candado adquirido.
+   */
+  private void startRace() {
+    // Los clics de la carrera anterior se concilian antes de ponerlos a cero
+    reconcilePending();
+    raceStarted = true;
+    for (Player player : players) {
+      player.resetRace();
+      player.takeActivity();
+      clickLimiter.reset(player.getSlot());
+    }
+    broadcast(Messages.go(useDirectFrames()), ServerMetrics.GO_OUT);
+    EventLog.shared().log(EventType.RACE_START, name, -1, players.size(), null);
+    Journal.shared().append(RecordType.RACE_START, name, -1, players.size(), null);
+    scheduleRaceTimers();
+  }
+
+  /**
+   * Programa el límite de tiempo de la carrera y la comprobación de
+   * inactividad. Debe invocarse con el candado adquirido.
+   */
+  private void scheduleRaceTimers() {
+    if (raceTimeLimitMillis > 0) {
+      raceTimer = timers.schedule(this::raceTimeLimitReached, raceTimeLimitMillis, TimeUnit.MILLISECONDS);
+    }
+    if (idleTimeoutMillis > 0) {
+      idleTimer = timers.schedule(this::checkIdlePlayers, idleTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Termina la carrera al vencer su límite de tiempo: gana el caballo más
+   * adelantado.
+   */
+  private void raceTimeLimitReached() {
+    acquireLock();
+    try {
+      raceTimer = null;
+      if (!raceStarted || players.isEmpty()) {
+        return;
+      }
+      Player leader = players.get(0);
+      for (Player player : players) {
+        if (player.getProgress() > leader.getProgress()) {
+          leader = player;
+        }
+      }
+      EventLog.shared().log(EventType.RACE_TIMEOUT, name, -1, players.size(), null);
+      Journal.shared().append(RecordType.RACE_TIMEOUT, name, -1, players.size(), null);
+      flushProgress();
+      announceWinner(leader);
+    } finally {
+      releaseLock();
+    }
+  }
+
+  /**
+   * Expulsa a los jugadores que no enviaron ningún mensaje desde la
+   * comprobación anterior y vuelve a programarse mientras dure la carrera.
+   */
+  private void checkIdlePlayers() {
+    List<Player> idle = new ArrayList<>();
+    acquireLock();
+    try {
+      idleTimer = null;
+      if (!raceStarted) {
+        return;
+      }
+      for (Player player : players) {
+        if (!player.takeActivity()) {
+          idle.add(player);
+        }
+      }
+      idleTimer = timers.schedule(this::checkIdlePlayers, idleTimeoutMillis, TimeUnit.MILLISECONDS);
+    } finally {
+      releaseLock();
+    }
+    kick(idle, "inactividad");
+  }
+
+  /**
+   * Arranca el plazo para que todos se marquen listos, si la sala puede
+   * empezar y el plazo no está ya en marcha. Debe invocarse con el candado
+   * adquirido.
+   */
+  private void scheduleReadyTimeout() {
+    if (readyTimeoutMillis > 0 && readyTimer == null && countdownTimer == null && !raceStarted
+        && players.size() >= MINIMUM_PLAYER_SIZE) {
+      readyTimer = timers.schedule(this::readyTimeoutReached, readyTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Expulsa a quienes no se marcaron listos a tiempo. Al salir ellos, el
+   * resto está listo y {@link #removePlayer(Player)} inicia la cuenta
+   * regresiva.
+   */
+  private void readyTimeoutReached() {
+    List<Player> unready = new ArrayList<>();
+    acquireLock();
+    try {
+      readyTimer = null;
+      if (raceStarted || countdownTimer != null) {
+        return;
+      }
+      for (Player player : players) {
+        if (!player.isReady()) {
+          unready.add(player);
+        }
+      }
+    } finally {
+      releaseLock();
+    }
+    kick(unready, "no marcarse listo a tiempo");
+  }
+
+  /**
+   * Desconecta a los jugadores indicados. Se invoca sin el candado: cerrar
+   * la conexión acaba llamando a {@link #removePlayer(Player)}.
+   */
+  private void kick(List<Player> kicked, String reason) {
+    for (Player player : kicked) {
+      EventLog.shared().log(EventType.KICK, name, player.getId(), 0, reason);
+      Journal.shared().append(RecordType.KICK, name, player.getId(), 0, reason);
+      // Sin reanudación, el cierre de la conexión lo elimina de la sala
+      player.setResumable(false);
+      player.getSink().disconnect();
+    }
+  }
+
+  /**
+   * Cancela todos los temporizadores de la sala. Debe invocarse con el
+   * candado adquirido.
+   */
+  private void cancelTimers() {
+    countdownTimer = cancel(countdownTimer);
+    raceTimer = cancel(raceTimer);
+    readyTimer = cancel(readyTimer);
+    idleTimer = cancel(idleTimer);
+    rosterTimer = cancel(rosterTimer);
+    reconcileTimer = cancel(reconcileTimer);
+    cancelFlush();
+  }
+
+  private static TimerWheel.Timeout cancel(TimerWheel.Timeout timeout) {
+    if (timeout != null) {
+      timeout.cancel();
+    }
+    return null;
+  }
+
+  /**
+   * Envía un mensaje de victoria a todos los clientes y reinicia el estado de la
+   * carrera.
+   * 
+   * @param player jugador que ganó la carrera
+   */
+  private void announceWinner(Player player) {
+    broadcast(Messages.winner(player.getName(), useDirectFrames()), ServerMetrics.WIN_OUT);
+    clearPendingProgress();
+    cancelFlush();
+    raceTimer = cancel(raceTimer);
+    idleTimer = cancel(idleTimer);
+    EventLog.shared().log(EventType.WIN, name, player.getId(), player.getProgress(), player.getName());
+    Journal.shared().append(RecordType.WIN, name, player.getId(), player.getProgress(), player.getName());
+    raceStarted = false;
+    if (clickReportWindowMillis == 0) {
+      reconcileClicks();
+    } else {
+      // El informe final del cliente sale tras recibir la victoria
+      reconcileTimer = timers.schedule(this::reportWindowClosed, clickReportWindowMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Concilia los clics al cerrarse la ventana de informes de la carrera
+   * terminada.
+   */
+  private void reportWindowClosed() {
+    acquireLock();
+    try {
+      if (reconcileTimer == null || reconcileTimer.isCancelled()) {
+        return;
+      }
+      reconcileTimer = null;
+      reconcileClicks();
+    } finally {
+      releaseLock();
+    }
+  }
+
+  /**
+   * Concilia en el acto los clics de la carrera terminada si su ventana de
+   * informes sigue abierta. Debe invocarse con el candado adquirido.
+   */
+  private void reconcilePending() {
+    if (reconcileTimer != null) {
+      reconcileTimer = cancel(reconcileTimer);
+      reconcileClicks();
+    }
+  }
+
+  /**
+   * Concilia los clics de cada jugador de la sala. Debe invocarse con el
+   * candado adquirido.
+   */
+  private void reconcileClicks() {
+    for (Player player : players) {
+      reconcile(player);
+    }
+  }
+
+  /**
+   * Concilia los clics de un jugador al terminar la carrera. Se marca a
+   * quien superó el ritmo máximo más veces que el umbral y a quien informó
+   * un número de clics que se aleja de los recibidos (aceptados, descartados
+   * y llegados fuera de la carrera) más que la tolerancia: una holgura fija
+   * más un porcentaje de los recibidos. Debe invocarse con el candado
+   * adquirido.
+   */
+  private void reconcile(Player player) {
+    int dropped = clickLimiter.dropped(player.getSlot());
+    int received = player.getClicks() + dropped + player.getIgnoredClicks();
+    int tolerance = clickReportTolerance + received * clickReportTolerancePercent / 100;
+    player.clearIgnoredClicks();
+    CheatListener.Reason reason;
+    if (dropped > clickDropThreshold) {
+      reason = CheatListener.Reason.RATE_LIMIT;
+    } else if (Math.abs(received - player.getReportedClicks()) > tolerance) {
+      reason = CheatListener.Reason.REPORT_MISMATCH;
+    } else {
+      return;
+    }
+    ServerMetrics.PLAYERS_FLAGGED.increment();
+    EventLog.shared().log(EventType.CHEAT_FLAG, name, player.getId(), dropped, reason.key());
+    cheatListener.flagged(name, player, reason, dropped);
+  }
+
+  /**
+   * Indica si conviene codificar los marcos en búferes directos: con muchos
+   * destinatarios, el canal no copia los bytes a un búfer temporal en cada
+   * escritura.
+   * 
+   * @return true si la sala tiene muchos clientes
+   */
+  private boolean useDirectFrames() {
+    return clients.size() >= DIRECT_FRAME_THRESHOLD;
+  }
+
+  /**
+   * Envía un marco a todos los canales de salida de la sala. El marco ya
+   * trae sus codificaciones de texto y binaria y se comparte entre todos los
+   * clientes; los canales encolan sin bloquear, por lo que el candado no
+   * espera a la red.
+   * 
+   * @param frame marco a enviar
+   * @param sent  contador de mensajes enviados del tipo del marco
+   */
+  private void broadcast(Frame frame, Counter sent) {
+    long start = System.nanoTime();
+    for (ClientSink client : clients) {
+      client.send(frame);
+    }
+    ServerMetrics.BROADCAST_FAN_OUT.record(System.nanoTime() - start);
+    sent.add(clients.size());
+  }
+
+  /**
+   * Adquiere el candado de la sala midiendo la espera. El tiempo de
+   * retención se mide desde la adquisición más externa.
+   */
+  private void acquireLock() {
+    long start = System.nanoTime();
+    lock.lock();
+    if (lock.getHoldCount() == 1) {
+      lockedAt = System.nanoTime();
+      ServerMetrics.ROOM_LOCK_WAIT.record(lockedAt - start);
+    }
+  }
+
+  /**
+   * Libera el candado de la sala y, si era la adquisición más externa,
+   * registra cuánto tiempo se retuvo.
+   */
+  private void releaseLock() {
+    if (lock.getHoldCount() == 1) {
+      ServerMetrics.ROOM_LOCK_HOLD.record(System.nanoTime() - lockedAt);
+    }
+    lock.unlock();
+  }
+
+  /**
+   * Cambio de roster pendiente con el orden en que llegó dentro de la
+   * ventana.
+   */
+  private static final class PendingChange {
+    private final RosterChange change;
+    private final int order;
+
+    private PendingChange(RosterChange change, int order) {
+      this.change = change;
+      this.order = order;
+    }
+  }
+
+  /**
+   * Lo que un recién llegado ya conoce: los cambios hasta cierto orden,
+   * incluidos en su lista completa, y el estado de inicio que recibió.
+   */
+  private static final class RosterView {
+    private final int seenOrder;
+    private final boolean canStart;
+
+    private RosterView(int seenOrder, boolean canStart) {
+      this.seenOrder = seenOrder;
+      this.canStart = canStart;
+    }
+  }
+}
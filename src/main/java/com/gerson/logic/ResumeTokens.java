@@ -0,0 +1,81 @@
+package com.gerson.logic;
+
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.gerson.model.Player;
+
+/**
+ * Tokens de reanudación de sesión. Cada jugador recibe uno al unirse a una
+ * sala; con él, una conexión nueva puede retomar su posición tras un corte
+ * en lugar de salir y volver a entrar.
+ */
+public final class ResumeTokens {
+  private static final int TOKEN_BYTES = 16;
+
+  private final SecureRandom random = new SecureRandom();
+  private final ConcurrentHashMap<String, Player> players = new ConcurrentHashMap<>();
+
+  /**
+   * Emite un token nuevo para el jugador y lo marca como reanudable.
+   * 
+   * @param player jugador al que se emite
+   * @return token, 32 caracteres hexadecimales
+   */
+  public String issue(Player player) {
+    byte[] bytes = new byte[TOKEN_BYTES];
+    random.nextBytes(bytes);
+    String token = HexFormat.of().formatHex(bytes);
+    revoke(player);
+    players.put(token, player);
+    player.setResumeToken(token);
+    return token;
+  }
+
+  /**
+   * Vuelve a registrar un token emitido por otro proceso, al recuperar su
+   * estado, y marca al jugador como reanudable.
+   * 
+   * @param player jugador recuperado
+   * @param token  token que el cliente ya conoce
+   */
+  public void restore(Player player, String token) {
+    revoke(player);
+    players.put(token, player);
+    player.setResumeToken(token);
+  }
+
+  /**
+   * Busca al jugador de un token que siga siendo válido.
+   * 
+   * @param token token presentado por el cliente
+   * @return jugador, o null si el token no existe o fue revocado
+   */
+  public Player find(String token) {
+    Player player = token == null ? null : players.get(token);
+    return player != null && player.isResumable() ? player : null;
+  }
+
+  /**
+   * Invalida el token del jugador, si tiene uno.
+   * 
+   * @param player jugador cuyo token se revoca
+   */
+  public void revoke(Player player) {
+    String token = player.getResumeToken();
+    if (token != null) {
+      players.remove(token, player);
+      player.setResumeToken(null);
+    }
+  }
+
+  /**
+   * Devuelve cuántos tokens están emitidos.
+   * 
+   * @return tokens vigentes
+   */
+  public int size() {
+    return players.size();
+  }
+}
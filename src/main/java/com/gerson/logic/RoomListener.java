@@ -0,0 +1,25 @@
+package com.gerson.logic;
+
+/**
+ * Recibe la creación y la retirada de las salas de un {@link RoomManager}.
+ * El modo clúster lo usa para anunciar en el directorio compartido qué salas
+ * aloja cada nodo.
+ */
+public interface RoomListener {
+
+  /**
+   * Se invoca al crear una sala, antes de que nadie se una a ella. Si la
+   * rechaza, la sala no se crea.
+   * 
+   * @param room nombre de la sala
+   * @return false si la sala debe alojarse en otro sitio
+   */
+  boolean roomCreated(String room);
+
+  /**
+   * Se invoca después de retirar una sala vacía.
+   * 
+   * @param room nombre de la sala
+   */
+  void roomRetired(String room);
+}
@@ -0,0 +1,194 @@
+package com.gerson.logic;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.logging.Logger;
+
+/**
+ * Crea, localiza y retira salas de carrera. Las salas se crean bajo demanda
+ * cuando un cliente pide unirse a ellas y se retiran cuando quedan vacías,
+ * salvo la sala principal, que siempre existe. Todas las salas comparten un
+ * único hilo planificador para sus ticks de simulación.
+ *
+ * <p>
+ * Las salas programan sus plazos en la rueda del {@link Clock} vigente al
+ * crearlas. Con un {@link VirtualClock}, también los ticks van a esa rueda.
+ */
+public class RoomManager {
+  public static final String DEFAULT_ROOM = "principal";
+  private static final int MAX_ROOM_NAME_LENGTH = 64;
+  private static final Logger logger = Logger.getLogger(RoomManager.class.getName());
+
+  private final ConcurrentMap<String, RaceRoom> rooms = new ConcurrentHashMap<>();
+  private final long tickIntervalMillis;
+  private volatile Clock clock = Clock.system();
+  private volatile CheatListener cheatListener = CheatListener.none();
+  private volatile RoomListener roomListener;
+
+  /**
+   * Crea un gestor de salas con la frecuencia de tick configurada en
+   * {@link GameConfig#tickHz()}.
+   */
+  public RoomManager() {
+    this(GameConfig.tickIntervalMillis());
+  }
+
+  /**
+   * Crea un gestor de salas con una duración de tick concreta.
+   * 
+   * @param tickIntervalMillis duración del tick; 0 para difundir cada clic
+   */
+  public RoomManager(long tickIntervalMillis) {
+    this.tickIntervalMillis = Math.max(0, tickIntervalMillis);
+  }
+
+  /**
+   * Devuelve la sala con el nombre indicado, creándola si no existe.
+   * 
+   * @param name nombre de la sala; si es null o vacío se usa la principal
+   * @return sala correspondiente, o null si el {@link RoomListener} la
+   *         rechaza
+   */
+  public RaceRoom getOrCreate(String name) {
+    return rooms.computeIfAbsent(normalize(name), roomName -> {
+      RoomListener listener = roomListener;
+      if (listener != null && !listener.roomCreated(roomName)) {
+        return null;
+      }
+      logger.info("[ROOM] Sala creada: " + roomName);
+      Clock roomClock = clock;
+      // Con el reloj del sistema, los ticks usan su propio hilo, más preciso que la rueda
+      ScheduledExecutorService ticker = tickIntervalMillis > 0 && roomClock instanceof SystemClock
+          ? Ticker.INSTANCE
+          : null;
+      RaceRoom room = new RaceRoom(roomName, tickIntervalMillis, ticker, roomClock.timers());
+      room.setCheatListener(cheatListener);
+      return room;
+    });
+  }
+
+  /**
+   * Cambia el reloj de las salas que se creen a partir de ahora.
+   * 
+   * @param clock reloj de los plazos del juego
+   */
+  public void setClock(Clock clock) {
+    this.clock = clock;
+  }
+
+  /**
+   * Cambia el oyente de jugadores marcados por la conciliación de clics,
+   * tanto en las salas abiertas como en las que se creen después.
+   * 
+   * @param cheatListener oyente de jugadores marcados
+   */
+  public void setCheatListener(CheatListener cheatListener) {
+    this.cheatListener = cheatListener;
+    for (RaceRoom room : rooms.values()) {
+      room.setCheatListener(cheatListener);
+    }
+  }
+
+  /**
+   * Cambia el oyente que recibe la creación y la retirada de salas.
+   * 
+   * @param roomListener oyente, o null para no avisar a nadie
+   */
+  public void setRoomListener(RoomListener roomListener) {
+    this.roomListener = roomListener;
+  }
+
+  /**
+   * Busca una sala existente sin crearla.
+   * 
+   * @param name nombre de la sala
+   * @return la sala, o null si no existe
+   */
+  public RaceRoom find(String name) {
+    return name == null ? null : rooms.get(name);
+  }
+
+  /**
+   * Devuelve la sala principal, a la que se unen los clientes que no indican
+   * ninguna.
+   * 
+   * @return sala principal, o null si el {@link RoomListener} la rechaza
+   */
+  public RaceRoom getDefaultRoom() {
+    return getOrCreate(DEFAULT_ROOM);
+  }
+
+  /**
+   * Retira la sala si está vacía. La sala principal nunca se retira.
+   * 
+   * @param room sala a revisar
+   * @return true si la sala fue retirada
+   */
+  public boolean retireIfEmpty(RaceRoom room) {
+    if (room == null || DEFAULT_ROOM.equals(room.getName()) || !room.retireIfEmpty()) {
+      return false;
+    }
+    rooms.remove(room.getName(), room);
+    logger.info("[ROOM] Sala retirada: " + room.getName());
+    RoomListener listener = roomListener;
+    if (listener != null) {
+      listener.roomRetired(room.getName());
+    }
+    return true;
+  }
+
+  /**
+   * Devuelve una vista de las salas activas.
+   * 
+   * @return colección no modificable de salas
+   */
+  public Collection<RaceRoom> getRooms() {
+    return Collections.unmodifiableCollection(rooms.values());
+  }
+
+  /**
+   * Devuelve el número de salas activas.
+   * 
+   * @return cantidad de salas
+   */
+  public int getRoomCount() {
+    return rooms.size();
+  }
+
+  /**
+   * Descarta todas las salas. Pensado para reiniciar el estado en pruebas.
+   */
+  public void clear() {
+    rooms.clear();
+  }
+
+  /**
+   * Normaliza el nombre de una sala: recorta espacios, limita su longitud y
+   * sustituye los nombres vacíos por la sala principal.
+   * 
+   * @param name nombre recibido del cliente
+   * @return nombre normalizado
+   */
+  public static String normalize(String name) {
+    if (name == null || name.isBlank()) {
+      return DEFAULT_ROOM;
+    }
+    String trimmed = name.trim();
+    return trimmed.length() > MAX_ROOM_NAME_LENGTH ? trimmed.substring(0, MAX_ROOM_NAME_LENGTH) : trimmed;
+  }
+
+  /**
+   * Planificador compartido de ticks, creado solo si alguna sala lo necesita.
+   */
+  private static final class Ticker {
+    private static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(task -> {
+      Thread thread = new Thread(task, "race-ticker");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+}
@@ -0,0 +1,39 @@
+package com.gerson.logic;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Reloj de tiempo real: {@link System#nanoTime()} y la rueda compartida del
+ * servidor, avanzada por su propio hilo.
+ */
+public final class SystemClock implements Clock {
+  static final SystemClock INSTANCE = new SystemClock();
+  private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private SystemClock() {
+  }
+
+  @Override
+  public long millis() {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+  }
+
+  @Override
+  public TimerWheel timers() {
+    return TimerWheel.shared();
+  }
+
+  @Override
+  public boolean waitUntil(BooleanSupplier condition, long timeout, TimeUnit unit) {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    while (!condition.getAsBoolean()) {
+      if (System.nanoTime() - deadline >= 0) {
+        return false;
+      }
+      LockSupport.parkNanos(POLL_NANOS);
+    }
+    return true;
+  }
+}
@@ -0,0 +1,393 @@
+package com.gerson.logic;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Temporizador de rueda con dispersión (<i>hashed timer wheel</i>) compartido
+ * por todas las salas. Un único hilo avanza la rueda un casillero por tick y
+ * ejecuta los temporizadores vencidos, de modo que miles de cuentas
+ * regresivas, límites de carrera y expulsiones por inactividad no necesitan
+ * un hilo dormido cada uno. Programar y cancelar cuesta O(1).
+ *
+ * <p>
+ * Las tareas se ejecutan en el hilo de la rueda y deben ser breves: adquirir
+ * el candado de una sala y encolar mensajes es aceptable, bloquear no.
+ *
+ * <p>
+ * Un temporizador periódico ({@link #scheduleAtFixedRate}) reserva memoria
+ * una sola vez: tras cada vencimiento, el hilo de la rueda lo vuelve a
+ * colocar en su casillero sin pasar por la cola de pendientes.
+ */
+public final class TimerWheel {
+  private static final Logger logger = Logger.getLogger(TimerWheel.class.getName());
+  private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+  private final long tickMillis;
+  private final Bucket[] wheel;
+  private final int mask;
+  private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+  private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+  private final Thread worker;
+  /** Periódicos vencidos en el tick actual, enlazados por {@code next}. */
+  private Timeout rearmHead;
+  private volatile long tick;
+  private volatile boolean stopped;
+
+  /**
+   * Crea una rueda y arranca su hilo.
+   * 
+   * @param tickMillis duración de cada casillero
+   * @param wheelSize  número de casilleros; se redondea a potencia de dos
+   */
+  public TimerWheel(long tickMillis, int wheelSize) {
+    this(tickMillis, wheelSize, true);
+  }
+
+  private TimerWheel(long tickMillis, int wheelSize, boolean start) {
+    this.tickMillis = Math.max(1, tickMillis);
+    int size = wheelSize <= 2 ? 2 : Integer.highestOneBit(wheelSize - 1) << 1;
+    this.wheel = new Bucket[size];
+    for (int i = 0; i < size; i++) {
+      wheel[i] = new Bucket();
+    }
+    this.mask = size - 1;
+    if (start) {
+      worker = new Thread(this::run, "race-timer");
+      worker.setDaemon(true);
+      worker.start();
+    } else {
+      worker = null;
+    }
+  }
+
+  /**
+   * Crea una rueda sin hilo propio que solo avanza con {@link #advance(long)}.
+   * Pensada para pruebas deterministas.
+   * 
+   * @param tickMillis duración de cada casillero
+   * @param wheelSize  número de casilleros
+   * @return rueda manual
+   */
+  public static TimerWheel manual(long tickMillis, int wheelSize) {
+    return new TimerWheel(tickMillis, wheelSize, false);
+  }
+
+  /**
+   * Devuelve la rueda compartida por el servidor, configurada con
+   * {@link GameConfig#timerTickMillis()} y {@link GameConfig#timerWheelSize()}.
+   * 
+   * @return rueda compartida
+   */
+  public static TimerWheel shared() {
+    return Shared.INSTANCE;
+  }
+
+  /**
+   * Tiempo de la rueda: los casilleros avanzados por su duración. Avanza a
+   * saltos de un casillero y, en una rueda manual, solo con
+   * {@link #advance(long)}, así que sigue al reloj simulado.
+   * 
+   * @return milisegundos desde que la rueda arrancó
+   */
+  public long millis() {
+    return tick * tickMillis;
+  }
+
+  /**
+   * Programa una tarea. El retraso se redondea a ticks enteros, por lo que la
+   * tarea se ejecuta con la precisión de un tick.
+   * 
+   * @param task  tarea a ejecutar en el hilo de la rueda
+   * @param delay retraso
+   * @param unit  unidad del retraso
+   * @return temporizador cancelable
+   */
+  public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+    Timeout timeout = new Timeout(this, task, tick + toTicks(delay, unit), 0);
+    pending.add(timeout);
+    return timeout;
+  }
+
+  /**
+   * Programa una tarea que se repite cada {@code period} hasta cancelarla.
+   * El periodo se redondea a ticks enteros. Si la tarea sigue ejecutándose
+   * cuando se cancela, ya no se repite.
+   * 
+   * @param task   tarea a ejecutar en el hilo de la rueda
+   * @param period periodo, también retraso de la primera ejecución
+   * @param unit   unidad del periodo
+   * @return temporizador cancelable
+   */
+  public Timeout scheduleAtFixedRate(Runnable task, long period, TimeUnit unit) {
+    long ticks = toTicks(period, unit);
+    Timeout timeout = new Timeout(this, task, tick + ticks, ticks);
+    pending.add(timeout);
+    return timeout;
+  }
+
+  private long toTicks(long delay, TimeUnit unit) {
+    long millis = Math.max(0, unit.toMillis(delay));
+    return Math.max(1, (millis + tickMillis - 1) / tickMillis);
+  }
+
+  /**
+   * Avanza la rueda manualmente el tiempo indicado, ejecutando en el hilo
+   * llamante los temporizadores que venzan.
+   * 
+   * @param millis tiempo a avanzar
+   */
+  public void advance(long millis) {
+    if (worker != null) {
+      throw new IllegalStateException("La rueda avanza con su propio hilo");
+    }
+    for (long i = 0; i < millis / tickMillis; i++) {
+      processTick();
+    }
+  }
+
+  /**
+   * Detiene el hilo de la rueda. Los temporizadores pendientes no se
+   * ejecutan.
+   */
+  public void stop() {
+    stopped = true;
+    if (worker != null) {
+      LockSupport.unpark(worker);
+    }
+  }
+
+  /**
+   * Devuelve cuántos temporizadores esperan a entrar en la rueda o están en
+   * ella sin cancelar. Solo es exacto en una rueda detenida o manual.
+   * 
+   * @return temporizadores pendientes
+   */
+  public int getPendingCount() {
+    int count = 0;
+    for (Timeout timeout : pending) {
+      if (!timeout.isCancelled()) {
+        count++;
+      }
+    }
+    for (Bucket bucket : wheel) {
+      for (Timeout timeout = bucket.head; timeout != null; timeout = timeout.next) {
+        if (!timeout.isCancelled()) {
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  private void run() {
+    long start = System.nanoTime();
+    long tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+    while (!stopped) {
+      long deadline = start + (tick + 1) * tickNanos;
+      long now = System.nanoTime();
+      if (now < deadline) {
+        LockSupport.parkNanos(this, deadline - now);
+        continue;
+      }
+      processTick();
+    }
+  }
+
+  /**
+   * Avanza un tick y procesa su casillero: incorpora los temporizadores
+   * nuevos, retira los cancelados y ejecuta los vencidos.
+   */
+  private void processTick() {
+    long current = tick + 1;
+    tick = current;
+    transferPending(current);
+    removeCancelled();
+    wheel[(int) (current & mask)].expire();
+    rearm(current);
+  }
+
+  /**
+   * Vuelve a colocar los periódicos que vencieron en este tick. Se hace
+   * después de recorrer el casillero para no volver a verlos en el mismo
+   * recorrido; por eso las vueltas se cuentan desde el tick siguiente.
+   */
+  private void rearm(long current) {
+    Timeout timeout = rearmHead;
+    rearmHead = null;
+    while (timeout != null) {
+      Timeout next = timeout.next;
+      timeout.next = null;
+      if (!timeout.isCancelled()) {
+        timeout.deadlineTick = current + timeout.periodTicks;
+        timeout.remainingRounds = (timeout.periodTicks - 1) / wheel.length;
+        wheel[(int) (timeout.deadlineTick & mask)].add(timeout);
+      }
+      timeout = next;
+    }
+  }
+
+  private void transferPending(long current) {
+    for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+      Timeout timeout = pending.poll();
+      if (timeout == null) {
+        return;
+      }
+      if (timeout.isCancelled()) {
+        continue;
+      }
+      long target = Math.max(timeout.deadlineTick, current);
+      timeout.remainingRounds = (target - current) / wheel.length;
+      wheel[(int) (target & mask)].add(timeout);
+    }
+  }
+
+  private void removeCancelled() {
+    Timeout timeout;
+    while ((timeout = cancelled.poll()) != null) {
+      if (timeout.bucket != null) {
+        timeout.bucket.remove(timeout);
+      }
+    }
+  }
+
+  /**
+   * Temporizador programado en la rueda.
+   */
+  public static final class Timeout {
+    private static final int ST_INIT = 0;
+    private static final int ST_CANCELLED = 1;
+    private static final int ST_EXPIRED = 2;
+
+    private final TimerWheel wheel;
+    private final Runnable task;
+    private final long periodTicks;
+    private final AtomicInteger state = new AtomicInteger(ST_INIT);
+    private long deadlineTick;
+    private long remainingRounds;
+    private Bucket bucket;
+    private Timeout next;
+    private Timeout prev;
+
+    private Timeout(TimerWheel wheel, Runnable task, long deadlineTick, long periodTicks) {
+      this.wheel = wheel;
+      this.task = task;
+      this.deadlineTick = deadlineTick;
+      this.periodTicks = periodTicks;
+    }
+
+    /**
+     * Cancela el temporizador si aún no se ha ejecutado. Un periódico se
+     * cancela también mientras se ejecuta.
+     * 
+     * @return true si se canceló
+     */
+    public boolean cancel() {
+      if (!state.compareAndSet(ST_INIT, ST_CANCELLED)
+          && !(periodTicks > 0 && state.compareAndSet(ST_EXPIRED, ST_CANCELLED))) {
+        return false;
+      }
+      wheel.cancelled.add(this);
+      return true;
+    }
+
+    /**
+     * Indica si el temporizador fue cancelado.
+     * 
+     * @return true si se canceló
+     */
+    public boolean isCancelled() {
+      return state.get() == ST_CANCELLED;
+    }
+
+    /**
+     * Indica si el temporizador ya venció.
+     * 
+     * @return true si su tarea se ejecutó o se está ejecutando
+     */
+    public boolean isExpired() {
+      return state.get() == ST_EXPIRED;
+    }
+
+    private void expire() {
+      if (!state.compareAndSet(ST_INIT, ST_EXPIRED)) {
+        return;
+      }
+      try {
+        task.run();
+      } catch (RuntimeException e) {
+        logger.log(Level.WARNING, "Error en un temporizador", e);
+      }
+      if (periodTicks > 0 && state.compareAndSet(ST_EXPIRED, ST_INIT)) {
+        next = wheel.rearmHead;
+        wheel.rearmHead = this;
+      }
+    }
+  }
+
+  /**
+   * Lista doblemente enlazada de temporizadores de un casillero. Solo la
+   * modifica el hilo de la rueda.
+   */
+  private static final class Bucket {
+    private Timeout head;
+    private Timeout tail;
+
+    private void add(Timeout timeout) {
+      timeout.bucket = this;
+      if (head == null) {
+        head = timeout;
+        tail = timeout;
+      } else {
+        tail.next = timeout;
+        timeout.prev = tail;
+        tail = timeout;
+      }
+    }
+
+    private void expire() {
+      Timeout timeout = head;
+      while (timeout != null) {
+        Timeout next = timeout.next;
+        if (timeout.remainingRounds <= 0) {
+          remove(timeout);
+          timeout.expire();
+        } else if (timeout.isCancelled()) {
+          remove(timeout);
+        } else {
+          timeout.remainingRounds--;
+        }
+        timeout = next;
+      }
+    }
+
+    private void remove(Timeout timeout) {
+      if (timeout.bucket != this) {
+        return;
+      }
+      if (timeout.prev != null) {
+        timeout.prev.next = timeout.next;
+      } else {
+        head = timeout.next;
+      }
+      if (timeout.next != null) {
+        timeout.next.prev = timeout.prev;
+      } else {
+        tail = timeout.prev;
+      }
+      timeout.prev = null;
+      timeout.next = null;
+      timeout.bucket = null;
+    }
+  }
+
+  private static final class Shared {
+    private static final TimerWheel INSTANCE = new TimerWheel(GameConfig.timerTickMillis(),
+        GameConfig.timerWheelSize());
+  }
+}
@@ -0,0 +1,98 @@
+package com.gerson.logic;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Reloj simulado. El tiempo solo avanza cuando se pide con
+ * {@link #advance(long, TimeUnit)} y lo hace al instante: los plazos que
+ * vencen en el intervalo se ejecutan en el hilo llamante, casillero a
+ * casillero y en orden, sobre una rueda manual propia.
+ *
+ * <p>
+ * Con {@link GameManager#setClock(Clock)}, las salas nuevas programan en él
+ * sus cuentas regresivas, límites y ticks, así que un torneo de miles de
+ * carreras corre tan rápido como la CPU permita y siempre igual.
+ */
+public final class VirtualClock implements Clock {
+  private final TimerWheel wheel;
+  private final long tickMillis;
+  private volatile long now;
+  private long ticked;
+
+  /**
+   * Crea un reloj simulado con el casillero y el tamaño de rueda
+   * configurados para el servidor.
+   */
+  public VirtualClock() {
+    this(GameConfig.timerTickMillis(), GameConfig.timerWheelSize());
+  }
+
+  /**
+   * Crea un reloj simulado con una rueda concreta.
+   * 
+   * @param tickMillis duración de cada casillero
+   * @param wheelSize  número de casilleros de la rueda
+   */
+  public VirtualClock(long tickMillis, int wheelSize) {
+    this.tickMillis = Math.max(1, tickMillis);
+    this.wheel = TimerWheel.manual(this.tickMillis, wheelSize);
+  }
+
+  @Override
+  public long millis() {
+    return now;
+  }
+
+  @Override
+  public TimerWheel timers() {
+    return wheel;
+  }
+
+  /**
+   * Avanza el tiempo simulado y ejecuta los plazos que venzan.
+   * 
+   * @param amount tiempo a avanzar
+   * @param unit   unidad del tiempo
+   */
+  public synchronized void advance(long amount, TimeUnit unit) {
+    long target = now + Math.max(0, unit.toMillis(amount));
+    while (ticked + tickMillis <= target) {
+      ticked += tickMillis;
+      now = ticked;
+      wheel.advance(tickMillis);
+    }
+    now = target;
+  }
+
+  /**
+   * Avanza el tiempo simulado hasta un instante, si aún no se alcanzó.
+   * 
+   * @param millis instante de destino, en milisegundos desde el origen
+   */
+  public synchronized void advanceTo(long millis) {
+    if (millis > now) {
+      advance(millis - now, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Avanza el tiempo casillero a casillero hasta que se cumpla la condición.
+   * 
+   * @param condition condición a esperar
+   * @param timeout   tiempo simulado máximo
+   * @param unit      unidad del tiempo máximo
+   * @return true si la condición se cumplió
+   */
+  @Override
+  public synchronized boolean waitUntil(BooleanSupplier condition, long timeout, TimeUnit unit) {
+    long deadline = now + unit.toMillis(timeout);
+    while (!condition.getAsBoolean()) {
+      if (now >= deadline) {
+        return false;
+      }
+      advance(Math.min(tickMillis, deadline - now), TimeUnit.MILLISECONDS);
+    }
+    return true;
+  }
+}
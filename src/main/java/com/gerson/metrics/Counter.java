@@ -0,0 +1,39 @@
+package com.gerson.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contador monótono. Se incrementa sin candados sobre un {@link LongAdder},
+ * que reparte las escrituras concurrentes entre celdas independientes.
+ */
+public final class Counter {
+  private final LongAdder value = new LongAdder();
+
+  Counter() {
+  }
+
+  /**
+   * Suma uno al contador.
+   */
+  public void increment() {
+    value.increment();
+  }
+
+  /**
+   * Suma una cantidad al contador.
+   * 
+   * @param amount cantidad a sumar, no negativa
+   */
+  public void add(long amount) {
+    value.add(amount);
+  }
+
+  /**
+   * Devuelve el total acumulado.
+   * 
+   * @return valor del contador
+   */
+  public long get() {
+    return value.sum();
+  }
+}
@@ -0,0 +1,41 @@
+package com.gerson.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Valor que sube y baja, como los clientes conectados. Puede mantenerse con
+ * {@link #increment()} y {@link #decrement()} o calcularse al leerlo a
+ * partir de una función.
+ */
+public final class Gauge {
+  private final LongAdder value = new LongAdder();
+  private final LongSupplier supplier;
+
+  Gauge(LongSupplier supplier) {
+    this.supplier = supplier;
+  }
+
+  /**
+   * Suma uno al valor.
+   */
+  public void increment() {
+    value.increment();
+  }
+
+  /**
+   * Resta uno al valor.
+   */
+  public void decrement() {
+    value.decrement();
+  }
+
+  /**
+   * Devuelve el valor actual.
+   * 
+   * @return valor calculado o acumulado
+   */
+  public long get() {
+    return supplier != null ? supplier.getAsLong() : value.sum();
+  }
+}
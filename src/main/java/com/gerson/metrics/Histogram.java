@@ -0,0 +1,121 @@
+package com.gerson.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de duraciones en nanosegundos al estilo HDR: cubetas
+ * logarítmicas con 8 subdivisiones por potencia de dos, de modo que el
+ * error relativo de un percentil no supera el 12,5 %. Cada cubeta es un
+ * {@link LongAdder}, así que registrar no usa candados ni reserva memoria.
+ *
+ * <p>
+ * En formato Prometheus se exportan solo los límites en potencias de dos
+ * a partir de un microsegundo, que coinciden con bordes de cubeta.
+ */
+public final class Histogram {
+  static final int SUB_BUCKET_BITS = 3;
+  static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  static final long MAX_VALUE = (1L << 40) - 1;
+  /** Primera cubeta exportada: empieza en 2^10 ns (~1 µs). */
+  static final int FIRST_EXPORTED_BUCKET = (10 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+  private final LongAdder[] buckets = new LongAdder[index(MAX_VALUE) + 1];
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+
+  Histogram() {
+    for (int i = 0; i < buckets.length; i++) {
+      buckets[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Registra una duración.
+   * 
+   * @param nanos duración en nanosegundos; se acota a [0, ~18 min]
+   */
+  public void record(long nanos) {
+    long value = Math.max(0, Math.min(MAX_VALUE, nanos));
+    buckets[index(value)].increment();
+    count.increment();
+    sum.add(value);
+  }
+
+  /**
+   * Devuelve cuántas duraciones se registraron.
+   * 
+   * @return número de muestras
+   */
+  public long getCount() {
+    return count.sum();
+  }
+
+  /**
+   * Devuelve la suma de las duraciones registradas.
+   * 
+   * @return suma en nanosegundos
+   */
+  public long getSum() {
+    return sum.sum();
+  }
+
+  /**
+   * Estima un percentil con la precisión de una cubeta. Con escrituras
+   * concurrentes el resultado es aproximado.
+   * 
+   * @param percentile valor entre 0 y 100
+   * @return límite superior de la cubeta del percentil, en nanosegundos
+   */
+  public long percentile(double percentile) {
+    long[] counts = snapshot();
+    long total = 0;
+    for (long c : counts) {
+      total += c;
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long target = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= target) {
+        return lowest(i + 1) - 1;
+      }
+    }
+    return MAX_VALUE;
+  }
+
+  /**
+   * Copia los contadores de las cubetas.
+   * 
+   * @return muestras por cubeta
+   */
+  long[] snapshot() {
+    long[] counts = new long[buckets.length];
+    for (int i = 0; i < buckets.length; i++) {
+      counts[i] = buckets[i].sum();
+    }
+    return counts;
+  }
+
+  static int index(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int magnitude = 63 - Long.numberOfLeadingZeros(value);
+    int shift = magnitude - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+  }
+
+  /**
+   * Valor más pequeño que cae en la cubeta indicada.
+   */
+  static long lowest(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    return (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+  }
+}
@@ -0,0 +1,179 @@
+package com.gerson.metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Registro de métricas del servidor. Las métricas se crean una vez, al
+ * iniciar, y se guardan en campos; registrar valores después no pasa por el
+ * registro. {@link #scrape()} las escribe en el formato de texto de
+ * Prometheus.
+ */
+public final class MetricsRegistry {
+  private static final MetricsRegistry SHARED = new MetricsRegistry();
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Map<String, Family> families = new LinkedHashMap<>();
+
+  /**
+   * Devuelve el registro global del servidor.
+   * 
+   * @return registro compartido
+   */
+  public static MetricsRegistry shared() {
+    return SHARED;
+  }
+
+  /**
+   * Crea o devuelve un contador sin etiquetas.
+   * 
+   * @param name nombre de la métrica
+   * @param help descripción
+   * @return contador
+   */
+  public Counter counter(String name, String help) {
+    return counter(name, help, null, null);
+  }
+
+  /**
+   * Crea o devuelve un contador con una etiqueta, como
+   * {@code horse_messages_in_total{type="click"}}.
+   * 
+   * @param name  nombre de la métrica
+   * @param help  descripción
+   * @param label nombre de la etiqueta, puede ser null
+   * @param value valor de la etiqueta
+   * @return contador
+   */
+  public Counter counter(String name, String help, String label, String value) {
+    return (Counter) register(name, help, "counter", labels(label, value), Counter::new);
+  }
+
+  /**
+   * Crea o devuelve un indicador que se mantiene con incrementos.
+   * 
+   * @param name nombre de la métrica
+   * @param help descripción
+   * @return indicador
+   */
+  public Gauge gauge(String name, String help) {
+    return (Gauge) register(name, help, "gauge", "", () -> new Gauge(null));
+  }
+
+  /**
+   * Crea o devuelve un indicador cuyo valor se calcula al leerlo.
+   * 
+   * @param name     nombre de la métrica
+   * @param help     descripción
+   * @param supplier función que devuelve el valor actual
+   * @return indicador
+   */
+  public Gauge gauge(String name, String help, LongSupplier supplier) {
+    return (Gauge) register(name, help, "gauge", "", () -> new Gauge(supplier));
+  }
+
+  /**
+   * Crea o devuelve un histograma de duraciones. Se exporta en segundos.
+   * 
+   * @param name nombre de la métrica, terminado en {@code _seconds}
+   * @param help descripción
+   * @return histograma
+   */
+  public Histogram histogram(String name, String help) {
+    return (Histogram) register(name, help, "histogram", "", Histogram::new);
+  }
+
+  /**
+   * Escribe todas las métricas en el formato de texto de Prometheus
+   * (versión 0.0.4).
+   * 
+   * @return texto de la exposición
+   */
+  public String scrape() {
+    List<Family> snapshot;
+    lock.lock();
+    try {
+      snapshot = new ArrayList<>(families.values());
+    } finally {
+      lock.unlock();
+    }
+    StringBuilder out = new StringBuilder(4096);
+    for (Family family : snapshot) {
+      family.write(out);
+    }
+    return out.toString();
+  }
+
+  private Object register(String name, String help, String type, String labels,
+      Supplier<Object> factory) {
+    lock.lock();
+    try {
+      Family family = families.computeIfAbsent(name, n -> new Family(n, help, type));
+      if (!family.type.equals(type)) {
+        throw new IllegalArgumentException("La métrica " + name + " ya existe como " + family.type);
+      }
+      return family.metrics.computeIfAbsent(labels, l -> factory.get());
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private static String labels(String label, String value) {
+    return label == null ? "" : label + "=\"" + value + "\"";
+  }
+
+  private static final class Family {
+    private final String name;
+    private final String help;
+    private final String type;
+    private final Map<String, Object> metrics = new LinkedHashMap<>();
+
+    private Family(String name, String help, String type) {
+      this.name = name;
+      this.help = help;
+      this.type = type;
+    }
+
+    private void write(StringBuilder out) {
+      out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+      out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+      for (Map.Entry<String, Object> entry : metrics.entrySet()) {
+        Object metric = entry.getValue();
+        if (metric instanceof Histogram) {
+          writeHistogram((Histogram) metric, out);
+        } else {
+          long value = metric instanceof Counter ? ((Counter) metric).get() : ((Gauge) metric).get();
+          out.append(name);
+          if (!entry.getKey().isEmpty()) {
+            out.append('{').append(entry.getKey()).append('}');
+          }
+          out.append(' ').append(value).append('\n');
+        }
+      }
+    }
+
+    private void writeHistogram(Histogram histogram, StringBuilder out) {
+      long[] counts = histogram.snapshot();
+      long cumulative = 0;
+      for (int i = 0; i < counts.length; i++) {
+        if (i >= Histogram.FIRST_EXPORTED_BUCKET && i % Histogram.SUB_BUCKETS == 0) {
+          out.append(name).append("_bucket{le=\"").append(seconds(Histogram.lowest(i))).append("\"} ")
+              .append(cumulative).append('\n');
+        }
+        cumulative += counts[i];
+      }
+      out.append(name).append("_bucket{le=\"+Inf\"} ").append(cumulative).append('\n');
+      out.append(name).append("_sum ").append(seconds(histogram.getSum())).append('\n');
+      out.append(name).append("_count ").append(cumulative).append('\n');
+    }
+
+    private static String seconds(long nanos) {
+      return Double.toString(nanos / 1e9);
+    }
+  }
+}
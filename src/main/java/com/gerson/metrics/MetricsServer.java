@@ -0,0 +1,105 @@
+package com.gerson.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Logger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Servidor HTTP mínimo, basado en el {@link HttpServer} del JDK, que expone
+ * {@code GET /metrics} en formato Prometheus. Atiende las peticiones en un
+ * único hilo propio para no competir con los del juego.
+ *
+ * <p>
+ * Por defecto solo escucha en la interfaz de bucle local; exponerlo hacia
+ * fuera requiere indicar la dirección explícitamente.
+ */
+public final class MetricsServer {
+  private static final Logger logger = Logger.getLogger(MetricsServer.class.getName());
+  private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  private final MetricsRegistry registry;
+  private final HttpServer server;
+
+  /**
+   * Crea el servidor sin iniciarlo, escuchando solo en el bucle local.
+   * 
+   * @param port     puerto de escucha; 0 para uno libre
+   * @param registry registro a exponer
+   * @throws IOException si no se puede abrir el puerto
+   */
+  public MetricsServer(int port, MetricsRegistry registry) throws IOException {
+    this(null, port, registry);
+  }
+
+  /**
+   * Crea el servidor sin iniciarlo.
+   * 
+   * @param host     dirección de escucha; null para el bucle local
+   * @param port     puerto de escucha; 0 para uno libre
+   * @param registry registro a exponer
+   * @throws IOException si no se puede abrir el puerto
+   */
+  public MetricsServer(String host, int port, MetricsRegistry registry) throws IOException {
+    this.registry = registry;
+    InetSocketAddress address = host == null ? new InetSocketAddress(InetAddress.getLoopbackAddress(), port)
+        : new InetSocketAddress(host, port);
+    this.server = HttpServer.create(address, 0);
+    server.createContext("/metrics", this::handle);
+  }
+
+  /**
+   * Inicia el servidor.
+   */
+  public void start() {
+    server.start();
+    InetSocketAddress address = getAddress();
+    logger.info("[OK] Métricas disponibles en http://" + address.getHostString() + ":" + address.getPort()
+        + "/metrics");
+  }
+
+  /**
+   * Devuelve el puerto en el que escucha el servidor.
+   * 
+   * @return puerto local
+   */
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  /**
+   * Devuelve la dirección en la que escucha el servidor.
+   * 
+   * @return dirección local
+   */
+  public InetSocketAddress getAddress() {
+    return server.getAddress();
+  }
+
+  /**
+   * Detiene el servidor sin esperar a las peticiones en curso.
+   */
+  public void stop() {
+    server.stop(0);
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      if (!"GET".equals(exchange.getRequestMethod())) {
+        exchange.sendResponseHeaders(405, -1);
+        return;
+      }
+      byte[] body = registry.scrape().getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    }
+  }
+}
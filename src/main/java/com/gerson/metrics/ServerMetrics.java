@@ -0,0 +1,122 @@
+package com.gerson.metrics;
+
+import com.gerson.events.EventLog;
+import com.gerson.journal.Journal;
+import com.gerson.logic.GameManager;
+import com.gerson.logic.RaceRoom;
+import com.gerson.network.OutboundStats;
+
+/**
+ * Métricas del juego registradas en {@link MetricsRegistry#shared()}. Los
+ * puntos instrumentados usan directamente estos campos para que registrar un
+ * valor no cueste una búsqueda.
+ */
+public final class ServerMetrics {
+  private static final MetricsRegistry registry = MetricsRegistry.shared();
+
+  /** Clientes con un jugador creado y aún no eliminado. */
+  public static final Gauge CONNECTED_CLIENTS = registry.gauge("horse_connected_clients",
+      "Clientes conectados");
+  /** Conexiones aceptadas por el servidor. */
+  public static final Counter ACCEPTED_CONNECTIONS = registry.counter("horse_accepted_connections_total",
+      "Conexiones aceptadas");
+  /** Conexiones rechazadas por superar el límite total de conexiones. */
+  public static final Counter REJECTED_MAX_CONNECTIONS = rejected("max_connections");
+  /** Conexiones rechazadas por superar el límite de conexiones por IP. */
+  public static final Counter REJECTED_PER_ADDRESS = rejected("per_ip");
+  /** Conexiones cerradas por no enviar el saludo a tiempo. */
+  public static final Counter HANDSHAKE_TIMEOUTS = registry.counter("horse_handshake_timeouts_total",
+      "Conexiones cerradas por no saludar a tiempo");
+  /** Aperturas WebSocket completadas. */
+  public static final Counter WEBSOCKET_UPGRADES = registry.counter("horse_websocket_upgrades_total",
+      "Aperturas WebSocket completadas");
+  /** Clientes que la pasarela del clúster ha enviado a un nodo. */
+  public static final Counter GATEWAY_ROUTED = registry.counter("horse_gateway_routed_total",
+      "Clientes enrutados por la pasarela");
+  /** Clientes que la pasarela no pudo enviar a ningún nodo. */
+  public static final Counter GATEWAY_FAILURES = registry.counter("horse_gateway_route_failures_total",
+      "Clientes que la pasarela no pudo enrutar");
+
+  /** Clics descartados por superar el ritmo máximo de un jugador. */
+  public static final Counter CLICKS_DROPPED = registry.counter("horse_clicks_dropped_total",
+      "Clics descartados por superar el ritmo máximo");
+  /** Jugadores marcados por la conciliación de clics al terminar una carrera. */
+  public static final Counter PLAYERS_FLAGGED = registry.counter("horse_players_flagged_total",
+      "Jugadores marcados por la conciliación de clics");
+
+  public static final Counter HELLO_IN = messagesIn("hello");
+  public static final Counter READY_IN = messagesIn("ready");
+  public static final Counter CLICK_IN = messagesIn("click");
+  public static final Counter CLICKS_SENT_IN = messagesIn("clicks_sent");
+  public static final Counter RESYNC_IN = messagesIn("resync");
+  public static final Counter RESUME_IN = messagesIn("resume");
+  public static final Counter RENAME_IN = messagesIn("rename");
+
+  public static final Counter PLAYERS_OUT = messagesOut("players");
+  public static final Counter ROSTER_OUT = messagesOut("roster");
+  public static final Counter START_STATUS_OUT = messagesOut("start_status");
+  public static final Counter COUNTDOWN_OUT = messagesOut("countdown");
+  public static final Counter GO_OUT = messagesOut("go");
+  public static final Counter PROGRESS_OUT = messagesOut("progress");
+  public static final Counter WIN_OUT = messagesOut("win");
+  public static final Counter SNAPSHOT_OUT = messagesOut("snapshot");
+
+  /** Tiempo que tarda una difusión en encolar el marco a todos los clientes. */
+  public static final Histogram BROADCAST_FAN_OUT = registry.histogram("horse_broadcast_fanout_seconds",
+      "Tiempo de encolado de una difusión a todos los clientes de la sala");
+  /** Tiempo desde que se aplica un clic hasta que su progreso se difunde. */
+  public static final Histogram CLICK_TO_BROADCAST = registry.histogram("horse_click_to_broadcast_seconds",
+      "Tiempo entre un clic y la difusión del progreso que lo refleja");
+  /** Espera para adquirir el candado de una sala. */
+  public static final Histogram ROOM_LOCK_WAIT = registry.histogram("horse_room_lock_wait_seconds",
+      "Espera para adquirir el candado de una sala");
+  /** Tiempo que se retiene el candado de una sala. */
+  public static final Histogram ROOM_LOCK_HOLD = registry.histogram("horse_room_lock_hold_seconds",
+      "Tiempo con el candado de una sala adquirido");
+
+  static {
+    registry.gauge("horse_rooms", "Salas abiertas",
+        () -> GameManager.getGamemanagerinstance().getRoomManager().getRoomCount());
+    registry.gauge("horse_active_races", "Carreras en curso", ServerMetrics::activeRaces);
+    registry.gauge("horse_suspended_players", "Jugadores desconectados a la espera de retomar su sesión",
+        () -> GameManager.getGamemanagerinstance().getSuspendedCount());
+    registry.gauge("horse_outbound_queued_messages", "Mensajes en las colas de salida",
+        OutboundStats::queuedMessages);
+    registry.gauge("horse_outbound_dropped_messages", "Mensajes descartados por colas llenas",
+        OutboundStats::droppedMessages);
+    registry.gauge("horse_event_log_dropped_events", "Eventos descartados por búfer de registro lleno",
+        () -> EventLog.shared().getDroppedCount());
+    registry.gauge("horse_journal_written_records", "Registros escritos en el diario de carreras",
+        () -> Journal.shared().getWrittenCount());
+    registry.gauge("horse_journal_dropped_records", "Registros descartados por búfer del diario lleno",
+        () -> Journal.shared().getDroppedCount());
+    registry.gauge("horse_slow_consumer_disconnects", "Clientes desconectados por lentos",
+        OutboundStats::slowConsumerDisconnects);
+  }
+
+  private ServerMetrics() {
+  }
+
+  private static Counter rejected(String reason) {
+    return registry.counter("horse_rejected_connections_total", "Conexiones rechazadas al aceptarlas", "reason",
+        reason);
+  }
+
+  private static Counter messagesIn(String type) {
+    return registry.counter("horse_messages_in_total", "Mensajes recibidos de los clientes", "type", type);
+  }
+
+  private static Counter messagesOut(String type) {
+    return registry.counter("horse_messages_out_total", "Mensajes enviados a los clientes", "type", type);
+  }
+
+  private static long activeRaces() {
+    long active = 0;
+    for (RaceRoom room : GameManager.getGamemanagerinstance().getRoomManager().getRooms()) {
+      if (room.isRaceStarted()) {
+        active++;
+      }
+    }
+    return active;
+  }
+}
@@ -2,17 +2,23 @@ package com.gerson.model;
 
 import java.io.PrintStream;
 
+import com.gerson.network.ClientSink;
+import com.gerson.network.PrintStreamSink;
+
 /**
  * Representa a un jugador en la carrera.
- * Contiene su identificador, nombre, progreso, clics reportados y canal de
- * salida.
+ * Contiene su identificador, nombre y canal de salida. Su progreso, sus
+ * clics y sus indicadores no se guardan aquí: el jugador es una vista sobre
+ * su posición en el almacén compartido {@link RaceState}.
  */
 public class Player {
   private final int id;
-  private String name;
-  private int progress;
-  private int reportedClicks;
-  private final PrintStream output;
+  private volatile String name;
+  private volatile ClientSink sink;
+  private final RaceState state;
+  private final int slot;
+  private volatile String roomName;
+  private volatile String resumeToken;
 
   /**
    * Constructor del jugador. Inicializa su identificador, canal de salida y
@@ -22,10 +28,20 @@ public class Player {
    * @param output canal de salida para enviar mensajes al jugador
    */
   public Player(int id, PrintStream output) {
+    this(id, new PrintStreamSink(output));
+  }
+
+  /**
+   * Constructor del jugador a partir de un canal de salida genérico.
+   * 
+   * @param id   identificador único del jugador
+   * @param sink canal por el que se envían los mensajes al jugador
+   */
+  public Player(int id, ClientSink sink) {
     this.id = id;
-    this.output = output;
-    this.progress = 0;
-    this.reportedClicks = 0;
+    this.sink = sink;
+    this.state = RaceState.shared();
+    this.slot = state.allocate();
     this.name = "Jugador " + id;
   }
 
@@ -38,6 +54,16 @@ public class Player {
     return id;
   }
 
+  /**
+   * Devuelve la posición del jugador en los almacenes indexados por jugador,
+   * como {@link RaceState}.
+   * 
+   * @return posición del jugador
+   */
+  public int getSlot() {
+    return slot;
+  }
+
   /**
    * Devuelve el nombre del jugador.
    * 
@@ -62,7 +88,7 @@ public class Player {
    * @return porcentaje de progreso del jugador
    */
   public int getProgress() {
-    return progress;
+    return state.progress(slot);
   }
 
   /**
@@ -71,7 +97,45 @@ public class Player {
    * @param amount cantidad a avanzar
    */
   public void advance(int amount) {
-    this.progress = Math.min(100, this.progress + amount);
+    state.advance(slot, amount);
+  }
+
+  /**
+   * Vuelve a la salida: progreso y clics a cero para una carrera nueva.
+   */
+  public void resetRace() {
+    state.resetRace(slot);
+  }
+
+  /**
+   * Restablece el progreso y los clics guardados al entregar la carrera a
+   * otro proceso.
+   * 
+   * @param progress progreso (0 a 100)
+   * @param clicks   clics recibidos
+   */
+  public void restoreRace(int progress, int clicks) {
+    state.restoreRace(slot, progress, clicks);
+  }
+
+  /**
+   * Registra un clic recibido por el servidor y avanza el progreso sin
+   * superar el 100%.
+   * 
+   * @param amount cantidad a avanzar
+   * @return progreso resultante
+   */
+  public int click(int amount) {
+    return state.click(slot, amount);
+  }
+
+  /**
+   * Devuelve la cantidad de clics recibidos por el servidor.
+   * 
+   * @return número de clics
+   */
+  public int getClicks() {
+    return state.clicks(slot);
   }
 
   /**
@@ -80,7 +144,7 @@ public class Player {
    * @return número de clics
    */
   public int getReportedClicks() {
-    return reportedClicks;
+    return state.reportedClicks(slot);
   }
 
   /**
@@ -89,15 +153,207 @@ public class Player {
    * @param reportedClicks número de clics a registrar
    */
   public void setReportedClicks(int reportedClicks) {
-    this.reportedClicks = reportedClicks;
+    state.setReportedClicks(slot, reportedClicks);
   }
 
   /**
-   * Devuelve el canal de salida asociado al jugador.
+   * Marca que el progreso del jugador espera a la próxima difusión.
+   * 
+   * @return false si ya estaba pendiente
+   */
+  public boolean markProgressPending() {
+    return state.setFlag(slot, RaceState.FLAG_PROGRESS_PENDING, true);
+  }
+
+  /**
+   * Quita la marca de progreso pendiente.
+   * 
+   * @return true si estaba pendiente
+   */
+  public boolean clearProgressPending() {
+    return state.setFlag(slot, RaceState.FLAG_PROGRESS_PENDING, false);
+  }
+
+  /**
+   * Cuenta un clic que llegó fuera de una carrera, como los enviados
+   * durante la cuenta regresiva o tras la victoria. No avanza el progreso,
+   * pero el cliente sí lo cuenta en sus informes.
+   */
+  public void ignoreClick() {
+    state.ignoreClick(slot);
+  }
+
+  /**
+   * Devuelve los clics que llegaron fuera de una carrera desde la última
+   * conciliación.
+   * 
+   * @return clics ignorados
+   */
+  public int getIgnoredClicks() {
+    return state.ignoredClicks(slot);
+  }
+
+  /**
+   * Pone a cero los clics ignorados tras conciliarlos.
+   */
+  public void clearIgnoredClicks() {
+    state.clearIgnoredClicks(slot);
+  }
+
+  /**
+   * Indica si el jugador marcó que está listo.
+   * 
+   * @return true si está listo
+   */
+  public boolean isReady() {
+    return state.hasFlag(slot, RaceState.FLAG_READY);
+  }
+
+  /**
+   * Marca o desmarca al jugador como listo.
+   * 
+   * @param ready nuevo estado
+   * @return true si el estado cambió
+   */
+  public boolean setReady(boolean ready) {
+    return state.setFlag(slot, RaceState.FLAG_READY, ready);
+  }
+
+  /**
+   * Indica si el cliente del jugador sigue conectado.
    * 
-   * @return PrintStream para enviar mensajes
+   * @return true si está conectado
+   */
+  public boolean isConnected() {
+    return state.hasFlag(slot, RaceState.FLAG_CONNECTED);
+  }
+
+  /**
+   * Registra actividad del jugador. Solo escribe si el indicador no estaba
+   * activo, para no competir por la línea de caché en cada clic.
+   */
+  public void markActive() {
+    if (!state.hasFlag(slot, RaceState.FLAG_ACTIVE)) {
+      state.setFlag(slot, RaceState.FLAG_ACTIVE, true);
+    }
+  }
+
+  /**
+   * Consume el indicador de actividad.
+   * 
+   * @return true si el jugador estuvo activo desde la llamada anterior
+   */
+  public boolean takeActivity() {
+    return state.setFlag(slot, RaceState.FLAG_ACTIVE, false);
+  }
+
+  /**
+   * Marca si el cliente del jugador está conectado.
+   * 
+   * @param connected nuevo estado de la conexión
+   */
+  public void setConnected(boolean connected) {
+    state.setFlag(slot, RaceState.FLAG_CONNECTED, connected);
+  }
+
+  /**
+   * Libera la posición del jugador en el almacén de estado y lo desliga de
+   * su sala. Solo tiene efecto la primera vez; después la vista ya no debe
+   * leerse, porque la posición puede pasar a otro jugador.
+   * 
+   * @return true si esta llamada liberó la posición
+   */
+  public boolean release() {
+    if (!state.setFlag(slot, RaceState.FLAG_IN_USE, false)) {
+      return false;
+    }
+    roomName = null;
+    state.release(slot);
+    return true;
+  }
+
+  /**
+   * Devuelve el flujo de salida asociado al jugador, si su canal escribe
+   * directamente en un {@link PrintStream}.
+   * 
+   * @return PrintStream para enviar mensajes, o null si el canal es otro
    */
   public PrintStream getOutput() {
-    return output;
+    return sink instanceof PrintStreamSink ? ((PrintStreamSink) sink).getOutput() : null;
+  }
+
+  /**
+   * Devuelve el canal de salida asociado al jugador.
+   * 
+   * @return canal para enviar mensajes
+   */
+  public ClientSink getSink() {
+    return sink;
+  }
+
+  /**
+   * Sustituye el canal de salida al retomar la sesión desde otra conexión.
+   * 
+   * @param sink canal de la nueva conexión
+   */
+  public void setSink(ClientSink sink) {
+    this.sink = sink;
+  }
+
+  /**
+   * Devuelve el token con el que el cliente puede retomar la sesión.
+   * 
+   * @return token emitido, o null si no se emitió ninguno
+   */
+  public String getResumeToken() {
+    return resumeToken;
+  }
+
+  /**
+   * Asocia al jugador el token con el que puede retomar la sesión y lo marca
+   * como reanudable.
+   * 
+   * @param resumeToken token emitido
+   */
+  public void setResumeToken(String resumeToken) {
+    this.resumeToken = resumeToken;
+    setResumable(resumeToken != null);
+  }
+
+  /**
+   * Indica si la sesión puede retomarse tras una desconexión.
+   * 
+   * @return true si se conserva su posición al desconectarse
+   */
+  public boolean isResumable() {
+    return state.hasFlag(slot, RaceState.FLAG_RESUMABLE);
+  }
+
+  /**
+   * Marca si la sesión puede retomarse. Un jugador expulsado deja de serlo
+   * para que su desconexión lo elimine de la sala.
+   * 
+   * @param resumable nuevo valor
+   */
+  public void setResumable(boolean resumable) {
+    state.setFlag(slot, RaceState.FLAG_RESUMABLE, resumable);
+  }
+
+  /**
+   * Devuelve el nombre de la sala en la que participa el jugador.
+   * 
+   * @return nombre de la sala, o null si aún no se ha unido a ninguna
+   */
+  public String getRoomName() {
+    return roomName;
+  }
+
+  /**
+   * Establece la sala en la que participa el jugador.
+   * 
+   * @param roomName nombre de la sala
+   */
+  public void setRoomName(String roomName) {
+    this.roomName = roomName;
   }
 }
\ No newline at end of file
@@ -0,0 +1,299 @@
+package com.gerson.model;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Almacén del estado de carrera de todos los jugadores, organizado como
+ * estructura de arreglos: cada jugador ocupa una posición densa
+ * ({@code slot}) y su progreso, sus clics y sus indicadores viven en arreglos
+ * de enteros primitivos. Las actualizaciones son atómicas y sin candado
+ * ({@link AtomicIntegerArray}), con semántica de memoria volátil.
+ *
+ * <p>
+ * Los arreglos se dividen en segmentos de tamaño fijo: crecer solo añade un
+ * segmento nuevo, nunca copia ni mueve los existentes, así que los lectores
+ * no necesitan sincronizarse con la reserva de posiciones. Las posiciones
+ * liberadas se reutilizan.
+ */
+public final class RaceState {
+  /** El jugador marcó que está listo. */
+  public static final int FLAG_READY = 1;
+  /** El cliente del jugador está conectado. */
+  public static final int FLAG_CONNECTED = 1 << 1;
+  /** El jugador envió algún mensaje desde la última comprobación de inactividad. */
+  public static final int FLAG_ACTIVE = 1 << 3;
+  /** La posición está reservada por un jugador. */
+  public static final int FLAG_IN_USE = 1 << 2;
+  /** Si el cliente se desconecta, su posición se conserva para retomarla. */
+  public static final int FLAG_RESUMABLE = 1 << 4;
+  /** Su progreso cambió y espera a la próxima difusión de la sala. */
+  public static final int FLAG_PROGRESS_PENDING = 1 << 5;
+
+  private static final int SEGMENT_BITS = 10;
+  private static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+  private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+  private static final int MAX_PROGRESS = 100;
+  private static final IntBinaryOperator CAPPED_ADD = (current, amount) -> Math.min(MAX_PROGRESS,
+      current + amount);
+
+  private static final RaceState SHARED = new RaceState();
+
+  private final ReentrantLock allocationLock = new ReentrantLock();
+  private volatile Segment[] segments = new Segment[0];
+  private int[] freeSlots = new int[16];
+  private int freeCount;
+  private int nextSlot;
+
+  /**
+   * Devuelve el almacén compartido por todas las salas del servidor.
+   * 
+   * @return almacén global
+   */
+  public static RaceState shared() {
+    return SHARED;
+  }
+
+  /**
+   * Reserva una posición con el estado inicial de un jugador conectado.
+   * 
+   * @return posición reservada
+   */
+  public int allocate() {
+    allocationLock.lock();
+    try {
+      int slot = freeCount > 0 ? freeSlots[--freeCount] : nextSlot++;
+      Segment segment = segmentFor(slot);
+      int index = slot & SEGMENT_MASK;
+      segment.progress.set(index, 0);
+      segment.clicks.set(index, 0);
+      segment.reportedClicks.set(index, 0);
+      segment.ignoredClicks.set(index, 0);
+      segment.flags.set(index, FLAG_IN_USE | FLAG_CONNECTED);
+      return slot;
+    } finally {
+      allocationLock.unlock();
+    }
+  }
+
+  /**
+   * Libera una posición para que la reutilice otro jugador. La vista que la
+   * usaba no debe volver a leerse.
+   * 
+   * @param slot posición a liberar
+   */
+  public void release(int slot) {
+    allocationLock.lock();
+    try {
+      segment(slot).flags.set(slot & SEGMENT_MASK, 0);
+      if (freeCount == freeSlots.length) {
+        freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+      }
+      freeSlots[freeCount++] = slot;
+    } finally {
+      allocationLock.unlock();
+    }
+  }
+
+  /**
+   * Pone a cero el progreso y los clics de una posición para una carrera
+   * nueva. Los indicadores no cambian.
+   * 
+   * @param slot posición del jugador
+   */
+  public void resetRace(int slot) {
+    Segment segment = segment(slot);
+    int index = slot & SEGMENT_MASK;
+    segment.progress.set(index, 0);
+    segment.clicks.set(index, 0);
+    segment.reportedClicks.set(index, 0);
+  }
+
+  /**
+   * Restablece el progreso y los clics de una posición, como al recuperar
+   * una carrera guardada por otro proceso.
+   * 
+   * @param slot     posición del jugador
+   * @param progress progreso, que se limita a 0..100
+   * @param clicks   clics recibidos
+   */
+  public void restoreRace(int slot, int progress, int clicks) {
+    Segment segment = segment(slot);
+    int index = slot & SEGMENT_MASK;
+    segment.progress.set(index, Math.max(0, Math.min(MAX_PROGRESS, progress)));
+    segment.clicks.set(index, clicks);
+  }
+
+  /**
+   * Devuelve el progreso (0 a 100) de una posición.
+   * 
+   * @param slot posición del jugador
+   * @return progreso
+   */
+  public int progress(int slot) {
+    return segment(slot).progress.get(slot & SEGMENT_MASK);
+  }
+
+  /**
+   * Aumenta el progreso sin superar el 100%.
+   * 
+   * @param slot   posición del jugador
+   * @param amount cantidad a avanzar
+   * @return progreso resultante
+   */
+  public int advance(int slot, int amount) {
+    return segment(slot).progress.accumulateAndGet(slot & SEGMENT_MASK, amount, CAPPED_ADD);
+  }
+
+  /**
+   * Registra un clic contado por el servidor y avanza el progreso.
+   * 
+   * @param slot   posición del jugador
+   * @param amount cantidad a avanzar
+   * @return progreso resultante
+   */
+  public int click(int slot, int amount) {
+    Segment segment = segment(slot);
+    int index = slot & SEGMENT_MASK;
+    segment.clicks.incrementAndGet(index);
+    return segment.progress.accumulateAndGet(index, amount, CAPPED_ADD);
+  }
+
+  /**
+   * Devuelve los clics contados por el servidor.
+   * 
+   * @param slot posición del jugador
+   * @return clics recibidos
+   */
+  public int clicks(int slot) {
+    return segment(slot).clicks.get(slot & SEGMENT_MASK);
+  }
+
+  /**
+   * Devuelve los clics que el cliente dice haber enviado.
+   * 
+   * @param slot posición del jugador
+   * @return clics reportados
+   */
+  public int reportedClicks(int slot) {
+    return segment(slot).reportedClicks.get(slot & SEGMENT_MASK);
+  }
+
+  /**
+   * Registra los clics que el cliente dice haber enviado.
+   * 
+   * @param slot   posición del jugador
+   * @param clicks clics reportados
+   */
+  public void setReportedClicks(int slot, int clicks) {
+    segment(slot).reportedClicks.set(slot & SEGMENT_MASK, clicks);
+  }
+
+  /**
+   * Cuenta un clic que llegó fuera de una carrera y no avanzó el progreso.
+   * 
+   * @param slot posición del jugador
+   */
+  public void ignoreClick(int slot) {
+    segment(slot).ignoredClicks.incrementAndGet(slot & SEGMENT_MASK);
+  }
+
+  /**
+   * Devuelve los clics que llegaron fuera de una carrera desde la última
+   * llamada a {@link #clearIgnoredClicks(int)}.
+   * 
+   * @param slot posición del jugador
+   * @return clics ignorados
+   */
+  public int ignoredClicks(int slot) {
+    return segment(slot).ignoredClicks.get(slot & SEGMENT_MASK);
+  }
+
+  /**
+   * Pone a cero los clics ignorados de una posición.
+   * 
+   * @param slot posición del jugador
+   */
+  public void clearIgnoredClicks(int slot) {
+    segment(slot).ignoredClicks.set(slot & SEGMENT_MASK, 0);
+  }
+
+  /**
+   * Indica si un indicador está activo.
+   * 
+   * @param slot posición del jugador
+   * @param flag indicador ({@link #FLAG_READY}, {@link #FLAG_CONNECTED},
+   *             {@link #FLAG_IN_USE})
+   * @return true si está activo
+   */
+  public boolean hasFlag(int slot, int flag) {
+    return (segment(slot).flags.get(slot & SEGMENT_MASK) & flag) != 0;
+  }
+
+  /**
+   * Activa o desactiva un indicador de forma atómica.
+   * 
+   * @param slot  posición del jugador
+   * @param flag  indicador a cambiar
+   * @param value nuevo valor
+   * @return true si el indicador cambió
+   */
+  public boolean setFlag(int slot, int flag, boolean value) {
+    AtomicIntegerArray flags = segment(slot).flags;
+    int index = slot & SEGMENT_MASK;
+    while (true) {
+      int current = flags.get(index);
+      int updated = value ? current | flag : current & ~flag;
+      if (current == updated) {
+        return false;
+      }
+      if (flags.compareAndSet(index, current, updated)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Devuelve cuántas posiciones se han creado, libres o no.
+   * 
+   * @return capacidad usada del almacén
+   */
+  public int getSlotCount() {
+    allocationLock.lock();
+    try {
+      return nextSlot;
+    } finally {
+      allocationLock.unlock();
+    }
+  }
+
+  private Segment segment(int slot) {
+    return segments[slot >>> SEGMENT_BITS];
+  }
+
+  /**
+   * Devuelve el segmento de la posición y lo crea si es el primero de un
+   * segmento nuevo. Debe invocarse con el candado de reserva adquirido.
+   */
+  private Segment segmentFor(int slot) {
+    int index = slot >>> SEGMENT_BITS;
+    Segment[] current = segments;
+    if (index < current.length) {
+      return current[index];
+    }
+    Segment[] grown = Arrays.copyOf(current, index + 1);
+    grown[index] = new Segment();
+    segments = grown;
+    return grown[index];
+  }
+
+  private static final class Segment {
+    private final AtomicIntegerArray progress = new AtomicIntegerArray(SEGMENT_SIZE);
+    private final AtomicIntegerArray clicks = new AtomicIntegerArray(SEGMENT_SIZE);
+    private final AtomicIntegerArray reportedClicks = new AtomicIntegerArray(SEGMENT_SIZE);
+    private final AtomicIntegerArray ignoredClicks = new AtomicIntegerArray(SEGMENT_SIZE);
+    private final AtomicIntegerArray flags = new AtomicIntegerArray(SEGMENT_SIZE);
+  }
+}
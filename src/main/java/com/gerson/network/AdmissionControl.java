@@ -0,0 +1,121 @@
+package com.gerson.network;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.gerson.metrics.ServerMetrics;
+import com.gerson.server.ServerConfig;
+
+/**
+ * Control de admisión de conexiones. Limita las conexiones abiertas en total
+ * y por dirección remota. Las que superan algún límite se rechazan nada más
+ * aceptarlas, antes de crear hilos, colas o jugadores, y se cuentan en
+ * {@link ServerMetrics}.
+ */
+public final class AdmissionControl {
+  private static final Logger logger = Logger.getLogger(AdmissionControl.class.getName());
+
+  private final int maxConnections;
+  private final int maxPerAddress;
+  private final AtomicInteger open = new AtomicInteger();
+  private final ConcurrentMap<InetAddress, Integer> perAddress = new ConcurrentHashMap<>();
+
+  /**
+   * Crea un control de admisión.
+   * 
+   * @param maxConnections conexiones abiertas admitidas; 0 no limita
+   * @param maxPerAddress  conexiones abiertas admitidas por dirección
+   *                       remota; 0 no limita
+   */
+  public AdmissionControl(int maxConnections, int maxPerAddress) {
+    this.maxConnections = Math.max(0, maxConnections);
+    this.maxPerAddress = Math.max(0, maxPerAddress);
+  }
+
+  /**
+   * Crea un control de admisión con los límites de
+   * {@link ServerConfig#maxConnections()} y
+   * {@link ServerConfig#maxConnectionsPerAddress()}.
+   * 
+   * @return control de admisión configurado
+   */
+  public static AdmissionControl fromConfig() {
+    return new AdmissionControl(ServerConfig.maxConnections(), ServerConfig.maxConnectionsPerAddress());
+  }
+
+  /**
+   * Intenta admitir una conexión recién aceptada. Si se admite, debe
+   * liberarse con {@link #release(InetAddress)} al cerrarla.
+   * 
+   * @param address dirección remota, puede ser null
+   * @return true si la conexión se admite
+   */
+  public boolean admit(InetAddress address) {
+    int total = open.incrementAndGet();
+    if (maxConnections > 0 && total > maxConnections) {
+      open.decrementAndGet();
+      ServerMetrics.REJECTED_MAX_CONNECTIONS.increment();
+      return false;
+    }
+    if (maxPerAddress > 0 && address != null && perAddress.merge(address, 1, Integer::sum) > maxPerAddress) {
+      release(address);
+      ServerMetrics.REJECTED_PER_ADDRESS.increment();
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Libera la plaza de una conexión admitida que se cerró.
+   * 
+   * @param address dirección remota con la que se admitió
+   */
+  public void release(InetAddress address) {
+    open.decrementAndGet();
+    if (maxPerAddress > 0 && address != null) {
+      perAddress.computeIfPresent(address, (key, count) -> count > 1 ? count - 1 : null);
+    }
+  }
+
+  /**
+   * Devuelve las conexiones admitidas y aún abiertas.
+   * 
+   * @return conexiones abiertas
+   */
+  public int getOpenConnections() {
+    return open.get();
+  }
+
+  /**
+   * Devuelve las conexiones abiertas desde una dirección. Solo se cuentan si
+   * hay límite por dirección.
+   * 
+   * @param address dirección remota
+   * @return conexiones abiertas desde esa dirección
+   */
+  public int getOpenConnections(InetAddress address) {
+    return perAddress.getOrDefault(address, 0);
+  }
+
+  /**
+   * Cierra una conexión rechazada sin esperar: con {@code SO_LINGER} a cero
+   * se envía un reinicio y el puerto no queda en {@code TIME_WAIT}.
+   * 
+   * @param channel canal rechazado
+   */
+  public static void reject(SocketChannel channel) {
+    try {
+      channel.setOption(StandardSocketOptions.SO_LINGER, 0);
+      channel.close();
+    } catch (IOException e) {
+      logger.log(Level.FINE, "Error al cerrar una conexión rechazada", e);
+    }
+  }
+}
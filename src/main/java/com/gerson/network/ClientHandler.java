@@ -1,25 +1,39 @@
 package com.gerson.network;
 
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintStream;
+import java.io.InputStream;
 import java.net.Socket;
+import java.util.concurrent.Executor;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.gerson.logic.GameManager;
-import com.gerson.model.Player;
+import com.gerson.protocol.BinaryDecoder;
+import com.gerson.protocol.LineReader;
+import com.gerson.protocol.Opcode;
+import com.gerson.server.ServerConfig;
 
 /**
- * Hilo encargado de manejar la comunicación con un cliente.
- * Registra al jugador, recibe su nombre, procesa sus mensajes y gestiona su
- * desconexión.
+ * Tarea encargada de manejar la comunicación con un cliente.
+ * Recibe su nombre y su sala, registra al jugador, procesa sus mensajes y gestiona su
+ * desconexión. Si el saludo no llega a tiempo
+ * ({@link ServerConfig#handshakeTimeoutMillis()}), cierra el socket y libera
+ * el hilo. Puede ejecutarse en un hilo de plataforma propio o en un hilo
+ * virtual, según el modo del servidor. Los mensajes salientes pasan por una
+ * cola acotada ({@link QueuedClientSink}) con su propio escritor. Si el primer
+ * byte tras el identificador es {@link Opcode#BINARY_MAGIC}, la conexión pasa
+ * al protocolo binario; si no, se usa el de texto.
  */
-public class ClientHandler extends Thread {
+public class ClientHandler implements Runnable {
+  private static final long DRAIN_TIMEOUT_MILLIS = 500;
+  private static final int MAX_LINE_LENGTH = 8192;
+
   private final Socket socket;
-  private Player player;
-  private PrintStream output;
+  private final Executor writerExecutor;
+  private final Runnable onClosed;
+  private ClientSession session;
+  private QueuedClientSink sink;
 
   private static final Logger logger = Logger.getLogger(ClientHandler.class.getName());
 
@@ -29,50 +43,108 @@ public class ClientHandler extends Thread {
    * @param socket conexión de red del cliente
    */
   public ClientHandler(Socket socket) {
+    this(socket, null);
+  }
+
+  /**
+   * Constructor que recibe el socket del cliente y el ejecutor donde correrá
+   * el escritor de su cola de salida.
+   * 
+   * @param socket         conexión de red del cliente
+   * @param writerExecutor ejecutor del escritor, o null para usar un hilo
+   *                       propio
+   */
+  public ClientHandler(Socket socket, Executor writerExecutor) {
+    this(socket, writerExecutor, null);
+  }
+
+  /**
+   * Constructor que además recibe la acción a ejecutar cuando la conexión
+   * termina, como liberar su plaza en el {@link AdmissionControl}.
+   * 
+   * @param socket         conexión de red del cliente
+   * @param writerExecutor ejecutor del escritor, o null para usar un hilo
+   *                       propio
+   * @param onClosed       acción al cerrar la conexión, puede ser null
+   */
+  public ClientHandler(Socket socket, Executor writerExecutor, Runnable onClosed) {
     this.socket = socket;
+    this.writerExecutor = writerExecutor;
+    this.onClosed = onClosed;
   }
 
   /**
-   * Ejecuta el hilo. Registra al jugador, recibe su nombre,
-   * escucha mensajes del cliente y procesa su desconexión.
+   * Ejecuta la tarea. Recibe el nombre y la sala del cliente, registra al
+   * jugador, escucha sus mensajes y procesa su desconexión.
    */
   @Override
   public void run() {
     if (logger.isLoggable(Level.INFO)) {
       logger.info(String.format("[THREAD] Cliente conectado en hilo %d", Thread.currentThread().getId()));
     }
-    try (BufferedReader input = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
-      output = new PrintStream(socket.getOutputStream());
+    try (InputStream input = new BufferedInputStream(socket.getInputStream())) {
+      sink = socket.getChannel() != null
+          ? new QueuedClientSink(socket.getChannel(), ServerConfig.outboundCapacity(),
+              ServerConfig.overflowPolicy(), this::closeSocket)
+          : new QueuedClientSink(socket.getOutputStream(), ServerConfig.outboundCapacity(),
+              ServerConfig.overflowPolicy(), this::closeSocket);
+      sink.start(writerExecutor);
 
-      player = GameManager.getGamemanagerinstance().registerPlayer(output);
-      output.println(player.getId());
+      int playerId = GameManager.getGamemanagerinstance().reservePlayerId();
+      sink.send(String.valueOf(playerId));
+      session = new ClientSession(playerId, sink);
+      session.armHandshakeDeadline(ServerConfig.handshakeTimeoutMillis(), this::closeSocket);
 
-      String username = input.readLine().trim();
-      if (username.isBlank()) {
-        username = "Jugador " + player.getId();
+      input.mark(1);
+      int first = input.read();
+      if (first < 0) {
+        throw new IOException("Conexión cerrada durante el saludo");
       }
-      player.setName(username);
-
-      GameManager.getGamemanagerinstance().notifyNewPlayer(player);
-
-      String line;
-      while ((line = input.readLine()) != null) {
-        GameManager.getGamemanagerinstance().processClientMessage(player, line);
+      if (first == Opcode.BINARY_MAGIC) {
+        sink.setWireFormat(WireFormat.BINARY);
+        BinaryDecoder decoder = new BinaryDecoder(session);
+        while (decoder.readFrame(input)) {
+          // El decodificador entrega cada marco a la sesión
+        }
+      } else {
+        input.reset();
+        LineReader reader = new LineReader(input, MAX_LINE_LENGTH);
+        int length;
+        while ((length = reader.readLine()) >= 0) {
+          session.onLine(reader.buffer(), length);
+        }
       }
 
     } catch (IOException e) {
       if (logger.isLoggable(Level.INFO)) {
         logger.info(
-            String.format("[X] Cliente desconectado: Caballo %s", (player != null ? player.getId() : "?")));
+            String.format("[X] Cliente desconectado: Caballo %s", (session != null ? session.getPlayerId() : "?")));
       }
     } finally {
-      GameManager.getGamemanagerinstance().removePlayer(player, output);
-      try {
-        socket.close();
-      } catch (IOException e) {
-        if (logger.isLoggable(Level.SEVERE)) {
-          logger.severe("[ERROR] No se pudo cerrar el socket del cliente.");
-        }
+      if (session != null) {
+        session.close();
+      }
+      if (sink != null) {
+        sink.close();
+        sink.awaitTermination(DRAIN_TIMEOUT_MILLIS);
+      }
+      closeSocket();
+      if (onClosed != null) {
+        onClosed.run();
+      }
+    }
+  }
+
+  /**
+   * Cierra el socket del cliente. También se usa para desconectar a un
+   * cliente lento cuando su cola de salida se desborda.
+   */
+  private void closeSocket() {
+    try {
+      socket.close();
+    } catch (IOException e) {
+      if (logger.isLoggable(Level.SEVERE)) {
+        logger.severe("[ERROR] No se pudo cerrar el socket del cliente.");
       }
     }
   }
@@ -0,0 +1,229 @@
+package com.gerson.network;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import com.gerson.logic.GameManager;
+import com.gerson.logic.TimerWheel;
+import com.gerson.metrics.ServerMetrics;
+import com.gerson.model.Player;
+import com.gerson.protocol.InboundHandler;
+import com.gerson.protocol.TextDecoder;
+
+/**
+ * Estado de protocolo de una conexión, compartido por {@link ClientHandler} y
+ * {@link NioConnection}. Recibe el saludo y los mensajes ya decodificados,
+ * sean líneas de texto o marcos binarios, y los entrega a
+ * {@link GameManager}. Los mensajes anteriores al saludo se ignoran.
+ *
+ * <p>
+ * Al conectarse, el cliente solo recibe un identificador reservado: su
+ * jugador se crea y se une a una sala cuando llega el saludo. Una conexión
+ * que no saluda dentro de su plazo ({@link #armHandshakeDeadline}) se
+ * cierra sin haber ocupado ninguna posición de jugador.
+ *
+ * <p>
+ * Tras el saludo, el cliente recibe {@code resume:token}. Si su conexión se
+ * corta, puede saludar desde una conexión nueva con {@code /resume:token} (o
+ * el opcode {@code RESUME}) para retomar su jugador: recibe
+ * {@code resumed:id} y un snapshot de la sala, o {@code resume_failed} si
+ * el token ya no es válido, en cuyo caso puede saludar con normalidad.
+ * Cuando el servidor se reinicia, recibe {@code reconnect:ms}: tras esa
+ * espera puede volver a conectarse y retomar su jugador con el mismo token.
+ *
+ * <p>
+ * En un clúster, si la sala del saludo la aloja otro nodo, el cliente recibe
+ * {@code route:sala} y sigue sin jugador: puede saludar con otra sala o
+ * volver a entrar por la pasarela con ese preámbulo.
+ */
+public class ClientSession implements InboundHandler {
+  private static final String TOKEN_PREFIX = "resume:";
+  private static final String ROUTE_PREFIX = "route:";
+
+  private final ClientSink sink;
+  private final int playerId;
+  private volatile Player player;
+  private volatile boolean greeted;
+  private volatile TimerWheel.Timeout handshakeTimer;
+
+  /**
+   * Crea la sesión de una conexión que aún no ha saludado.
+   * 
+   * @param playerId identificador reservado para el jugador de la conexión
+   * @param sink     canal de salida de la conexión
+   */
+  public ClientSession(int playerId, ClientSink sink) {
+    this.playerId = playerId;
+    this.sink = sink;
+  }
+
+  /**
+   * Programa el plazo para saludar. Si vence antes del saludo, se cuenta en
+   * {@link ServerMetrics#HANDSHAKE_TIMEOUTS} y se cierra la conexión.
+   * 
+   * @param timeoutMillis plazo en milisegundos; 0 no limita la espera
+   * @param expire        acción que cierra la conexión
+   */
+  public void armHandshakeDeadline(long timeoutMillis, Runnable expire) {
+    if (timeoutMillis <= 0) {
+      return;
+    }
+    handshakeTimer = TimerWheel.shared().schedule(() -> {
+      if (!greeted) {
+        ServerMetrics.HANDSHAKE_TIMEOUTS.increment();
+        expire.run();
+      }
+    }, timeoutMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Procesa una línea del protocolo de texto directamente desde el búfer de
+   * lectura. La primera línea es el saludo; las siguientes se reconocen con
+   * {@link TextDecoder} sin crear cadenas.
+   * 
+   * @param line   búfer con la línea, sin salto de línea
+   * @param length longitud de la línea
+   */
+  public void onLine(byte[] line, int length) {
+    if (!greeted) {
+      String handshake = new String(line, 0, length, StandardCharsets.UTF_8);
+      if (handshake.startsWith(Handshake.RESUME_PREFIX)) {
+        onResume(handshake.substring(Handshake.RESUME_PREFIX.length()).trim());
+        return;
+      }
+      ServerMetrics.HELLO_IN.increment();
+      greet(Handshake.parse(handshake, playerId));
+    } else {
+      TextDecoder.dispatch(line, length, this);
+    }
+  }
+
+  @Override
+  public void onHello(String username, String roomName) {
+    ServerMetrics.HELLO_IN.increment();
+    if (!greeted) {
+      greet(Handshake.of(username, roomName, playerId));
+    }
+  }
+
+  @Override
+  public void onReady() {
+    ServerMetrics.READY_IN.increment();
+    if (greeted) {
+      GameManager.getGamemanagerinstance().processReady(player);
+    }
+  }
+
+  @Override
+  public void onClick() {
+    ServerMetrics.CLICK_IN.increment();
+    if (greeted) {
+      GameManager.getGamemanagerinstance().processClick(player);
+    }
+  }
+
+  @Override
+  public void onClicksReported(int clicks) {
+    ServerMetrics.CLICKS_SENT_IN.increment();
+    if (greeted) {
+      GameManager.getGamemanagerinstance().processClicksReported(player, clicks);
+    }
+  }
+
+  @Override
+  public void onResync() {
+    ServerMetrics.RESYNC_IN.increment();
+    if (greeted) {
+      GameManager.getGamemanagerinstance().processResync(player);
+    }
+  }
+
+  @Override
+  public void onRename(String name) {
+    ServerMetrics.RENAME_IN.increment();
+    if (greeted) {
+      GameManager.getGamemanagerinstance().processRename(player, Handshake.sanitizeName(name));
+    }
+  }
+
+  @Override
+  public void onResume(String token) {
+    ServerMetrics.RESUME_IN.increment();
+    if (greeted) {
+      return;
+    }
+    GameManager gameManager = GameManager.getGamemanagerinstance();
+    Player resumed = gameManager.resumePlayer(token, sink);
+    if (resumed == null) {
+      sink.send("resume_failed");
+      return;
+    }
+    player = resumed;
+    greeted = true;
+    cancelHandshakeDeadline();
+  }
+
+  /**
+   * Devuelve el jugador de la conexión. Cambia si la sesión se retomó.
+   * 
+   * @return jugador actual, o null si aún no ha saludado
+   */
+  public Player getPlayer() {
+    return player;
+  }
+
+  /**
+   * Devuelve el identificador reservado para la conexión.
+   * 
+   * @return identificador enviado al cliente
+   */
+  public int getPlayerId() {
+    return playerId;
+  }
+
+  /**
+   * Procesa el cierre de la conexión: suspende al jugador para que pueda
+   * retomar la sesión o lo elimina si no puede. Sin saludo no hay jugador
+   * que eliminar.
+   */
+  public void close() {
+    cancelHandshakeDeadline();
+    GameManager.getGamemanagerinstance().disconnectPlayer(player, sink);
+  }
+
+  /**
+   * Indica si el cliente ya envió su saludo.
+   * 
+   * @return true si el jugador ya está en una sala
+   */
+  public boolean isGreeted() {
+    return greeted;
+  }
+
+  private void greet(Handshake handshake) {
+    Player created = GameManager.getGamemanagerinstance().createPlayer(playerId, sink);
+    created.setName(handshake.getUsername());
+    if (GameManager.getGamemanagerinstance().joinRoom(created, handshake.getRoomName()) == null) {
+      // Otro nodo aloja la sala: el plazo del saludo sigue corriendo
+      GameManager.getGamemanagerinstance().removePlayer(created);
+      sink.send(ROUTE_PREFIX + handshake.getRoomName());
+      return;
+    }
+    player = created;
+    greeted = true;
+    cancelHandshakeDeadline();
+    GameManager.getGamemanagerinstance().notifyNewPlayer(player);
+    String token = GameManager.getGamemanagerinstance().issueResumeToken(player);
+    if (token != null) {
+      sink.send(TOKEN_PREFIX + token);
+    }
+  }
+
+  private void cancelHandshakeDeadline() {
+    TimerWheel.Timeout timer = handshakeTimer;
+    if (timer != null) {
+      timer.cancel();
+      handshakeTimer = null;
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package com.gerson.network;
+
+/**
+ * Canal de salida hacia un cliente. Las implementaciones deciden si el envío
+ * es síncrono o se encola para un escritor propio.
+ */
+public interface ClientSink {
+
+  /**
+   * Envía un marco ya codificado. El marco indica si puede descartarse cuando
+   * el cliente no consume a tiempo.
+   * 
+   * @param frame marco a enviar
+   */
+  void send(Frame frame);
+
+  /**
+   * Envía un mensaje que el cliente no puede perder (lista de jugadores,
+   * cuenta regresiva, ganador, etc.).
+   * 
+   * @param message mensaje sin salto de línea final
+   */
+  default void send(String message) {
+    send(Frame.of(message));
+  }
+
+  /**
+   * Envía un mensaje prescindible, como un marco de progreso, que puede
+   * descartarse si el cliente no consume a tiempo.
+   * 
+   * @param message mensaje sin salto de línea final
+   */
+  default void sendDroppable(String message) {
+    send(Frame.droppable(message));
+  }
+
+  /**
+   * Cambia el formato de cable usado para los mensajes siguientes. Por
+   * defecto los canales solo hablan texto y lo ignoran.
+   * 
+   * @param format formato negociado con el cliente
+   */
+  default void setWireFormat(WireFormat format) {
+    // Solo texto
+  }
+
+  /**
+   * Cierra el canal. Los mensajes ya encolados se intentan entregar.
+   */
+  void close();
+
+  /**
+   * Expulsa al cliente cerrando también su conexión. Por defecto solo
+   * cierra el canal.
+   */
+  default void disconnect() {
+    close();
+  }
+}
@@ -0,0 +1,190 @@
+package com.gerson.network;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bucle de eventos NIO. Cada instancia tiene su propio {@link Selector} y
+ * atiende, desde un único hilo, a todas las conexiones que se le asignan.
+ */
+public class EventLoop implements Runnable {
+  private static final Logger logger = Logger.getLogger(EventLoop.class.getName());
+
+  private final Selector selector;
+  private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+  private volatile boolean running = true;
+  private volatile Thread thread;
+
+  /**
+   * Crea el bucle de eventos y abre su selector.
+   * 
+   * @throws IOException si no se puede abrir el selector
+   */
+  public EventLoop() throws IOException {
+    this.selector = Selector.open();
+  }
+
+  /**
+   * Asigna un canal recién aceptado a este bucle. El registro se realiza
+   * dentro del hilo del bucle.
+   * 
+   * @param channel canal del cliente
+   */
+  public void register(SocketChannel channel) {
+    register(channel, null);
+  }
+
+  /**
+   * Asigna un canal recién aceptado a este bucle con una acción a ejecutar
+   * cuando la conexión se cierre, también si no llega a registrarse.
+   * 
+   * @param channel  canal del cliente
+   * @param onClosed acción al cerrar la conexión, puede ser null
+   */
+  public void register(SocketChannel channel, Runnable onClosed) {
+    register(channel, onClosed, false);
+  }
+
+  /**
+   * Asigna un canal recién aceptado a este bucle indicando si el cliente
+   * habla WebSocket.
+   * 
+   * @param channel   canal del cliente
+   * @param onClosed  acción al cerrar la conexión, puede ser null
+   * @param webSocket true si el canal llegó por el puerto WebSocket
+   */
+  public void register(SocketChannel channel, Runnable onClosed, boolean webSocket) {
+    execute(() -> {
+      try {
+        channel.configureBlocking(false);
+        NioConnection connection = new NioConnection(channel, this, onClosed, webSocket);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ, connection);
+        connection.onRegistered(key);
+      } catch (IOException e) {
+        logger.log(Level.WARNING, "[X] No se pudo registrar el cliente en el bucle NIO", e);
+        closeQuietly(channel);
+        if (onClosed != null) {
+          onClosed.run();
+        }
+      }
+    });
+  }
+
+  /**
+   * Encola una tarea para ejecutarla en el hilo del bucle y lo despierta.
+   * 
+   * @param task tarea a ejecutar
+   */
+  public void execute(Runnable task) {
+    tasks.add(task);
+    selector.wakeup();
+  }
+
+  /**
+   * Indica si el hilo actual es el hilo de este bucle.
+   * 
+   * @return true si se invoca desde el propio bucle
+   */
+  public boolean inEventLoop() {
+    return Thread.currentThread() == thread;
+  }
+
+  /**
+   * Ejecuta el bucle: espera eventos de lectura/escritura y los delega a cada
+   * {@link NioConnection}.
+   */
+  @Override
+  public void run() {
+    thread = Thread.currentThread();
+    while (running) {
+      try {
+        selector.select();
+        runTasks();
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+          SelectionKey key = keys.next();
+          keys.remove();
+          handle(key);
+        }
+      } catch (IOException e) {
+        logger.log(Level.SEVERE, "[ERROR] Fallo en el bucle de eventos", e);
+      }
+    }
+    closeAll();
+  }
+
+  /**
+   * Detiene el bucle y cierra todas sus conexiones.
+   */
+  public void shutdown() {
+    running = false;
+    selector.wakeup();
+  }
+
+  /**
+   * Atiende los eventos de una conexión. Un error inesperado de una conexión
+   * la cierra solo a ella: el bucle sigue atendiendo a las demás.
+   */
+  private void handle(SelectionKey key) {
+    NioConnection connection = (NioConnection) key.attachment();
+    try {
+      if (!key.isValid()) {
+        connection.close();
+        return;
+      }
+      if (key.isReadable()) {
+        connection.onReadable();
+      }
+      if (key.isValid() && key.isWritable()) {
+        connection.onWritable();
+      }
+    } catch (RuntimeException e) {
+      logger.log(Level.WARNING, "[X] Error atendiendo una conexión; se cierra", e);
+      try {
+        connection.close();
+      } catch (RuntimeException closeError) {
+        logger.log(Level.FINE, "Error al cerrar la conexión", closeError);
+      }
+    }
+  }
+
+  private void runTasks() {
+    Runnable task;
+    while ((task = tasks.poll()) != null) {
+      try {
+        task.run();
+      } catch (RuntimeException e) {
+        logger.log(Level.WARNING, "[X] Error ejecutando tarea del bucle NIO", e);
+      }
+    }
+  }
+
+  private void closeAll() {
+    runTasks();
+    for (SelectionKey key : selector.keys()) {
+      if (key.attachment() instanceof NioConnection) {
+        ((NioConnection) key.attachment()).close();
+      }
+    }
+    try {
+      selector.close();
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "[X] No se pudo cerrar el selector", e);
+    }
+  }
+
+  private static void closeQuietly(SocketChannel channel) {
+    try {
+      channel.close();
+    } catch (IOException e) {
+      logger.log(Level.FINE, "Error al cerrar canal", e);
+    }
+  }
+}
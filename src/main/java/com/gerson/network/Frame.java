@@ -0,0 +1,198 @@
+package com.gerson.network;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.gerson.protocol.ByteWriter;
+import com.gerson.protocol.Opcode;
+
+/**
+ * Mensaje de salida codificado una sola vez por formato de cable. Los bytes
+ * de texto (con su salto de línea) y, si se conocen, los binarios se fijan al
+ * crear el marco, y el mismo contenido inmutable se comparte, en modo solo
+ * lectura, entre todos los destinatarios de una difusión.
+ */
+public final class Frame {
+  private final byte[] textBytes;
+  private final boolean droppable;
+  private final boolean direct;
+  private final ByteBuffer sharedText;
+  private volatile byte[] binaryBytes;
+  private volatile ByteBuffer sharedBinary;
+  private volatile String text;
+
+  private Frame(byte[] textBytes, byte[] binaryBytes, boolean droppable, boolean direct) {
+    this.textBytes = textBytes;
+    this.binaryBytes = binaryBytes;
+    this.droppable = droppable;
+    this.direct = direct;
+    this.sharedText = share(textBytes, direct);
+  }
+
+  /**
+   * Crea un marco imprescindible en memoria de montón.
+   * 
+   * @param text mensaje sin salto de línea final
+   * @return marco codificado
+   */
+  public static Frame of(String text) {
+    return of(text, false, false);
+  }
+
+  /**
+   * Crea un marco prescindible (por ejemplo, de progreso) en memoria de montón.
+   * 
+   * @param text mensaje sin salto de línea final
+   * @return marco codificado
+   */
+  public static Frame droppable(String text) {
+    return of(text, true, false);
+  }
+
+  /**
+   * Crea un marco a partir de un texto. Con muchos destinatarios conviene un
+   * búfer directo, para que el canal no copie los bytes a un búfer temporal en
+   * cada escritura. Para clientes binarios el texto viaja en un marco
+   * {@link Opcode#TEXT}.
+   * 
+   * @param text      mensaje sin salto de línea final
+   * @param droppable true si el marco puede descartarse
+   * @param direct    true para codificar en un búfer directo
+   * @return marco codificado
+   */
+  public static Frame of(String text, boolean droppable, boolean direct) {
+    Frame frame = new Frame((text + "\n").getBytes(StandardCharsets.UTF_8), null, droppable, direct);
+    frame.text = text;
+    return frame;
+  }
+
+  /**
+   * Crea un marco con ambas codificaciones ya construidas.
+   * 
+   * @param textBytes   línea de texto, incluido el salto de línea
+   * @param binaryBytes marco binario con prefijo de longitud
+   * @param droppable   true si el marco puede descartarse
+   * @param direct      true para codificar en búferes directos
+   * @return marco codificado
+   */
+  public static Frame encoded(byte[] textBytes, byte[] binaryBytes, boolean droppable, boolean direct) {
+    return new Frame(textBytes, binaryBytes, droppable, direct);
+  }
+
+  /**
+   * Devuelve el texto del mensaje, sin salto de línea final. Solo se decodifica
+   * si alguien lo pide (canales síncronos y pruebas).
+   * 
+   * @return mensaje de texto
+   */
+  public String text() {
+    String value = text;
+    if (value == null) {
+      value = new String(textBytes, 0, textBytes.length - 1, StandardCharsets.UTF_8);
+      text = value;
+    }
+    return value;
+  }
+
+  /**
+   * Indica si el marco puede descartarse cuando el cliente va retrasado.
+   * 
+   * @return true para marcos de progreso
+   */
+  public boolean isDroppable() {
+    return droppable;
+  }
+
+  /**
+   * Longitud codificada del marco en texto, incluido el salto de línea.
+   * 
+   * @return número de bytes
+   */
+  public int length() {
+    return textBytes.length;
+  }
+
+  /**
+   * Longitud codificada del marco en el formato indicado.
+   * 
+   * @param format formato de cable
+   * @return número de bytes
+   */
+  public int length(WireFormat format) {
+    return format == WireFormat.BINARY ? binary().length : textBytes.length;
+  }
+
+  /**
+   * Devuelve una vista de solo lectura, con posición propia, sobre los bytes de
+   * texto compartidos. No copia el contenido.
+   * 
+   * @return búfer listo para escribir en un canal
+   */
+  public ByteBuffer buffer() {
+    return sharedText.duplicate();
+  }
+
+  /**
+   * Devuelve una vista de solo lectura sobre los bytes compartidos del formato
+   * indicado. No copia el contenido.
+   * 
+   * @param format formato de cable
+   * @return búfer listo para escribir en un canal
+   */
+  public ByteBuffer buffer(WireFormat format) {
+    if (format != WireFormat.BINARY) {
+      return sharedText.duplicate();
+    }
+    ByteBuffer shared = sharedBinary;
+    if (shared == null) {
+      shared = share(binary(), direct);
+      sharedBinary = shared;
+    }
+    return shared.duplicate();
+  }
+
+  /**
+   * Escribe el marco de texto en un flujo sin codificarlo de nuevo.
+   * 
+   * @param out flujo de salida
+   * @throws IOException si falla la escritura
+   */
+  public void writeTo(OutputStream out) throws IOException {
+    out.write(textBytes, 0, textBytes.length);
+  }
+
+  /**
+   * Escribe el marco en el formato indicado sin codificarlo de nuevo.
+   * 
+   * @param out    flujo de salida
+   * @param format formato de cable
+   * @throws IOException si falla la escritura
+   */
+  public void writeTo(OutputStream out, WireFormat format) throws IOException {
+    byte[] bytes = format == WireFormat.BINARY ? binary() : textBytes;
+    out.write(bytes, 0, bytes.length);
+  }
+
+  private byte[] binary() {
+    byte[] bytes = binaryBytes;
+    if (bytes == null) {
+      bytes = new ByteWriter(textBytes.length + 4).writeByte(Opcode.TEXT).writeString(text())
+          .toLengthPrefixed();
+      binaryBytes = bytes;
+    }
+    return bytes;
+  }
+
+  private static ByteBuffer share(byte[] bytes, boolean direct) {
+    ByteBuffer buffer;
+    if (direct) {
+      buffer = ByteBuffer.allocateDirect(bytes.length);
+      buffer.put(bytes).flip();
+    } else {
+      buffer = ByteBuffer.wrap(bytes);
+    }
+    return buffer.asReadOnlyBuffer();
+  }
+}
@@ -0,0 +1,106 @@
+package com.gerson.network;
+
+import com.gerson.logic.RoomManager;
+
+/**
+ * Saludo inicial enviado por el cliente tras recibir su identificador.
+ * Tiene la forma {@code nombre} o {@code nombre@sala}; si no se indica sala,
+ * el jugador se une a la sala principal.
+ *
+ * <p>
+ * Las líneas de saludo que empiezan por {@code /} quedan reservadas para
+ * órdenes, como {@link #RESUME_PREFIX}. Ningún nombre puede empezar por ese
+ * carácter: se le quita, así que un nombre nunca se confunde con una orden.
+ */
+public final class Handshake {
+  /** Carácter con el que empiezan las órdenes del saludo. */
+  public static final char COMMAND_PREFIX = '/';
+  /** Saludo con el que una conexión nueva retoma su jugador con su token. */
+  public static final String RESUME_PREFIX = COMMAND_PREFIX + "resume:";
+
+  private static final char ROOM_SEPARATOR = '@';
+
+  private final String username;
+  private final String roomName;
+
+  private Handshake(String username, String roomName) {
+    this.username = username;
+    this.roomName = roomName;
+  }
+
+  /**
+   * Interpreta la línea de saludo de un cliente.
+   * 
+   * @param line     línea recibida
+   * @param playerId identificador asignado, usado para el nombre por defecto
+   * @return saludo interpretado
+   */
+  public static Handshake parse(String line, int playerId) {
+    String username = line == null ? "" : line.trim();
+    String roomName = RoomManager.DEFAULT_ROOM;
+    int separator = username.lastIndexOf(ROOM_SEPARATOR);
+    if (separator >= 0) {
+      roomName = RoomManager.normalize(username.substring(separator + 1));
+      username = username.substring(0, separator);
+    }
+    username = sanitizeName(username);
+    if (username.isBlank()) {
+      username = "Jugador " + playerId;
+    }
+    return new Handshake(username, roomName);
+  }
+
+  /**
+   * Construye el saludo a partir de campos ya separados, como los del saludo
+   * binario.
+   * 
+   * @param username nombre elegido, puede estar vacío
+   * @param roomName sala elegida, puede estar vacía
+   * @param playerId identificador asignado, usado para el nombre por defecto
+   * @return saludo interpretado
+   */
+  public static Handshake of(String username, String roomName, int playerId) {
+    String name = sanitizeName(username);
+    if (name.isBlank()) {
+      name = "Jugador " + playerId;
+    }
+    return new Handshake(name, RoomManager.normalize(roomName));
+  }
+
+  /**
+   * Limpia un nombre de jugador: quita los espacios de los extremos y el
+   * prefijo reservado para órdenes.
+   * 
+   * @param name nombre recibido, puede ser null
+   * @return nombre limpio, vacío si no queda nada
+   */
+  public static String sanitizeName(String name) {
+    if (name == null) {
+      return "";
+    }
+    int start = 0;
+    while (start < name.length() && (name.charAt(start) == COMMAND_PREFIX
+        || Character.isWhitespace(name.charAt(start)))) {
+      start++;
+    }
+    return name.substring(start).trim();
+  }
+
+  /**
+   * Devuelve el nombre elegido por el jugador.
+   * 
+   * @return nombre del jugador
+   */
+  public String getUsername() {
+    return username;
+  }
+
+  /**
+   * Devuelve la sala a la que quiere unirse el jugador.
+   * 
+   * @return nombre de la sala
+   */
+  public String getRoomName() {
+    return roomName;
+  }
+}
@@ -0,0 +1,452 @@
+package com.gerson.network;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.gerson.logic.GameManager;
+import com.gerson.metrics.ServerMetrics;
+import com.gerson.protocol.BinaryDecoder;
+import com.gerson.protocol.Opcode;
+import com.gerson.protocol.WebSocket;
+import com.gerson.protocol.WebSocketDecoder;
+import com.gerson.server.ServerConfig;
+
+/**
+ * Conexión de un cliente atendida por un {@link EventLoop}.
+ * Separa las líneas o los marcos binarios recibidos sin bloquear, mantiene un búfer de lectura y una
+ * cola de salida acotada propios y entrega los mensajes al mismo flujo de
+ * {@link GameManager} que usa {@link ClientHandler}. La cola la vacía el
+ * propio bucle de eventos. Si el saludo no llega a tiempo
+ * ({@link ServerConfig#handshakeTimeoutMillis()}), la conexión se cierra.
+ *
+ * <p>
+ * Una conexión WebSocket recibe su identificador tras la respuesta
+ * {@code 101} a la apertura HTTP. Las líneas de sus marcos de texto siguen
+ * el mismo camino que las de un cliente TCP. Los mensajes pendientes se
+ * agrupan en un solo marco de texto por escritura, sin copiarlos: la
+ * cabecera del marco va delante de las vistas de los marcos compartidos en
+ * la misma escritura agrupada.
+ */
+public class NioConnection implements ClientSink {
+  private static final Logger logger = Logger.getLogger(NioConnection.class.getName());
+  private static final int READ_BUFFER_SIZE = 1024;
+  private static final int MAX_LINE_LENGTH = 8192;
+  private static final int MAX_BATCH = 64;
+
+  private final SocketChannel channel;
+  private final EventLoop loop;
+  private final Runnable onClosed;
+  private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+  private final OutboundQueue writeQueue;
+  private final ByteBuffer[] batch = new ByteBuffer[MAX_BATCH + 1];
+  private final boolean webSocket;
+  private final ArrayDeque<ByteBuffer> control = new ArrayDeque<>();
+  private final ByteBuffer webSocketHeader = ByteBuffer.allocate(WebSocket.MAX_HEADER_LENGTH);
+  private WebSocketDecoder webSocketDecoder;
+  private int batchStart;
+  private int batchEnd;
+  private byte[] lineBuffer = new byte[128];
+  private int lineLength;
+  private boolean writeRequested;
+  private SelectionKey key;
+  private ClientSession session;
+  private BinaryDecoder decoder;
+  private boolean negotiated;
+  private volatile WireFormat wireFormat = WireFormat.TEXT;
+  private volatile boolean closed;
+  private volatile boolean closing;
+
+  /**
+   * Crea la conexión para un canal ya configurado como no bloqueante.
+   * 
+   * @param channel canal del cliente
+   * @param loop    bucle de eventos que atiende la conexión
+   */
+  public NioConnection(SocketChannel channel, EventLoop loop) {
+    this(channel, loop, null);
+  }
+
+  /**
+   * Crea la conexión con una acción a ejecutar cuando se cierre, como
+   * liberar su plaza en el {@link AdmissionControl}.
+   * 
+   * @param channel  canal del cliente
+   * @param loop     bucle de eventos que atiende la conexión
+   * @param onClosed acción al cerrar la conexión, puede ser null
+   */
+  public NioConnection(SocketChannel channel, EventLoop loop, Runnable onClosed) {
+    this(channel, loop, onClosed, false);
+  }
+
+  /**
+   * Crea la conexión indicando si el cliente habla WebSocket.
+   * 
+   * @param channel   canal del cliente
+   * @param loop      bucle de eventos que atiende la conexión
+   * @param onClosed  acción al cerrar la conexión, puede ser null
+   * @param webSocket true si el cliente abre con una petición WebSocket
+   */
+  public NioConnection(SocketChannel channel, EventLoop loop, Runnable onClosed, boolean webSocket) {
+    this.channel = channel;
+    this.loop = loop;
+    this.onClosed = onClosed;
+    this.webSocket = webSocket;
+    this.writeQueue = new OutboundQueue(ServerConfig.outboundCapacity(), ServerConfig.overflowPolicy());
+  }
+
+  /**
+   * Se invoca cuando el canal queda registrado en el selector. Envía al
+   * cliente su identificador y programa el plazo del saludo, igual que
+   * {@link ClientHandler}; el jugador se crea al saludar. Un cliente
+   * WebSocket recibe el identificador al completar la apertura, y el plazo
+   * del saludo cubre también la apertura.
+   * 
+   * @param key clave de selección del canal
+   */
+  void onRegistered(SelectionKey key) {
+    this.key = key;
+    int playerId = GameManager.getGamemanagerinstance().reservePlayerId();
+    session = new ClientSession(playerId, this);
+    if (!webSocket) {
+      send(String.valueOf(playerId));
+    }
+    session.armHandshakeDeadline(ServerConfig.handshakeTimeoutMillis(), this::close);
+  }
+
+  /**
+   * Lee los datos disponibles y procesa cada línea o marco binario completo.
+   * El primer byte decide el protocolo: {@link Opcode#BINARY_MAGIC} activa el
+   * binario y cualquier otro, el de texto. Un marco binario incompleto se
+   * conserva al principio del búfer hasta la siguiente lectura.
+   */
+  void onReadable() {
+    try {
+      int read = channel.read(readBuffer);
+      if (read < 0) {
+        close();
+        return;
+      }
+      readBuffer.flip();
+      if (webSocket) {
+        readWebSocket();
+        readBuffer.compact();
+        return;
+      }
+      if (!negotiated && readBuffer.hasRemaining()) {
+        negotiate();
+      }
+      if (decoder != null) {
+        decoder.decode(readBuffer);
+        readBuffer.compact();
+        return;
+      }
+      while (readBuffer.hasRemaining() && !closed) {
+        byte b = readBuffer.get();
+        if (b == '\n') {
+          handleLine();
+        } else {
+          appendToLine(b);
+        }
+      }
+      readBuffer.clear();
+    } catch (IOException e) {
+      if (logger.isLoggable(Level.INFO)) {
+        logger.info(String.format("[X] Cliente desconectado: Caballo %s", (session != null ? session.getPlayerId() : "?")));
+      }
+      close();
+    }
+  }
+
+  /**
+   * Escribe los marcos pendientes con una escritura agrupada sobre vistas de
+   * solo lectura de sus bytes compartidos. Si el socket no acepta más datos,
+   * se mantiene el interés de escritura para continuar en el siguiente evento.
+   */
+  void onWritable() {
+    try {
+      while (true) {
+        if (batchStart == batchEnd && !refillBatch()) {
+          return;
+        }
+        channel.write(batch, batchStart, batchEnd - batchStart);
+        while (batchStart < batchEnd && !batch[batchStart].hasRemaining()) {
+          batch[batchStart++] = null;
+        }
+        if (batchStart < batchEnd) {
+          return;
+        }
+        batchStart = 0;
+        batchEnd = 0;
+      }
+    } catch (IOException e) {
+      close();
+    }
+  }
+
+  @Override
+  public void setWireFormat(WireFormat format) {
+    wireFormat = format;
+  }
+
+  @Override
+  public void send(Frame frame) {
+    if (closed || closing) {
+      return;
+    }
+    boolean schedule = false;
+    boolean overflow = false;
+    synchronized (writeQueue) {
+      if (writeQueue.offer(frame) == OutboundQueue.Result.OVERFLOW) {
+        overflow = true;
+      } else if (!writeRequested) {
+        writeRequested = true;
+        schedule = true;
+      }
+    }
+    if (overflow) {
+      // El cierre se difiere: quien difunde puede estar recorriendo la sala
+      closing = true;
+      OutboundStats.onSlowConsumerDisconnect();
+      logger.warning("[X] Cliente lento: cola de salida llena, se cierra la conexión.");
+      loop.execute(this::close);
+    } else if (schedule) {
+      loop.execute(this::enableWrite);
+    }
+  }
+
+  /**
+   * Cierra la conexión y elimina al jugador del juego. Solo tiene efecto la
+   * primera vez que se invoca. Si se llama desde otro hilo, el cierre se
+   * delega al bucle de eventos.
+   */
+  @Override
+  public void close() {
+    if (!loop.inEventLoop()) {
+      loop.execute(this::close);
+      return;
+    }
+    if (closed) {
+      return;
+    }
+    closed = true;
+    if (key != null) {
+      key.cancel();
+    }
+    try {
+      channel.close();
+    } catch (IOException e) {
+      if (logger.isLoggable(Level.SEVERE)) {
+        logger.severe("[ERROR] No se pudo cerrar el socket del cliente.");
+      }
+    }
+    synchronized (writeQueue) {
+      writeQueue.clear();
+    }
+    if (session != null) {
+      session.close();
+    }
+    if (onClosed != null) {
+      onClosed.run();
+    }
+  }
+
+  private void handleLine() {
+    int length = lineLength;
+    if (length > 0 && lineBuffer[length - 1] == '\r') {
+      length--;
+    }
+    lineLength = 0;
+    session.onLine(lineBuffer, length);
+  }
+
+  /**
+   * Lee la petición de apertura hasta su línea en blanco y, tras ella, los
+   * marcos WebSocket del cliente.
+   */
+  private void readWebSocket() throws IOException {
+    while (webSocketDecoder == null && readBuffer.hasRemaining() && !closed) {
+      appendToLine(readBuffer.get());
+      if (endsWithBlankLine()) {
+        upgrade();
+      }
+    }
+    if (webSocketDecoder != null && !closed) {
+      webSocketDecoder.decode(readBuffer);
+    }
+  }
+
+  /**
+   * Responde a la petición de apertura y envía al cliente su identificador.
+   * Una petición no válida recibe un {@code 400} y se cierra la conexión.
+   */
+  private void upgrade() {
+    String request = new String(lineBuffer, 0, lineLength, StandardCharsets.ISO_8859_1);
+    lineLength = 0;
+    byte[] response;
+    try {
+      response = WebSocket.upgradeResponse(request);
+    } catch (IOException e) {
+      logger.warning("[X] Apertura WebSocket no válida: " + e.getMessage());
+      writeQuietly(WebSocket.badRequest());
+      close();
+      return;
+    }
+    webSocketDecoder = new WebSocketDecoder(new WebSocketListener());
+    ServerMetrics.WEBSOCKET_UPGRADES.increment();
+    sendControl(ByteBuffer.wrap(response));
+    send(String.valueOf(session.getPlayerId()));
+  }
+
+  private boolean endsWithBlankLine() {
+    return lineLength >= 4 && lineBuffer[lineLength - 4] == '\r' && lineBuffer[lineLength - 3] == '\n'
+        && lineBuffer[lineLength - 2] == '\r' && lineBuffer[lineLength - 1] == '\n';
+  }
+
+  /**
+   * Encola bytes que se escriben tal cual, antes que los mensajes pendientes:
+   * la respuesta de apertura y los marcos de control. Solo desde el hilo del
+   * bucle.
+   */
+  private void sendControl(ByteBuffer bytes) {
+    control.add(bytes);
+    synchronized (writeQueue) {
+      writeRequested = true;
+    }
+    enableWrite();
+  }
+
+  /**
+   * Intenta escribir unos pocos bytes justo antes de cerrar, sin esperar a
+   * que el socket los acepte. Solo si no hay una escritura a medias, para no
+   * romper un marco.
+   */
+  private void writeQuietly(ByteBuffer bytes) {
+    if (batchStart != batchEnd) {
+      return;
+    }
+    try {
+      channel.write(bytes);
+    } catch (IOException e) {
+      logger.log(Level.FINE, "No se pudo escribir antes de cerrar", e);
+    }
+  }
+
+  /**
+   * Entrega las líneas de los mensajes de texto a la sesión y atiende los
+   * marcos de control.
+   */
+  private final class WebSocketListener implements WebSocketDecoder.Listener {
+
+    @Override
+    public void onText(byte[] data, int length) {
+      for (int i = 0; i < length && !closed; i++) {
+        if (data[i] == '\n') {
+          handleLine();
+        } else {
+          appendToLine(data[i]);
+        }
+      }
+    }
+
+    @Override
+    public void onTextEnd() {
+      // Un mensaje es una línea completa aunque no termine en salto de línea
+      if (lineLength > 0 && !closed) {
+        handleLine();
+      }
+    }
+
+    @Override
+    public void onPing(byte[] payload, int length) {
+      sendControl(WebSocket.controlFrame(WebSocket.OPCODE_PONG, payload, length));
+    }
+
+    @Override
+    public void onClose() {
+      writeQuietly(WebSocket.closeFrame(WebSocket.CLOSE_NORMAL));
+      close();
+    }
+  }
+
+  private void negotiate() {
+    negotiated = true;
+    if ((readBuffer.get(readBuffer.position()) & 0xFF) == Opcode.BINARY_MAGIC) {
+      readBuffer.get();
+      setWireFormat(WireFormat.BINARY);
+      decoder = new BinaryDecoder(session);
+    }
+  }
+
+  private void appendToLine(byte b) {
+    if (lineLength == lineBuffer.length) {
+      if (lineLength >= MAX_LINE_LENGTH) {
+        logger.warning("[X] Línea demasiado larga, cerrando conexión.");
+        close();
+        return;
+      }
+      lineBuffer = Arrays.copyOf(lineBuffer, Math.min(MAX_LINE_LENGTH, lineLength * 2));
+    }
+    lineBuffer[lineLength++] = b;
+  }
+
+  /**
+   * Pasa marcos de la cola al lote de escritura. Si la cola está vacía, retira
+   * el interés de escritura.
+   * 
+   * @return true si el lote tiene datos que escribir
+   */
+  private boolean refillBatch() {
+    synchronized (writeQueue) {
+      while (!control.isEmpty() && batchEnd < MAX_BATCH) {
+        batch[batchEnd++] = control.poll();
+      }
+      if (!webSocket) {
+        Frame frame;
+        while (batchEnd < MAX_BATCH && (frame = writeQueue.poll()) != null) {
+          batch[batchEnd++] = frame.buffer(wireFormat);
+        }
+      } else if (webSocketDecoder != null && control.isEmpty()) {
+        fillWebSocketFrame();
+      }
+      if (batchEnd == 0) {
+        writeRequested = false;
+        key.interestOps(SelectionKey.OP_READ);
+        return false;
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Agrupa los mensajes pendientes en un único marco de texto: reserva un
+   * hueco para la cabecera y la escribe cuando conoce la longitud total.
+   */
+  private void fillWebSocketFrame() {
+    int header = batchEnd++;
+    long payload = 0;
+    Frame frame;
+    while (batchEnd < batch.length && (frame = writeQueue.poll()) != null) {
+      ByteBuffer bytes = frame.buffer(WireFormat.TEXT);
+      payload += bytes.remaining();
+      batch[batchEnd++] = bytes;
+    }
+    if (payload == 0) {
+      batchEnd = header;
+    } else {
+      batch[header] = WebSocket.writeHeader(webSocketHeader, WebSocket.OPCODE_TEXT, payload);
+    }
+  }
+
+  private void enableWrite() {
+    if (key != null && key.isValid()) {
+      key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+    }
+  }
+}
@@ -0,0 +1,183 @@
+package com.gerson.network;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.gerson.metrics.ServerMetrics;
+import com.gerson.server.ServerConfig;
+
+/**
+ * Servidor basado en {@link java.nio.channels.Selector}. Un hilo acepta
+ * conexiones y las reparte en turno rotatorio entre un número fijo de
+ * {@link EventLoop}, en lugar de crear un hilo por cliente. Las conexiones
+ * que superan los límites de {@link AdmissionControl} se cierran al
+ * aceptarlas, sin llegar a ningún bucle.
+ *
+ * <p>
+ * Opcionalmente escucha también en un puerto WebSocket. Sus clientes se
+ * reparten entre los mismos bucles y juegan en las mismas salas que los de
+ * TCP.
+ */
+public class NioServer {
+  /** Valor de puerto WebSocket que no abre ese puerto. */
+  public static final int NO_WEBSOCKET = -1;
+  private static final Logger logger = Logger.getLogger(NioServer.class.getName());
+
+  private final int port;
+  private final int webSocketPort;
+  private final EventLoop[] loops;
+  private final AdmissionControl admission;
+  private final AtomicInteger nextLoop = new AtomicInteger();
+  private ServerSocketChannel serverChannel;
+  private ServerSocketChannel webSocketChannel;
+  private volatile boolean running;
+
+  /**
+   * Crea el servidor NIO.
+   * 
+   * @param port      puerto de escucha (0 para uno libre)
+   * @param loopCount número de bucles de eventos
+   * @throws IOException si no se pueden abrir los selectores
+   */
+  public NioServer(int port, int loopCount) throws IOException {
+    this(port, loopCount, AdmissionControl.fromConfig());
+  }
+
+  /**
+   * Crea el servidor NIO con un control de admisión concreto.
+   * 
+   * @param port      puerto de escucha (0 para uno libre)
+   * @param loopCount número de bucles de eventos
+   * @param admission límites de conexiones abiertas
+   * @throws IOException si no se pueden abrir los selectores
+   */
+  public NioServer(int port, int loopCount, AdmissionControl admission) throws IOException {
+    this(port, loopCount, admission, NO_WEBSOCKET);
+  }
+
+  /**
+   * Crea el servidor NIO con un puerto WebSocket adicional.
+   * 
+   * @param port          puerto de escucha TCP (0 para uno libre)
+   * @param loopCount     número de bucles de eventos
+   * @param admission     límites de conexiones abiertas, comunes a ambos
+   *                      puertos
+   * @param webSocketPort puerto WebSocket (0 para uno libre), o
+   *                      {@link #NO_WEBSOCKET}
+   * @throws IOException si no se pueden abrir los selectores
+   */
+  public NioServer(int port, int loopCount, AdmissionControl admission, int webSocketPort) throws IOException {
+    this.port = port;
+    this.webSocketPort = webSocketPort;
+    this.admission = admission;
+    this.loops = new EventLoop[Math.max(1, loopCount)];
+    for (int i = 0; i < loops.length; i++) {
+      loops[i] = new EventLoop();
+    }
+  }
+
+  /**
+   * Abre los canales de escucha y arranca los hilos de los bucles de eventos.
+   * Las conexiones WebSocket se aceptan en un hilo propio.
+   * 
+   * @throws IOException si no se puede abrir algún puerto
+   */
+  public void start() throws IOException {
+    serverChannel = ServerSocketChannel.open();
+    serverChannel.bind(new InetSocketAddress(port), ServerConfig.acceptBacklog());
+    if (webSocketPort != NO_WEBSOCKET) {
+      webSocketChannel = ServerSocketChannel.open();
+      webSocketChannel.bind(new InetSocketAddress(webSocketPort), ServerConfig.acceptBacklog());
+    }
+    running = true;
+    for (int i = 0; i < loops.length; i++) {
+      Thread thread = new Thread(loops[i], "nio-loop-" + i);
+      thread.start();
+    }
+    if (webSocketChannel != null) {
+      Thread acceptor = new Thread(() -> accept(webSocketChannel, true), "ws-accept");
+      acceptor.setDaemon(true);
+      acceptor.start();
+    }
+  }
+
+  /**
+   * Acepta conexiones TCP hasta que se detenga el servidor. Bloquea el hilo
+   * que la invoca.
+   */
+  public void acceptLoop() {
+    accept(serverChannel, false);
+  }
+
+  private void accept(ServerSocketChannel listener, boolean webSocket) {
+    while (running && listener.isOpen()) {
+      try {
+        SocketChannel channel = listener.accept();
+        InetAddress address = channel.socket().getInetAddress();
+        if (!admission.admit(address)) {
+          AdmissionControl.reject(channel);
+          continue;
+        }
+        ServerMetrics.ACCEPTED_CONNECTIONS.increment();
+        int loop = Math.floorMod(nextLoop.getAndIncrement(), loops.length);
+        loops[loop].register(channel, () -> admission.release(address), webSocket);
+      } catch (IOException e) {
+        if (running) {
+          logger.log(Level.WARNING, "[X] Error al aceptar conexión", e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Devuelve el puerto local en el que escucha el servidor.
+   * 
+   * @return puerto local, o -1 si aún no se ha iniciado
+   */
+  public int getLocalPort() {
+    return serverChannel == null ? -1 : serverChannel.socket().getLocalPort();
+  }
+
+  /**
+   * Devuelve el puerto local en el que escucha el canal WebSocket.
+   * 
+   * @return puerto local, o -1 si no se ha abierto
+   */
+  public int getWebSocketPort() {
+    return webSocketChannel == null ? -1 : webSocketChannel.socket().getLocalPort();
+  }
+
+  /**
+   * Cierra los puertos de escucha sin tocar las conexiones abiertas, que
+   * siguen atendiéndose en sus bucles de eventos.
+   */
+  public void stopAccepting() {
+    running = false;
+    try {
+      if (serverChannel != null) {
+        serverChannel.close();
+      }
+      if (webSocketChannel != null) {
+        webSocketChannel.close();
+      }
+    } catch (IOException e) {
+      logger.log(Level.SEVERE, "Error al cerrar el servidor", e);
+    }
+  }
+
+  /**
+   * Detiene la aceptación de conexiones y los bucles de eventos.
+   */
+  public void stop() {
+    stopAccepting();
+    for (EventLoop loop : loops) {
+      loop.shutdown();
+    }
+  }
+}
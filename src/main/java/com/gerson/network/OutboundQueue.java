@@ -0,0 +1,168 @@
+package com.gerson.network;
+
+/**
+ * Cola acotada de marcos pendientes de envío para un cliente. Los marcos se
+ * comparten entre colas sin copiarse. No es segura entre hilos: quien la usa
+ * debe sincronizar el acceso.
+ */
+public class OutboundQueue {
+
+  /**
+   * Resultado de intentar encolar un mensaje.
+   */
+  public enum Result {
+    /** El mensaje quedó encolado. */
+    ENQUEUED,
+    /** El mensaje (u otro más antiguo) se descartó por falta de espacio. */
+    DROPPED,
+    /** La cola está llena y la política exige desconectar al cliente. */
+    OVERFLOW
+  }
+
+  private final Frame[] items;
+  private final OverflowPolicy policy;
+  private int head;
+  private int size;
+  private long droppedCount;
+
+  /**
+   * Crea una cola con capacidad fija.
+   * 
+   * @param capacity número máximo de mensajes pendientes
+   * @param policy   política a aplicar cuando la cola se llena
+   */
+  public OutboundQueue(int capacity, OverflowPolicy policy) {
+    int length = Math.max(1, capacity);
+    this.items = new Frame[length];
+    this.policy = policy;
+  }
+
+  /**
+   * Intenta encolar un marco aplicando la política de desbordamiento.
+   * 
+   * @param frame marco a encolar
+   * @return resultado de la operación
+   */
+  public Result offer(Frame frame) {
+    if (size == items.length) {
+      if (policy == OverflowPolicy.DISCONNECT) {
+        return Result.OVERFLOW;
+      }
+      if (!evictOldestDroppable()) {
+        if (frame.isDroppable()) {
+          recordDrop();
+          return Result.DROPPED;
+        }
+        return Result.OVERFLOW;
+      }
+      add(frame);
+      return Result.DROPPED;
+    }
+    add(frame);
+    return Result.ENQUEUED;
+  }
+
+  /**
+   * Devuelve el primer mensaje sin retirarlo.
+   * 
+   * @return primer mensaje, o null si la cola está vacía
+   */
+  public Frame peek() {
+    return size == 0 ? null : items[head];
+  }
+
+  /**
+   * Retira y devuelve el primer mensaje.
+   * 
+   * @return primer mensaje, o null si la cola está vacía
+   */
+  public Frame poll() {
+    if (size == 0) {
+      return null;
+    }
+    Frame frame = items[head];
+    items[head] = null;
+    head = (head + 1) % items.length;
+    size--;
+    OutboundStats.onDequeued(1);
+    return frame;
+  }
+
+  /**
+   * Vacía la cola descartando los mensajes pendientes.
+   */
+  public void clear() {
+    OutboundStats.onDequeued(size);
+    while (size > 0) {
+      items[head] = null;
+      head = (head + 1) % items.length;
+      size--;
+    }
+    head = 0;
+  }
+
+  /**
+   * Indica si la cola está vacía.
+   * 
+   * @return true si no hay mensajes pendientes
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Devuelve la profundidad actual de la cola.
+   * 
+   * @return número de mensajes pendientes
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Devuelve cuántos mensajes se han descartado en esta cola.
+   * 
+   * @return mensajes descartados
+   */
+  public long getDroppedCount() {
+    return droppedCount;
+  }
+
+  private void add(Frame frame) {
+    int tail = (head + size) % items.length;
+    items[tail] = frame;
+    size++;
+    OutboundStats.onEnqueued();
+  }
+
+  /**
+   * Elimina el marco prescindible más antiguo, desplazando los posteriores
+   * para conservar el orden.
+   * 
+   * @return true si se eliminó algún mensaje
+   */
+  private boolean evictOldestDroppable() {
+    for (int i = 0; i < size; i++) {
+      int index = (head + i) % items.length;
+      if (items[index].isDroppable()) {
+        for (int j = i; j < size - 1; j++) {
+          int to = (head + j) % items.length;
+          int from = (head + j + 1) % items.length;
+          items[to] = items[from];
+        }
+        int last = (head + size - 1) % items.length;
+        items[last] = null;
+        size--;
+        OutboundStats.onDequeued(1);
+        recordDrop();
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void recordDrop() {
+    droppedCount++;
+    OutboundStats.onDropped();
+  }
+}
@@ -0,0 +1,70 @@
+package com.gerson.network;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores globales de las colas de salida: profundidad total, mensajes
+ * descartados y clientes desconectados por lentos.
+ */
+public final class OutboundStats {
+  private static final LongAdder queued = new LongAdder();
+  private static final LongAdder enqueued = new LongAdder();
+  private static final LongAdder dropped = new LongAdder();
+  private static final LongAdder slowConsumerDisconnects = new LongAdder();
+
+  private OutboundStats() {
+  }
+
+  static void onEnqueued() {
+    enqueued.increment();
+    queued.increment();
+  }
+
+  static void onDequeued(int count) {
+    queued.add(-count);
+  }
+
+  static void onDropped() {
+    dropped.increment();
+  }
+
+  static void onSlowConsumerDisconnect() {
+    slowConsumerDisconnects.increment();
+  }
+
+  /**
+   * Mensajes actualmente encolados en todas las conexiones.
+   * 
+   * @return profundidad total de las colas
+   */
+  public static long queuedMessages() {
+    return queued.sum();
+  }
+
+  /**
+   * Mensajes encolados desde el arranque.
+   * 
+   * @return total de mensajes aceptados en las colas
+   */
+  public static long enqueuedMessages() {
+    return enqueued.sum();
+  }
+
+  /**
+   * Mensajes descartados por colas llenas.
+   * 
+   * @return total de mensajes descartados
+   */
+  public static long droppedMessages() {
+    return dropped.sum();
+  }
+
+  /**
+   * Clientes desconectados por no consumir sus mensajes a tiempo.
+   * 
+   * @return total de desconexiones por cliente lento
+   */
+  public static long slowConsumerDisconnects() {
+    return slowConsumerDisconnects.sum();
+  }
+}
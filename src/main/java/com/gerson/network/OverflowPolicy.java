@@ -0,0 +1,33 @@
+package com.gerson.network;
+
+/**
+ * Política aplicada cuando la cola de salida de un cliente está llena.
+ */
+public enum OverflowPolicy {
+  /**
+   * Descarta marcos de progreso antiguos para hacer sitio; si la cola solo
+   * contiene mensajes imprescindibles, desconecta al cliente.
+   */
+  DROP_PROGRESS,
+  /** Desconecta al cliente lento en cuanto su cola se llena. */
+  DISCONNECT;
+
+  /**
+   * Convierte un texto (sin distinguir mayúsculas) en una política.
+   * 
+   * @param value         texto a interpretar, puede ser null
+   * @param defaultPolicy política a usar si el texto no es válido
+   * @return la política correspondiente
+   */
+  public static OverflowPolicy parse(String value, OverflowPolicy defaultPolicy) {
+    if (value == null || value.isBlank()) {
+      return defaultPolicy;
+    }
+    for (OverflowPolicy policy : values()) {
+      if (policy.name().equalsIgnoreCase(value.trim())) {
+        return policy;
+      }
+    }
+    return defaultPolicy;
+  }
+}
@@ -0,0 +1,45 @@
+package com.gerson.network;
+
+import java.io.PrintStream;
+
+/**
+ * Canal de salida síncrono que escribe directamente en un {@link PrintStream}.
+ * Se mantiene por compatibilidad y para pruebas; las conexiones reales usan
+ * {@link QueuedClientSink} o {@link NioConnection}.
+ */
+public class PrintStreamSink implements ClientSink {
+  private final PrintStream output;
+
+  /**
+   * Crea el canal sobre un flujo de salida.
+   * 
+   * @param output flujo donde se escriben los mensajes
+   */
+  public PrintStreamSink(PrintStream output) {
+    this.output = output;
+  }
+
+  @Override
+  public void send(Frame frame) {
+    output.println(frame.text());
+  }
+
+  @Override
+  public void send(String message) {
+    output.println(message);
+  }
+
+  @Override
+  public void close() {
+    // El flujo pertenece a quien lo creó
+  }
+
+  /**
+   * Devuelve el flujo subyacente.
+   * 
+   * @return flujo de salida
+   */
+  public PrintStream getOutput() {
+    return output;
+  }
+}
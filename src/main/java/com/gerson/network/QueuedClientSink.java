@@ -0,0 +1,273 @@
+package com.gerson.network;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Canal de salida asíncrono para conexiones bloqueantes. Los mensajes se
+ * depositan en una {@link OutboundQueue} acotada y un escritor propio los
+ * envía al socket, de modo que difundir nunca bloquea el candado del juego
+ * aunque el cliente tenga el búfer TCP lleno. Cuando el socket tiene canal,
+ * el escritor envía los marcos pendientes con una sola escritura agrupada
+ * ({@link GatheringByteChannel}).
+ */
+public class QueuedClientSink implements ClientSink {
+  private static final Logger logger = Logger.getLogger(QueuedClientSink.class.getName());
+
+  private static final int MAX_BATCH = 64;
+
+  private final OutputStream output;
+  private final GatheringByteChannel channel;
+  private final Frame[] batch = new Frame[MAX_BATCH];
+  private final ByteBuffer[] buffers = new ByteBuffer[MAX_BATCH];
+  private final OutboundQueue queue;
+  private final Runnable closeConnection;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notEmpty = lock.newCondition();
+  private final CountDownLatch terminated = new CountDownLatch(1);
+  private boolean closed;
+  private volatile WireFormat wireFormat = WireFormat.TEXT;
+
+  /**
+   * Crea el canal con la capacidad y la política configuradas.
+   * 
+   * @param output          flujo de salida del socket
+   * @param capacity        mensajes pendientes permitidos
+   * @param policy          política al llenarse la cola
+   * @param closeConnection acción que cierra la conexión (cliente lento o
+   *                        expulsado)
+   */
+  public QueuedClientSink(OutputStream output, int capacity, OverflowPolicy policy, Runnable closeConnection) {
+    this(output, null, capacity, policy, closeConnection);
+  }
+
+  /**
+   * Crea el canal sobre un canal de bytes que admite escrituras agrupadas.
+   * 
+   * @param channel         canal del socket en modo bloqueante
+   * @param capacity        mensajes pendientes permitidos
+   * @param policy          política al llenarse la cola
+   * @param closeConnection acción que cierra la conexión (cliente lento o
+   *                        expulsado)
+   */
+  public QueuedClientSink(GatheringByteChannel channel, int capacity, OverflowPolicy policy,
+      Runnable closeConnection) {
+    this(null, channel, capacity, policy, closeConnection);
+  }
+
+  private QueuedClientSink(OutputStream output, GatheringByteChannel channel, int capacity, OverflowPolicy policy,
+      Runnable closeConnection) {
+    this.output = output == null ? null : new BufferedOutputStream(output);
+    this.channel = channel;
+    this.queue = new OutboundQueue(capacity, policy);
+    this.closeConnection = closeConnection;
+  }
+
+  /**
+   * Arranca el escritor en el ejecutor indicado.
+   * 
+   * @param executor ejecutor del escritor, o null para usar un hilo propio
+   */
+  public void start(Executor executor) {
+    if (executor != null) {
+      executor.execute(this::writeLoop);
+    } else {
+      Thread writer = new Thread(this::writeLoop, "client-writer");
+      writer.setDaemon(true);
+      writer.start();
+    }
+  }
+
+  @Override
+  public void send(Frame frame) {
+    boolean overflow = false;
+    lock.lock();
+    try {
+      if (closed) {
+        return;
+      }
+      if (queue.offer(frame) == OutboundQueue.Result.OVERFLOW) {
+        closed = true;
+        queue.clear();
+        overflow = true;
+      }
+      notEmpty.signal();
+    } finally {
+      lock.unlock();
+    }
+    if (overflow) {
+      OutboundStats.onSlowConsumerDisconnect();
+      logger.warning("[X] Cliente lento: cola de salida llena, se cierra la conexión.");
+      closeConnection.run();
+    }
+  }
+
+  /**
+   * Cambia el formato de los marcos que el escritor envíe a partir de ahora.
+   * El cliente solo negocia el formato binario después de recibir su
+   * identificador, así que no quedan marcos de texto pendientes.
+   * 
+   * @param format formato negociado con el cliente
+   */
+  @Override
+  public void setWireFormat(WireFormat format) {
+    wireFormat = format;
+  }
+
+  /**
+   * Expulsa al cliente: deja de aceptar mensajes y cierra su conexión, lo
+   * que termina su hilo de lectura y lo elimina del juego.
+   */
+  @Override
+  public void disconnect() {
+    close();
+    closeConnection.run();
+  }
+
+  /**
+   * Cierra el canal. El escritor termina después de enviar lo ya encolado.
+   */
+  @Override
+  public void close() {
+    lock.lock();
+    try {
+      closed = true;
+      notEmpty.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Espera a que el escritor termine de vaciar la cola tras {@link #close()}.
+   * 
+   * @param timeoutMillis tiempo máximo de espera
+   * @return true si el escritor terminó a tiempo
+   */
+  public boolean awaitTermination(long timeoutMillis) {
+    try {
+      return terminated.await(timeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  /**
+   * Devuelve la profundidad actual de la cola.
+   * 
+   * @return mensajes pendientes
+   */
+  public int getQueueDepth() {
+    lock.lock();
+    try {
+      return queue.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Devuelve cuántos mensajes se han descartado para este cliente.
+   * 
+   * @return mensajes descartados
+   */
+  public long getDroppedCount() {
+    lock.lock();
+    try {
+      return queue.getDroppedCount();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void writeLoop() {
+    try {
+      int count;
+      while ((count = nextBatch()) > 0) {
+        if (channel != null) {
+          writeGathering(count);
+        } else {
+          WireFormat format = wireFormat;
+          for (int i = 0; i < count; i++) {
+            batch[i].writeTo(output, format);
+          }
+          output.flush();
+        }
+        Arrays.fill(batch, 0, count, null);
+      }
+    } catch (IOException e) {
+      logger.log(Level.FINE, "Error al escribir al cliente", e);
+      abandon();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      abandon();
+    } finally {
+      terminated.countDown();
+    }
+  }
+
+  /**
+   * Espera marcos pendientes y los retira de la cola en bloque.
+   * 
+   * @return número de marcos retirados, 0 si el canal está cerrado y vacío
+   * @throws InterruptedException si se interrumpe la espera
+   */
+  private int nextBatch() throws InterruptedException {
+    lock.lock();
+    try {
+      while (queue.isEmpty() && !closed) {
+        notEmpty.await();
+      }
+      int count = 0;
+      Frame frame;
+      while (count < MAX_BATCH && (frame = queue.poll()) != null) {
+        batch[count++] = frame;
+      }
+      return count;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Escribe los marcos del lote con escrituras agrupadas sobre vistas de solo
+   * lectura de los bytes compartidos.
+   * 
+   * @param count número de marcos del lote
+   * @throws IOException si falla la escritura
+   */
+  private void writeGathering(int count) throws IOException {
+    WireFormat format = wireFormat;
+    long remaining = 0;
+    for (int i = 0; i < count; i++) {
+      buffers[i] = batch[i].buffer(format);
+      remaining += buffers[i].remaining();
+    }
+    while (remaining > 0) {
+      remaining -= channel.write(buffers, 0, count);
+    }
+    Arrays.fill(buffers, 0, count, null);
+  }
+
+  private void abandon() {
+    lock.lock();
+    try {
+      closed = true;
+      queue.clear();
+    } finally {
+      lock.unlock();
+    }
+  }
+}
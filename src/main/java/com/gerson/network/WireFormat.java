@@ -0,0 +1,11 @@
+package com.gerson.network;
+
+/**
+ * Formato de cable negociado con cada cliente al conectarse.
+ */
+public enum WireFormat {
+  /** Líneas de texto terminadas en salto de línea (protocolo original). */
+  TEXT,
+  /** Marcos binarios con prefijo de longitud, opcode de un byte y varints. */
+  BINARY
+}
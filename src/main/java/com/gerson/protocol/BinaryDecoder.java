@@ -0,0 +1,153 @@
+package com.gerson.protocol;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decodificador del protocolo binario para una conexión. Separa los marcos
+ * por su prefijo de longitud y traduce cada código de operación en una
+ * llamada a {@link InboundHandler}. Reutiliza su propio búfer, por lo que
+ * los marcos frecuentes (clic, listo, clics reportados) no reservan memoria.
+ */
+public final class BinaryDecoder {
+  /** Longitud máxima admitida para un marco entrante. */
+  public static final int MAX_FRAME_LENGTH = 512;
+
+  private final InboundHandler handler;
+  private final byte[] payload = new byte[MAX_FRAME_LENGTH];
+  private int cursor;
+  private int limit;
+
+  /**
+   * Crea el decodificador.
+   * 
+   * @param handler receptor de los mensajes decodificados
+   */
+  public BinaryDecoder(InboundHandler handler) {
+    this.handler = handler;
+  }
+
+  /**
+   * Decodifica todos los marcos completos presentes en el búfer. Un marco
+   * incompleto se deja sin consumir para la siguiente lectura.
+   * 
+   * @param in búfer en modo lectura
+   * @throws IOException si un marco no es válido
+   */
+  public void decode(ByteBuffer in) throws IOException {
+    while (in.hasRemaining()) {
+      int start = in.position();
+      int length = Varint.read(in);
+      if (length == Varint.INCOMPLETE) {
+        return;
+      }
+      checkLength(length);
+      if (in.remaining() < length) {
+        in.position(start);
+        return;
+      }
+      in.get(payload, 0, length);
+      dispatch(length);
+    }
+  }
+
+  /**
+   * Lee y procesa un marco desde un flujo bloqueante.
+   * 
+   * @param in flujo de entrada
+   * @return false si el flujo terminó limpiamente antes de un marco
+   * @throws IOException si el flujo termina a mitad de un marco o este no es
+   *                     válido
+   */
+  public boolean readFrame(InputStream in) throws IOException {
+    int length = Varint.read(in);
+    if (length == Varint.INCOMPLETE) {
+      return false;
+    }
+    checkLength(length);
+    int read = 0;
+    while (read < length) {
+      int n = in.read(payload, read, length - read);
+      if (n < 0) {
+        throw new IOException("Marco binario truncado");
+      }
+      read += n;
+    }
+    dispatch(length);
+    return true;
+  }
+
+  private void dispatch(int length) throws IOException {
+    cursor = 1;
+    limit = length;
+    switch (payload[0]) {
+      case Opcode.HELLO:
+        String username = readString();
+        String roomName = cursor < limit ? readString() : "";
+        handler.onHello(username, roomName);
+        break;
+      case Opcode.READY:
+        handler.onReady();
+        break;
+      case Opcode.CLICK:
+        handler.onClick();
+        break;
+      case Opcode.CLICKS_SENT:
+        handler.onClicksReported(readVarint());
+        break;
+      case Opcode.RESYNC:
+        handler.onResync();
+        break;
+      case Opcode.RESUME:
+        handler.onResume(readString());
+        break;
+      case Opcode.RENAME:
+        handler.onRename(readString());
+        break;
+      default:
+        // Códigos desconocidos se ignoran para admitir clientes más nuevos
+        break;
+    }
+  }
+
+  /**
+   * Lee un varint del marco. Todos los varints del protocolo son cuentas o
+   * longitudes, así que un valor negativo, que solo cabe en un varint de
+   * cinco bytes, invalida el marco.
+   */
+  private int readVarint() throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < 35; shift += 7) {
+      if (cursor >= limit) {
+        throw new IOException("Varint truncado");
+      }
+      byte b = payload[cursor++];
+      value |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        if (value < 0) {
+          throw new IOException("Varint negativo: " + value);
+        }
+        return value;
+      }
+    }
+    throw new IOException("Varint demasiado largo");
+  }
+
+  private String readString() throws IOException {
+    int length = readVarint();
+    if (length < 0 || length > limit - cursor) {
+      throw new IOException("Cadena truncada");
+    }
+    String value = new String(payload, cursor, length, StandardCharsets.UTF_8);
+    cursor += length;
+    return value;
+  }
+
+  private static void checkLength(int length) throws IOException {
+    if (length <= 0 || length > MAX_FRAME_LENGTH) {
+      throw new IOException("Longitud de marco no válida: " + length);
+    }
+  }
+}
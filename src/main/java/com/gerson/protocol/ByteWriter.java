@@ -0,0 +1,155 @@
+package com.gerson.protocol;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Búfer de bytes ampliable para construir marcos sin pasar por
+ * {@link String}. Escribe enteros en decimal ASCII o como varint.
+ */
+public final class ByteWriter {
+  private byte[] bytes;
+  private int length;
+
+  /**
+   * Crea un escritor con la capacidad inicial indicada.
+   * 
+   * @param capacity capacidad inicial en bytes
+   */
+  public ByteWriter(int capacity) {
+    this.bytes = new byte[Math.max(8, capacity)];
+  }
+
+  /**
+   * Añade un byte.
+   * 
+   * @param value byte a añadir
+   * @return este escritor
+   */
+  public ByteWriter writeByte(int value) {
+    ensure(1);
+    bytes[length++] = (byte) value;
+    return this;
+  }
+
+  /**
+   * Añade texto ASCII tal cual.
+   * 
+   * @param ascii texto con caracteres de 7 bits
+   * @return este escritor
+   */
+  public ByteWriter writeAscii(String ascii) {
+    ensure(ascii.length());
+    for (int i = 0; i < ascii.length(); i++) {
+      bytes[length++] = (byte) ascii.charAt(i);
+    }
+    return this;
+  }
+
+  /**
+   * Añade un entero no negativo en decimal ASCII.
+   * 
+   * @param value entero a escribir
+   * @return este escritor
+   */
+  public ByteWriter writeDecimal(int value) {
+    if (value < 0) {
+      writeByte('-');
+      value = -value;
+    }
+    int digits = 1;
+    for (int v = value; v >= 10; v /= 10) {
+      digits++;
+    }
+    ensure(digits);
+    for (int i = length + digits - 1; i >= length; i--) {
+      bytes[i] = (byte) ('0' + value % 10);
+      value /= 10;
+    }
+    length += digits;
+    return this;
+  }
+
+  /**
+   * Añade un entero sin signo como varint (7 bits por byte).
+   * 
+   * @param value entero a escribir
+   * @return este escritor
+   */
+  public ByteWriter writeVarint(int value) {
+    ensure(5);
+    while ((value & ~0x7F) != 0) {
+      bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    bytes[length++] = (byte) value;
+    return this;
+  }
+
+  /**
+   * Añade texto codificado en UTF-8, sin prefijo de longitud.
+   * 
+   * @param text texto a escribir
+   * @return este escritor
+   */
+  public ByteWriter writeUtf8(String text) {
+    byte[] encoded = text.getBytes(StandardCharsets.UTF_8);
+    ensure(encoded.length);
+    System.arraycopy(encoded, 0, bytes, length, encoded.length);
+    length += encoded.length;
+    return this;
+  }
+
+  /**
+   * Añade una cadena binaria: {@code varint(bytes) + UTF-8}.
+   * 
+   * @param text texto a escribir
+   * @return este escritor
+   */
+  public ByteWriter writeString(String text) {
+    byte[] encoded = text.getBytes(StandardCharsets.UTF_8);
+    writeVarint(encoded.length);
+    ensure(encoded.length);
+    System.arraycopy(encoded, 0, bytes, length, encoded.length);
+    length += encoded.length;
+    return this;
+  }
+
+  /**
+   * Número de bytes escritos.
+   * 
+   * @return longitud actual
+   */
+  public int length() {
+    return length;
+  }
+
+  /**
+   * Copia el contenido escrito.
+   * 
+   * @return bytes escritos
+   */
+  public byte[] toByteArray() {
+    return Arrays.copyOf(bytes, length);
+  }
+
+  /**
+   * Copia el contenido escrito precedido de su longitud en varint, que es el
+   * formato de un marco binario.
+   * 
+   * @return marco binario completo
+   */
+  public byte[] toLengthPrefixed() {
+    int prefix = Varint.size(length);
+    byte[] framed = new byte[prefix + length];
+    Varint.write(length, framed, 0);
+    System.arraycopy(bytes, 0, framed, prefix, length);
+    return framed;
+  }
+
+  private void ensure(int extra) {
+    if (length + extra > bytes.length) {
+      bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package com.gerson.protocol;
+
+/**
+ * Receptor de los mensajes ya decodificados de un cliente. Los códecs de
+ * texto y binario traducen los bytes recibidos a estas llamadas.
+ */
+public interface InboundHandler {
+
+  /**
+   * Saludo inicial del cliente.
+   * 
+   * @param username nombre elegido (puede estar vacío)
+   * @param roomName sala elegida (puede estar vacía)
+   */
+  void onHello(String username, String roomName);
+
+  /**
+   * El jugador está listo para empezar.
+   */
+  void onReady();
+
+  /**
+   * El jugador hizo un clic.
+   */
+  void onClick();
+
+  /**
+   * El cliente informa cuántos clics ha contado.
+   * 
+   * @param clicks número de clics
+   */
+  void onClicksReported(int clicks);
+
+  /**
+   * El cliente detectó un salto en la secuencia de deltas y pide el estado
+   * completo de la sala.
+   */
+  void onResync();
+
+  /**
+   * Saludo de un cliente que retoma una sesión cortada.
+   * 
+   * @param token token de reanudación recibido al unirse
+   */
+  void onResume(String token);
+
+  /**
+   * El jugador cambia su nombre.
+   * 
+   * @param name nombre nuevo
+   */
+  void onRename(String name);
+}
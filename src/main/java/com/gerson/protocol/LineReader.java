@@ -0,0 +1,89 @@
+package com.gerson.protocol;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Lector de líneas para conexiones bloqueantes que reutiliza sus búferes en
+ * lugar de crear una cadena por línea. Acepta finales {@code \n} y
+ * {@code \r\n}.
+ */
+public final class LineReader {
+  private static final int CHUNK_SIZE = 1024;
+
+  private final InputStream in;
+  private final int maxLineLength;
+  private final byte[] chunk = new byte[CHUNK_SIZE];
+  private int chunkPosition;
+  private int chunkLimit;
+  private byte[] line = new byte[128];
+
+  /**
+   * Crea el lector.
+   * 
+   * @param in            flujo de entrada
+   * @param maxLineLength longitud máxima admitida por línea
+   */
+  public LineReader(InputStream in, int maxLineLength) {
+    this.in = in;
+    this.maxLineLength = maxLineLength;
+  }
+
+  /**
+   * Lee la siguiente línea en el búfer devuelto por {@link #buffer()}.
+   * 
+   * @return longitud de la línea sin el salto de línea, o -1 si el flujo
+   *         terminó sin más datos
+   * @throws IOException si falla la lectura o la línea es demasiado larga
+   */
+  public int readLine() throws IOException {
+    int length = 0;
+    while (true) {
+      if (chunkPosition == chunkLimit) {
+        chunkLimit = in.read(chunk, 0, CHUNK_SIZE);
+        chunkPosition = 0;
+        if (chunkLimit < 0) {
+          chunkLimit = 0;
+          return length == 0 ? -1 : trimCarriageReturn(length);
+        }
+      }
+      byte b = chunk[chunkPosition++];
+      if (b == '\n') {
+        return trimCarriageReturn(length);
+      }
+      if (length == line.length) {
+        if (length >= maxLineLength) {
+          throw new IOException("Línea demasiado larga");
+        }
+        line = Arrays.copyOf(line, Math.min(maxLineLength, length * 2));
+      }
+      line[length++] = b;
+    }
+  }
+
+  /**
+   * Devuelve el búfer con la última línea leída. Su contenido cambia con cada
+   * lectura.
+   * 
+   * @return búfer de la línea
+   */
+  public byte[] buffer() {
+    return line;
+  }
+
+  /**
+   * Decodifica la última línea leída como UTF-8.
+   * 
+   * @param length longitud devuelta por {@link #readLine()}
+   * @return la línea como cadena
+   */
+  public String asString(int length) {
+    return new String(line, 0, length, StandardCharsets.UTF_8);
+  }
+
+  private int trimCarriageReturn(int length) {
+    return length > 0 && line[length - 1] == '\r' ? length - 1 : length;
+  }
+}
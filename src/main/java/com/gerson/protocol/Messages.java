@@ -0,0 +1,194 @@
+package com.gerson.protocol;
+
+import java.util.Collection;
+
+import com.gerson.model.Player;
+import com.gerson.network.Frame;
+
+/**
+ * Construye los marcos que el servidor difunde, codificados a la vez en el
+ * protocolo de texto y en el binario. Los bytes se escriben directamente, sin
+ * construir cadenas intermedias.
+ */
+public final class Messages {
+
+  private Messages() {
+  }
+
+  /**
+   * Lista completa de jugadores: una línea {@code roster:n} con la versión
+   * del roster seguida de {@code players:id-nombre,...}. Los deltas con
+   * versión mayor se aplican encima.
+   * 
+   * @param version versión del último delta de roster difundido
+   * @param players jugadores de la sala
+   * @param direct  true para usar un búfer directo
+   * @return marco imprescindible
+   */
+  public static Frame playerList(int version, Collection<Player> players, boolean direct) {
+    ByteWriter text = new ByteWriter(32 + players.size() * 16).writeAscii("roster:").writeDecimal(version)
+        .writeAscii("\nplayers:");
+    ByteWriter binary = new ByteWriter(8 + players.size() * 16).writeByte(Opcode.PLAYERS).writeVarint(version)
+        .writeVarint(players.size());
+    for (Player player : players) {
+      text.writeDecimal(player.getId()).writeByte('-').writeUtf8(player.getName()).writeByte(',');
+      binary.writeVarint(player.getId()).writeString(player.getName());
+    }
+    return Frame.encoded(text.writeByte('\n').toByteArray(), binary.toLengthPrefixed(), false, direct);
+  }
+
+  /**
+   * Delta de roster con los cambios agrupados de una ventana: una línea
+   * {@code roster:n} con la versión seguida de una línea por cambio,
+   * {@code player_joined:id-nombre}, {@code player_left:id} o
+   * {@code player_renamed:id-nombre}.
+   * 
+   * @param version versión del delta
+   * @param changes cambios en orden de llegada
+   * @param direct  true para usar un búfer directo
+   * @return marco imprescindible
+   */
+  public static Frame rosterDelta(int version, Collection<RosterChange> changes, boolean direct) {
+    ByteWriter text = new ByteWriter(16 + changes.size() * 24).writeAscii("roster:").writeDecimal(version)
+        .writeByte('\n');
+    ByteWriter binary = new ByteWriter(8 + changes.size() * 16).writeByte(Opcode.ROSTER).writeVarint(version)
+        .writeVarint(changes.size());
+    for (RosterChange change : changes) {
+      text.writeAscii(change.getKind().prefix()).writeDecimal(change.getPlayerId());
+      binary.writeByte(change.getKind().code()).writeVarint(change.getPlayerId());
+      if (change.getName() != null) {
+        text.writeByte('-').writeUtf8(change.getName());
+        binary.writeString(change.getName());
+      }
+      text.writeByte('\n');
+    }
+    return Frame.encoded(text.toByteArray(), binary.toLengthPrefixed(), false, direct);
+  }
+
+  /**
+   * Estado de inicio: {@code can_start} o {@code wait_players}.
+   * 
+   * @param canStart true si hay jugadores suficientes
+   * @param direct   true para usar un búfer directo
+   * @return marco imprescindible
+   */
+  public static Frame startStatus(boolean canStart, boolean direct) {
+    ByteWriter text = new ByteWriter(16).writeAscii(canStart ? "can_start\n" : "wait_players\n");
+    ByteWriter binary = new ByteWriter(2).writeByte(Opcode.START_STATUS).writeByte(canStart ? 1 : 0);
+    return Frame.encoded(text.toByteArray(), binary.toLengthPrefixed(), false, direct);
+  }
+
+  /**
+   * Segundo de la cuenta regresiva: {@code countdown:n}.
+   * 
+   * @param seconds segundos restantes
+   * @param direct  true para usar un búfer directo
+   * @return marco imprescindible
+   */
+  public static Frame countdown(int seconds, boolean direct) {
+    ByteWriter text = new ByteWriter(16).writeAscii("countdown:").writeDecimal(seconds).writeByte('\n');
+    ByteWriter binary = new ByteWriter(4).writeByte(Opcode.COUNTDOWN).writeVarint(seconds);
+    return Frame.encoded(text.toByteArray(), binary.toLengthPrefixed(), false, direct);
+  }
+
+  /**
+   * Salida de la carrera: {@code go}.
+   * 
+   * @param direct true para usar un búfer directo
+   * @return marco imprescindible
+   */
+  public static Frame go(boolean direct) {
+    ByteWriter binary = new ByteWriter(1).writeByte(Opcode.GO);
+    return Frame.encoded(new ByteWriter(4).writeAscii("go\n").toByteArray(), binary.toLengthPrefixed(), false,
+        direct);
+  }
+
+  /**
+   * Delta de progreso de varios caballos: una línea {@code seq:n} con el
+   * número de secuencia de la sala seguida de una línea {@code id:progreso}
+   * por caballo. Un cliente que vea un salto en la secuencia puede pedir
+   * {@code resync}.
+   * 
+   * @param seq     número de secuencia del delta
+   * @param players jugadores cuyo progreso cambió
+   * @param direct  true para usar un búfer directo
+   * @return marco prescindible
+   */
+  public static Frame progress(int seq, Collection<Player> players, boolean direct) {
+    return progress(seq, players.toArray(new Player[0]), players.size(), direct);
+  }
+
+  /**
+   * Delta de progreso de los primeros {@code count} caballos de un arreglo,
+   * como el que la sala reutiliza entre ticks.
+   * 
+   * @param seq     número de secuencia del delta
+   * @param players jugadores cuyo progreso cambió
+   * @param count   cuántos jugadores del arreglo incluir
+   * @param direct  true para usar un búfer directo
+   * @return marco prescindible
+   */
+  public static Frame progress(int seq, Player[] players, int count, boolean direct) {
+    ByteWriter text = new ByteWriter(16 + count * 8).writeAscii("seq:").writeDecimal(seq).writeByte('\n');
+    ByteWriter binary = new ByteWriter(8 + count * 4).writeByte(Opcode.PROGRESS).writeVarint(seq)
+        .writeVarint(count);
+    for (int i = 0; i < count; i++) {
+      Player player = players[i];
+      text.writeDecimal(player.getId()).writeByte(':').writeDecimal(player.getProgress()).writeByte('\n');
+      binary.writeVarint(player.getId()).writeVarint(player.getProgress());
+    }
+    return Frame.encoded(text.toByteArray(), binary.toLengthPrefixed(), true, direct);
+  }
+
+  /**
+   * Delta de progreso de un caballo: {@code seq:n} y {@code id:progreso}.
+   * 
+   * @param seq    número de secuencia del delta
+   * @param player jugador que avanzó
+   * @param direct true para usar un búfer directo
+   * @return marco prescindible
+   */
+  public static Frame progress(int seq, Player player, boolean direct) {
+    ByteWriter text = new ByteWriter(24).writeAscii("seq:").writeDecimal(seq).writeByte('\n')
+        .writeDecimal(player.getId()).writeByte(':').writeDecimal(player.getProgress()).writeByte('\n');
+    ByteWriter binary = new ByteWriter(12).writeByte(Opcode.PROGRESS).writeVarint(seq).writeVarint(1)
+        .writeVarint(player.getId()).writeVarint(player.getProgress());
+    return Frame.encoded(text.toByteArray(), binary.toLengthPrefixed(), true, direct);
+  }
+
+  /**
+   * Estado completo de la sala para un cliente nuevo o desincronizado:
+   * {@code snapshot:seq:fase:id-progreso,...}. Los deltas con secuencia
+   * igual o menor que la del snapshot ya están incluidos en él.
+   * 
+   * @param seq     secuencia del último delta incluido
+   * @param phase   fase de la sala
+   * @param players jugadores de la sala
+   * @param direct  true para usar un búfer directo
+   * @return marco imprescindible
+   */
+  public static Frame snapshot(int seq, RacePhase phase, Collection<Player> players, boolean direct) {
+    ByteWriter text = new ByteWriter(32 + players.size() * 8).writeAscii("snapshot:").writeDecimal(seq)
+        .writeByte(':').writeAscii(phase.key()).writeByte(':');
+    ByteWriter binary = new ByteWriter(8 + players.size() * 4).writeByte(Opcode.SNAPSHOT).writeVarint(seq)
+        .writeByte(phase.ordinal()).writeVarint(players.size());
+    for (Player player : players) {
+      text.writeDecimal(player.getId()).writeByte('-').writeDecimal(player.getProgress()).writeByte(',');
+      binary.writeVarint(player.getId()).writeVarint(player.getProgress());
+    }
+    return Frame.encoded(text.writeByte('\n').toByteArray(), binary.toLengthPrefixed(), false, direct);
+  }
+
+  /**
+   * Ganador de la carrera: {@code win:nombre}.
+   * 
+   * @param name   nombre del ganador
+   * @param direct true para usar un búfer directo
+   * @return marco imprescindible
+   */
+  public static Frame winner(String name, boolean direct) {
+    ByteWriter text = new ByteWriter(16).writeAscii("win:").writeUtf8(name).writeByte('\n');
+    ByteWriter binary = new ByteWriter(16).writeByte(Opcode.WIN).writeString(name);
+    return Frame.encoded(text.toByteArray(), binary.toLengthPrefixed(), false, direct);
+  }
+}
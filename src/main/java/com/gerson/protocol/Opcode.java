@@ -0,0 +1,52 @@
+package com.gerson.protocol;
+
+/**
+ * Códigos de operación del protocolo binario. Cada marco binario es
+ * {@code varint(longitud) + opcode + campos}; los enteros se codifican como
+ * varint sin signo y las cadenas como {@code varint(bytes) + UTF-8}.
+ */
+public final class Opcode {
+  /**
+   * Primer byte que envía un cliente binario tras recibir su identificador.
+   * No puede iniciar una línea UTF-8 válida, así que distingue sin ambigüedad
+   * a los clientes de texto.
+   */
+  public static final int BINARY_MAGIC = 0xB1;
+
+  /** Cliente → servidor: saludo con nombre y sala. */
+  public static final byte HELLO = 0x01;
+  /** Cliente → servidor: jugador listo. */
+  public static final byte READY = 0x02;
+  /** Cliente → servidor: un clic. */
+  public static final byte CLICK = 0x03;
+  /** Cliente → servidor: clics contados por el cliente. */
+  public static final byte CLICKS_SENT = 0x04;
+  /** Cliente → servidor: petición de un snapshot completo. */
+  public static final byte RESYNC = 0x05;
+  /** Cliente → servidor: saludo que retoma una sesión con su token. */
+  public static final byte RESUME = 0x06;
+  /** Cliente → servidor: cambio de nombre. */
+  public static final byte RENAME = 0x07;
+
+  /** Servidor → cliente: lista completa de jugadores con la versión del roster. */
+  public static final byte PLAYERS = 0x11;
+  /** Servidor → cliente: estado de inicio (1 = puede empezar). */
+  public static final byte START_STATUS = 0x12;
+  /** Servidor → cliente: segundo de la cuenta regresiva. */
+  public static final byte COUNTDOWN = 0x13;
+  /** Servidor → cliente: salida de la carrera. */
+  public static final byte GO = 0x14;
+  /** Servidor → cliente: delta de progreso con secuencia y uno o varios caballos. */
+  public static final byte PROGRESS = 0x15;
+  /** Servidor → cliente: ganador de la carrera. */
+  public static final byte WIN = 0x16;
+  /** Servidor → cliente: estado completo con secuencia, fase y progreso. */
+  public static final byte SNAPSHOT = 0x17;
+  /** Servidor → cliente: delta de roster con versión y llegadas, salidas o cambios de nombre. */
+  public static final byte ROSTER = 0x18;
+  /** Servidor → cliente: mensaje de texto sin equivalente binario. */
+  public static final byte TEXT = 0x7F;
+
+  private Opcode() {
+  }
+}
@@ -0,0 +1,26 @@
+package com.gerson.protocol;
+
+/**
+ * Fase de una sala incluida en los snapshots de estado. En el protocolo
+ * binario se codifica con su ordinal.
+ */
+public enum RacePhase {
+  WAITING("waiting"),
+  COUNTDOWN("countdown"),
+  RACING("racing");
+
+  private final String key;
+
+  RacePhase(String key) {
+    this.key = key;
+  }
+
+  /**
+   * Nombre de la fase en el protocolo de texto.
+   * 
+   * @return clave de la fase
+   */
+  public String key() {
+    return key;
+  }
+}
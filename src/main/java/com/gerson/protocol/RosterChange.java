@@ -0,0 +1,137 @@
+package com.gerson.protocol;
+
+/**
+ * Cambio en la lista de jugadores de una sala: llegada, salida o cambio de
+ * nombre. Se difunden agrupados en un delta de roster versionado
+ * ({@link Messages#rosterDelta}). Aplicar un cambio es idempotente: una
+ * llegada de un jugador ya conocido lo sustituye y una salida de uno
+ * desconocido no hace nada.
+ */
+public final class RosterChange {
+
+  /**
+   * Tipo de cambio. El código se escribe en el protocolo binario.
+   */
+  public enum Kind {
+    JOINED("player_joined:", 1),
+    LEFT("player_left:", 2),
+    RENAMED("player_renamed:", 3);
+
+    private final String prefix;
+    private final int code;
+
+    Kind(String prefix, int code) {
+      this.prefix = prefix;
+      this.code = code;
+    }
+
+    /**
+     * Prefijo de la línea en el protocolo de texto.
+     * 
+     * @return prefijo con los dos puntos
+     */
+    public String prefix() {
+      return prefix;
+    }
+
+    /**
+     * Código del cambio en el protocolo binario.
+     * 
+     * @return código del tipo
+     */
+    public int code() {
+      return code;
+    }
+  }
+
+  private final Kind kind;
+  private final int playerId;
+  private final String name;
+
+  private RosterChange(Kind kind, int playerId, String name) {
+    this.kind = kind;
+    this.playerId = playerId;
+    this.name = name;
+  }
+
+  /**
+   * Llegada de un jugador.
+   * 
+   * @param playerId identificador del jugador
+   * @param name     nombre del jugador
+   * @return cambio {@code player_joined}
+   */
+  public static RosterChange joined(int playerId, String name) {
+    return new RosterChange(Kind.JOINED, playerId, name);
+  }
+
+  /**
+   * Salida de un jugador.
+   * 
+   * @param playerId identificador del jugador
+   * @return cambio {@code player_left}
+   */
+  public static RosterChange left(int playerId) {
+    return new RosterChange(Kind.LEFT, playerId, null);
+  }
+
+  /**
+   * Cambio de nombre de un jugador.
+   * 
+   * @param playerId identificador del jugador
+   * @param name     nombre nuevo
+   * @return cambio {@code player_renamed}
+   */
+  public static RosterChange renamed(int playerId, String name) {
+    return new RosterChange(Kind.RENAMED, playerId, name);
+  }
+
+  /**
+   * Combina este cambio pendiente con uno posterior del mismo jugador
+   * dentro de la misma ventana.
+   * 
+   * @param next cambio posterior
+   * @return cambio resultante, o null si ambos se anulan (llegada y salida)
+   */
+  public RosterChange then(RosterChange next) {
+    if (kind != Kind.JOINED) {
+      return next;
+    }
+    switch (next.kind) {
+      case LEFT:
+        // El resto de la sala nunca llegó a verlo
+        return null;
+      case RENAMED:
+        return joined(playerId, next.name);
+      default:
+        return next;
+    }
+  }
+
+  /**
+   * Devuelve el tipo de cambio.
+   * 
+   * @return tipo de cambio
+   */
+  public Kind getKind() {
+    return kind;
+  }
+
+  /**
+   * Devuelve el identificador del jugador.
+   * 
+   * @return identificador del jugador
+   */
+  public int getPlayerId() {
+    return playerId;
+  }
+
+  /**
+   * Devuelve el nombre del jugador.
+   * 
+   * @return nombre, o null en una salida
+   */
+  public String getName() {
+    return name;
+  }
+}
@@ -0,0 +1,103 @@
+package com.gerson.protocol;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reconoce los mensajes del protocolo de texto directamente sobre los bytes de
+ * la línea, sin construir cadenas: {@code ready}, {@code click},
+ * {@code resync} (sin distinguir mayúsculas) y {@code clicks_sent:n}, cuyo
+ * número se interpreta en el propio búfer. Así el camino de cada clic no reserva memoria.
+ * Solo {@code rename:nombre}, poco frecuente, crea la cadena del nombre.
+ */
+public final class TextDecoder {
+  private static final byte[] READY = { 'r', 'e', 'a', 'd', 'y' };
+  private static final byte[] CLICK = { 'c', 'l', 'i', 'c', 'k' };
+  private static final byte[] RESYNC = { 'r', 'e', 's', 'y', 'n', 'c' };
+  private static final byte[] CLICKS_SENT = { 'c', 'l', 'i', 'c', 'k', 's', '_', 's', 'e', 'n', 't', ':' };
+  private static final byte[] RENAME = { 'r', 'e', 'n', 'a', 'm', 'e', ':' };
+
+  private TextDecoder() {
+  }
+
+  /**
+   * Traduce una línea de texto en la llamada correspondiente del receptor.
+   * 
+   * @param line    búfer con la línea, sin salto de línea
+   * @param length  longitud de la línea
+   * @param handler receptor del mensaje
+   * @return false si la línea no es un mensaje conocido
+   */
+  public static boolean dispatch(byte[] line, int length, InboundHandler handler) {
+    if (equalsIgnoreCase(line, length, CLICK)) {
+      handler.onClick();
+      return true;
+    }
+    if (equalsIgnoreCase(line, length, READY)) {
+      handler.onReady();
+      return true;
+    }
+    if (equalsIgnoreCase(line, length, RESYNC)) {
+      handler.onResync();
+      return true;
+    }
+    if (startsWith(line, length, CLICKS_SENT)) {
+      int clicks = parseInt(line, CLICKS_SENT.length, length);
+      if (clicks >= 0) {
+        handler.onClicksReported(clicks);
+        return true;
+      }
+    }
+    if (startsWith(line, length, RENAME)) {
+      handler.onRename(new String(line, RENAME.length, length - RENAME.length, StandardCharsets.UTF_8));
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Interpreta un entero decimal no negativo que empieza en {@code from} y
+   * termina en {@code to} o en el siguiente {@code ':'}.
+   * 
+   * @param bytes búfer de la línea
+   * @param from  primera posición del número
+   * @param to    posición final (exclusiva)
+   * @return el número, o -1 si no es válido o desborda un int
+   */
+  public static int parseInt(byte[] bytes, int from, int to) {
+    int value = 0;
+    int i = from;
+    for (; i < to && bytes[i] != ':'; i++) {
+      int digit = bytes[i] - '0';
+      if (digit < 0 || digit > 9 || value > (Integer.MAX_VALUE - digit) / 10) {
+        return -1;
+      }
+      value = value * 10 + digit;
+    }
+    return i == from ? -1 : value;
+  }
+
+  private static boolean equalsIgnoreCase(byte[] line, int length, byte[] word) {
+    if (length != word.length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      // Solo letras ASCII: activar el bit 0x20 pasa a minúscula
+      if ((line[i] | 0x20) != word[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean startsWith(byte[] line, int length, byte[] prefix) {
+    if (length < prefix.length) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length; i++) {
+      if (line[i] != prefix[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
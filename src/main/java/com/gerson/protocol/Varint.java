@@ -0,0 +1,101 @@
+package com.gerson.protocol;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Codificación de enteros sin signo en bytes de 7 bits (varint), con el bit
+ * alto como indicador de continuación.
+ */
+public final class Varint {
+  /** Valor devuelto cuando el búfer no contiene aún un varint completo. */
+  public static final int INCOMPLETE = -1;
+  private static final int MAX_BYTES = 5;
+
+  private Varint() {
+  }
+
+  /**
+   * Número de bytes que ocupa un valor.
+   * 
+   * @param value entero sin signo
+   * @return bytes necesarios (1 a 5)
+   */
+  public static int size(int value) {
+    int size = 1;
+    while ((value & ~0x7F) != 0) {
+      value >>>= 7;
+      size++;
+    }
+    return size;
+  }
+
+  /**
+   * Escribe un valor en un arreglo.
+   * 
+   * @param value  entero sin signo
+   * @param target arreglo de destino
+   * @param offset posición inicial
+   * @return posición siguiente al último byte escrito
+   */
+  public static int write(int value, byte[] target, int offset) {
+    while ((value & ~0x7F) != 0) {
+      target[offset++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    target[offset++] = (byte) value;
+    return offset;
+  }
+
+  /**
+   * Lee un valor de un búfer sin consumirlo si está incompleto.
+   * 
+   * @param buffer búfer en modo lectura
+   * @return el valor, o {@link #INCOMPLETE} si faltan bytes
+   * @throws IOException si el varint es demasiado largo
+   */
+  public static int read(ByteBuffer buffer) throws IOException {
+    int start = buffer.position();
+    int value = 0;
+    for (int i = 0; i < MAX_BYTES; i++) {
+      if (!buffer.hasRemaining()) {
+        buffer.position(start);
+        return INCOMPLETE;
+      }
+      byte b = buffer.get();
+      value |= (b & 0x7F) << (7 * i);
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Varint demasiado largo");
+  }
+
+  /**
+   * Lee un valor de un flujo bloqueante.
+   * 
+   * @param in flujo de entrada
+   * @return el valor, o {@link #INCOMPLETE} si el flujo terminó antes del
+   *         primer byte
+   * @throws IOException si el flujo termina a mitad o el varint es demasiado
+   *                     largo
+   */
+  public static int read(InputStream in) throws IOException {
+    int value = 0;
+    for (int i = 0; i < MAX_BYTES; i++) {
+      int b = in.read();
+      if (b < 0) {
+        if (i == 0) {
+          return INCOMPLETE;
+        }
+        throw new IOException("Varint truncado");
+      }
+      value |= (b & 0x7F) << (7 * i);
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Varint demasiado largo");
+  }
+}
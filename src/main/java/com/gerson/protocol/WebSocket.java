@@ -0,0 +1,182 @@
+package com.gerson.protocol;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Locale;
+
+/**
+ * Apertura y marcos de WebSocket (RFC 6455) para los clientes de navegador.
+ * El cliente abre con una petición HTTP {@code Upgrade}; desde la respuesta
+ * {@code 101}, cada marco de texto lleva una o más líneas del protocolo de
+ * texto, cada una terminada en salto de línea.
+ */
+public final class WebSocket {
+  /** Marco de continuación de un mensaje fragmentado. */
+  public static final int OPCODE_CONTINUATION = 0x0;
+  /** Marco de texto UTF-8. */
+  public static final int OPCODE_TEXT = 0x1;
+  /** Marco binario. */
+  public static final int OPCODE_BINARY = 0x2;
+  /** Marco de cierre. */
+  public static final int OPCODE_CLOSE = 0x8;
+  /** Marco de ping. */
+  public static final int OPCODE_PING = 0x9;
+  /** Marco de pong. */
+  public static final int OPCODE_PONG = 0xA;
+
+  /** Cierre normal. */
+  public static final int CLOSE_NORMAL = 1000;
+  /** Longitud máxima de la cabecera de un marco enviado por el servidor. */
+  public static final int MAX_HEADER_LENGTH = 10;
+  /** Longitud máxima de la carga de un marco de control. */
+  public static final int MAX_CONTROL_PAYLOAD = 125;
+
+  private static final String ACCEPT_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+  private static final byte[] BAD_REQUEST = ("HTTP/1.1 400 Bad Request\r\n"
+      + "Sec-WebSocket-Version: 13\r\n"
+      + "Content-Length: 0\r\n"
+      + "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+
+  private WebSocket() {
+  }
+
+  /**
+   * Valida la petición de apertura de un cliente y construye la respuesta
+   * {@code 101 Switching Protocols}.
+   * 
+   * @param request petición HTTP completa, incluida la línea en blanco final
+   * @return bytes de la respuesta
+   * @throws IOException si la petición no es una apertura WebSocket válida
+   */
+  public static byte[] upgradeResponse(String request) throws IOException {
+    String[] lines = request.split("\r\n");
+    if (lines.length == 0 || !lines[0].startsWith("GET ") || !lines[0].endsWith(" HTTP/1.1")) {
+      throw new IOException("Petición de apertura WebSocket no válida");
+    }
+    String upgrade = null;
+    String connection = null;
+    String version = null;
+    String key = null;
+    for (int i = 1; i < lines.length; i++) {
+      int separator = lines[i].indexOf(':');
+      if (separator <= 0) {
+        continue;
+      }
+      String name = lines[i].substring(0, separator).trim().toLowerCase(Locale.ROOT);
+      String value = lines[i].substring(separator + 1).trim();
+      switch (name) {
+        case "upgrade":
+          upgrade = value;
+          break;
+        case "connection":
+          connection = value;
+          break;
+        case "sec-websocket-version":
+          version = value;
+          break;
+        case "sec-websocket-key":
+          key = value;
+          break;
+        default:
+          break;
+      }
+    }
+    if (upgrade == null || !upgrade.equalsIgnoreCase("websocket")
+        || connection == null || !connection.toLowerCase(Locale.ROOT).contains("upgrade")
+        || !"13".equals(version) || !isValidKey(key)) {
+      throw new IOException("Cabeceras de apertura WebSocket no válidas");
+    }
+    return ("HTTP/1.1 101 Switching Protocols\r\n"
+        + "Upgrade: websocket\r\n"
+        + "Connection: Upgrade\r\n"
+        + "Sec-WebSocket-Accept: " + acceptKey(key) + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * Respuesta a una apertura no válida. Se envía justo antes de cerrar.
+   * 
+   * @return búfer listo para escribir
+   */
+  public static ByteBuffer badRequest() {
+    return ByteBuffer.wrap(BAD_REQUEST).asReadOnlyBuffer();
+  }
+
+  /**
+   * Calcula el valor de {@code Sec-WebSocket-Accept} para una clave.
+   * 
+   * @param key valor de {@code Sec-WebSocket-Key}
+   * @return clave de aceptación en Base64
+   */
+  public static String acceptKey(String key) {
+    try {
+      MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+      byte[] digest = sha1.digest((key + ACCEPT_GUID).getBytes(StandardCharsets.US_ASCII));
+      return Base64.getEncoder().encodeToString(digest);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-1 no disponible", e);
+    }
+  }
+
+  /**
+   * Escribe la cabecera de un marco del servidor (sin máscara y con FIN) en
+   * un búfer reutilizable, que queda listo para leer.
+   * 
+   * @param header búfer de al menos {@link #MAX_HEADER_LENGTH} bytes
+   * @param opcode código de operación del marco
+   * @param length longitud de la carga
+   * @return el mismo búfer
+   */
+  public static ByteBuffer writeHeader(ByteBuffer header, int opcode, long length) {
+    header.clear();
+    header.put((byte) (0x80 | opcode));
+    if (length <= 125) {
+      header.put((byte) length);
+    } else if (length <= 0xFFFF) {
+      header.put((byte) 126).putShort((short) length);
+    } else {
+      header.put((byte) 127).putLong(length);
+    }
+    return header.flip();
+  }
+
+  /**
+   * Construye un marco de control completo del servidor.
+   * 
+   * @param opcode  {@link #OPCODE_PING}, {@link #OPCODE_PONG} o
+   *                {@link #OPCODE_CLOSE}
+   * @param payload carga del marco
+   * @param length  longitud de la carga, como mucho
+   *                {@link #MAX_CONTROL_PAYLOAD}
+   * @return búfer listo para escribir
+   */
+  public static ByteBuffer controlFrame(int opcode, byte[] payload, int length) {
+    ByteBuffer frame = ByteBuffer.allocate(2 + length);
+    frame.put((byte) (0x80 | opcode)).put((byte) length).put(payload, 0, length);
+    return frame.flip();
+  }
+
+  /**
+   * Construye un marco de cierre con un código de estado.
+   * 
+   * @param code código de cierre
+   * @return búfer listo para escribir
+   */
+  public static ByteBuffer closeFrame(int code) {
+    return controlFrame(OPCODE_CLOSE, new byte[] { (byte) (code >>> 8), (byte) code }, 2);
+  }
+
+  private static boolean isValidKey(String key) {
+    if (key == null) {
+      return false;
+    }
+    try {
+      return Base64.getDecoder().decode(key).length == 16;
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+}
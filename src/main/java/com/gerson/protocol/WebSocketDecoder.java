@@ -0,0 +1,197 @@
+package com.gerson.protocol;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Decodificador de los marcos WebSocket que envía un cliente. Quita la
+ * máscara de la carga a medida que llega y entrega el texto por trozos, sin
+ * esperar a tener el mensaje completo ni reservar memoria por marco. Solo
+ * retiene en el búfer de entrada una cabecera incompleta.
+ *
+ * <p>
+ * Los mensajes binarios no forman parte del protocolo de navegador y se
+ * rechazan, igual que los marcos sin máscara o con bits reservados.
+ */
+public final class WebSocketDecoder {
+  /** Longitud máxima admitida para un mensaje de texto entrante. */
+  public static final int MAX_MESSAGE_LENGTH = 8192;
+  private static final int CHUNK_SIZE = 512;
+
+  /**
+   * Receptor de los mensajes decodificados.
+   */
+  public interface Listener {
+
+    /**
+     * Recibe un trozo de un mensaje de texto, ya sin máscara.
+     * 
+     * @param data   búfer con el trozo, que se reutiliza tras la llamada
+     * @param length longitud del trozo
+     * @throws IOException si el trozo no se puede procesar
+     */
+    void onText(byte[] data, int length) throws IOException;
+
+    /**
+     * Se invoca al terminar un mensaje de texto.
+     * 
+     * @throws IOException si el mensaje no se puede procesar
+     */
+    void onTextEnd() throws IOException;
+
+    /**
+     * Recibe un ping, que debe responderse con un pong con la misma carga.
+     * 
+     * @param payload carga del ping, que se reutiliza tras la llamada
+     * @param length  longitud de la carga
+     */
+    void onPing(byte[] payload, int length);
+
+    /**
+     * Se invoca cuando el cliente inicia el cierre.
+     */
+    void onClose();
+  }
+
+  private final Listener listener;
+  private final byte[] chunk = new byte[CHUNK_SIZE];
+  private final byte[] control = new byte[WebSocket.MAX_CONTROL_PAYLOAD];
+  private final byte[] mask = new byte[4];
+  private boolean inFrame;
+  private boolean inMessage;
+  private boolean fin;
+  private int opcode;
+  private long remaining;
+  private int maskIndex;
+  private int controlLength;
+  private long messageLength;
+
+  /**
+   * Crea el decodificador.
+   * 
+   * @param listener receptor de los mensajes decodificados
+   */
+  public WebSocketDecoder(Listener listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * Decodifica todo lo que haya en el búfer. Una cabecera incompleta se deja
+   * sin consumir para la siguiente lectura.
+   * 
+   * @param in búfer en modo lectura
+   * @throws IOException si un marco no es válido
+   */
+  public void decode(ByteBuffer in) throws IOException {
+    while (in.hasRemaining()) {
+      if (!inFrame) {
+        if (!readHeader(in)) {
+          return;
+        }
+        if (remaining == 0) {
+          endFrame();
+        }
+        continue;
+      }
+      int length = (int) Math.min(Math.min(in.remaining(), remaining), CHUNK_SIZE);
+      in.get(chunk, 0, length);
+      for (int i = 0; i < length; i++) {
+        chunk[i] ^= mask[maskIndex];
+        maskIndex = (maskIndex + 1) & 3;
+      }
+      remaining -= length;
+      if (opcode >= WebSocket.OPCODE_CLOSE) {
+        System.arraycopy(chunk, 0, control, controlLength, length);
+        controlLength += length;
+      } else {
+        listener.onText(chunk, length);
+      }
+      if (remaining == 0) {
+        endFrame();
+      }
+    }
+  }
+
+  private boolean readHeader(ByteBuffer in) throws IOException {
+    int start = in.position();
+    if (in.remaining() < 2) {
+      return false;
+    }
+    int first = in.get() & 0xFF;
+    int second = in.get() & 0xFF;
+    if ((first & 0x70) != 0) {
+      throw new IOException("Bits reservados en un marco WebSocket");
+    }
+    if ((second & 0x80) == 0) {
+      throw new IOException("Marco WebSocket sin máscara");
+    }
+    long length = second & 0x7F;
+    int extended = length == 126 ? 2 : length == 127 ? 8 : 0;
+    if (in.remaining() < extended + 4) {
+      in.position(start);
+      return false;
+    }
+    if (extended == 2) {
+      length = in.getShort() & 0xFFFF;
+    } else if (extended == 8) {
+      length = in.getLong();
+    }
+    in.get(mask);
+    fin = (first & 0x80) != 0;
+    opcode = first & 0x0F;
+    checkFrame(length);
+    inFrame = true;
+    remaining = length;
+    maskIndex = 0;
+    controlLength = 0;
+    return true;
+  }
+
+  private void checkFrame(long length) throws IOException {
+    switch (opcode) {
+      case WebSocket.OPCODE_TEXT:
+      case WebSocket.OPCODE_CONTINUATION:
+        if ((opcode == WebSocket.OPCODE_TEXT) == inMessage) {
+          throw new IOException("Fragmentación WebSocket no válida");
+        }
+        messageLength += length;
+        if (length < 0 || messageLength > MAX_MESSAGE_LENGTH) {
+          throw new IOException("Mensaje WebSocket demasiado largo");
+        }
+        inMessage = true;
+        break;
+      case WebSocket.OPCODE_CLOSE:
+      case WebSocket.OPCODE_PING:
+      case WebSocket.OPCODE_PONG:
+        if (!fin || length > WebSocket.MAX_CONTROL_PAYLOAD) {
+          throw new IOException("Marco de control WebSocket no válido");
+        }
+        break;
+      case WebSocket.OPCODE_BINARY:
+        throw new IOException("Mensajes WebSocket binarios no admitidos");
+      default:
+        throw new IOException("Opcode WebSocket desconocido: " + opcode);
+    }
+  }
+
+  private void endFrame() throws IOException {
+    inFrame = false;
+    switch (opcode) {
+      case WebSocket.OPCODE_CLOSE:
+        listener.onClose();
+        break;
+      case WebSocket.OPCODE_PING:
+        listener.onPing(control, controlLength);
+        break;
+      case WebSocket.OPCODE_PONG:
+        break;
+      default:
+        if (fin) {
+          inMessage = false;
+          messageLength = 0;
+          listener.onTextEnd();
+        }
+        break;
+    }
+  }
+}
@@ -1,60 +1,427 @@
 package com.gerson.server;
 
 import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
-import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import com.gerson.cluster.ClusterNode;
+import com.gerson.cluster.FileRoomDirectory;
+import com.gerson.cluster.Gateway;
+import com.gerson.journal.Journal;
+import com.gerson.logic.GameConfig;
+import com.gerson.logic.GameManager;
+import com.gerson.logic.RaceRoom;
+import com.gerson.metrics.MetricsRegistry;
+import com.gerson.metrics.MetricsServer;
+import com.gerson.metrics.ServerMetrics;
+import com.gerson.network.AdmissionControl;
 import com.gerson.network.ClientHandler;
+import com.gerson.network.NioServer;
+import com.gerson.protocol.RacePhase;
+import com.gerson.snapshot.RoomSnapshot;
+import com.gerson.snapshot.SnapshotFile;
 
 /**
  * Clase principal del servidor del juego.
  * Escucha conexiones entrantes en un puerto fijo y lanza hilos de atención a
- * clientes.
+ * clientes, o bien las reparte entre bucles de eventos NIO según el modo
+ * configurado. Las conexiones que superan los límites de
+ * {@link AdmissionControl} se cierran al aceptarlas, sin crear ningún hilo.
+ *
+ * <p>
+ * Con {@code horse.cluster.dir} definido, el servidor se registra como nodo
+ * de un clúster; en modo {@code gateway} no aloja carreras y solo enruta a
+ * cada cliente hacia el nodo de su sala.
+ *
+ * <p>
+ * Al terminar la JVM con {@link ServerConfig#snapshotFile()} definido, el
+ * servidor deja de aceptar conexiones, espera como mucho
+ * {@link ServerConfig#drainTimeoutMillis()} a que acaben las carreras en
+ * curso, guarda el estado de las salas en ese archivo y, solo si pudo
+ * escribirlo, pide a los clientes que vuelvan a conectarse con
+ * {@code reconnect:<ms>}. El proceso siguiente recupera ese estado al
+ * arrancar y los clientes retoman su sesión con su token, así que un
+ * reinicio no borra las carreras activas. Sin archivo, o si no se pudo
+ * escribir, el servidor se detiene sin esperar ni avisar.
  */
 public class Server {
-  private static final int PORT = 1818;
+  private static final int PORT = ServerConfig.port();
   private static final Logger logger = Logger.getLogger(Server.class.getName());
+  private static final String RECONNECT_PREFIX = "reconnect:";
+  private static final long DRAIN_POLL_MILLIS = 50;
+  private static final long HANDOFF_FLUSH_MILLIS = 200;
+  private static final AtomicBoolean shutDown = new AtomicBoolean();
   private static volatile boolean running = true;
-  private static ServerSocket serverSocket;
+  private static volatile ServerSocket serverSocket;
+  private static volatile NioServer nioServer;
+  private static volatile MetricsServer metricsServer;
+  private static volatile ClusterNode clusterNode;
+  private static volatile Gateway gateway;
 
   /**
    * Punto de entrada principal. Inicia el servidor y acepta conexiones de
    * clientes.
-   * Por cada cliente que se conecta, lanza un nuevo hilo ClientHandler.
+   * En modo {@code thread} lanza un nuevo hilo ClientHandler por cada cliente,
+   * en modo {@code virtual} lo ejecuta en un hilo virtual y en modo
+   * {@code nio} atiende a todos los clientes con un conjunto fijo de bucles de
+   * eventos. En modo {@code gateway} arranca la pasarela del clúster.
    * 
-   * @param args argumentos de la línea de comandos (no se usan)
+   * @param args argumentos de la línea de comandos
+   *             ({@code --mode=thread|virtual|nio|gateway})
    */
   public static void main(String[] args) {
-    try (ServerSocket serverSocket = new ServerSocket(PORT)) {
-      logger.info("[OK] Servidor iniciado en el puerto " + PORT);
+    running = true;
+    startMetrics();
+    // Entrega las salas, da de baja el nodo y vuelca el diario al terminar,
+    // en ese orden
+    Runtime.getRuntime().addShutdownHook(new Thread(Server::shutdown, "server-shutdown"));
+    ServerMode mode = ServerConfig.mode(args);
+    if (mode == ServerMode.GATEWAY) {
+      runGateway();
+      return;
+    }
+    restoreSnapshot();
+    if (mode == ServerMode.NIO) {
+      runNio();
+      return;
+    }
+    if (ServerConfig.webSocketPort() > 0) {
+      logger.warning("[!] El puerto WebSocket solo se abre en modo nio");
+    }
+    ExecutorService executor = mode == ServerMode.VIRTUAL ? newVirtualThreadExecutor() : null;
+    AdmissionControl admission = AdmissionControl.fromConfig();
+    // Se abre como canal para que cada socket aceptado admita escrituras agrupadas
+    try (ServerSocketChannel serverChannel = ServerSocketChannel.open()) {
+      serverChannel.bind(new InetSocketAddress(PORT), ServerConfig.acceptBacklog());
+      serverSocket = serverChannel.socket();
+      int localPort = serverChannel.socket().getLocalPort();
+      logger.info("[OK] Servidor iniciado en el puerto " + localPort);
+      joinCluster(localPort);
       logger.info("[OK] Servidor en espera de conexiones");
 
       while (running) {
-        Socket clientSocket = serverSocket.accept();
-        ClientHandler handler = new ClientHandler(clientSocket);
-        handler.start();
+        SocketChannel channel = serverChannel.accept();
+        InetAddress address = channel.socket().getInetAddress();
+        if (!admission.admit(address)) {
+          AdmissionControl.reject(channel);
+          continue;
+        }
+        ServerMetrics.ACCEPTED_CONNECTIONS.increment();
+        ClientHandler handler = new ClientHandler(channel.socket(), executor, () -> admission.release(address));
+        if (executor != null) {
+          executor.execute(handler);
+        } else {
+          new Thread(handler).start();
+        }
       }
     } catch (IOException e) {
-      logger.log(Level.SEVERE, "Ocurrió un error al cerrar el socket del cliente", e);
+      if (running) {
+        logger.log(Level.SEVERE, "Ocurrió un error al cerrar el socket del cliente", e);
+      } else {
+        logger.info("[OK] Servidor detenido: ya no se aceptan conexiones");
+      }
+    } finally {
+      if (executor != null) {
+        executor.shutdown();
+      }
     }
   }
 
   /**
-   * Detiene el servidor de forma segura. Cierra el socket principal
-   * y hace que el bucle de aceptación de clientes finalice.
-   * Este método puede ser invocado desde pruebas.
+   * Crea un ejecutor con un hilo virtual por tarea. El método se resuelve por
+   * reflexión para que el proyecto siga compilando con Java 17; en JVM
+   * anteriores a la 21 se usa un pool de hilos en caché.
+   * 
+   * @return ejecutor para las tareas de los clientes
    */
-  public static void stopServer() {
+  static ExecutorService newVirtualThreadExecutor() {
+    try {
+      Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      logger.info("[OK] Atendiendo clientes con hilos virtuales");
+      return (ExecutorService) factory.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      logger.warning("[!] Hilos virtuales no disponibles en esta JVM (se requiere Java 21). "
+          + "Se usará un pool de hilos en caché.");
+      return Executors.newCachedThreadPool();
+    }
+  }
+
+  /**
+   * Inicia el endpoint HTTP de métricas si {@code horse.metrics.port} lo
+   * activa. Un fallo al abrirlo no impide que el juego arranque.
+   */
+  private static void startMetrics() {
+    int port = ServerConfig.metricsPort();
+    if (port == 0) {
+      return;
+    }
+    try {
+      MetricsServer server = new MetricsServer(ServerConfig.metricsHost(), port, MetricsRegistry.shared());
+      server.start();
+      metricsServer = server;
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "[!] No se pudo iniciar el endpoint de métricas en el puerto " + port, e);
+    }
+  }
+
+  /**
+   * Inicia el servidor en modo NIO y bloquea el hilo actual aceptando
+   * conexiones.
+   */
+  private static void runNio() {
+    try {
+      int webSocketPort = ServerConfig.webSocketPort();
+      NioServer server = new NioServer(PORT, ServerConfig.nioThreads(), AdmissionControl.fromConfig(),
+          webSocketPort > 0 ? webSocketPort : NioServer.NO_WEBSOCKET);
+      server.start();
+      nioServer = server;
+      logger.info("[OK] Servidor NIO iniciado en el puerto " + server.getLocalPort() + " con "
+          + ServerConfig.nioThreads() + " bucles de eventos");
+      if (webSocketPort > 0) {
+        logger.info("[OK] WebSocket en el puerto " + server.getWebSocketPort());
+      }
+      joinCluster(server.getLocalPort());
+      server.acceptLoop();
+    } catch (IOException e) {
+      logger.log(Level.SEVERE, "No se pudo iniciar el servidor NIO", e);
+    }
+  }
+
+  /**
+   * Inicia la pasarela del clúster y bloquea el hilo actual aceptando
+   * clientes. Requiere {@code horse.cluster.dir}.
+   */
+  private static void runGateway() {
+    String dir = ServerConfig.clusterDir();
+    if (dir == null) {
+      logger.severe("[X] El modo gateway requiere horse.cluster.dir");
+      return;
+    }
+    try {
+      Gateway server = new Gateway(PORT, new FileRoomDirectory(Paths.get(dir)),
+          ServerConfig.gatewayPreambleMillis(), newVirtualThreadExecutor());
+      server.start();
+      gateway = server;
+      logger.info("[OK] Pasarela del clúster iniciada en el puerto " + server.getLocalPort());
+      server.acceptLoop();
+    } catch (IOException e) {
+      logger.log(Level.SEVERE, "No se pudo iniciar la pasarela del clúster", e);
+    }
+  }
+
+  /**
+   * Registra el servidor como nodo del clúster si {@code horse.cluster.dir}
+   * está definido. El nodo se da de baja al terminar la JVM. Un fallo del
+   * directorio no impide que el servidor atienda clientes.
+   * 
+   * @param localPort puerto en el que el servidor acepta clientes
+   */
+  private static void joinCluster(int localPort) {
+    String dir = ServerConfig.clusterDir();
+    if (dir == null) {
+      return;
+    }
+    try {
+      ClusterNode node = new ClusterNode(new FileRoomDirectory(Paths.get(dir)), ServerConfig.nodeId(),
+          new InetSocketAddress(ServerConfig.nodeHost(), localPort));
+      node.start(GameManager.getGamemanagerinstance().getRoomManager());
+      clusterNode = node;
+    } catch (IOException | RuntimeException e) {
+      logger.log(Level.WARNING, "[!] No se pudo registrar el nodo en el clúster " + dir, e);
+    }
+  }
+
+  /**
+   * Da de baja el nodo del clúster, si lo hay.
+   */
+  private static void leaveCluster() {
+    ClusterNode node = clusterNode;
+    if (node != null) {
+      clusterNode = null;
+      node.close();
+    }
+  }
+
+  /**
+   * Recupera el estado que dejó el proceso anterior en
+   * {@link ServerConfig#snapshotFile()}, si existe, antes de aceptar
+   * conexiones y de anunciar las salas al clúster. El archivo se borra tras
+   * leerlo para no recuperar dos veces el mismo estado.
+   */
+  private static void restoreSnapshot() {
+    String file = ServerConfig.snapshotFile();
+    if (file == null) {
+      return;
+    }
+    Path path = Paths.get(file);
+    if (!Files.exists(path)) {
+      return;
+    }
+    if (GameConfig.resumeGraceMillis() == 0) {
+      logger.warning("[!] La reanudación está desactivada: se descarta el estado guardado en " + path);
+    }
+    try {
+      long start = System.nanoTime();
+      List<RoomSnapshot> rooms = SnapshotFile.read(path);
+      int players = GameManager.getGamemanagerinstance().restore(rooms);
+      Files.delete(path);
+      logger.info("[OK] Recuperados " + players + " jugadores de " + rooms.size() + " salas en "
+          + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "[!] No se pudo recuperar el estado guardado en " + path, e);
+    }
+  }
+
+  /**
+   * Termina el servidor: deja de aceptar conexiones y da de baja el nodo
+   * del clúster. Si hay dónde guardar el estado de las salas, espera a que
+   * acaben las carreras en curso, lo guarda y avisa a los clientes para que
+   * vuelvan a conectarse; si no, cierra las conexiones sin más. Se ejecuta
+   * al terminar la JVM; si el servidor ya se detuvo con
+   * {@link #stopServer()}, solo vuelca el diario.
+   */
+  static void shutdown() {
+    if (!shutDown.compareAndSet(false, true)) {
+      return;
+    }
+    if (running) {
+      stopAccepting();
+      leaveCluster();
+      String file = ServerConfig.snapshotFile();
+      if (file != null) {
+        drainRaces(ServerConfig.drainTimeoutMillis());
+        handOff(Paths.get(file));
+      }
+      stopServer();
+    }
+    // Vuelca y fuerza al disco los últimos registros del diario
+    Journal.shared().close();
+  }
+
+  /**
+   * Cierra los puertos de escucha. Las conexiones abiertas siguen
+   * atendiéndose.
+   */
+  private static void stopAccepting() {
     running = false;
     try {
-      if (serverSocket != null) {
-        serverSocket.close(); // Forzará que accept() lance IOException
+      ServerSocket socket = serverSocket;
+      if (socket != null) {
+        socket.close(); // Forzará que accept() lance IOException
       }
     } catch (IOException e) {
       logger.log(Level.SEVERE, "Error al cerrar el servidor", e);
     }
+    NioServer server = nioServer;
+    if (server != null) {
+      server.stopAccepting();
+    }
+    Gateway clusterGateway = gateway;
+    if (clusterGateway != null) {
+      clusterGateway.stop();
+      gateway = null;
+    }
+  }
+
+  /**
+   * Espera a que ninguna sala tenga una cuenta regresiva o una carrera en
+   * curso, como mucho el tiempo indicado.
+   * 
+   * @param timeoutMillis espera máxima
+   */
+  private static void drainRaces(long timeoutMillis) {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    int inProgress = racesInProgress();
+    if (inProgress > 0) {
+      logger.info("[..] Esperando a que terminen " + inProgress + " carreras en curso");
+    }
+    while (inProgress > 0 && System.nanoTime() < deadline) {
+      try {
+        Thread.sleep(DRAIN_POLL_MILLIS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+      inProgress = racesInProgress();
+    }
+    if (inProgress > 0) {
+      logger.warning("[!] Se guardan " + inProgress + " carreras sin terminar");
+    }
+  }
+
+  private static int racesInProgress() {
+    int count = 0;
+    for (RaceRoom room : GameManager.getGamemanagerinstance().getRoomManager().getRooms()) {
+      if (room.getPhase() != RacePhase.WAITING) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Guarda el estado de las salas en el archivo indicado y, si lo consigue,
+   * pide a los clientes que vuelvan a conectarse. Deja un momento a los
+   * escritores para entregar el aviso antes de cerrar. Si no se pudo
+   * guardar, no avisa: volver a conectarse no recuperaría nada.
+   * 
+   * @param file archivo de estado
+   */
+  private static void handOff(Path file) {
+    GameManager gameManager = GameManager.getGamemanagerinstance();
+    List<RoomSnapshot> rooms = gameManager.handOff();
+    if (rooms.isEmpty()) {
+      return;
+    }
+    try {
+      SnapshotFile.write(file, rooms);
+      logger.info("[OK] Estado de " + rooms.size() + " salas guardado en " + file);
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "[!] No se pudo guardar el estado de las salas en " + file
+          + "; se cierran las conexiones sin aviso", e);
+      return;
+    }
+    gameManager.announce(RECONNECT_PREFIX + ServerConfig.reconnectDelayMillis());
+    try {
+      Thread.sleep(HANDOFF_FLUSH_MILLIS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Detiene el servidor de inmediato, sin esperar a las carreras ni guardar
+   * su estado. Cierra el socket principal, hace que el bucle de aceptación
+   * de clientes finalice y cierra las conexiones NIO.
+   * Este método puede ser invocado desde pruebas.
+   */
+  public static void stopServer() {
+    stopAccepting();
+    NioServer server = nioServer;
+    if (server != null) {
+      server.stop();
+      nioServer = null;
+    }
+    leaveCluster();
+    MetricsServer metrics = metricsServer;
+    if (metrics != null) {
+      metrics.stop();
+      metricsServer = null;
+    }
   }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,219 @@
+package com.gerson.server;
+
+import com.gerson.network.OverflowPolicy;
+
+/**
+ * Configuración del servidor. Los valores se leen de propiedades del sistema
+ * ({@code -Dhorse.*}) y, cuando aplica, de los argumentos de la línea de
+ * comandos ({@code --mode=nio}).
+ */
+public final class ServerConfig {
+  public static final int DEFAULT_PORT = 1818;
+  private static final String MODE_ARGUMENT = "--mode=";
+
+  private ServerConfig() {
+  }
+
+  /**
+   * Devuelve el puerto de escucha del servidor.
+   * 
+   * @return puerto configurado en {@code horse.port} o 1818 por defecto
+   */
+  public static int port() {
+    return Integer.getInteger("horse.port", DEFAULT_PORT);
+  }
+
+  /**
+   * Determina el modo de ejecución. El argumento {@code --mode=} tiene
+   * prioridad sobre la propiedad {@code horse.mode}.
+   * 
+   * @param args argumentos de la línea de comandos, puede ser null
+   * @return modo de ejecución elegido, {@link ServerMode#THREAD} por defecto
+   */
+  public static ServerMode mode(String[] args) {
+    if (args != null) {
+      for (String arg : args) {
+        if (arg != null && arg.startsWith(MODE_ARGUMENT)) {
+          return ServerMode.parse(arg.substring(MODE_ARGUMENT.length()), ServerMode.THREAD);
+        }
+      }
+    }
+    return ServerMode.parse(System.getProperty("horse.mode"), ServerMode.THREAD);
+  }
+
+  /**
+   * Número de bucles de eventos usados en modo NIO.
+   * 
+   * @return valor de {@code horse.nio.threads} o el número de procesadores
+   */
+  public static int nioThreads() {
+    int threads = Integer.getInteger("horse.nio.threads", Runtime.getRuntime().availableProcessors());
+    return Math.max(1, threads);
+  }
+
+  /**
+   * Capacidad de la cola de salida de cada cliente.
+   * 
+   * @return valor de {@code horse.outbound.capacity}, 256 por defecto
+   */
+  public static int outboundCapacity() {
+    return Math.max(1, Integer.getInteger("horse.outbound.capacity", 256));
+  }
+
+  /**
+   * Política aplicada cuando la cola de salida de un cliente se llena.
+   * 
+   * @return valor de {@code horse.outbound.policy} ({@code drop_progress} o
+   *         {@code disconnect}), {@link OverflowPolicy#DROP_PROGRESS} por
+   *         defecto
+   */
+  public static OverflowPolicy overflowPolicy() {
+    return OverflowPolicy.parse(System.getProperty("horse.outbound.policy"), OverflowPolicy.DROP_PROGRESS);
+  }
+
+  /**
+   * Conexiones abiertas que el servidor admite a la vez. Las que superan el
+   * límite se cierran al aceptarlas.
+   * 
+   * @return valor de {@code horse.max.connections}, 10000 por defecto; 0 no
+   *         limita
+   */
+  public static int maxConnections() {
+    return Math.max(0, Integer.getInteger("horse.max.connections", 10000));
+  }
+
+  /**
+   * Conexiones abiertas que el servidor admite desde una misma dirección IP.
+   * 
+   * @return valor de {@code horse.max.connections.per.ip}; 0 (por defecto)
+   *         no limita
+   */
+  public static int maxConnectionsPerAddress() {
+    return Math.max(0, Integer.getInteger("horse.max.connections.per.ip", 0));
+  }
+
+  /**
+   * Longitud de la cola de conexiones pendientes de aceptar del socket de
+   * escucha.
+   * 
+   * @return valor de {@code horse.accept.backlog}, 128 por defecto
+   */
+  public static int acceptBacklog() {
+    return Math.max(1, Integer.getInteger("horse.accept.backlog", 128));
+  }
+
+  /**
+   * Plazo para que un cliente envíe su saludo tras conectarse. Al vencer,
+   * la conexión se cierra sin haber registrado ningún jugador.
+   * 
+   * @return valor de {@code horse.handshake.timeout.ms}, 10000 por defecto;
+   *         0 no limita la espera
+   */
+  public static long handshakeTimeoutMillis() {
+    return Math.max(0, Long.getLong("horse.handshake.timeout.ms", 10000));
+  }
+
+  /**
+   * Puerto WebSocket para clientes de navegador, atendido por los mismos
+   * bucles del modo NIO.
+   * 
+   * @return valor de {@code horse.ws.port}; 0 (por defecto) lo desactiva
+   */
+  public static int webSocketPort() {
+    return Math.max(0, Integer.getInteger("horse.ws.port", 0));
+  }
+
+  /**
+   * Directorio compartido del clúster. Si está definido, el servidor se
+   * registra en él como nodo y anota las salas que aloja.
+   * 
+   * @return valor de {@code horse.cluster.dir}; null (por defecto) para un
+   *         servidor aislado
+   */
+  public static String clusterDir() {
+    String dir = System.getProperty("horse.cluster.dir");
+    return dir == null || dir.isBlank() ? null : dir.trim();
+  }
+
+  /**
+   * Identificador del nodo dentro del clúster.
+   * 
+   * @return valor de {@code horse.node.id}, {@code nodo-<pid>} por defecto
+   */
+  public static String nodeId() {
+    return System.getProperty("horse.node.id", "nodo-" + ProcessHandle.current().pid());
+  }
+
+  /**
+   * Host con el que el nodo se anuncia a la pasarela.
+   * 
+   * @return valor de {@code horse.node.host}, {@code 127.0.0.1} por defecto
+   */
+  public static String nodeHost() {
+    return System.getProperty("horse.node.host", "127.0.0.1");
+  }
+
+  /**
+   * Espera máxima de la pasarela al preámbulo de ruta de un cliente.
+   * 
+   * @return valor de {@code horse.gateway.preamble.ms}, 200 por defecto; 0
+   *         envía a todos los clientes a la sala principal sin esperar
+   */
+  public static long gatewayPreambleMillis() {
+    return Math.max(0, Long.getLong("horse.gateway.preamble.ms", 200));
+  }
+
+  /**
+   * Archivo en el que el servidor guarda el estado de sus salas al terminar
+   * y del que lo recupera al arrancar.
+   * 
+   * @return valor de {@code horse.snapshot.file}; null (por defecto) para
+   *         no guardar nada
+   */
+  public static String snapshotFile() {
+    String file = System.getProperty("horse.snapshot.file");
+    return file == null || file.isBlank() ? null : file.trim();
+  }
+
+  /**
+   * Espera máxima al terminar para que las carreras en curso acaben antes
+   * de guardar su estado.
+   * 
+   * @return valor de {@code horse.drain.timeout.ms}, 30000 por defecto; 0
+   *         guarda el estado sin esperar
+   */
+  public static long drainTimeoutMillis() {
+    return Math.max(0, Long.getLong("horse.drain.timeout.ms", 30_000));
+  }
+
+  /**
+   * Tiempo que se pide a los clientes que esperen antes de volver a
+   * conectarse cuando el servidor termina.
+   * 
+   * @return valor de {@code horse.reconnect.delay.ms}, 1000 por defecto
+   */
+  public static long reconnectDelayMillis() {
+    return Math.max(0, Long.getLong("horse.reconnect.delay.ms", 1000));
+  }
+
+  /**
+   * Puerto del endpoint HTTP de métricas ({@code /metrics}).
+   * 
+   * @return valor de {@code horse.metrics.port}; 0 (por defecto) lo
+   *         desactiva
+   */
+  public static int metricsPort() {
+    return Math.max(0, Integer.getInteger("horse.metrics.port", 0));
+  }
+
+  /**
+   * Dirección en la que escucha el endpoint de métricas.
+   * 
+   * @return valor de {@code horse.metrics.host}; null (por defecto) para
+   *         escuchar solo en el bucle local
+   */
+  public static String metricsHost() {
+    String host = System.getProperty("horse.metrics.host");
+    return host == null || host.isBlank() ? null : host.trim();
+  }
+}
@@ -0,0 +1,34 @@
+package com.gerson.server;
+
+/**
+ * Modos de ejecución disponibles para atender a los clientes.
+ */
+public enum ServerMode {
+  /** Un hilo de plataforma por cliente ({@code ClientHandler}). */
+  THREAD,
+  /** Un hilo virtual por cliente (JDK 21 o superior). */
+  VIRTUAL,
+  /** Un conjunto fijo de bucles de eventos NIO basados en {@code Selector}. */
+  NIO,
+  /** Pasarela del clúster: enruta cada cliente al nodo de su sala. */
+  GATEWAY;
+
+  /**
+   * Convierte un texto (sin distinguir mayúsculas) en un modo de ejecución.
+   * 
+   * @param value         texto a interpretar, puede ser null
+   * @param defaultMode   modo a usar si el texto es null o no es válido
+   * @return el modo correspondiente
+   */
+  public static ServerMode parse(String value, ServerMode defaultMode) {
+    if (value == null || value.isBlank()) {
+      return defaultMode;
+    }
+    for (ServerMode mode : values()) {
+      if (mode.name().equalsIgnoreCase(value.trim())) {
+        return mode;
+      }
+    }
+    return defaultMode;
+  }
+}
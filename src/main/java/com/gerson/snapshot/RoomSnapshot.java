@@ -0,0 +1,178 @@
+package com.gerson.snapshot;
+
+import java.util.List;
+
+import com.gerson.protocol.RacePhase;
+
+/**
+ * Estado de una sala en el momento de entregarla a otro proceso: su fase,
+ * sus secuencias y, por cada jugador, su progreso, sus clics, si estaba
+ * listo y su token de reanudación.
+ */
+public final class RoomSnapshot {
+  private final String name;
+  private final RacePhase phase;
+  private final int stateSeq;
+  private final int rosterVersion;
+  private final List<PlayerSnapshot> players;
+
+  /**
+   * Crea el estado de una sala.
+   * 
+   * @param name          nombre de la sala
+   * @param phase         fase de la sala
+   * @param stateSeq      secuencia del último delta de progreso difundido
+   * @param rosterVersion versión del último delta de roster difundido
+   * @param players       jugadores de la sala, en su orden
+   */
+  public RoomSnapshot(String name, RacePhase phase, int stateSeq, int rosterVersion, List<PlayerSnapshot> players) {
+    this.name = name;
+    this.phase = phase;
+    this.stateSeq = stateSeq;
+    this.rosterVersion = rosterVersion;
+    this.players = List.copyOf(players);
+  }
+
+  /**
+   * Devuelve el nombre de la sala.
+   * 
+   * @return nombre de la sala
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Devuelve la fase de la sala.
+   * 
+   * @return fase
+   */
+  public RacePhase getPhase() {
+    return phase;
+  }
+
+  /**
+   * Devuelve la secuencia del último delta de progreso difundido.
+   * 
+   * @return secuencia de estado
+   */
+  public int getStateSeq() {
+    return stateSeq;
+  }
+
+  /**
+   * Devuelve la versión del último delta de roster difundido.
+   * 
+   * @return versión del roster
+   */
+  public int getRosterVersion() {
+    return rosterVersion;
+  }
+
+  /**
+   * Devuelve los jugadores de la sala.
+   * 
+   * @return lista no modificable de jugadores
+   */
+  public List<PlayerSnapshot> getPlayers() {
+    return players;
+  }
+
+  /**
+   * Estado de un jugador dentro de la sala.
+   */
+  public static final class PlayerSnapshot {
+    private final int id;
+    private final String name;
+    private final int progress;
+    private final int clicks;
+    private final int reportedClicks;
+    private final boolean ready;
+    private final String resumeToken;
+
+    /**
+     * Crea el estado de un jugador.
+     * 
+     * @param id             identificador del jugador
+     * @param name           nombre del jugador
+     * @param progress       progreso (0 a 100)
+     * @param clicks         clics recibidos por el servidor
+     * @param reportedClicks clics que el cliente dijo haber enviado
+     * @param ready          true si estaba listo
+     * @param resumeToken    token de reanudación, o null si no tiene
+     */
+    public PlayerSnapshot(int id, String name, int progress, int clicks, int reportedClicks, boolean ready,
+        String resumeToken) {
+      this.id = id;
+      this.name = name;
+      this.progress = progress;
+      this.clicks = clicks;
+      this.reportedClicks = reportedClicks;
+      this.ready = ready;
+      this.resumeToken = resumeToken;
+    }
+
+    /**
+     * Devuelve el identificador del jugador.
+     * 
+     * @return id del jugador
+     */
+    public int getId() {
+      return id;
+    }
+
+    /**
+     * Devuelve el nombre del jugador.
+     * 
+     * @return nombre del jugador
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * Devuelve el progreso del jugador.
+     * 
+     * @return progreso (0 a 100)
+     */
+    public int getProgress() {
+      return progress;
+    }
+
+    /**
+     * Devuelve los clics recibidos por el servidor.
+     * 
+     * @return número de clics
+     */
+    public int getClicks() {
+      return clicks;
+    }
+
+    /**
+     * Devuelve los clics que el cliente dijo haber enviado.
+     * 
+     * @return clics reportados
+     */
+    public int getReportedClicks() {
+      return reportedClicks;
+    }
+
+    /**
+     * Indica si el jugador estaba listo.
+     * 
+     * @return true si estaba listo
+     */
+    public boolean isReady() {
+      return ready;
+    }
+
+    /**
+     * Devuelve el token con el que el cliente retoma la sesión.
+     * 
+     * @return token, o null si no tiene
+     */
+    public String getResumeToken() {
+      return resumeToken;
+    }
+  }
+}
@@ -0,0 +1,186 @@
+package com.gerson.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import com.gerson.protocol.ByteWriter;
+import com.gerson.protocol.RacePhase;
+import com.gerson.protocol.Varint;
+
+/**
+ * Archivo binario con el estado de las salas que un proceso entrega al
+ * siguiente en un reinicio. Se escribe completo en un temporal del mismo
+ * directorio, se fuerza al disco y se publica con un renombrado atómico:
+ * quien lo lee nunca ve un archivo a medio escribir. El temporal se crea
+ * con permisos solo para el dueño, porque incluye los tokens de
+ * reanudación.
+ *
+ * <p>
+ * Formato: la cabecera {@code HRS1}, el CRC32 del contenido y el contenido:
+ * {@code varint(salas)} y, por sala, {@code nombre + fase + varint(secuencia)
+ * + varint(versión del roster) + varint(jugadores)}; por jugador,
+ * {@code varint(id) + nombre + progreso + varint(clics) +
+ * varint(clics reportados) + indicadores} y, si lo tiene, su token en 16
+ * bytes. Las cadenas van como {@code varint(bytes) + UTF-8}.
+ */
+public final class SnapshotFile {
+  static final byte[] MAGIC = { 'H', 'R', 'S', '1' };
+
+  private static final String TEMP_PREFIX = ".tmp-";
+  private static final int FLAG_READY = 1;
+  private static final int FLAG_TOKEN = 1 << 1;
+  private static final int TOKEN_BYTES = 16;
+  private static final RacePhase[] PHASES = RacePhase.values();
+
+  private SnapshotFile() {
+  }
+
+  /**
+   * Escribe el estado de las salas y sustituye de forma atómica el archivo
+   * anterior, si lo había.
+   * 
+   * @param file  archivo de destino
+   * @param rooms salas a guardar
+   * @throws IOException si no se puede escribir el archivo
+   */
+  public static void write(Path file, List<RoomSnapshot> rooms) throws IOException {
+    byte[] payload = encode(rooms);
+    CRC32 crc = new CRC32();
+    crc.update(payload);
+    ByteBuffer header = ByteBuffer.allocate(MAGIC.length + Integer.BYTES);
+    header.put(MAGIC).putInt((int) crc.getValue()).flip();
+
+    Path dir = file.toAbsolutePath().getParent();
+    Files.createDirectories(dir);
+    Path temp = Files.createTempFile(dir, TEMP_PREFIX, null);
+    try {
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+        ByteBuffer body = ByteBuffer.wrap(payload);
+        while (header.hasRemaining() || body.hasRemaining()) {
+          channel.write(new ByteBuffer[] { header, body });
+        }
+        channel.force(true);
+      }
+      Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /**
+   * Lee el estado de las salas de un archivo.
+   * 
+   * @param file archivo escrito con {@link #write(Path, List)}
+   * @return salas guardadas
+   * @throws IOException si no se puede leer, no es un archivo de estado o
+   *                     está dañado
+   */
+  public static List<RoomSnapshot> read(Path file) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+    byte[] magic = new byte[MAGIC.length];
+    if (buffer.remaining() < magic.length + Integer.BYTES) {
+      throw new IOException("Archivo de estado sin cabecera: " + file);
+    }
+    buffer.get(magic);
+    if (!Arrays.equals(magic, MAGIC)) {
+      throw new IOException("No es un archivo de estado: " + file);
+    }
+    int expected = buffer.getInt();
+    CRC32 crc = new CRC32();
+    crc.update(buffer.duplicate());
+    if ((int) crc.getValue() != expected) {
+      throw new IOException("Archivo de estado dañado: " + file);
+    }
+    try {
+      return decode(buffer);
+    } catch (RuntimeException e) {
+      throw new IOException("Archivo de estado no válido: " + file, e);
+    }
+  }
+
+  private static byte[] encode(List<RoomSnapshot> rooms) {
+    ByteWriter out = new ByteWriter(256);
+    out.writeVarint(rooms.size());
+    for (RoomSnapshot room : rooms) {
+      out.writeString(room.getName())
+          .writeByte(room.getPhase().ordinal())
+          .writeVarint(room.getStateSeq())
+          .writeVarint(room.getRosterVersion())
+          .writeVarint(room.getPlayers().size());
+      for (RoomSnapshot.PlayerSnapshot player : room.getPlayers()) {
+        String token = player.getResumeToken();
+        out.writeVarint(player.getId())
+            .writeString(player.getName())
+            .writeByte(player.getProgress())
+            .writeVarint(player.getClicks())
+            .writeVarint(player.getReportedClicks())
+            .writeByte((player.isReady() ? FLAG_READY : 0) | (token != null ? FLAG_TOKEN : 0));
+        if (token != null) {
+          for (byte b : HexFormat.of().parseHex(token)) {
+            out.writeByte(b);
+          }
+        }
+      }
+    }
+    return out.toByteArray();
+  }
+
+  private static List<RoomSnapshot> decode(ByteBuffer in) throws IOException {
+    int roomCount = readVarint(in);
+    List<RoomSnapshot> rooms = new ArrayList<>(roomCount);
+    for (int i = 0; i < roomCount; i++) {
+      String name = readString(in);
+      RacePhase phase = PHASES[in.get()];
+      int stateSeq = readVarint(in);
+      int rosterVersion = readVarint(in);
+      int playerCount = readVarint(in);
+      List<RoomSnapshot.PlayerSnapshot> players = new ArrayList<>(playerCount);
+      for (int j = 0; j < playerCount; j++) {
+        int id = readVarint(in);
+        String playerName = readString(in);
+        int progress = in.get();
+        int clicks = readVarint(in);
+        int reportedClicks = readVarint(in);
+        int flags = in.get();
+        String token = null;
+        if ((flags & FLAG_TOKEN) != 0) {
+          byte[] bytes = new byte[TOKEN_BYTES];
+          in.get(bytes);
+          token = HexFormat.of().formatHex(bytes);
+        }
+        players.add(new RoomSnapshot.PlayerSnapshot(id, playerName, progress, clicks, reportedClicks,
+            (flags & FLAG_READY) != 0, token));
+      }
+      rooms.add(new RoomSnapshot(name, phase, stateSeq, rosterVersion, players));
+    }
+    if (in.hasRemaining()) {
+      throw new IOException("Bytes sobrantes tras las salas");
+    }
+    return rooms;
+  }
+
+  private static int readVarint(ByteBuffer in) throws IOException {
+    int value = Varint.read(in);
+    if (value == Varint.INCOMPLETE) {
+      throw new IOException("Archivo de estado truncado");
+    }
+    return value;
+  }
+
+  private static String readString(ByteBuffer in) throws IOException {
+    byte[] bytes = new byte[readVarint(in)];
+    in.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
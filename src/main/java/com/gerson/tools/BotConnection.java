@@ -0,0 +1,315 @@
+package com.gerson.tools;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.gerson.cluster.Gateway;
+
+/**
+ * Cliente simulado del generador de carga. Habla el protocolo de texto real:
+ * recibe su identificador, saluda con {@code nombre@sala}, marca
+ * {@code ready} cuando la sala está completa (según la lista completa y los
+ * deltas {@code player_joined}/{@code player_left}), hace clic al ritmo configurado
+ * durante la carrera e informa {@code clicks_sent:n} cada segundo.
+ *
+ * <p>
+ * La latencia de cada clic se mide desde que se escribe hasta que el
+ * progreso difundido por el servidor lo refleja (cada clic avanza un 10 %).
+ * Todas las instancias las atiende el mismo hilo del generador.
+ */
+public final class BotConnection {
+  private static final int CLICKS_TO_FINISH = 10;
+  private static final int PROGRESS_PER_CLICK = 100 / CLICKS_TO_FINISH;
+  private static final long REPORT_INTERVAL_NANOS = 1_000_000_000L;
+  private static final int MAX_LINE_LENGTH = 8192;
+
+  private enum State {
+    AWAITING_ID, WAITING_ROOM, READY, RACING
+  }
+
+  private final LoadReport report;
+  private final String greeting;
+  private final int expectedPlayers;
+  private final long clickIntervalNanos;
+  private final ByteBuffer readBuffer = ByteBuffer.allocate(MAX_LINE_LENGTH);
+  private final ByteBuffer writeBuffer = ByteBuffer.allocate(4096);
+  private final byte[] line = new byte[MAX_LINE_LENGTH];
+  private final long[] pendingClicks = new long[CLICKS_TO_FINISH];
+  private final Set<Integer> roster = new HashSet<>();
+  private SocketChannel channel;
+  private SelectionKey key;
+  private State state = State.AWAITING_ID;
+  private int lineLength;
+  private int playerId = -1;
+  private int clicksSent;
+  private int clicksAcked;
+  private long nextClickAt;
+  private long nextReportAt;
+
+  /**
+   * Crea un cliente simulado.
+   * 
+   * @param report          informe donde se acumulan las mediciones
+   * @param name            nombre del jugador
+   * @param room            sala a la que se une
+   * @param expectedPlayers jugadores con los que se marca listo
+   * @param clickRate       clics por segundo durante la carrera
+   */
+  public BotConnection(LoadReport report, String name, String room, int expectedPlayers, double clickRate) {
+    this(report, name, room, expectedPlayers, clickRate, false);
+  }
+
+  /**
+   * Crea un cliente simulado que, si se indica, se conecta a través de la
+   * pasarela del clúster enviando primero el preámbulo de su sala.
+   * 
+   * @param report          informe donde se acumulan las mediciones
+   * @param name            nombre del jugador
+   * @param room            sala a la que se une
+   * @param expectedPlayers jugadores con los que se marca listo
+   * @param clickRate       clics por segundo durante la carrera
+   * @param route           true para enviar el preámbulo {@code route:sala}
+   */
+  public BotConnection(LoadReport report, String name, String room, int expectedPlayers, double clickRate,
+      boolean route) {
+    this.report = report;
+    this.greeting = name + "@" + room + "\n";
+    this.expectedPlayers = expectedPlayers;
+    this.clickIntervalNanos = (long) (1_000_000_000L / clickRate);
+    if (route) {
+      writeBuffer.put(Gateway.preamble(room).getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  /**
+   * Asocia el canal y su clave de selección una vez iniciada la conexión.
+   * 
+   * @param channel canal no bloqueante
+   * @param key     clave registrada en el selector del generador
+   */
+  public void attach(SocketChannel channel, SelectionKey key) {
+    this.channel = channel;
+    this.key = key;
+  }
+
+  /**
+   * Completa la conexión no bloqueante.
+   * 
+   * @throws IOException si la conexión falla
+   */
+  public void finishConnect() throws IOException {
+    if (channel.finishConnect()) {
+      report.connectionOpened();
+      key.interestOps(SelectionKey.OP_READ);
+    }
+  }
+
+  /**
+   * Lee lo disponible en el canal y procesa las líneas completas.
+   * 
+   * @param now instante actual en nanosegundos
+   * @return false si el servidor cerró la conexión
+   * @throws IOException si la lectura falla
+   */
+  public boolean read(long now) throws IOException {
+    int read = channel.read(readBuffer);
+    if (read < 0) {
+      return false;
+    }
+    readBuffer.flip();
+    while (readBuffer.hasRemaining()) {
+      byte b = readBuffer.get();
+      if (b == '\n') {
+        onLine(now);
+        lineLength = 0;
+      } else if (b != '\r' && lineLength < line.length) {
+        line[lineLength++] = b;
+      }
+    }
+    readBuffer.clear();
+    return true;
+  }
+
+  /**
+   * Envía los clics e informes que correspondan al instante actual.
+   * 
+   * @param now instante actual en nanosegundos
+   * @throws IOException si la escritura falla
+   */
+  public void tick(long now) throws IOException {
+    if (channel == null || !channel.isOpen()) {
+      return;
+    }
+    if (state == State.RACING) {
+      while (clicksSent < CLICKS_TO_FINISH && now >= nextClickAt) {
+        pendingClicks[clicksSent++] = System.nanoTime();
+        write("click\n");
+        report.clickSent();
+        nextClickAt += clickIntervalNanos;
+      }
+      if (now >= nextReportAt) {
+        write("clicks_sent:" + clicksSent + "\n");
+        nextReportAt = now + REPORT_INTERVAL_NANOS;
+      }
+    }
+    flush();
+  }
+
+  /**
+   * Escribe lo pendiente en el canal. Si el canal aún no está conectado o no
+   * admite más bytes, se reintenta en la siguiente vuelta.
+   * 
+   * @throws IOException si la escritura falla
+   */
+  public void flush() throws IOException {
+    if (writeBuffer.position() == 0 || !channel.isConnected()) {
+      return;
+    }
+    writeBuffer.flip();
+    channel.write(writeBuffer);
+    writeBuffer.compact();
+  }
+
+  /**
+   * Cierra la conexión.
+   */
+  public void close() {
+    try {
+      if (channel != null) {
+        channel.close();
+      }
+    } catch (IOException e) {
+      // cerrar es lo último que se hace con el canal
+    }
+  }
+
+  private void onLine(long now) {
+    report.messageReceived();
+    if (state == State.AWAITING_ID) {
+      playerId = parseInt(0, lineLength);
+      state = State.WAITING_ROOM;
+      write(greeting);
+    } else if (startsWith("players:")) {
+      readPlayerList();
+      readyIfRoomComplete();
+    } else if (startsWith("player_joined:")) {
+      // Los deltas son idempotentes: la lista completa pudo incluirlo ya
+      roster.add(parseInt("player_joined:".length(), indexOf('-')));
+      readyIfRoomComplete();
+    } else if (startsWith("player_left:")) {
+      roster.remove(parseInt("player_left:".length(), lineLength));
+      readyIfRoomComplete();
+    } else if (startsWith("go")) {
+      startRace(now);
+    } else if (startsWith("win:")) {
+      finishRace();
+    } else if (lineLength > 0 && line[0] >= '0' && line[0] <= '9') {
+      onProgress();
+    }
+  }
+
+  private void startRace(long now) {
+    state = State.RACING;
+    clicksSent = 0;
+    clicksAcked = 0;
+    nextClickAt = now;
+    nextReportAt = now + REPORT_INTERVAL_NANOS;
+  }
+
+  private void finishRace() {
+    if (state == State.RACING) {
+      report.raceCompleted();
+    }
+    state = State.READY;
+    write("clicks_sent:" + clicksSent + "\n");
+    write("ready\n");
+  }
+
+  /**
+   * Procesa una línea {@code id:progreso}. Si es la propia, registra la
+   * latencia de los clics que el progreso confirma.
+   */
+  private void onProgress() {
+    int separator = indexOf(':');
+    if (separator < 0 || parseInt(0, separator) != playerId) {
+      return;
+    }
+    int acked = Math.min(clicksSent, parseInt(separator + 1, lineLength) / PROGRESS_PER_CLICK);
+    long now = System.nanoTime();
+    while (clicksAcked < acked) {
+      report.recordLatency((now - pendingClicks[clicksAcked++]) / 1000);
+    }
+  }
+
+  private void write(String message) {
+    byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+    if (writeBuffer.remaining() < bytes.length) {
+      return;
+    }
+    writeBuffer.put(bytes);
+    report.messageSent();
+  }
+
+  private void readyIfRoomComplete() {
+    if (state == State.WAITING_ROOM && roster.size() >= expectedPlayers) {
+      state = State.READY;
+      write("ready\n");
+    }
+  }
+
+  /**
+   * Sustituye el roster por la lista completa {@code players:id-nombre,...}.
+   */
+  private void readPlayerList() {
+    roster.clear();
+    int start = "players:".length();
+    for (int i = start; i < lineLength; i++) {
+      if (line[i] == ',') {
+        int separator = start;
+        while (separator < i && line[separator] != '-') {
+          separator++;
+        }
+        roster.add(parseInt(start, separator));
+        start = i + 1;
+      }
+    }
+  }
+
+  private boolean startsWith(String prefix) {
+    if (lineLength < prefix.length()) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length(); i++) {
+      if (line[i] != prefix.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int indexOf(char c) {
+    for (int i = 0; i < lineLength; i++) {
+      if (line[i] == c) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private int parseInt(int from, int to) {
+    int value = 0;
+    for (int i = from; i < to; i++) {
+      int digit = line[i] - '0';
+      if (digit < 0 || digit > 9) {
+        return -1;
+      }
+      value = value * 10 + digit;
+    }
+    return from == to ? -1 : value;
+  }
+}
@@ -0,0 +1,86 @@
+package com.gerson.tools;
+
+/**
+ * Histograma de latencias en microsegundos con cubetas logarítmicas de 64
+ * subdivisiones por potencia de dos (error relativo inferior al 2 %). Usa
+ * memoria fija y no reserva nada al registrar. No es seguro entre hilos.
+ */
+public final class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 6;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final long MAX_MICROS = 1L << 36;
+
+  private final long[] counts = new long[(64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS];
+  private long total;
+  private long sum;
+  private long max;
+
+  /**
+   * Registra una latencia.
+   * 
+   * @param micros latencia en microsegundos
+   */
+  public void record(long micros) {
+    long value = Math.max(0, Math.min(MAX_MICROS, micros));
+    counts[index(value)]++;
+    total++;
+    sum += value;
+    max = Math.max(max, value);
+  }
+
+  /**
+   * Devuelve el percentil indicado.
+   * 
+   * @param percentile valor entre 0 y 100
+   * @return latencia en microsegundos, o 0 si no hay muestras
+   */
+  public long percentile(double percentile) {
+    if (total == 0) {
+      return 0;
+    }
+    long target = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= target) {
+        return Math.min(max, highestEquivalent(i));
+      }
+    }
+    return max;
+  }
+
+  public long getCount() {
+    return total;
+  }
+
+  public long getMax() {
+    return max;
+  }
+
+  /**
+   * Devuelve la media de las latencias registradas.
+   * 
+   * @return media en microsegundos
+   */
+  public double getMean() {
+    return total == 0 ? 0 : (double) sum / total;
+  }
+
+  private static int index(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int magnitude = 63 - Long.numberOfLeadingZeros(value);
+    int shift = magnitude - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+  }
+
+  private static long highestEquivalent(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+    return lowest + (1L << shift) - 1;
+  }
+}
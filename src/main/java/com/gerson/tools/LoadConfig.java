@@ -0,0 +1,114 @@
+package com.gerson.tools;
+
+import com.gerson.server.ServerConfig;
+
+/**
+ * Parámetros del generador de carga. Se leen de argumentos
+ * {@code --clave=valor}; los que faltan toman su valor por defecto.
+ */
+public final class LoadConfig {
+  private String host = "localhost";
+  private int port = ServerConfig.DEFAULT_PORT;
+  private int clients = 100;
+  private int roomSize = 10;
+  private double clickRate = 5;
+  private long rampUpMillis = 5_000;
+  private long durationMillis = 30_000;
+  private boolean json;
+  private boolean route;
+
+  /**
+   * Interpreta los argumentos de la línea de comandos: {@code --host},
+   * {@code --port}, {@code --clients}, {@code --room-size},
+   * {@code --click-rate} (clics por segundo y cliente),
+   * {@code --ramp-up} y {@code --duration} (segundos), {@code --json} y
+   * {@code --route} (envía el preámbulo de sala de la pasarela del clúster).
+   * 
+   * @param args argumentos, puede ser null
+   * @return configuración resultante
+   * @throws IllegalArgumentException si un argumento no es válido
+   */
+  public static LoadConfig parse(String[] args) {
+    LoadConfig config = new LoadConfig();
+    if (args == null) {
+      return config;
+    }
+    for (String arg : args) {
+      int separator = arg.indexOf('=');
+      String key = separator < 0 ? arg : arg.substring(0, separator);
+      String value = separator < 0 ? "" : arg.substring(separator + 1);
+      switch (key) {
+        case "--host":
+          config.host = value;
+          break;
+        case "--port":
+          config.port = Integer.parseInt(value);
+          break;
+        case "--clients":
+          config.clients = Math.max(1, Integer.parseInt(value));
+          break;
+        case "--room-size":
+          config.roomSize = Math.max(1, Integer.parseInt(value));
+          break;
+        case "--click-rate":
+          config.clickRate = Math.max(0.1, Double.parseDouble(value));
+          break;
+        case "--ramp-up":
+          config.rampUpMillis = secondsToMillis(value);
+          break;
+        case "--duration":
+          config.durationMillis = secondsToMillis(value);
+          break;
+        case "--json":
+          config.json = true;
+          break;
+        case "--route":
+          config.route = true;
+          break;
+        default:
+          throw new IllegalArgumentException("Argumento desconocido: " + arg);
+      }
+    }
+    return config;
+  }
+
+  private static long secondsToMillis(String value) {
+    return Math.max(0, (long) (Double.parseDouble(value) * 1000));
+  }
+
+  public String getHost() {
+    return host;
+  }
+
+  public int getPort() {
+    return port;
+  }
+
+  public int getClients() {
+    return clients;
+  }
+
+  public int getRoomSize() {
+    return roomSize;
+  }
+
+  public double getClickRate() {
+    return clickRate;
+  }
+
+  public long getRampUpMillis() {
+    return rampUpMillis;
+  }
+
+  public long getDurationMillis() {
+    return durationMillis;
+  }
+
+  public boolean isJson() {
+    return json;
+  }
+
+  public boolean isRoute() {
+    return route;
+  }
+}
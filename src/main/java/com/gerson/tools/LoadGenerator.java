@@ -0,0 +1,152 @@
+package com.gerson.tools;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generador de carga sin interfaz gráfica. Abre miles de conexiones contra el
+ * servidor desde un único hilo con un selector NIO, reparte los clientes en
+ * salas del tamaño indicado y hace que corran carreras completas con el
+ * protocolo real, midiendo la latencia de extremo a extremo.
+ *
+ * <p>
+ * Uso:
+ * {@code java -cp target/classes com.gerson.tools.LoadGenerator --clients=2000 --room-size=8 --click-rate=10 --ramp-up=10 --duration=60 --json}
+ */
+public final class LoadGenerator {
+  private static final long SELECT_TIMEOUT_MILLIS = 1;
+
+  private final LoadConfig config;
+
+  /**
+   * Crea un generador con la configuración indicada.
+   * 
+   * @param config parámetros de la prueba
+   */
+  public LoadGenerator(LoadConfig config) {
+    this.config = config;
+  }
+
+  /**
+   * Ejecuta la prueba y devuelve sus resultados. Las conexiones se abren
+   * repartidas uniformemente durante el tiempo de arranque y la prueba dura
+   * el tiempo configurado desde la primera conexión.
+   * 
+   * @return informe de la prueba
+   * @throws IOException si no se puede abrir el selector
+   */
+  public LoadReport run() throws IOException {
+    LoadReport report = new LoadReport();
+    InetSocketAddress address = new InetSocketAddress(config.getHost(), config.getPort());
+    List<BotConnection> bots = new ArrayList<>(config.getClients());
+    long start = System.nanoTime();
+    long end = start + TimeUnit.MILLISECONDS.toNanos(config.getDurationMillis());
+    long rampNanos = TimeUnit.MILLISECONDS.toNanos(config.getRampUpMillis());
+
+    try (Selector selector = Selector.open()) {
+      int opened = 0;
+      while (true) {
+        long now = System.nanoTime();
+        if (now >= end) {
+          break;
+        }
+        while (opened < config.getClients() && now - start >= rampNanos * opened / config.getClients()) {
+          BotConnection bot = open(selector, address, opened++, report);
+          if (bot != null) {
+            bots.add(bot);
+          }
+        }
+        selector.select(SELECT_TIMEOUT_MILLIS);
+        now = System.nanoTime();
+        for (SelectionKey key : selector.selectedKeys()) {
+          handle(key, now, report);
+        }
+        selector.selectedKeys().clear();
+        for (BotConnection bot : bots) {
+          try {
+            bot.tick(now);
+          } catch (IOException e) {
+            bot.close();
+          }
+        }
+      }
+    } finally {
+      for (BotConnection bot : bots) {
+        bot.close();
+      }
+      report.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+    return report;
+  }
+
+  private BotConnection open(Selector selector, InetSocketAddress address, int index, LoadReport report) {
+    int roomIndex = index / config.getRoomSize();
+    int roomPlayers = Math.min(config.getRoomSize(), config.getClients() - roomIndex * config.getRoomSize());
+    BotConnection bot = new BotConnection(report, "bot-" + index, "load-" + roomIndex, roomPlayers,
+        config.getClickRate(), config.isRoute());
+    SocketChannel channel = null;
+    try {
+      channel = SocketChannel.open();
+      channel.configureBlocking(false);
+      channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+      boolean connected = channel.connect(address);
+      SelectionKey key = channel.register(selector, connected ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT,
+          bot);
+      bot.attach(channel, key);
+      if (connected) {
+        report.connectionOpened();
+      }
+      return bot;
+    } catch (IOException e) {
+      report.connectionFailed();
+      if (channel != null) {
+        try {
+          channel.close();
+        } catch (IOException ignored) {
+          // la conexión ya se contó como fallida
+        }
+      }
+      return null;
+    }
+  }
+
+  private static void handle(SelectionKey key, long now, LoadReport report) {
+    BotConnection bot = (BotConnection) key.attachment();
+    boolean connecting = key.isConnectable();
+    try {
+      if (connecting) {
+        bot.finishConnect();
+      } else if (key.isReadable() && !bot.read(now)) {
+        report.connectionClosed();
+        bot.close();
+      }
+    } catch (IOException e) {
+      if (connecting) {
+        report.connectionFailed();
+      } else {
+        report.connectionClosed();
+      }
+      bot.close();
+    }
+  }
+
+  /**
+   * Punto de entrada del generador. Imprime el resumen en texto o, con
+   * {@code --json}, en JSON.
+   * 
+   * @param args argumentos {@code --clave=valor}, ver {@link LoadConfig#parse}
+   * @throws IOException si no se puede abrir el selector
+   */
+  public static void main(String[] args) throws IOException {
+    LoadConfig config = LoadConfig.parse(args);
+    LoadReport report = new LoadGenerator(config).run();
+    System.out.println(config.isJson() ? report.toJson() : report.toText());
+  }
+}
@@ -0,0 +1,138 @@
+package com.gerson.tools;
+
+import java.util.Locale;
+
+/**
+ * Resultado de una ejecución del generador de carga: conexiones, mensajes,
+ * carreras completadas y latencia entre el envío de un clic y la difusión
+ * del progreso que lo refleja. Solo lo modifica el hilo del generador.
+ */
+public final class LoadReport {
+  private final LatencyHistogram latency = new LatencyHistogram();
+  private long connectionsOpened;
+  private long connectionFailures;
+  private long connectionsClosed;
+  private long messagesSent;
+  private long messagesReceived;
+  private long clicksSent;
+  private long racesCompleted;
+  private long elapsedMillis;
+
+  void connectionOpened() {
+    connectionsOpened++;
+  }
+
+  void connectionFailed() {
+    connectionFailures++;
+  }
+
+  void connectionClosed() {
+    connectionsClosed++;
+  }
+
+  void messageSent() {
+    messagesSent++;
+  }
+
+  void messageReceived() {
+    messagesReceived++;
+  }
+
+  void clickSent() {
+    clicksSent++;
+  }
+
+  void raceCompleted() {
+    racesCompleted++;
+  }
+
+  void recordLatency(long micros) {
+    latency.record(micros);
+  }
+
+  void setElapsedMillis(long elapsedMillis) {
+    this.elapsedMillis = elapsedMillis;
+  }
+
+  public LatencyHistogram getLatency() {
+    return latency;
+  }
+
+  public long getConnectionsOpened() {
+    return connectionsOpened;
+  }
+
+  public long getConnectionFailures() {
+    return connectionFailures;
+  }
+
+  public long getConnectionsClosed() {
+    return connectionsClosed;
+  }
+
+  public long getMessagesSent() {
+    return messagesSent;
+  }
+
+  public long getMessagesReceived() {
+    return messagesReceived;
+  }
+
+  public long getClicksSent() {
+    return clicksSent;
+  }
+
+  public long getRacesCompleted() {
+    return racesCompleted;
+  }
+
+  public long getElapsedMillis() {
+    return elapsedMillis;
+  }
+
+  /**
+   * Devuelve el resumen en texto legible.
+   * 
+   * @return resumen de varias líneas
+   */
+  public String toText() {
+    return String.format(Locale.ROOT,
+        "Duración: %.1f s%n"
+            + "Conexiones: %d abiertas, %d fallidas, %d cerradas por el servidor%n"
+            + "Mensajes: %d enviados (%.0f/s), %d recibidos (%.0f/s)%n"
+            + "Clics: %d enviados, %d confirmados; carreras completadas: %d%n"
+            + "Latencia clic-difusión (ms): p50=%.2f p99=%.2f p999=%.2f max=%.2f media=%.2f%n",
+        elapsedMillis / 1000.0,
+        connectionsOpened, connectionFailures, connectionsClosed,
+        messagesSent, perSecond(messagesSent), messagesReceived, perSecond(messagesReceived),
+        clicksSent, latency.getCount(), racesCompleted,
+        millis(latency.percentile(50)), millis(latency.percentile(99)), millis(latency.percentile(99.9)),
+        millis(latency.getMax()), latency.getMean() / 1000.0);
+  }
+
+  /**
+   * Devuelve el resumen como objeto JSON en una línea, para procesarlo con
+   * otras herramientas.
+   * 
+   * @return resumen en JSON
+   */
+  public String toJson() {
+    return String.format(Locale.ROOT,
+        "{\"elapsedMs\":%d,\"connectionsOpened\":%d,\"connectionFailures\":%d,\"connectionsClosed\":%d,"
+            + "\"messagesSent\":%d,\"messagesReceived\":%d,\"messagesSentPerSec\":%.1f,"
+            + "\"messagesReceivedPerSec\":%.1f,\"clicksSent\":%d,\"racesCompleted\":%d,"
+            + "\"latencyUs\":{\"count\":%d,\"p50\":%d,\"p99\":%d,\"p999\":%d,\"max\":%d,\"mean\":%.1f}}",
+        elapsedMillis, connectionsOpened, connectionFailures, connectionsClosed,
+        messagesSent, messagesReceived, perSecond(messagesSent), perSecond(messagesReceived),
+        clicksSent, racesCompleted, latency.getCount(), latency.percentile(50), latency.percentile(99),
+        latency.percentile(99.9), latency.getMax(), latency.getMean());
+  }
+
+  private double perSecond(long count) {
+    return elapsedMillis == 0 ? 0 : count * 1000.0 / elapsedMillis;
+  }
+
+  private static double millis(long micros) {
+    return micros / 1000.0;
+  }
+}
@@ -0,0 +1,267 @@
+package com.gerson.tools;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.gerson.journal.JournalReader;
+import com.gerson.journal.JournalRecord;
+import com.gerson.logic.Clock;
+import com.gerson.logic.GameManager;
+import com.gerson.logic.RaceRoom;
+import com.gerson.model.Player;
+import com.gerson.network.ClientSink;
+import com.gerson.network.Frame;
+
+/**
+ * Reproduce carreras grabadas en el diario ({@link com.gerson.journal.Journal})
+ * contra {@link GameManager}, sin sockets. Cada evento grabado se convierte
+ * en la llamada que lo provocó (unirse, {@code ready}, {@code click},
+ * {@code clicks_sent}, {@code rename}, salir) y se comprueba que el motor llegue al mismo
+ * resultado: el progreso tras cada clic y el ganador de cada carrera.
+ *
+ * <p>
+ * Los eventos que genera el propio motor (cuenta regresiva, expulsiones,
+ * suspensiones) no se inyectan; la salida de cada carrera es un punto de
+ * sincronización en el que la reproducción espera a que el motor termine
+ * su cuenta regresiva. El ritmo lo marca un {@link ReplayClock}: el motor
+ * corre siempre en tiempo simulado, que con {@link ReplayClock#unpaced()}
+ * salta de evento en evento y con {@link ReplayClock#realTime(double)}
+ * avanza a la velocidad pedida.
+ *
+ * <p>
+ * Uso:
+ * {@code java -cp target/classes com.gerson.tools.RaceReplay --journal=journal --speed=max --json}
+ */
+public final class RaceReplay {
+  private static final long RACE_START_TIMEOUT_SECONDS = 10;
+
+  private final ReplayClock clock;
+  private final GameManager gameManager = GameManager.getGamemanagerinstance();
+  private final Map<Integer, Player> players = new HashMap<>();
+  private final Map<String, String> lastWinner = new ConcurrentHashMap<>();
+  private ReplayReport report;
+  private Clock engineClock;
+  private long firstTimestamp;
+
+  /**
+   * Crea una reproducción con el ritmo indicado.
+   * 
+   * @param clock reloj que marca cuándo entregar cada evento
+   */
+  public RaceReplay(ReplayClock clock) {
+    this.clock = clock;
+  }
+
+  /**
+   * Reproduce todos los segmentos de un diario.
+   * 
+   * @param journalDir directorio del diario
+   * @return informe de la reproducción
+   * @throws IOException si no se puede leer el diario
+   */
+  public ReplayReport run(Path journalDir) throws IOException {
+    report = new ReplayReport();
+    players.clear();
+    lastWinner.clear();
+    firstTimestamp = -1;
+    engineClock = clock.engineClock();
+    gameManager.setClock(engineClock);
+    // Las salas conservan el reloj con el que se crearon
+    gameManager.getRoomManager().clear();
+    long start = System.nanoTime();
+    try {
+      JournalReader.read(journalDir, this::replay);
+    } finally {
+      report.setElapsedNanos(System.nanoTime() - start);
+      gameManager.setClock(Clock.system());
+    }
+    return report;
+  }
+
+  private void replay(JournalRecord record) {
+    report.recordRead();
+    if (firstTimestamp < 0) {
+      firstTimestamp = record.getTimestamp();
+    }
+    try {
+      clock.awaitOffset(record.getTimestamp() - firstTimestamp);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Reproducción interrumpida", e);
+    }
+
+    switch (record.getType()) {
+      case JOIN:
+        join(record);
+        return;
+      case RACE_START:
+        awaitRaceStart(record);
+        return;
+      case GAP:
+        // Con eventos perdidos la comprobación es incompleta: matches() lo refleja
+        report.recordsLost(record.getValue());
+        return;
+      case COUNTDOWN:
+      case SUSPEND:
+      case RESUME:
+      case KICK:
+      case RACE_TIMEOUT:
+        // Los genera el motor; una suspensión conserva al jugador en la sala
+        report.recordSkipped();
+        return;
+      default:
+        break;
+    }
+
+    Player player = players.get(record.getPlayer());
+    if (player == null) {
+      // La grabación empezó con el jugador ya conectado
+      report.recordSkipped();
+      return;
+    }
+    switch (record.getType()) {
+      case READY:
+        gameManager.processClientMessage(player, "ready");
+        break;
+      case ADVANCE:
+        gameManager.processClientMessage(player, "click");
+        if (player.getProgress() == record.getValue()) {
+          report.progressVerified();
+        } else {
+          report.mismatch(String.format("Sala %s, jugador %d: progreso %d, grabado %d", record.getRoom(),
+              record.getPlayer(), player.getProgress(), record.getValue()));
+        }
+        break;
+      case CLICKS_REPORTED:
+        gameManager.processClientMessage(player, "clicks_sent:" + record.getValue());
+        break;
+      case RENAME:
+        // El anuncio del ganador lleva el nombre vigente
+        gameManager.processClientMessage(player, "rename:" + record.getDetail());
+        break;
+      case WIN:
+        verifyWinner(record);
+        break;
+      case LEAVE:
+        players.remove(record.getPlayer());
+        gameManager.removePlayer(player);
+        break;
+      default:
+        report.recordSkipped();
+        return;
+    }
+    report.recordApplied();
+  }
+
+  private void join(JournalRecord record) {
+    Player previous = players.remove(record.getPlayer());
+    if (previous != null) {
+      // Identificador reutilizado tras un reinicio del servidor grabado
+      gameManager.removePlayer(previous);
+    }
+    Player player = gameManager.createPlayer(new ReplaySink(record.getRoom()));
+    gameManager.joinRoom(player, record.getRoom());
+    player.setName(record.getDetail());
+    gameManager.notifyNewPlayer(player);
+    players.put(record.getPlayer(), player);
+    report.recordApplied();
+  }
+
+  /**
+   * Espera a que el motor dé la salida en la sala, como ocurrió en la
+   * grabación tras la cuenta regresiva.
+   */
+  private void awaitRaceStart(JournalRecord record) {
+    report.raceStarted();
+    RaceRoom room = gameManager.getRoomManager().find(record.getRoom());
+    if (room == null
+        || !engineClock.waitUntil(room::isRaceStarted, RACE_START_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+      report.mismatch("Sala " + record.getRoom() + ": la carrera grabada no empezó en el motor");
+      return;
+    }
+    lastWinner.remove(record.getRoom());
+    report.recordApplied();
+  }
+
+  private void verifyWinner(JournalRecord record) {
+    String winner = lastWinner.remove(record.getRoom());
+    if (record.getDetail() != null && record.getDetail().equals(winner)) {
+      report.winVerified();
+    } else {
+      report.mismatch(String.format("Sala %s: ganó %s, grabado %s", record.getRoom(), winner,
+          record.getDetail()));
+    }
+  }
+
+  /**
+   * Canal de un jugador reproducido: descarta los mensajes salvo el anuncio
+   * del ganador, que guarda para compararlo con la grabación.
+   */
+  private final class ReplaySink implements ClientSink {
+    private static final String WIN_PREFIX = "win:";
+
+    private final String room;
+
+    private ReplaySink(String room) {
+      this.room = room;
+    }
+
+    @Override
+    public void send(Frame frame) {
+      // El progreso es el grueso del tráfico y nunca es un anuncio de victoria
+      if (!frame.isDroppable()) {
+        String text = frame.text();
+        if (text.startsWith(WIN_PREFIX)) {
+          lastWinner.put(room, text.substring(WIN_PREFIX.length()));
+        }
+      }
+    }
+
+    @Override
+    public void close() {
+      // Sin conexión que cerrar
+    }
+  }
+
+  /**
+   * Punto de entrada de la reproducción: {@code --journal=<directorio>},
+   * {@code --speed=<factor>|max} (1 por defecto) y {@code --json}. Termina
+   * con código 1 si la reproducción no coincide con la grabación.
+   * 
+   * @param args argumentos {@code --clave=valor}
+   * @throws IOException si no se puede leer el diario
+   */
+  public static void main(String[] args) throws IOException {
+    Path journal = Path.of("journal");
+    ReplayClock clock = ReplayClock.realTime(1);
+    boolean json = false;
+    for (String arg : args) {
+      int separator = arg.indexOf('=');
+      String key = separator < 0 ? arg : arg.substring(0, separator);
+      String value = separator < 0 ? "" : arg.substring(separator + 1);
+      switch (key) {
+        case "--journal":
+          journal = Path.of(value);
+          break;
+        case "--speed":
+          clock = "max".equalsIgnoreCase(value) ? ReplayClock.unpaced()
+              : ReplayClock.realTime(Double.parseDouble(value));
+          break;
+        case "--json":
+          json = true;
+          break;
+        default:
+          throw new IllegalArgumentException("Argumento desconocido: " + arg);
+      }
+    }
+    ReplayReport report = new RaceReplay(clock).run(journal);
+    System.out.println(json ? report.toJson() : report.toText());
+    if (!report.matches()) {
+      System.exit(1);
+    }
+  }
+}
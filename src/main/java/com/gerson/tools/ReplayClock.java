@@ -0,0 +1,117 @@
+package com.gerson.tools;
+
+import java.util.concurrent.TimeUnit;
+
+import com.gerson.logic.Clock;
+import com.gerson.logic.VirtualClock;
+
+/**
+ * Marca el ritmo de una reproducción: decide cuándo entregar cada evento
+ * grabado según su desfase respecto al primero.
+ */
+public interface ReplayClock {
+
+  /**
+   * Espera hasta que toque entregar un evento.
+   * 
+   * @param offsetMillis desfase del evento respecto al primero de la
+   *                     grabación, en milisegundos
+   * @throws InterruptedException si se interrumpe la espera
+   */
+  void awaitOffset(long offsetMillis) throws InterruptedException;
+
+  /**
+   * Reloj con el que el motor programa sus plazos durante la reproducción.
+   * 
+   * @return reloj del motor; por defecto, el del sistema
+   */
+  default Clock engineClock() {
+    return Clock.system();
+  }
+
+  /**
+   * Reloj que entrega cada evento en cuanto se lee, sin esperas. El motor
+   * corre en tiempo simulado: sus plazos vencen al llegar al desfase de
+   * cada evento, así que las cuentas regresivas no cuestan tiempo real.
+   * 
+   * @return reloj sin ritmo
+   */
+  static ReplayClock unpaced() {
+    return new Unpaced();
+  }
+
+  /**
+   * Reloj que respeta los tiempos de la grabación, acelerados o frenados
+   * junto con los plazos del motor.
+   * 
+   * @param speed factor de velocidad: 1 reproduce a tiempo real y 2 al
+   *              doble
+   * @return reloj de tiempo real
+   */
+  static ReplayClock realTime(double speed) {
+    return new RealTime(speed);
+  }
+
+  /**
+   * Reloj sin ritmo sobre un {@link VirtualClock}.
+   */
+  final class Unpaced implements ReplayClock {
+    private final VirtualClock virtual = new VirtualClock();
+
+    private Unpaced() {
+    }
+
+    @Override
+    public void awaitOffset(long offsetMillis) {
+      virtual.advanceTo(offsetMillis);
+    }
+
+    @Override
+    public Clock engineClock() {
+      return virtual;
+    }
+  }
+
+  /**
+   * Reloj de tiempo real. Empieza a contar con el primer evento. El motor
+   * corre sobre un {@link VirtualClock} que avanza al mismo ritmo que la
+   * reproducción, así que sus plazos también se aceleran o frenan con la
+   * velocidad.
+   */
+  final class RealTime implements ReplayClock {
+    /** Espera máxima entre avances del reloj del motor. */
+    private static final long STEP_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final VirtualClock virtual = new VirtualClock();
+    private final double speed;
+    private long start = -1;
+
+    private RealTime(double speed) {
+      if (speed <= 0) {
+        throw new IllegalArgumentException("La velocidad debe ser positiva: " + speed);
+      }
+      this.speed = speed;
+    }
+
+    @Override
+    public void awaitOffset(long offsetMillis) throws InterruptedException {
+      long now = System.nanoTime();
+      if (start < 0) {
+        start = now;
+      }
+      long deadline = start + (long) (TimeUnit.MILLISECONDS.toNanos(offsetMillis) / speed);
+      while (now < deadline) {
+        // Los plazos del motor que venzan antes del evento se ejecutan a su hora
+        virtual.advanceTo(TimeUnit.NANOSECONDS.toMillis((long) ((now - start) * speed)));
+        TimeUnit.NANOSECONDS.sleep(Math.min(deadline - now, STEP_NANOS));
+        now = System.nanoTime();
+      }
+      virtual.advanceTo(offsetMillis);
+    }
+
+    @Override
+    public Clock engineClock() {
+      return virtual;
+    }
+  }
+}
@@ -0,0 +1,157 @@
+package com.gerson.tools;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Resultado de una reproducción: eventos aplicados, carreras, victorias
+ * comprobadas y diferencias entre lo grabado y lo que hizo el motor. Solo lo
+ * modifica el hilo de la reproducción.
+ */
+public final class ReplayReport {
+  private static final int MAX_MISMATCHES = 20;
+
+  private final List<String> mismatches = new ArrayList<>();
+  private long records;
+  private long applied;
+  private long skipped;
+  private long mismatchCount;
+  private long lostRecords;
+  private long races;
+  private long winsVerified;
+  private long progressVerified;
+  private long elapsedNanos;
+
+  void recordRead() {
+    records++;
+  }
+
+  void recordApplied() {
+    applied++;
+  }
+
+  void recordSkipped() {
+    skipped++;
+  }
+
+  void raceStarted() {
+    races++;
+  }
+
+  void winVerified() {
+    winsVerified++;
+  }
+
+  void progressVerified() {
+    progressVerified++;
+  }
+
+  void recordsLost(long count) {
+    lostRecords += count;
+  }
+
+  void mismatch(String description) {
+    mismatchCount++;
+    if (mismatches.size() < MAX_MISMATCHES) {
+      mismatches.add(description);
+    }
+  }
+
+  void setElapsedNanos(long elapsedNanos) {
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  public long getRecords() {
+    return records;
+  }
+
+  public long getApplied() {
+    return applied;
+  }
+
+  public long getSkipped() {
+    return skipped;
+  }
+
+  public long getMismatchCount() {
+    return mismatchCount;
+  }
+
+  public List<String> getMismatches() {
+    return Collections.unmodifiableList(mismatches);
+  }
+
+  public long getLostRecords() {
+    return lostRecords;
+  }
+
+  public long getRaces() {
+    return races;
+  }
+
+  public long getWinsVerified() {
+    return winsVerified;
+  }
+
+  public long getProgressVerified() {
+    return progressVerified;
+  }
+
+  public long getElapsedMillis() {
+    return elapsedNanos / 1_000_000;
+  }
+
+  /**
+   * Eventos grabados procesados por segundo de reproducción.
+   * 
+   * @return eventos por segundo
+   */
+  public double getEventsPerSecond() {
+    return elapsedNanos == 0 ? 0 : records * 1e9 / elapsedNanos;
+  }
+
+  /**
+   * Indica si el motor reprodujo la grabación sin diferencias ni huecos.
+   * 
+   * @return true si la reproducción coincide con lo grabado
+   */
+  public boolean matches() {
+    return mismatchCount == 0 && lostRecords == 0;
+  }
+
+  /**
+   * Devuelve el resumen en texto legible.
+   * 
+   * @return resumen de varias líneas
+   */
+  public String toText() {
+    StringBuilder text = new StringBuilder(String.format(Locale.ROOT,
+        "Duración: %.3f s (%.0f eventos/s)%n"
+            + "Eventos: %d leídos, %d aplicados, %d omitidos, %d perdidos en la grabación%n"
+            + "Carreras: %d; victorias comprobadas: %d; progresos comprobados: %d%n"
+            + "Diferencias: %d%n",
+        elapsedNanos / 1e9, getEventsPerSecond(), records, applied, skipped, lostRecords,
+        races, winsVerified, progressVerified, mismatchCount));
+    for (String mismatch : mismatches) {
+      text.append("  - ").append(mismatch).append(System.lineSeparator());
+    }
+    return text.toString();
+  }
+
+  /**
+   * Devuelve el resumen como objeto JSON en una línea, para procesarlo con
+   * otras herramientas.
+   * 
+   * @return resumen en JSON
+   */
+  public String toJson() {
+    return String.format(Locale.ROOT,
+        "{\"elapsedMs\":%d,\"eventsPerSec\":%.1f,\"records\":%d,\"applied\":%d,\"skipped\":%d,"
+            + "\"lostRecords\":%d,\"races\":%d,\"winsVerified\":%d,\"progressVerified\":%d,"
+            + "\"mismatches\":%d,\"matches\":%b}",
+        getElapsedMillis(), getEventsPerSecond(), records, applied, skipped, lostRecords, races,
+        winsVerified, progressVerified, mismatchCount, matches());
+  }
+}
@@ -0,0 +1,197 @@
+package cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.gerson.cluster.FileRoomDirectory;
+import com.gerson.cluster.Gateway;
+import com.gerson.logic.RoomManager;
+import com.gerson.server.Server;
+
+/**
+ * Levanta dos nodos del servidor en procesos separados que comparten un
+ * directorio de clúster en disco y los atiende con una pasarela en este
+ * proceso.
+ */
+class ClusterIntegrationTest {
+
+    private final List<Process> nodes = new ArrayList<>();
+    private Gateway gateway;
+
+    @TempDir
+    Path dir;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (gateway != null) {
+            gateway.stop();
+        }
+        for (Process node : nodes) {
+            node.destroyForcibly().waitFor(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void testGatewayRoutesEachRoomToTheNodeThatHostsIt() throws Exception {
+        FileRoomDirectory directory = new FileRoomDirectory(dir);
+        nodes.add(startNode("a"));
+        nodes.add(startNode("b"));
+        awaitNodes(directory, 2);
+
+        gateway = new Gateway(0, directory, 200, Executors.newCachedThreadPool());
+        gateway.start();
+        Thread acceptor = new Thread(gateway::acceptLoop);
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        Set<String> owners = new HashSet<>();
+        for (int i = 0; i < 8; i++) {
+            String room = "sala-" + i;
+            try (Socket socket = connect(room)) {
+                BufferedReader in = reader(socket);
+                PrintStream out = new PrintStream(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+
+                int id = Integer.parseInt(in.readLine());
+                out.println("Jugador" + i + "@" + room);
+                assertEquals("roster:0", in.readLine());
+                assertEquals("players:" + id + "-Jugador" + i + ",", in.readLine());
+            }
+            owners.add(directory.owner(room));
+        }
+        assertEquals(Set.of("a", "b"), owners);
+
+        try (Socket first = connect("final")) {
+            BufferedReader in1 = reader(first);
+            int ana = Integer.parseInt(in1.readLine());
+            new PrintStream(first.getOutputStream(), true, StandardCharsets.UTF_8).println("Ana@final");
+            assertEquals("roster:0", in1.readLine());
+            try (Socket second = connect("final")) {
+                BufferedReader in2 = reader(second);
+                int beto = Integer.parseInt(in2.readLine());
+                new PrintStream(second.getOutputStream(), true, StandardCharsets.UTF_8).println("Beto@final");
+
+                // Ambos llegan al mismo nodo, así que comparten carrera
+                assertEquals("roster:0", in2.readLine());
+                assertEquals("players:" + ana + "-Ana," + beto + "-Beto,", in2.readLine());
+            }
+        }
+
+        // Un cliente sin preámbulo acaba en el nodo de la sala principal
+        try (Socket legacy = new Socket("localhost", gateway.getLocalPort())) {
+            legacy.setSoTimeout(5000);
+            assertTrue(Integer.parseInt(reader(legacy).readLine()) > 0);
+        }
+        assertTrue(Set.of("a", "b").contains(directory.owner(RoomManager.DEFAULT_ROOM)));
+
+        // Al terminar, cada nodo se da de baja y libera sus salas
+        for (Process node : nodes) {
+            node.destroy();
+            assertTrue(node.waitFor(10, TimeUnit.SECONDS));
+        }
+        assertTrue(directory.nodeIds().isEmpty());
+        assertEquals(null, directory.owner("final"));
+    }
+
+    @Test
+    void testClientWithoutPreambleIsSentToTheNodeOfItsRoom() throws Exception {
+        FileRoomDirectory directory = new FileRoomDirectory(dir);
+        nodes.add(startNode("a"));
+        nodes.add(startNode("b"));
+        awaitNodes(directory, 2);
+
+        gateway = new Gateway(0, directory, 200, Executors.newCachedThreadPool());
+        gateway.start();
+        Thread acceptor = new Thread(gateway::acceptLoop);
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        // Una sala que aloja el nodo que no atiende la sala principal
+        directory.route(RoomManager.DEFAULT_ROOM);
+        String home = directory.owner(RoomManager.DEFAULT_ROOM);
+        String room = null;
+        for (int i = 0; room == null; i++) {
+            directory.route("lejana-" + i);
+            if (!home.equals(directory.owner("lejana-" + i))) {
+                room = "lejana-" + i;
+            }
+        }
+
+        try (Socket legacy = new Socket("localhost", gateway.getLocalPort())) {
+            legacy.setSoTimeout(5000);
+            BufferedReader in = reader(legacy);
+            PrintStream out = new PrintStream(legacy.getOutputStream(), true, StandardCharsets.UTF_8);
+            int id = Integer.parseInt(in.readLine());
+
+            // El nodo de la sala principal no la duplica: indica cómo llegar a ella
+            out.println("Carla@" + room);
+            assertEquals("route:" + room, in.readLine());
+
+            // Sigue sin jugador, así que puede saludar con otra sala
+            out.println("Carla");
+            assertEquals("roster:0", in.readLine());
+            assertTrue(in.readLine().contains(id + "-Carla,"));
+        }
+
+        try (Socket routed = connect(room)) {
+            BufferedReader in = reader(routed);
+            int id = Integer.parseInt(in.readLine());
+            new PrintStream(routed.getOutputStream(), true, StandardCharsets.UTF_8).println("Dani@" + room);
+
+            // En el nodo dueño, la sala solo tiene a quien entró por ella
+            assertEquals("roster:0", in.readLine());
+            assertEquals("players:" + id + "-Dani,", in.readLine());
+        }
+        assertNotEquals(home, directory.owner(room));
+    }
+
+    private Process startNode(String nodeId) throws Exception {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        ProcessBuilder builder = new ProcessBuilder(java,
+                "-cp", System.getProperty("java.class.path"),
+                "-Dhorse.port=0",
+                "-Dhorse.cluster.dir=" + dir,
+                "-Dhorse.node.id=" + nodeId,
+                Server.class.getName());
+        builder.redirectErrorStream(true);
+        builder.redirectOutput(ProcessBuilder.Redirect.to(new File(dir.toFile(), ".log-" + nodeId)));
+        return builder.start();
+    }
+
+    private void awaitNodes(FileRoomDirectory directory, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (directory.nodeIds().size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(count, directory.nodeIds().size());
+    }
+
+    private Socket connect(String room) throws Exception {
+        Socket socket = new Socket("localhost", gateway.getLocalPort());
+        socket.setSoTimeout(5000);
+        socket.getOutputStream().write(Gateway.preamble(room).getBytes(StandardCharsets.UTF_8));
+        return socket;
+    }
+
+    private static BufferedReader reader(Socket socket) throws Exception {
+        return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,157 @@
+package cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.gerson.cluster.ClusterNode;
+import com.gerson.cluster.FileRoomDirectory;
+import com.gerson.cluster.InMemoryRoomDirectory;
+import com.gerson.cluster.RoomDirectory;
+import com.gerson.logic.RoomManager;
+
+class RoomDirectoryTest {
+
+    private static final InetSocketAddress NODE_A = new InetSocketAddress("127.0.0.1", 7001);
+    private static final InetSocketAddress NODE_B = new InetSocketAddress("127.0.0.1", 7002);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testClaimIsExclusiveAndOnlyTheOwnerReleases() throws Exception {
+        for (RoomDirectory directory : directories()) {
+            assertEquals("a", directory.claim("sala.1", "a"));
+            assertEquals("a", directory.claim("sala.1", "b"));
+
+            directory.release("sala.1", "b");
+            assertEquals("a", directory.owner("sala.1"));
+
+            directory.release("sala.1", "a");
+            assertNull(directory.owner("sala.1"));
+            assertEquals("b", directory.claim("sala.1", "b"));
+        }
+    }
+
+    @Test
+    void testRouteIsStableAndSpreadsRoomsAcrossNodes() throws Exception {
+        for (RoomDirectory directory : directories()) {
+            directory.registerNode("a", NODE_A);
+            directory.registerNode("b", NODE_B);
+
+            Set<InetSocketAddress> used = new HashSet<>();
+            for (int i = 0; i < 32; i++) {
+                InetSocketAddress address = directory.route("sala-" + i);
+                used.add(address);
+                assertEquals(address, directory.route("sala-" + i));
+                assertEquals(address, directory.nodeAddress(directory.owner("sala-" + i)));
+            }
+            assertEquals(Set.of(NODE_A, NODE_B), used);
+        }
+    }
+
+    @Test
+    void testRoomsOfAnUnregisteredNodeAreReassigned() throws Exception {
+        for (RoomDirectory directory : directories()) {
+            directory.registerNode("a", NODE_A);
+            directory.registerNode("b", NODE_B);
+            directory.claim("sala", "a");
+
+            directory.unregisterNode("a");
+
+            assertEquals(Set.of("b"), directory.nodeIds());
+            assertNull(directory.owner("sala"));
+            assertEquals(NODE_B, directory.route("sala"));
+            assertEquals("b", directory.owner("sala"));
+        }
+    }
+
+    @Test
+    void testConcurrentFileClaimsHaveASingleWinner() throws Exception {
+        FileRoomDirectory directory = new FileRoomDirectory(dir.resolve("concurrente"));
+        int claimers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(claimers);
+        CountDownLatch start = new CountDownLatch(1);
+        Set<String> owners = ConcurrentHashMap.newKeySet();
+        try {
+            for (int i = 0; i < claimers; i++) {
+                String nodeId = "nodo-" + i;
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                        owners.add(directory.claim("final", nodeId));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+            start.countDown();
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, owners.size());
+        assertEquals(owners.iterator().next(), directory.owner("final"));
+    }
+
+    @Test
+    void testClusterNodeClaimsCreatedRoomsAndReleasesRetiredOnes() {
+        RoomDirectory directory = new InMemoryRoomDirectory();
+        RoomManager rooms = new RoomManager(0);
+        rooms.getOrCreate("previa");
+        ClusterNode node = new ClusterNode(directory, "a", NODE_A);
+
+        node.start(rooms);
+        rooms.getOrCreate("nueva");
+
+        assertEquals("a", directory.owner("previa"));
+        assertEquals("a", directory.owner("nueva"));
+
+        rooms.retireIfEmpty(rooms.getOrCreate("nueva"));
+        assertNull(directory.owner("nueva"));
+
+        node.close();
+        assertTrue(directory.nodeIds().isEmpty());
+        assertNull(directory.owner("previa"));
+    }
+
+    @Test
+    void testClusterNodeRefusesRoomsHostedByAnotherNode() {
+        RoomDirectory directory = new InMemoryRoomDirectory();
+        RoomManager roomsA = new RoomManager(0);
+        RoomManager roomsB = new RoomManager(0);
+        ClusterNode a = new ClusterNode(directory, "a", NODE_A);
+        ClusterNode b = new ClusterNode(directory, "b", NODE_B);
+        a.start(roomsA);
+        b.start(roomsB);
+
+        assertNotNull(roomsA.getOrCreate("compartida"));
+        assertNull(roomsB.getOrCreate("compartida"));
+        assertNull(roomsB.find("compartida"));
+        assertEquals("a", directory.owner("compartida"));
+
+        // Al retirarla en su nodo, el otro ya puede alojarla
+        roomsA.retireIfEmpty(roomsA.find("compartida"));
+        assertNotNull(roomsB.getOrCreate("compartida"));
+        assertEquals("b", directory.owner("compartida"));
+    }
+
+    private List<RoomDirectory> directories() throws Exception {
+        return List.of(new InMemoryRoomDirectory(), new FileRoomDirectory(dir.resolve("directorio")));
+    }
+}
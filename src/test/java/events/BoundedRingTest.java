@@ -0,0 +1,57 @@
+package events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+import com.gerson.events.BoundedRing;
+
+class BoundedRingTest {
+
+    private static final class Slot {
+        int value;
+    }
+
+    @Test
+    void testConsumerWaitsForSlotsPublishedOutOfOrder() {
+        BoundedRing<Slot> ring = new BoundedRing<>(4, Slot::new);
+
+        long first = ring.claim();
+        long second = ring.claim();
+        ring.get(second).value = 2;
+        ring.publish(second);
+
+        // La segunda está lista, pero la primera aún se está rellenando
+        assertNull(ring.peek());
+
+        ring.get(first).value = 1;
+        ring.publish(first);
+        assertEquals(1, ring.peek().value);
+        ring.release();
+        assertEquals(2, ring.peek().value);
+        ring.release();
+        assertNull(ring.peek());
+    }
+
+    @Test
+    void testFullRingRejectsUntilReleasedAndReusesSlots() {
+        BoundedRing<Slot> ring = new BoundedRing<>(3, Slot::new);
+        Slot[] seen = new Slot[4];
+
+        // La capacidad se redondea a 4
+        for (int i = 0; i < 4; i++) {
+            long position = ring.claim();
+            seen[i] = ring.get(position);
+            ring.publish(position);
+        }
+        assertEquals(-1, ring.claim());
+        assertEquals(1, ring.getDroppedCount());
+
+        assertSame(seen[0], ring.peek());
+        ring.release();
+        long position = ring.claim();
+        assertSame(seen[0], ring.get(position));
+    }
+}
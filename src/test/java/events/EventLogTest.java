@@ -0,0 +1,86 @@
+package events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.gerson.events.EventLog;
+import com.gerson.events.EventType;
+
+class EventLogTest {
+
+    private final List<String> lines = new ArrayList<>();
+
+    @Test
+    void testEventsAreWrittenAsKeyValuePairs() {
+        EventLog log = EventLog.manual(8, lines::add);
+
+        log.log(EventType.WIN, "principal", 3, 100, "Ana María");
+        log.log(EventType.START_STATUS, "principal", -1, 2, "can_start");
+
+        assertEquals(2, log.drain());
+        assertTrue(lines.get(0).matches("ts=\\S+ event=win room=principal player=3 progress=100 name=\"Ana María\""),
+                lines.get(0));
+        assertTrue(lines.get(1).endsWith(" event=start_status room=principal players=2 status=\"can_start\""),
+                lines.get(1));
+    }
+
+    @Test
+    void testFullBufferDropsAndCounts() {
+        EventLog log = EventLog.manual(4, lines::add);
+
+        for (int i = 0; i < 6; i++) {
+            log.log(EventType.READY, "principal", i, i, null);
+        }
+
+        assertEquals(2, log.getDroppedCount());
+        assertEquals(4, log.drain());
+        assertTrue(lines.get(3).contains("player=3"));
+
+        // Tras vaciarse vuelve a admitir eventos
+        assertTrue(log.log(EventType.READY, "principal", 9, 1, null));
+        assertEquals(1, log.drain());
+    }
+
+    @Test
+    void testSamplingKeepsRoughlyOneInN() {
+        EventLog log = EventLog.manual(1 << 14, lines::add);
+        log.setSampleEvery(EventType.CLICK, 100);
+        log.setSampleEvery(EventType.KICK, 0);
+
+        for (int i = 0; i < 10_000; i++) {
+            log.log(EventType.CLICK, "principal", 1, 10, null);
+        }
+
+        int written = log.drain();
+        assertTrue(written > 50 && written < 200, "eventos escritos: " + written);
+        assertFalse(log.log(EventType.KICK, "principal", 1, 0, "inactividad"));
+        assertEquals(0, log.getDroppedCount());
+    }
+
+    @Test
+    void testConcurrentProducersLoseNothingWhenThereIsRoom() throws Exception {
+        EventLog log = EventLog.manual(1 << 14, lines::add);
+        Thread[] producers = new Thread[4];
+        for (int t = 0; t < producers.length; t++) {
+            int player = t;
+            producers[t] = new Thread(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    log.log(EventType.READY, "principal", player, i, null);
+                }
+            });
+            producers[t].start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        assertEquals(8_000, log.drain());
+        assertEquals(0, log.getDroppedCount());
+    }
+}
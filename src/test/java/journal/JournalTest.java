@@ -0,0 +1,121 @@
+package journal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.gerson.journal.FsyncPolicy;
+import com.gerson.journal.Journal;
+import com.gerson.journal.JournalReader;
+import com.gerson.journal.JournalRecord;
+import com.gerson.journal.RecordType;
+
+class JournalTest {
+
+    @TempDir
+    Path dir;
+
+    private final List<JournalRecord> records = new ArrayList<>();
+
+    @Test
+    void testRecordsAreReadBackInOrder() throws Exception {
+        Journal journal = Journal.manual(dir, 16, 1 << 20, FsyncPolicy.ALWAYS);
+
+        journal.append(RecordType.JOIN, "principal", 1, 0, "Ana María");
+        journal.append(RecordType.READY, "principal", 1, 1, null);
+        journal.append(RecordType.COUNTDOWN, "principal", -1, 3, null);
+        journal.append(RecordType.ADVANCE, "principal", 1, 10, null);
+        assertEquals(4, journal.flush());
+        journal.close();
+
+        assertEquals(4, JournalReader.read(dir, records::add));
+        JournalRecord join = records.get(0);
+        assertEquals(RecordType.JOIN, join.getType());
+        assertEquals("principal", join.getRoom());
+        assertEquals(1, join.getPlayer());
+        assertEquals("Ana María", join.getDetail());
+        assertTrue(join.getTimestamp() > 0);
+        assertNull(records.get(1).getDetail());
+        assertEquals(-1, records.get(2).getPlayer());
+        assertEquals(3, records.get(2).getValue());
+        assertEquals(RecordType.ADVANCE, records.get(3).getType());
+        assertEquals(10, records.get(3).getValue());
+    }
+
+    @Test
+    void testSegmentsRotateWhenFull() throws Exception {
+        Journal journal = Journal.manual(dir, 64, 100, FsyncPolicy.NEVER);
+
+        for (int i = 0; i < 20; i++) {
+            journal.append(RecordType.ADVANCE, "principal", 1, i, null);
+        }
+        journal.flush();
+        journal.close();
+
+        assertTrue(JournalReader.segments(dir).size() > 1);
+        JournalReader.read(dir, records::add);
+        assertEquals(20, records.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i, records.get(i).getValue());
+        }
+    }
+
+    @Test
+    void testFullBufferDropsAndLeavesAGapRecord() throws Exception {
+        Journal journal = Journal.manual(dir, 4, 1 << 20, FsyncPolicy.NEVER);
+
+        for (int i = 0; i < 6; i++) {
+            journal.append(RecordType.ADVANCE, "principal", 1, i, null);
+        }
+        assertFalse(journal.append(RecordType.ADVANCE, "principal", 1, 6, null));
+        assertEquals(3, journal.getDroppedCount());
+        journal.close();
+
+        JournalReader.read(dir, records::add);
+        assertEquals(RecordType.GAP, records.get(0).getType());
+        assertEquals(3, records.get(0).getValue());
+        assertEquals(5, records.size());
+    }
+
+    @Test
+    void testTornTailIsIgnored() throws Exception {
+        Journal journal = Journal.manual(dir, 16, 1 << 20, FsyncPolicy.ALWAYS);
+        journal.append(RecordType.JOIN, "principal", 1, 0, "A");
+        journal.append(RecordType.WIN, "principal", 1, 100, "A");
+        journal.close();
+        Path segment = JournalReader.segments(dir).get(0);
+
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        assertEquals(1, JournalReader.read(dir, records::add));
+        assertEquals(RecordType.JOIN, records.get(0).getType());
+    }
+
+    @Test
+    void testReopeningStartsANewSegment() throws Exception {
+        Journal first = Journal.manual(dir, 16, 1 << 20, FsyncPolicy.NEVER);
+        first.append(RecordType.JOIN, "principal", 1, 0, "A");
+        first.close();
+
+        Journal second = new Journal(dir, 16, 1 << 20, FsyncPolicy.INTERVAL, 10);
+        second.append(RecordType.LEAVE, "principal", 1, 0, null);
+        second.close();
+
+        assertEquals(2, JournalReader.segments(dir).size());
+        JournalReader.read(dir, records::add);
+        assertEquals(List.of(RecordType.JOIN, RecordType.LEAVE),
+                records.stream().map(JournalRecord::getType).toList());
+    }
+}
@@ -0,0 +1,61 @@
+package logic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.gerson.logic.ClickRateLimiter;
+
+class ClickRateLimiterTest {
+
+    @Test
+    void testClicksAboveTheWindowCapacityAreDropped() {
+        ClickRateLimiter limiter = new ClickRateLimiter(3, 1000);
+        // Una posición alta obliga a crear varios segmentos
+        int slot = 5000;
+        limiter.reset(slot);
+
+        assertTrue(limiter.tryAcquire(slot, 0));
+        assertTrue(limiter.tryAcquire(slot, 100));
+        assertTrue(limiter.tryAcquire(slot, 200));
+        assertFalse(limiter.tryAcquire(slot, 300));
+        assertFalse(limiter.tryAcquire(slot, 999));
+
+        // La ventana se desliza: el clic de 0 ya salió, el de 100 todavía no
+        assertTrue(limiter.tryAcquire(slot, 1000));
+        assertFalse(limiter.tryAcquire(slot, 1050));
+        assertTrue(limiter.tryAcquire(slot, 1100));
+
+        assertEquals(3, limiter.dropped(slot));
+        assertEquals(0, limiter.dropped(slot + 1));
+    }
+
+    @Test
+    void testResetEmptiesTheRingAndTheDroppedCount() {
+        ClickRateLimiter limiter = new ClickRateLimiter(2, 1000);
+        limiter.reset(7);
+        limiter.tryAcquire(7, 0);
+        limiter.tryAcquire(7, 0);
+        assertFalse(limiter.tryAcquire(7, 0));
+
+        limiter.reset(7);
+
+        assertEquals(0, limiter.dropped(7));
+        assertTrue(limiter.tryAcquire(7, 0));
+        assertTrue(limiter.tryAcquire(7, 0));
+    }
+
+    @Test
+    void testDisabledLimiterAcceptsAnyRate() {
+        ClickRateLimiter limiter = new ClickRateLimiter(0, 1000);
+        limiter.reset(3);
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(limiter.tryAcquire(3, 0));
+        }
+        assertFalse(limiter.isEnabled());
+        assertEquals(0, limiter.dropped(3));
+    }
+}
@@ -1,7 +1,10 @@
 package logic;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -9,6 +12,7 @@ import static org.mockito.ArgumentMatchers.contains;
 import static org.mockito.ArgumentMatchers.startsWith;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.clearInvocations;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -16,19 +20,28 @@ import static org.mockito.Mockito.verify;
 import java.io.PrintStream;
 import java.lang.reflect.Field;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 
+import com.gerson.logic.Clock;
 import com.gerson.logic.GameManager;
+import com.gerson.logic.RaceRoom;
+import com.gerson.logic.VirtualClock;
 import com.gerson.model.Player;
+import com.gerson.network.ClientSink;
+import com.gerson.network.PrintStreamSink;
+import com.gerson.protocol.RacePhase;
+import com.gerson.snapshot.RoomSnapshot;
 
 class GameManagerTest {
     private GameManager gameManager;
     private PrintStream mockOutput;
+    private VirtualClock clock;
 
     @BeforeEach
     void setUp() {
@@ -50,11 +63,11 @@ class GameManagerTest {
 
         gameManager.notifyNewPlayer(player);
 
-        verify(mockOutput, atLeastOnce()).println(startsWith("players:"));
+        verify(mockOutput, atLeastOnce()).println(contains("players:1-Jugador1,"));
     }
 
     @Test
-    void testProcessClientMessageReadyStartsCountdownIfAllReady() throws InterruptedException {
+    void testProcessClientMessageReadyStartsCountdownIfAllReady() {
         Player p1 = gameManager.registerPlayer(mockOutput);
         Player p2 = gameManager.registerPlayer(mockOutput);
         p1.setName("Caballo1");
@@ -66,21 +79,19 @@ class GameManagerTest {
         gameManager.processClientMessage(p1, "ready");
         gameManager.processClientMessage(p2, "ready");
 
-        Thread.sleep(3500); // espera a que inicie la carrera
+        clock.advance(3500, TimeUnit.MILLISECONDS); // cuenta regresiva en tiempo simulado
 
         verify(mockOutput, atLeastOnce()).println(contains("countdown:"));
         verify(mockOutput, atLeastOnce()).println("go");
     }
 
     @Test
-    void testProcessClientMessageClickAdvancesPlayer() throws IllegalAccessException, NoSuchFieldException {
+    void testProcessClientMessageClickAdvancesPlayer() throws Exception {
         Player player = gameManager.registerPlayer(mockOutput);
         player.setName("Caballo3");
 
         // Establecer raceStarted = true usando reflexión
-        java.lang.reflect.Field field = gameManager.getClass().getDeclaredField("raceStarted");
-        field.setAccessible(true);
-        field.set(gameManager, true);
+        forceRaceStarted();
 
         // Ejecutar "click"
         gameManager.processClientMessage(player, "click");
@@ -99,9 +110,140 @@ class GameManagerTest {
         player2.setName("Jugador2");
 
         gameManager.removePlayer(player1, mockOutput);
+        clock.advance(100, TimeUnit.MILLISECONDS);
 
-        // Ahora verificamos que SE haya enviado un mensaje a otro jugador
-        verify(otherStream, atLeastOnce()).println(anyString());
+        // Al cerrar la ventana de agrupación, el otro jugador recibe el delta de la salida
+        verify(otherStream).println("roster:1\nplayer_left:1");
+    }
+
+    @Test
+    void testDisconnectedPlayerIsSuspendedAndResumesWithItsToken() {
+        Player player1 = gameManager.registerPlayer(mockOutput);
+        PrintStream otherStream = mock(PrintStream.class);
+        gameManager.registerPlayer(otherStream);
+        ClientSink oldSink = player1.getSink();
+        String token = gameManager.issueResumeToken(player1);
+        clearInvocations(otherStream);
+
+        gameManager.disconnectPlayer(player1, oldSink);
+
+        // Conserva su posición y el resto de la sala no se entera
+        RaceRoom room = gameManager.getRoomManager().getDefaultRoom();
+        assertEquals(2, room.getPlayerCount());
+        assertFalse(player1.isConnected());
+        verify(otherStream, never()).println(anyString());
+
+        PrintStream newStream = mock(PrintStream.class);
+        assertSame(player1, gameManager.resumePlayer(token, new PrintStreamSink(newStream)));
+        assertTrue(player1.isConnected());
+        verify(newStream).println("resumed:1");
+        verify(newStream).println(startsWith("snapshot:"));
+        verify(otherStream, never()).println(anyString());
+
+        // El cierre tardío de la conexión antigua ya no afecta al jugador
+        gameManager.disconnectPlayer(player1, oldSink);
+        assertTrue(player1.isConnected());
+        assertEquals(2, room.getPlayerCount());
+    }
+
+    @Test
+    void testSuspendedPlayerIsRemovedWhenGraceExpires() throws Exception {
+        Player player1 = gameManager.registerPlayer(mockOutput);
+        PrintStream otherStream = mock(PrintStream.class);
+        Player player2 = gameManager.registerPlayer(otherStream);
+        gameManager.notifyNewPlayer(player1);
+        gameManager.notifyNewPlayer(player2);
+        String token = gameManager.issueResumeToken(player1);
+
+        gameManager.disconnectPlayer(player1, player1.getSink());
+        clock.advance(14, TimeUnit.SECONDS);
+        assertEquals(2, gameManager.getRoomManager().getDefaultRoom().getPlayerCount());
+
+        // 15 segundos de gracia por defecto
+        clock.advance(1500, TimeUnit.MILLISECONDS);
+
+        assertEquals(1, gameManager.getRoomManager().getDefaultRoom().getPlayerCount());
+        verify(otherStream).println("roster:1\nplayer_left:1");
+        verify(otherStream).println("wait_players");
+        assertNull(gameManager.resumePlayer(token, new PrintStreamSink(mock(PrintStream.class))));
+    }
+
+    @Test
+    void testHandOffAndRestoreKeepTheRaceInProgress() throws Exception {
+        PrintStream firstStream = mock(PrintStream.class);
+        PrintStream secondStream = mock(PrintStream.class);
+        Player first = gameManager.registerPlayer("relevo", firstStream);
+        Player second = gameManager.registerPlayer("relevo", secondStream);
+        first.setName("Primero");
+        second.setName("Segundo");
+        String token = gameManager.issueResumeToken(first);
+        gameManager.issueResumeToken(second);
+        gameManager.processReady(first);
+        gameManager.processReady(second);
+        clock.advance(3500, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < 3; i++) {
+            gameManager.processClick(first);
+        }
+
+        List<RoomSnapshot> snapshots = gameManager.handOff();
+        // El aviso solo sale cuando el estado ya está guardado
+        verify(firstStream, never()).println("reconnect:1000");
+        gameManager.announce("reconnect:1000");
+
+        verify(firstStream).println("reconnect:1000");
+        verify(secondStream).println("reconnect:1000");
+        assertEquals(1, snapshots.size());
+        assertEquals(RacePhase.RACING, snapshots.get(0).getPhase());
+
+        // Un proceso nuevo arranca sin salas y con los identificadores desde 1
+        resetGameManager();
+        int suspendedBefore = gameManager.getSuspendedCount();
+        assertEquals(2, gameManager.restore(snapshots));
+
+        RaceRoom room = gameManager.getRoomManager().find("relevo");
+        assertTrue(room.isRaceStarted());
+        assertEquals(2, room.getPlayerCount());
+        assertEquals(suspendedBefore + 2, gameManager.getSuspendedCount());
+        assertEquals(3, gameManager.reservePlayerId());
+
+        PrintStream newStream = mock(PrintStream.class);
+        Player resumed = gameManager.resumePlayer(token, new PrintStreamSink(newStream));
+        assertEquals(1, resumed.getId());
+        assertEquals("Primero", resumed.getName());
+        assertEquals(30, resumed.getProgress());
+        verify(newStream).println("resumed:1");
+        verify(newStream).println("snapshot:" + snapshots.get(0).getStateSeq() + ":racing:1-30,2-0,");
+
+        // La carrera sigue donde estaba
+        gameManager.processClick(resumed);
+        assertEquals(40, resumed.getProgress());
+    }
+
+    @Test
+    void testManyRacesRunInSimulatedTime() {
+        for (int race = 0; race < 200; race++) {
+            String roomName = "sim-" + race;
+            PrintStream winnerOutput = mock(PrintStream.class);
+            Player p1 = gameManager.registerPlayer(winnerOutput);
+            Player p2 = gameManager.registerPlayer(mock(PrintStream.class));
+            gameManager.joinRoom(p1, roomName);
+            gameManager.joinRoom(p2, roomName);
+            p1.setName("Rapido" + race);
+            p2.setName("Lento" + race);
+
+            gameManager.processClientMessage(p1, "ready");
+            gameManager.processClientMessage(p2, "ready");
+            assertFalse(gameManager.getRoomManager().find(roomName).isRaceStarted());
+
+            // Sin reloj simulado, cada carrera costaría tres segundos de cuenta regresiva
+            clock.advance(3500, TimeUnit.MILLISECONDS);
+            assertTrue(gameManager.getRoomManager().find(roomName).isRaceStarted());
+            while (p1.getProgress() < 100) {
+                gameManager.processClientMessage(p1, "click");
+            }
+
+            verify(winnerOutput).println("win:Rapido" + race);
+        }
     }
 
     @BeforeEach
@@ -109,26 +251,29 @@ class GameManagerTest {
         // Asegurar inicialización
         gameManager = GameManager.getGamemanagerinstance();
 
-        // Accede y limpia los campos privados
-        Field playersField = GameManager.class.getDeclaredField("players");
-        playersField.setAccessible(true);
-        ((Map<?, ?>) playersField.get(gameManager)).clear();
-
-        Field clientsField = GameManager.class.getDeclaredField("clients");
-        clientsField.setAccessible(true);
-        ((List<?>) clientsField.get(gameManager)).clear();
+        // Las salas nuevas corren en tiempo simulado
+        clock = new VirtualClock();
+        gameManager.setClock(clock);
 
-        Field readyPlayersField = GameManager.class.getDeclaredField("readyPlayers");
-        readyPlayersField.setAccessible(true);
-        ((Set<?>) readyPlayersField.get(gameManager)).clear();
+        // Descarta todas las salas y reinicia el contador de IDs
+        gameManager.getRoomManager().clear();
 
         Field nextPlayerIdField = GameManager.class.getDeclaredField("nextPlayerId");
         nextPlayerIdField.setAccessible(true);
-        nextPlayerIdField.set(gameManager, 1);
+        ((AtomicInteger) nextPlayerIdField.get(gameManager)).set(1);
+    }
 
-        Field raceStartedField = GameManager.class.getDeclaredField("raceStarted");
+    @AfterEach
+    void restoreClock() {
+        gameManager.setClock(Clock.system());
+    }
+
+    // Fuerza el estado de carrera iniciada en la sala principal
+    private void forceRaceStarted() throws Exception {
+        RaceRoom room = gameManager.getRoomManager().getDefaultRoom();
+        Field raceStartedField = RaceRoom.class.getDeclaredField("raceStarted");
         raceStartedField.setAccessible(true);
-        raceStartedField.set(gameManager, false);
+        raceStartedField.set(room, true);
     }
 
     @Test
@@ -139,9 +284,7 @@ class GameManagerTest {
         player.setName("Ganador");
 
         // Forzar estado carrera iniciada y progreso alto
-        Field raceStartedField = GameManager.class.getDeclaredField("raceStarted");
-        raceStartedField.setAccessible(true);
-        raceStartedField.set(gameManager, true);
+        forceRaceStarted();
 
         player.advance(100); // avanzar directamente al 100
 
@@ -174,8 +317,8 @@ class GameManagerTest {
         gameManager.processClientMessage(p1, "ready");
         gameManager.processClientMessage(p2, "ready");
 
-        // Esperamos a que el hilo de cuenta regresiva se ejecute
-        Thread.sleep(3500); // 3 segundos de countdown + margen
+        // Avanzamos los 3 segundos de cuenta regresiva, más el redondeo de la rueda
+        clock.advance(3500, TimeUnit.MILLISECONDS);
 
         verify(mockOutput, atLeastOnce()).println(contains("countdown:"));
         verify(mockOutput, atLeastOnce()).println("go");
@@ -200,8 +343,8 @@ class GameManagerTest {
         // Eliminar un jugador
         gameManager.removePlayer(player3, output3);
 
-        // Esperar a que complete la cuenta regresiva
-        Thread.sleep(3500);
+        // Completar la cuenta regresiva
+        clock.advance(3500, TimeUnit.MILLISECONDS);
 
         // Verificación usando ArgumentCaptor
         ArgumentCaptor<String> messageCaptor = ArgumentCaptor.forClass(String.class);
@@ -0,0 +1,598 @@
+package logic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import com.gerson.logic.ClickRateLimiter;
+import com.gerson.logic.RaceRoom;
+import com.gerson.logic.TimerWheel;
+import com.gerson.metrics.ServerMetrics;
+import com.gerson.model.Player;
+import com.gerson.network.ClientSink;
+import com.gerson.network.Frame;
+import com.gerson.protocol.InboundHandler;
+import com.gerson.protocol.TextDecoder;
+
+class RaceRoomTest {
+    private ScheduledExecutorService ticker;
+    private PrintStream output;
+    private PrintStream otherOutput;
+    private RaceRoom room;
+    private Player p1;
+    private Player p2;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // El planificador simulado no ejecuta nada: los ticks se disparan a mano
+        ticker = mock(ScheduledExecutorService.class);
+        output = mock(PrintStream.class);
+        otherOutput = mock(PrintStream.class);
+        room = new RaceRoom("prueba", 50, ticker);
+
+        p1 = new Player(1, output);
+        p2 = new Player(2, otherOutput);
+        room.join(p1);
+        room.join(p2);
+        forceRaceStarted(room);
+    }
+
+    @Test
+    void testClicksWithinTickAreCoalescedIntoOneFrame() {
+        room.processClientMessage(p1, "click");
+        room.processClientMessage(p1, "click");
+        room.processClientMessage(p2, "click");
+
+        // Nada se difunde antes del tick y la difusión periódica se programa una sola vez
+        verify(output, never()).println(anyString());
+        verify(ticker, times(1)).scheduleAtFixedRate(any(Runnable.class), anyLong(), anyLong(),
+                any(TimeUnit.class));
+
+        room.tick();
+
+        verify(output, times(1)).println("seq:1\n1:20\n2:10");
+        verify(otherOutput, times(1)).println("seq:1\n1:20\n2:10");
+    }
+
+    @Test
+    void testEmptyTickSendsNothing() {
+        room.tick();
+        verify(output, never()).println(anyString());
+    }
+
+    @Test
+    void testWinnerIsAnnouncedWithoutWaitingForTick() {
+        room.processClientMessage(p2, "click");
+        p1.advance(90);
+        room.processClientMessage(p1, "click");
+
+        InOrder order = inOrder(output);
+        order.verify(output).println("seq:1\n2:10\n1:100");
+        order.verify(output).println("win:Jugador 1");
+
+        // Los clics posteriores a la victoria se ignoran
+        room.processClientMessage(p2, "click");
+        room.tick();
+        verify(output, never()).println(contains("2:20"));
+    }
+
+    @Test
+    void testImmediateModeBroadcastsEveryClick() throws Exception {
+        RaceRoom immediate = new RaceRoom("inmediata");
+        PrintStream out = mock(PrintStream.class);
+        Player player = new Player(5, out);
+        immediate.join(player);
+        forceRaceStarted(immediate);
+
+        immediate.processClientMessage(player, "click");
+        immediate.processClientMessage(player, "click");
+
+        verify(out).println("seq:1\n5:10");
+        verify(out).println("seq:2\n5:20");
+    }
+
+    @Test
+    void testLateMessagesFromRemovedPlayerDoNotTouchReusedSlot() {
+        Player leaving = new Player(3, mock(PrintStream.class));
+        room.join(leaving);
+        room.removePlayer(leaving);
+        leaving.release();
+        assertEquals(null, leaving.getRoomName());
+
+        // La posicion liberada pasa al siguiente jugador que llega
+        Player reusing = new Player(4, mock(PrintStream.class));
+        assertEquals(leaving.getSlot(), reusing.getSlot());
+        room.join(reusing);
+
+        room.processClientMessage(leaving, "click");
+        room.processClientMessage(leaving, "clicks_sent:7");
+        room.processClientMessage(leaving, "ready");
+
+        assertEquals(0, reusing.getProgress());
+        assertEquals(0, reusing.getClicks());
+        assertEquals(0, reusing.getReportedClicks());
+        assertFalse(reusing.isReady());
+    }
+
+    @Test
+    void testLateJoinerAndResyncGetSnapshotOnlyForThemselves() {
+        room.processClientMessage(p1, "click");
+        room.tick();
+
+        PrintStream lateOutput = mock(PrintStream.class);
+        Player late = new Player(3, lateOutput);
+        room.join(late);
+        room.notifyNewPlayer(late);
+
+        verify(lateOutput).println("snapshot:1:racing:1-10,2-0,3-0,");
+        verify(output, never()).println(contains("snapshot:"));
+
+        room.processClientMessage(p2, "click");
+        room.tick();
+        room.processClientMessage(p1, "resync");
+
+        // Solo quien lo pide recibe el estado completo, con la secuencia vigente
+        verify(output).println("snapshot:2:racing:1-10,2-10,3-0,");
+        verify(otherOutput, never()).println(contains("snapshot:"));
+        verify(lateOutput).println("seq:2\n2:10");
+    }
+
+    @Test
+    void testBroadcastsAreRecordedInMetrics() {
+        long progressSent = ServerMetrics.PROGRESS_OUT.get();
+        long latencySamples = ServerMetrics.CLICK_TO_BROADCAST.getCount();
+        long lockHolds = ServerMetrics.ROOM_LOCK_HOLD.getCount();
+
+        room.processClientMessage(p1, "click");
+        room.tick();
+
+        // Un marco de progreso por cliente y una muestra de latencia por tick
+        assertEquals(progressSent + 2, ServerMetrics.PROGRESS_OUT.get());
+        assertEquals(latencySamples + 1, ServerMetrics.CLICK_TO_BROADCAST.getCount());
+        assertTrue(ServerMetrics.ROOM_LOCK_HOLD.getCount() >= lockHolds + 2);
+    }
+
+    @Test
+    void testSteadyStateClicksAllocateNothing() throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        TimerWheel timers = TimerWheel.manual(10, 64);
+        RaceRoom steady = new RaceRoom("estable", 50, null, timers);
+        steady.setClickLimiter(new ClickRateLimiter(0, 1));
+        ClientSink discard = new ClientSink() {
+            @Override
+            public void send(Frame frame) {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        Player a = new Player(11, discard);
+        Player b = new Player(12, discard);
+        steady.join(a);
+        steady.join(b);
+        forceRaceStarted(steady);
+
+        byte[] click = "click".getBytes(StandardCharsets.US_ASCII);
+        byte[] report = "clicks_sent:42".getBytes(StandardCharsets.US_ASCII);
+        InboundHandler sessionA = clickSession(steady, a);
+        InboundHandler sessionB = clickSession(steady, b);
+
+        // Calentamiento: programa la difusión periódica y deja compilados los caminos
+        for (int i = 0; i < 20; i++) {
+            a.resetRace();
+            b.resetRace();
+            TextDecoder.dispatch(click, click.length, sessionA);
+            TextDecoder.dispatch(click, click.length, sessionB);
+            timers.advance(50);
+        }
+        threads.getCurrentThreadAllocatedBytes();
+
+        // Varios ticks completos: los clics no asignan nada y cada difusión solo su marco
+        int flushes = 10;
+        long clickBytes = 0;
+        long flushBytes = 0;
+        for (int i = 0; i < flushes; i++) {
+            a.resetRace();
+            b.resetRace();
+            long start = threads.getCurrentThreadAllocatedBytes();
+            for (int j = 0; j < 3; j++) {
+                TextDecoder.dispatch(click, click.length, sessionA);
+                TextDecoder.dispatch(click, click.length, sessionB);
+            }
+            TextDecoder.dispatch(report, report.length, sessionA);
+            long dispatched = threads.getCurrentThreadAllocatedBytes();
+            timers.advance(50);
+            long flushed = threads.getCurrentThreadAllocatedBytes();
+            clickBytes += dispatched - start;
+            flushBytes += flushed - dispatched;
+        }
+
+        // Sin caballos pendientes, el rearme del tick periódico tampoco asigna
+        long idleStart = threads.getCurrentThreadAllocatedBytes();
+        timers.advance(500);
+        long idleBytes = threads.getCurrentThreadAllocatedBytes() - idleStart;
+
+        assertEquals(0, clickBytes);
+        assertEquals(0, idleBytes);
+        assertTrue(flushBytes / flushes <= 1024, "bytes por difusion: " + flushBytes / flushes);
+        assertEquals(30, a.getProgress());
+        assertEquals(42, a.getReportedClicks());
+    }
+
+    @Test
+    void testMalformedClicksReportIsIgnored() {
+        room.processClientMessage(p1, "clicks_sent:7");
+        room.processClientMessage(p1, "clicks_sent:abc");
+        room.processClientMessage(p1, "clicks_sent:");
+
+        assertEquals(7, p1.getReportedClicks());
+    }
+
+    @Test
+    void testCountdownRunsOnTimerWheelAndStartsOnce() {
+        TimerWheel timers = TimerWheel.manual(10, 64);
+        RaceRoom timed = new RaceRoom("temporizada", 50, ticker, timers);
+        PrintStream out = mock(PrintStream.class);
+        Player first = new Player(10, out);
+        Player second = new Player(11, mock(PrintStream.class));
+        timed.join(first);
+        timed.join(second);
+
+        timed.ready(first);
+        timed.ready(second);
+        // Un segundo aviso de "todos listos" no arranca otra cuenta regresiva
+        timed.ready(second);
+        timers.advance(10);
+        verify(out, times(1)).println("countdown:3");
+
+        timers.advance(1000);
+        verify(out).println("countdown:2");
+        timers.advance(2000);
+        verify(out).println("countdown:1");
+        verify(out).println("go");
+        assertTrue(timed.isRaceStarted());
+    }
+
+    @Test
+    void testCountdownIsCancelledWhenRoomEmpties() {
+        TimerWheel timers = TimerWheel.manual(10, 64);
+        RaceRoom timed = new RaceRoom("vacia", 50, ticker, timers);
+        PrintStream out = mock(PrintStream.class);
+        Player only = new Player(12, out);
+        timed.join(only);
+        timed.ready(only);
+
+        timed.removePlayer(only);
+        timers.advance(5000);
+
+        verify(out, never()).println("go");
+        assertFalse(timed.isRaceStarted());
+        assertEquals(0, timers.getPendingCount());
+    }
+
+    @Test
+    void testRaceTimeLimitCrownsLeader() {
+        System.setProperty("horse.race.limit.seconds", "5");
+        try {
+            TimerWheel timers = TimerWheel.manual(10, 64);
+            RaceRoom timed = new RaceRoom("limite", 50, ticker, timers);
+            PrintStream out = mock(PrintStream.class);
+            Player slow = new Player(13, out);
+            Player fast = new Player(14, mock(PrintStream.class));
+            fast.setName("Rayo");
+            timed.join(slow);
+            timed.join(fast);
+            timed.ready(slow);
+            timed.ready(fast);
+            timers.advance(3010);
+
+            timed.click(fast);
+            timed.click(fast);
+            timed.click(slow);
+            timers.advance(5000);
+
+            verify(out).println("win:Rayo");
+            assertFalse(timed.isRaceStarted());
+        } finally {
+            System.clearProperty("horse.race.limit.seconds");
+        }
+    }
+
+    @Test
+    void testIdleAndUnreadyPlayersAreKicked() {
+        System.setProperty("horse.ready.timeout.seconds", "10");
+        System.setProperty("horse.idle.timeout.seconds", "4");
+        try {
+            TimerWheel timers = TimerWheel.manual(10, 64);
+            RaceRoom timed = new RaceRoom("expulsiones", 50, ticker, timers);
+            ClientSink readySink = mock(ClientSink.class);
+            ClientSink lazySink = mock(ClientSink.class);
+            ClientSink idleSink = mock(ClientSink.class);
+            Player eager = new Player(15, readySink);
+            Player lazy = new Player(16, lazySink);
+            Player idle = new Player(17, idleSink);
+            timed.join(eager);
+            timed.join(lazy);
+            timed.join(idle);
+
+            timed.ready(eager);
+            timed.ready(idle);
+            timers.advance(10_000);
+            verify(lazySink).disconnect();
+            verify(readySink, never()).disconnect();
+
+            // Al salir el jugador expulsado, los restantes están listos
+            timed.removePlayer(lazy);
+            timers.advance(3010);
+            assertTrue(timed.isRaceStarted());
+
+            timed.click(eager);
+            timers.advance(4000);
+            verify(idleSink).disconnect();
+            verify(readySink, never()).disconnect();
+        } finally {
+            System.clearProperty("horse.ready.timeout.seconds");
+            System.clearProperty("horse.idle.timeout.seconds");
+        }
+    }
+
+    @Test
+    void testJoinStormIsCoalescedIntoOneRosterDelta() {
+        TimerWheel timers = TimerWheel.manual(10, 64);
+        RaceRoom storm = new RaceRoom("avalancha", 0, null, timers);
+        PrintStream out = mock(PrintStream.class);
+        Player first = new Player(10, out);
+        storm.join(first);
+        storm.notifyNewPlayer(first);
+        timers.advance(100);
+
+        PrintStream secondOutput = mock(PrintStream.class);
+        Player second = new Player(11, secondOutput);
+        Player brief = new Player(12, mock(PrintStream.class));
+        PrintStream lastOutput = mock(PrintStream.class);
+        Player last = new Player(13, lastOutput);
+        storm.join(second);
+        storm.notifyNewPlayer(second);
+        storm.join(brief);
+        storm.notifyNewPlayer(brief);
+        storm.removePlayer(brief);
+        storm.join(last);
+        storm.notifyNewPlayer(last);
+        storm.processClientMessage(last, "rename:Rapido");
+
+        // Solo el recién llegado recibe la lista completa
+        verify(lastOutput).println("roster:0\nplayers:10-Jugador 10,11-Jugador 11,13-Jugador 13,");
+        verify(out, times(1)).println(contains("players:"));
+        verify(out, never()).println(contains("player_joined:"));
+
+        timers.advance(50);
+
+        // Quien llegó y se fue en la misma ventana no aparece
+        InOrder order = inOrder(out);
+        order.verify(out).println("roster:1\nplayer_joined:11-Jugador 11\nplayer_joined:13-Rapido");
+        order.verify(out).println("can_start");
+        verify(out, never()).println(contains("player_left:"));
+
+        // Los recién llegados solo reciben lo que su lista completa no incluía
+        verify(secondOutput).println("roster:1\nplayer_joined:13-Rapido");
+        verify(secondOutput, times(1)).println("can_start");
+    }
+
+    @Test
+    void testStartStatusIsOnlyBroadcastWhenItChanges() {
+        TimerWheel timers = TimerWheel.manual(10, 64);
+        RaceRoom rooms = new RaceRoom("estado", 0, null, timers);
+        PrintStream out = mock(PrintStream.class);
+        Player first = new Player(20, out);
+        Player second = new Player(21, mock(PrintStream.class));
+        Player third = new Player(22, mock(PrintStream.class));
+        for (Player player : new Player[] { first, second, third }) {
+            rooms.join(player);
+            rooms.notifyNewPlayer(player);
+            timers.advance(50);
+        }
+        verify(out, times(1)).println("can_start");
+
+        rooms.processClientMessage(third, "rename:Nuevo");
+        timers.advance(50);
+        rooms.removePlayer(third);
+        timers.advance(50);
+        rooms.removePlayer(second);
+        timers.advance(50);
+
+        verify(out).println("roster:1\nplayer_joined:21-Jugador 21");
+        verify(out).println("roster:3\nplayer_renamed:22-Nuevo");
+        verify(out).println("roster:4\nplayer_left:22");
+        verify(out).println("roster:5\nplayer_left:21");
+        // Uno al llegar, solo para él, y otro al quedarse solo
+        verify(out, times(1)).println("can_start");
+        verify(out, times(2)).println("wait_players");
+    }
+
+    @Test
+    void testClicksAboveMaxRateAreDroppedAndFlaggedAtRaceEnd() throws Exception {
+        TimerWheel timers = TimerWheel.manual(10, 64);
+        RaceRoom limited = new RaceRoom("limitada", 50, ticker, timers);
+        limited.setClickLimiter(new ClickRateLimiter(3, 1000));
+        List<String> flagged = new ArrayList<>();
+        limited.setCheatListener((roomName, player, reason, dropped) -> flagged
+                .add(roomName + ":" + player.getId() + ":" + reason + ":" + dropped));
+        PrintStream out = mock(PrintStream.class);
+        Player fast = new Player(30, out);
+        Player honest = new Player(31, mock(PrintStream.class));
+        limited.join(fast);
+        limited.join(honest);
+        forceRaceStarted(limited);
+        long droppedBefore = ServerMetrics.CLICKS_DROPPED.get();
+        long flaggedBefore = ServerMetrics.PLAYERS_FLAGGED.get();
+
+        for (int i = 0; i < 6; i++) {
+            limited.processClientMessage(fast, "click");
+        }
+        assertEquals(3, fast.getClicks());
+        assertEquals(30, fast.getProgress());
+        assertEquals(droppedBefore + 3, ServerMetrics.CLICKS_DROPPED.get());
+
+        // Pasada la ventana se vuelve a aceptar
+        timers.advance(1000);
+        fast.advance(60);
+        limited.processClientMessage(fast, "click");
+        verify(out).println("win:Jugador 30");
+
+        // Se concilia al cerrarse la ventana de informes; 3 descartes superan el umbral de 2
+        assertTrue(flagged.isEmpty());
+        timers.advance(1500);
+        assertEquals(List.of("limitada:30:RATE_LIMIT:3"), flagged);
+        assertEquals(flaggedBefore + 1, ServerMetrics.PLAYERS_FLAGGED.get());
+    }
+
+    @Test
+    void testDropsWithinThresholdAreNotFlagged() throws Exception {
+        TimerWheel timers = TimerWheel.manual(10, 64);
+        RaceRoom limited = new RaceRoom("tolerante", 50, ticker, timers);
+        limited.setClickLimiter(new ClickRateLimiter(3, 1000));
+        List<String> flagged = new ArrayList<>();
+        limited.setCheatListener((roomName, player, reason, dropped) -> flagged.add(player.getId() + ":" + reason));
+        Player eager = new Player(34, mock(PrintStream.class));
+        limited.join(eager);
+        limited.join(new Player(35, mock(PrintStream.class)));
+        forceRaceStarted(limited);
+
+        // Una rafaga con un solo descarte, informada al completo
+        for (int i = 0; i < 4; i++) {
+            limited.processClientMessage(eager, "click");
+        }
+        eager.advance(70);
+        timers.advance(1000);
+        limited.processClientMessage(eager, "click");
+        limited.processClientMessage(eager, "clicks_sent:5");
+        timers.advance(1500);
+
+        assertTrue(flagged.isEmpty());
+    }
+
+    @Test
+    void testReportedClicksAreReconciledAtRaceEnd() throws Exception {
+        System.setProperty("horse.click.report.tolerance", "2");
+        try {
+            TimerWheel timers = TimerWheel.manual(10, 64);
+            RaceRoom audited = new RaceRoom("auditada", 50, ticker, timers);
+            List<String> flagged = new ArrayList<>();
+            audited.setCheatListener((roomName, player, reason, dropped) -> flagged
+                    .add(player.getId() + ":" + reason));
+            Player scripted = new Player(32, mock(PrintStream.class));
+            Player honest = new Player(33, mock(PrintStream.class));
+            audited.join(scripted);
+            audited.join(honest);
+            forceRaceStarted(audited);
+
+            audited.processClientMessage(honest, "click");
+            audited.processClientMessage(honest, "clicks_sent:2");
+            audited.processClientMessage(scripted, "clicks_sent:3");
+            scripted.advance(40);
+            for (int i = 0; i < 6; i++) {
+                audited.processClientMessage(scripted, "click");
+            }
+
+            // 6 recibidos frente a 3 informados supera la tolerancia; 1 frente a 2, no
+            timers.advance(1500);
+            assertEquals(List.of("32:REPORT_MISMATCH"), flagged);
+        } finally {
+            System.clearProperty("horse.click.report.tolerance");
+        }
+    }
+
+    @Test
+    void testReconciliationWaitsForFinalReportAndCountsClicksOutsideRace() throws Exception {
+        TimerWheel timers = TimerWheel.manual(10, 64);
+        RaceRoom audited = new RaceRoom("ventana", 50, ticker, timers);
+        List<String> flagged = new ArrayList<>();
+        audited.setCheatListener((roomName, player, reason, dropped) -> flagged.add(player.getId() + ":" + reason));
+        Player winner = new Player(36, mock(PrintStream.class));
+        Player boaster = new Player(37, mock(PrintStream.class));
+        audited.join(winner);
+        audited.join(boaster);
+
+        // Antes de la salida los clics no avanzan, pero cuentan
+        audited.processClientMessage(winner, "click");
+        audited.processClientMessage(winner, "click");
+        assertEquals(0, winner.getProgress());
+
+        forceRaceStarted(audited);
+        winner.advance(90);
+        audited.processClientMessage(winner, "click");
+        // Un clic en vuelo tras la victoria y el informe final, ya fuera de la carrera
+        audited.processClientMessage(winner, "click");
+        audited.processClientMessage(winner, "clicks_sent:4");
+        audited.processClientMessage(boaster, "clicks_sent:5");
+        assertTrue(flagged.isEmpty());
+
+        timers.advance(1500);
+        assertEquals(List.of("37:REPORT_MISMATCH"), flagged);
+        assertEquals(0, winner.getIgnoredClicks());
+    }
+
+    private static InboundHandler clickSession(RaceRoom room, Player player) {
+        return new InboundHandler() {
+            @Override
+            public void onHello(String username, String roomName) {
+            }
+
+            @Override
+            public void onReady() {
+            }
+
+            @Override
+            public void onClick() {
+                room.click(player);
+            }
+
+            @Override
+            public void onClicksReported(int clicks) {
+                room.reportClicks(player, clicks);
+            }
+
+            @Override
+            public void onResync() {
+            }
+
+            @Override
+            public void onResume(String token) {
+            }
+
+            @Override
+            public void onRename(String name) {
+            }
+        };
+    }
+
+    private static void forceRaceStarted(RaceRoom room) throws Exception {
+        Field raceStarted = RaceRoom.class.getDeclaredField("raceStarted");
+        raceStarted.setAccessible(true);
+        raceStarted.set(room, true);
+    }
+}
@@ -0,0 +1,122 @@
+package logic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.io.PrintStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.gerson.logic.GameManager;
+import com.gerson.logic.RaceRoom;
+import com.gerson.logic.RoomManager;
+import com.gerson.model.Player;
+import com.gerson.network.Handshake;
+
+class RoomManagerTest {
+    private GameManager gameManager;
+
+    @BeforeEach
+    void setUp() {
+        gameManager = GameManager.getGamemanagerinstance();
+        gameManager.getRoomManager().clear();
+    }
+
+    @Test
+    void testGetOrCreateReturnsSameRoomForSameName() {
+        RoomManager rooms = new RoomManager();
+        RaceRoom first = rooms.getOrCreate("sala1");
+        assertSame(first, rooms.getOrCreate(" sala1 "));
+        assertNotSame(first, rooms.getOrCreate("sala2"));
+        assertEquals(2, rooms.getRoomCount());
+    }
+
+    @Test
+    void testBlankNameUsesDefaultRoom() {
+        RoomManager rooms = new RoomManager();
+        assertSame(rooms.getDefaultRoom(), rooms.getOrCreate("  "));
+        assertSame(rooms.getDefaultRoom(), rooms.getOrCreate(null));
+    }
+
+    @Test
+    void testRoomsKeepIndependentRaces() {
+        PrintStream out1 = mock(PrintStream.class);
+        PrintStream out2 = mock(PrintStream.class);
+
+        Player p1 = gameManager.registerPlayer("sala1", out1);
+        Player p2 = gameManager.registerPlayer("sala2", out2);
+        p1.setName("Uno");
+        p2.setName("Dos");
+
+        gameManager.notifyNewPlayer(p1);
+
+        // Solo los clientes de la sala 1 reciben su lista de jugadores
+        verify(out1, atLeastOnce()).println(contains("players:"));
+        verify(out2, never()).println(contains("players:"));
+        assertEquals("sala1", p1.getRoomName());
+        assertEquals("sala2", p2.getRoomName());
+    }
+
+    @Test
+    void testEmptyRoomIsRetiredButDefaultRoomIsKept() {
+        PrintStream output = mock(PrintStream.class);
+        Player player = gameManager.registerPlayer("temporal", output);
+        Player other = gameManager.registerPlayer(output);
+        RoomManager rooms = gameManager.getRoomManager();
+
+        gameManager.removePlayer(player, output);
+        gameManager.removePlayer(other, output);
+
+        assertNull(rooms.find("temporal"));
+        assertTrue(rooms.find(RoomManager.DEFAULT_ROOM) != null);
+    }
+
+    @Test
+    void testRetiredRoomRejectsJoinAndIsRecreated() {
+        RoomManager rooms = gameManager.getRoomManager();
+        RaceRoom room = rooms.getOrCreate("efimera");
+        assertTrue(rooms.retireIfEmpty(room));
+
+        Player player = gameManager.createPlayer(mock(PrintStream.class));
+        assertFalse(room.join(player));
+
+        RaceRoom joined = gameManager.joinRoom(player, "efimera");
+        assertNotSame(room, joined);
+        assertEquals(1, joined.getPlayerCount());
+    }
+
+    @Test
+    void testHandshakeParsesNameAndRoom() {
+        Handshake withRoom = Handshake.parse(" Ana@carrera-1 ", 7);
+        assertEquals("Ana", withRoom.getUsername());
+        assertEquals("carrera-1", withRoom.getRoomName());
+
+        Handshake plain = Handshake.parse("Luis", 3);
+        assertEquals("Luis", plain.getUsername());
+        assertEquals(RoomManager.DEFAULT_ROOM, plain.getRoomName());
+
+        Handshake blank = Handshake.parse("@", 9);
+        assertEquals("Jugador 9", blank.getUsername());
+        assertEquals(RoomManager.DEFAULT_ROOM, blank.getRoomName());
+    }
+
+    @Test
+    void testHandshakeNamesCannotCollideWithCommands() {
+        // Un nombre antiguo como "resume:x" sigue siendo un nombre
+        assertEquals("resume:x", Handshake.parse("resume:x", 1).getUsername());
+
+        assertEquals("resume:x", Handshake.parse("/resume:x@sala", 2).getUsername());
+        assertEquals("Ana", Handshake.of(" //Ana", "", 3).getUsername());
+        assertEquals("Jugador 4", Handshake.of("/", "", 4).getUsername());
+    }
+}
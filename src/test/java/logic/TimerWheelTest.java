@@ -0,0 +1,110 @@
+package logic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.gerson.logic.TimerWheel;
+
+class TimerWheelTest {
+
+    @Test
+    void testTimersFireInDeadlineOrder() {
+        TimerWheel wheel = TimerWheel.manual(10, 8);
+        List<String> fired = new ArrayList<>();
+        wheel.schedule(() -> fired.add("b"), 50, TimeUnit.MILLISECONDS);
+        wheel.schedule(() -> fired.add("a"), 20, TimeUnit.MILLISECONDS);
+
+        wheel.advance(10);
+        assertTrue(fired.isEmpty());
+
+        wheel.advance(10);
+        assertEquals(List.of("a"), fired);
+
+        wheel.advance(30);
+        assertEquals(List.of("a", "b"), fired);
+    }
+
+    @Test
+    void testPeriodicTimerRepeatsUntilCancelled() {
+        TimerWheel wheel = TimerWheel.manual(10, 8);
+        List<Integer> fired = new ArrayList<>();
+        // Un periodo de una vuelta exacta vuelve al mismo casillero
+        TimerWheel.Timeout periodic = wheel.scheduleAtFixedRate(() -> fired.add(fired.size()), 80,
+                TimeUnit.MILLISECONDS);
+
+        wheel.advance(240);
+        assertEquals(List.of(0, 1, 2), fired);
+
+        assertTrue(periodic.cancel());
+        wheel.advance(240);
+        assertEquals(3, fired.size());
+        assertEquals(0, wheel.getPendingCount());
+    }
+
+    @Test
+    void testPeriodicTimerCancelledFromItsOwnTaskStops() {
+        TimerWheel wheel = TimerWheel.manual(10, 8);
+        List<TimerWheel.Timeout> self = new ArrayList<>();
+        List<String> fired = new ArrayList<>();
+        self.add(wheel.scheduleAtFixedRate(() -> {
+            fired.add("x");
+            self.get(0).cancel();
+        }, 20, TimeUnit.MILLISECONDS));
+
+        wheel.advance(100);
+        assertEquals(List.of("x"), fired);
+    }
+
+    @Test
+    void testDelaysLongerThanOneRevolution() {
+        TimerWheel wheel = TimerWheel.manual(10, 8);
+        List<Long> fired = new ArrayList<>();
+        // 8 casilleros de 10 ms: 250 ms da más de tres vueltas
+        TimerWheel.Timeout timeout = wheel.schedule(() -> fired.add(1L), 250, TimeUnit.MILLISECONDS);
+
+        wheel.advance(240);
+        assertTrue(fired.isEmpty());
+        wheel.advance(10);
+        assertEquals(1, fired.size());
+        assertTrue(timeout.isExpired());
+        assertEquals(0, wheel.getPendingCount());
+    }
+
+    @Test
+    void testCancelledTimerNeverRuns() {
+        TimerWheel wheel = TimerWheel.manual(10, 8);
+        List<String> fired = new ArrayList<>();
+        TimerWheel.Timeout timeout = wheel.schedule(() -> fired.add("x"), 30, TimeUnit.MILLISECONDS);
+        wheel.advance(10);
+
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+        wheel.advance(100);
+
+        assertTrue(fired.isEmpty());
+        assertTrue(timeout.isCancelled());
+        assertEquals(0, wheel.getPendingCount());
+    }
+
+    @Test
+    void testThousandsOfTimersShareOneThread() throws InterruptedException {
+        TimerWheel wheel = new TimerWheel(5, 64);
+        CountDownLatch done = new CountDownLatch(5000);
+        try {
+            for (int i = 0; i < 5000; i++) {
+                wheel.schedule(done::countDown, i % 100, TimeUnit.MILLISECONDS);
+            }
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        } finally {
+            wheel.stop();
+        }
+    }
+}
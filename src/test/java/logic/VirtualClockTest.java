@@ -0,0 +1,54 @@
+package logic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.gerson.logic.VirtualClock;
+
+class VirtualClockTest {
+
+    @Test
+    void testTimersFireAtTheirSimulatedTime() {
+        VirtualClock clock = new VirtualClock(10, 8);
+        List<Long> firedAt = new ArrayList<>();
+        clock.timers().schedule(() -> firedAt.add(clock.millis()), 1000, TimeUnit.MILLISECONDS);
+        clock.timers().schedule(() -> firedAt.add(clock.millis()), 30, TimeUnit.MILLISECONDS);
+
+        clock.advance(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(30L, 1000L), firedAt);
+        assertEquals(5000, clock.millis());
+    }
+
+    @Test
+    void testTimerScheduledByATimerFiresInTheSameAdvance() {
+        VirtualClock clock = new VirtualClock(10, 8);
+        List<Long> firedAt = new ArrayList<>();
+        clock.timers().schedule(() -> clock.timers().schedule(() -> firedAt.add(clock.millis()), 1,
+                TimeUnit.SECONDS), 1, TimeUnit.SECONDS);
+
+        clock.advance(3, TimeUnit.SECONDS);
+
+        assertEquals(List.of(2000L), firedAt);
+    }
+
+    @Test
+    void testWaitUntilAdvancesOnlyUntilTheConditionHolds() {
+        VirtualClock clock = new VirtualClock(10, 8);
+        List<String> fired = new ArrayList<>();
+        clock.timers().schedule(() -> fired.add("go"), 3, TimeUnit.SECONDS);
+
+        assertTrue(clock.waitUntil(() -> !fired.isEmpty(), 10, TimeUnit.SECONDS));
+        assertEquals(3000, clock.millis());
+
+        assertFalse(clock.waitUntil(() -> fired.size() > 1, 1, TimeUnit.SECONDS));
+        assertEquals(4000, clock.millis());
+    }
+}
@@ -0,0 +1,51 @@
+package metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.gerson.metrics.Histogram;
+import com.gerson.metrics.MetricsRegistry;
+
+class HistogramTest {
+
+    private final MetricsRegistry registry = new MetricsRegistry();
+
+    @Test
+    void testPercentilesStayWithinBucketPrecision() {
+        Histogram histogram = registry.histogram("prueba_seconds", "Prueba");
+        for (int i = 1; i <= 10_000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        assertEquals(10_000, histogram.getCount());
+        assertWithinBucket(5_000_000, histogram.percentile(50));
+        assertWithinBucket(9_900_000, histogram.percentile(99));
+        assertWithinBucket(10_000_000, histogram.percentile(100));
+    }
+
+    @Test
+    void testConcurrentRecordingLosesNothing() throws Exception {
+        Histogram histogram = registry.histogram("concurrente_seconds", "Prueba");
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 25_000; i++) {
+                    histogram.record(i);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(4L * (24_999L * 25_000L / 2), histogram.getSum());
+    }
+
+    private static void assertWithinBucket(long expected, long actual) {
+        assertTrue(actual >= expected && actual <= expected * 1.125, "esperado ~" + expected + ", fue " + actual);
+    }
+}
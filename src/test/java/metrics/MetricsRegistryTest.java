@@ -0,0 +1,88 @@
+package metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import com.gerson.metrics.Counter;
+import com.gerson.metrics.Gauge;
+import com.gerson.metrics.Histogram;
+import com.gerson.metrics.MetricsRegistry;
+import com.gerson.metrics.MetricsServer;
+
+class MetricsRegistryTest {
+
+    private final MetricsRegistry registry = new MetricsRegistry();
+
+    @Test
+    void testScrapeUsesPrometheusTextFormat() {
+        Counter clicks = registry.counter("horse_messages_in_total", "Mensajes", "type", "click");
+        Counter ready = registry.counter("horse_messages_in_total", "Mensajes", "type", "ready");
+        Gauge connected = registry.gauge("horse_connected_clients", "Clientes");
+        Histogram latency = registry.histogram("horse_latency_seconds", "Latencia");
+        clicks.add(3);
+        ready.increment();
+        connected.increment();
+        connected.increment();
+        connected.decrement();
+        latency.record(1_500);
+        latency.record(3_000_000);
+
+        String text = registry.scrape();
+
+        assertTrue(text.contains("# TYPE horse_messages_in_total counter\n"));
+        assertTrue(text.contains("horse_messages_in_total{type=\"click\"} 3\n"));
+        assertTrue(text.contains("horse_messages_in_total{type=\"ready\"} 1\n"));
+        assertTrue(text.contains("horse_connected_clients 1\n"));
+        assertTrue(text.contains("# TYPE horse_latency_seconds histogram\n"));
+        assertTrue(text.contains("horse_latency_seconds_bucket{le=\"1.024E-6\"} 0\n"));
+        assertTrue(text.contains("horse_latency_seconds_bucket{le=\"2.048E-6\"} 1\n"));
+        assertTrue(text.contains("horse_latency_seconds_bucket{le=\"+Inf\"} 2\n"));
+        assertTrue(text.contains("horse_latency_seconds_count 2\n"));
+    }
+
+    @Test
+    void testSameNameReturnsSameMetric() {
+        Counter first = registry.counter("repetida_total", "Prueba");
+
+        assertSame(first, registry.counter("repetida_total", "Prueba"));
+        assertThrows(IllegalArgumentException.class, () -> registry.gauge("repetida_total", "Prueba"));
+    }
+
+    @Test
+    void testMetricsEndpointServesScrape() throws Exception {
+        registry.gauge("horse_rooms", "Salas", () -> 7);
+        MetricsServer server = new MetricsServer(0, registry);
+        server.start();
+        try {
+            String url = "http://" + server.getAddress().getHostString() + ":" + server.getPort() + "/metrics";
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+            assertEquals(200, connection.getResponseCode());
+            assertTrue(connection.getContentType().startsWith("text/plain; version=0.0.4"));
+            try (InputStream body = connection.getInputStream()) {
+                String text = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+                assertTrue(text.contains("horse_rooms 7\n"));
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void testMetricsEndpointListensOnLoopbackByDefault() throws Exception {
+        MetricsServer server = new MetricsServer(0, registry);
+        try {
+            assertTrue(server.getAddress().getAddress().isLoopbackAddress());
+        } finally {
+            server.stop();
+        }
+    }
+}
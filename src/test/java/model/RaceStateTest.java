@@ -0,0 +1,109 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+import com.gerson.model.Player;
+import com.gerson.model.RaceState;
+
+class RaceStateTest {
+
+    @Test
+    void testSlotsStartCleanAndAreReused() {
+        RaceState state = new RaceState();
+        int first = state.allocate();
+        state.advance(first, 40);
+        state.setReportedClicks(first, 7);
+        state.setFlag(first, RaceState.FLAG_READY, true);
+
+        state.release(first);
+        int reused = state.allocate();
+
+        assertEquals(first, reused);
+        assertEquals(0, state.progress(reused));
+        assertEquals(0, state.reportedClicks(reused));
+        assertFalse(state.hasFlag(reused, RaceState.FLAG_READY));
+        assertTrue(state.hasFlag(reused, RaceState.FLAG_CONNECTED));
+    }
+
+    @Test
+    void testProgressIsCappedAndClicksCounted() {
+        RaceState state = new RaceState();
+        int slot = state.allocate();
+
+        for (int i = 0; i < 12; i++) {
+            state.click(slot, 10);
+        }
+
+        assertEquals(100, state.progress(slot));
+        assertEquals(12, state.clicks(slot));
+    }
+
+    @Test
+    void testGrowsAcrossSegmentsWithoutMovingSlots() {
+        RaceState state = new RaceState();
+        List<Integer> slots = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            int slot = state.allocate();
+            state.setReportedClicks(slot, i);
+            slots.add(slot);
+        }
+
+        assertEquals(3000, state.getSlotCount());
+        for (int i = 0; i < slots.size(); i++) {
+            assertEquals(i, state.reportedClicks(slots.get(i)));
+        }
+    }
+
+    @Test
+    void testConcurrentClicksAreNotLost() throws InterruptedException {
+        RaceState state = new RaceState();
+        int slot = state.allocate();
+        int threads = 4;
+        int clicksPerThread = 10_000;
+        CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < clicksPerThread; i++) {
+                    state.click(slot, 1);
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+
+        assertEquals(threads * clicksPerThread, state.clicks(slot));
+        assertEquals(100, state.progress(slot));
+    }
+
+    @Test
+    void testPlayerIsAViewOverSharedState() {
+        Player player = new Player(1, (PrintStream) null);
+        player.advance(30);
+        assertTrue(player.setReady(true));
+        assertFalse(player.setReady(true));
+
+        assertEquals(30, player.getProgress());
+        assertTrue(player.isReady());
+        assertTrue(player.isConnected());
+
+        // Liberar dos veces no deja la posición libre por duplicado
+        player.release();
+        player.release();
+        Player second = new Player(2, (PrintStream) null);
+        Player third = new Player(3, (PrintStream) null);
+        second.advance(10);
+        third.advance(20);
+        assertEquals(10, second.getProgress());
+        assertEquals(20, third.getProgress());
+    }
+}
@@ -0,0 +1,52 @@
+package network;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetAddress;
+
+import org.junit.jupiter.api.Test;
+
+import com.gerson.metrics.ServerMetrics;
+import com.gerson.network.AdmissionControl;
+
+class AdmissionControlTest {
+
+    @Test
+    void testTotalLimitRejectsUntilAConnectionIsReleased() throws Exception {
+        AdmissionControl admission = new AdmissionControl(2, 0);
+        InetAddress address = InetAddress.getByName("10.0.0.1");
+        long rejected = ServerMetrics.REJECTED_MAX_CONNECTIONS.get();
+
+        assertTrue(admission.admit(address));
+        assertTrue(admission.admit(address));
+        assertFalse(admission.admit(address));
+        assertEquals(rejected + 1, ServerMetrics.REJECTED_MAX_CONNECTIONS.get());
+        assertEquals(2, admission.getOpenConnections());
+
+        admission.release(address);
+
+        assertTrue(admission.admit(address));
+    }
+
+    @Test
+    void testPerAddressLimitOnlyAffectsThatAddress() throws Exception {
+        AdmissionControl admission = new AdmissionControl(0, 1);
+        InetAddress first = InetAddress.getByName("10.0.0.1");
+        InetAddress second = InetAddress.getByName("10.0.0.2");
+        long rejected = ServerMetrics.REJECTED_PER_ADDRESS.get();
+
+        assertTrue(admission.admit(first));
+        assertFalse(admission.admit(first));
+        assertTrue(admission.admit(second));
+        assertEquals(rejected + 1, ServerMetrics.REJECTED_PER_ADDRESS.get());
+        assertEquals(2, admission.getOpenConnections());
+        assertEquals(1, admission.getOpenConnections(first));
+
+        admission.release(first);
+
+        assertEquals(0, admission.getOpenConnections(first));
+        assertTrue(admission.admit(first));
+    }
+}
@@ -61,26 +61,11 @@ class ClientHandlerTest {
     // Utilidad para limpiar GameManager entre pruebas
     private void resetGameManager() throws Exception {
         GameManager gm = GameManager.getGamemanagerinstance();
-
-        var players = GameManager.class.getDeclaredField("players");
-        players.setAccessible(true);
-        ((java.util.Map<?, ?>) players.get(gm)).clear();
-
-        var clients = GameManager.class.getDeclaredField("clients");
-        clients.setAccessible(true);
-        ((java.util.List<?>) clients.get(gm)).clear();
-
-        var readyPlayers = GameManager.class.getDeclaredField("readyPlayers");
-        readyPlayers.setAccessible(true);
-        ((java.util.Set<?>) readyPlayers.get(gm)).clear();
+        gm.getRoomManager().clear();
 
         var nextPlayerId = GameManager.class.getDeclaredField("nextPlayerId");
         nextPlayerId.setAccessible(true);
-        nextPlayerId.set(gm, 1);
-
-        var raceStarted = GameManager.class.getDeclaredField("raceStarted");
-        raceStarted.setAccessible(true);
-        raceStarted.set(gm, false);
+        ((java.util.concurrent.atomic.AtomicInteger) nextPlayerId.get(gm)).set(1);
     }
 
     @Test
@@ -0,0 +1,66 @@
+package network;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.channels.Pipe;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import com.gerson.network.Frame;
+import com.gerson.network.OverflowPolicy;
+import com.gerson.network.QueuedClientSink;
+
+class FrameTest {
+
+    @Test
+    void testFrameIsEncodedOnceWithNewline() {
+        Frame frame = Frame.of("players:1-Ana,");
+        assertEquals("players:1-Ana,", frame.text());
+        assertEquals("players:1-Ana,\n".length(), frame.length());
+        assertFalse(frame.isDroppable());
+        assertTrue(Frame.droppable("1:10").isDroppable());
+    }
+
+    @Test
+    void testBuffersAreIndependentReadOnlyViews() {
+        Frame frame = Frame.of("go", false, true);
+        ByteBuffer first = frame.buffer();
+        ByteBuffer second = frame.buffer();
+
+        first.get();
+        assertEquals(2, first.remaining());
+        assertEquals(3, second.remaining());
+        assertTrue(first.isReadOnly());
+        assertTrue(first.isDirect());
+        assertThrows(ReadOnlyBufferException.class, () -> second.put((byte) 'x'));
+    }
+
+    @Test
+    void testQueuedSinkWritesSharedFramesThroughGatheringChannel() throws Exception {
+        Pipe pipe = Pipe.open();
+        QueuedClientSink sink = new QueuedClientSink(pipe.sink(), 16, OverflowPolicy.DROP_PROGRESS, () -> {
+        });
+        sink.start(null);
+
+        Frame shared = Frame.of("countdown:3");
+        sink.send(shared);
+        sink.send(shared); // el mismo marco puede enviarse varias veces
+        sink.sendDroppable("1:10");
+        sink.close();
+        assertTrue(sink.awaitTermination(2000));
+        pipe.sink().close();
+
+        ByteBuffer received = ByteBuffer.allocate(128);
+        while (pipe.source().read(received) > 0) {
+            // leer todo lo escrito
+        }
+        received.flip();
+        assertEquals("countdown:3\ncountdown:3\n1:10\n", StandardCharsets.UTF_8.decode(received).toString());
+    }
+}
@@ -0,0 +1,325 @@
+package network;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.gerson.logic.GameManager;
+import com.gerson.logic.RoomManager;
+import com.gerson.metrics.ServerMetrics;
+import com.gerson.network.AdmissionControl;
+import com.gerson.network.NioServer;
+import com.gerson.protocol.ByteWriter;
+import com.gerson.protocol.Opcode;
+import com.gerson.protocol.Varint;
+
+class NioServerTest {
+
+    private NioServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        resetGameManager();
+        server = new NioServer(0, 2);
+        server.start();
+        Thread acceptor = new Thread(server::acceptLoop);
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    void testNioClientReceivesIdAndPlayerList() throws Exception {
+        try (Socket socket = new Socket("localhost", server.getLocalPort())) {
+            socket.setSoTimeout(2000);
+            BufferedReader in = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            PrintStream out = new PrintStream(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+
+            // El primer mensaje es el ID del jugador
+            assertEquals("1", in.readLine());
+
+            out.println("JugadorNio");
+
+            assertEquals("roster:0", in.readLine());
+            assertEquals("players:1-JugadorNio,", in.readLine());
+            assertEquals("wait_players", in.readLine());
+        }
+    }
+
+    @Test
+    void testNioClientsShareTheSameRace() throws Exception {
+        try (Socket first = new Socket("localhost", server.getLocalPort());
+                Socket second = new Socket("localhost", server.getLocalPort())) {
+            first.setSoTimeout(2000);
+            second.setSoTimeout(2000);
+            BufferedReader in1 = new BufferedReader(new InputStreamReader(first.getInputStream()));
+            BufferedReader in2 = new BufferedReader(new InputStreamReader(second.getInputStream()));
+            PrintStream out1 = new PrintStream(first.getOutputStream(), true);
+            PrintStream out2 = new PrintStream(second.getOutputStream(), true);
+
+            // Cada conexión se registra en su propio bucle, así que el orden de los ID no es fijo
+            String id = in1.readLine();
+            out1.println("A");
+            in1.readLine(); // roster:0
+            in1.readLine(); // players:
+            in1.readLine(); // wait_players
+            assertEquals("snapshot:0:waiting:" + id + "-0,", in1.readLine());
+            assertTrue(in1.readLine().startsWith("resume:"));
+
+            String secondId = in2.readLine();
+            out2.print("B\r\n"); // también se aceptan finales de línea CRLF
+            out2.flush();
+
+            // El primero solo recibe el delta de la llegada, no la lista completa
+            assertEquals("roster:1", in1.readLine());
+            assertEquals("player_joined:" + secondId + "-B", in1.readLine());
+            assertEquals("can_start", in1.readLine());
+        }
+    }
+
+    @Test
+    void testDroppedClientResumesItsSessionWithTheToken() throws Exception {
+        try (Socket stayer = new Socket("localhost", server.getLocalPort())) {
+            stayer.setSoTimeout(2000);
+            BufferedReader inStayer = new BufferedReader(new InputStreamReader(stayer.getInputStream()));
+            PrintStream outStayer = new PrintStream(stayer.getOutputStream(), true);
+            assertEquals("1", inStayer.readLine());
+            outStayer.println("Fijo");
+            inStayer.readLine(); // roster:0
+            inStayer.readLine(); // players:
+            inStayer.readLine(); // wait_players
+            inStayer.readLine(); // snapshot:
+            inStayer.readLine(); // resume:
+
+            String token;
+            try (Socket dropped = new Socket("localhost", server.getLocalPort())) {
+                dropped.setSoTimeout(2000);
+                BufferedReader in = new BufferedReader(new InputStreamReader(dropped.getInputStream()));
+                PrintStream out = new PrintStream(dropped.getOutputStream(), true);
+                assertEquals("2", in.readLine());
+                out.println("Movil");
+                in.readLine(); // roster:0
+                in.readLine(); // players:
+                in.readLine(); // can_start
+                in.readLine(); // snapshot:
+                String resume = in.readLine();
+                assertTrue(resume.startsWith("resume:"));
+                token = resume.substring("resume:".length());
+            }
+            assertEquals("roster:1", inStayer.readLine());
+            assertEquals("player_joined:2-Movil", inStayer.readLine());
+            assertEquals("can_start", inStayer.readLine());
+
+            try (Socket back = new Socket("localhost", server.getLocalPort())) {
+                back.setSoTimeout(2000);
+                BufferedReader in = new BufferedReader(new InputStreamReader(back.getInputStream()));
+                PrintStream out = new PrintStream(back.getOutputStream(), true);
+                in.readLine(); // identificador provisional
+                out.println("/resume:" + token);
+
+                assertEquals("resumed:2", in.readLine());
+                assertEquals("roster:1", in.readLine());
+                assertEquals("players:1-Fijo,2-Movil,", in.readLine());
+                assertEquals("can_start", in.readLine());
+                assertEquals("snapshot:0:waiting:1-0,2-0,", in.readLine());
+                assertEquals(2, GameManager.getGamemanagerinstance().getRoomManager().find(RoomManager.DEFAULT_ROOM)
+                        .getPlayerCount());
+
+                // Ni la salida ni el regreso se difunden al resto de la sala
+                stayer.setSoTimeout(300);
+                assertThrows(SocketTimeoutException.class, inStayer::readLine);
+            }
+        }
+    }
+
+    @Test
+    void testUnknownResumeTokenIsRejected() throws Exception {
+        try (Socket socket = new Socket("localhost", server.getLocalPort())) {
+            socket.setSoTimeout(2000);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            PrintStream out = new PrintStream(socket.getOutputStream(), true);
+            assertEquals("1", in.readLine());
+
+            out.println("/resume:00112233445566778899aabbccddeeff");
+            assertEquals("resume_failed", in.readLine());
+
+            // Tras el rechazo, el saludo normal sigue disponible
+            out.println("Nuevo");
+            assertEquals("roster:0", in.readLine());
+            assertEquals("players:1-Nuevo,", in.readLine());
+        }
+    }
+
+    @Test
+    void testNameLookingLikeResumeTokenGreetsNormally() throws Exception {
+        try (Socket socket = new Socket("localhost", server.getLocalPort())) {
+            socket.setSoTimeout(2000);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            PrintStream out = new PrintStream(socket.getOutputStream(), true);
+            assertEquals("1", in.readLine());
+
+            out.println("resume:Ana");
+            assertEquals("roster:0", in.readLine());
+            assertEquals("players:1-resume:Ana,", in.readLine());
+        }
+    }
+
+    @Test
+    void testBinaryClientNegotiatesWithMagicByte() throws Exception {
+        try (Socket socket = new Socket("localhost", server.getLocalPort())) {
+            socket.setSoTimeout(2000);
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            OutputStream out = socket.getOutputStream();
+
+            // El identificador siempre llega como línea de texto
+            assertEquals('1', in.read());
+            assertEquals('\n', in.read());
+
+            out.write(Opcode.BINARY_MAGIC);
+            out.write(new ByteWriter(16).writeByte(Opcode.HELLO).writeString("Bin").writeString("sala-b")
+                    .toLengthPrefixed());
+            out.flush();
+
+            byte[] players = readFrame(in);
+            assertEquals(Opcode.PLAYERS, players[0]);
+            assertEquals(0, players[1]);
+            assertEquals(1, players[2]);
+            assertEquals(1, players[3]);
+            assertEquals("Bin", new String(players, 5, players[4], StandardCharsets.UTF_8));
+
+            byte[] status = readFrame(in);
+            assertArrayEquals(new byte[] { Opcode.START_STATUS, 0 }, status);
+            assertEquals(1, GameManager.getGamemanagerinstance().getRoomManager().find("sala-b").getPlayerCount());
+        }
+    }
+
+    @Test
+    void testMalformedBinaryFrameOnlyClosesItsOwnConnection() throws Exception {
+        try (Socket bad = new Socket("localhost", server.getLocalPort())) {
+            bad.setSoTimeout(2000);
+            BufferedReader in = new BufferedReader(new InputStreamReader(bad.getInputStream()));
+            in.readLine();
+            // Saludo binario con un nombre de longitud -1
+            bad.getOutputStream().write(new byte[] { (byte) Opcode.BINARY_MAGIC, 6, Opcode.HELLO, (byte) 0xFF, (byte) 0xFF,
+                    (byte) 0xFF, (byte) 0xFF, 0x0F });
+            bad.getOutputStream().flush();
+            try {
+                assertNull(in.readLine());
+            } catch (SocketException e) {
+                // El servidor pudo cerrar con un reinicio de la conexion
+            }
+        }
+
+        // Los dos bucles siguen atendiendo conexiones nuevas
+        for (int i = 0; i < 2; i++) {
+            try (Socket socket = new Socket("localhost", server.getLocalPort())) {
+                socket.setSoTimeout(2000);
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+                assertTrue(in.readLine().matches("\\d+"));
+            }
+        }
+    }
+
+    @Test
+    void testSilentClientIsClosedAtHandshakeDeadlineWithoutAPlayer() throws Exception {
+        System.setProperty("horse.handshake.timeout.ms", "200");
+        long timeouts = ServerMetrics.HANDSHAKE_TIMEOUTS.get();
+        try (Socket socket = new Socket("localhost", server.getLocalPort())) {
+            socket.setSoTimeout(2000);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            assertEquals("1", in.readLine());
+
+            // Hasta el saludo no se crea ningún jugador ni sala
+            assertNull(GameManager.getGamemanagerinstance().getRoomManager().find(RoomManager.DEFAULT_ROOM));
+
+            assertNull(in.readLine());
+            assertEquals(timeouts + 1, ServerMetrics.HANDSHAKE_TIMEOUTS.get());
+        } finally {
+            System.clearProperty("horse.handshake.timeout.ms");
+        }
+    }
+
+    @Test
+    void testConnectionsAboveTheLimitAreRejected() throws Exception {
+        AdmissionControl admission = new AdmissionControl(1, 0);
+        NioServer limited = new NioServer(0, 1, admission);
+        limited.start();
+        Thread acceptor = new Thread(limited::acceptLoop);
+        acceptor.setDaemon(true);
+        acceptor.start();
+        long rejected = ServerMetrics.REJECTED_MAX_CONNECTIONS.get();
+        try {
+            try (Socket first = new Socket("localhost", limited.getLocalPort())) {
+                first.setSoTimeout(2000);
+                BufferedReader in = new BufferedReader(new InputStreamReader(first.getInputStream()));
+                assertEquals("1", in.readLine());
+
+                try (Socket second = new Socket("localhost", limited.getLocalPort())) {
+                    second.setSoTimeout(2000);
+                    assertEquals(-1, readOrReset(second));
+                }
+                assertEquals(rejected + 1, ServerMetrics.REJECTED_MAX_CONNECTIONS.get());
+            }
+
+            // Al cerrarse la primera conexión su plaza queda libre
+            long deadline = System.currentTimeMillis() + 2000;
+            while (admission.getOpenConnections() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            try (Socket third = new Socket("localhost", limited.getLocalPort())) {
+                third.setSoTimeout(2000);
+                BufferedReader in = new BufferedReader(new InputStreamReader(third.getInputStream()));
+                assertEquals("2", in.readLine());
+            }
+        } finally {
+            limited.stop();
+        }
+    }
+
+    private static int readOrReset(Socket socket) throws Exception {
+        try {
+            return socket.getInputStream().read();
+        } catch (SocketException e) {
+            // El rechazo cierra con un reinicio
+            return -1;
+        }
+    }
+
+    private static byte[] readFrame(DataInputStream in) throws Exception {
+        int length = Varint.read(in);
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        return payload;
+    }
+
+    // Utilidad para limpiar GameManager entre pruebas
+    private void resetGameManager() throws Exception {
+        GameManager gm = GameManager.getGamemanagerinstance();
+        gm.getRoomManager().clear();
+
+        var nextPlayerId = GameManager.class.getDeclaredField("nextPlayerId");
+        nextPlayerId.setAccessible(true);
+        ((java.util.concurrent.atomic.AtomicInteger) nextPlayerId.get(gm)).set(1);
+    }
+}
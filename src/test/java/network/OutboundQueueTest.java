@@ -0,0 +1,121 @@
+package network;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.gerson.network.Frame;
+import com.gerson.network.OutboundQueue;
+import com.gerson.network.OutboundStats;
+import com.gerson.network.OverflowPolicy;
+import com.gerson.network.QueuedClientSink;
+
+class OutboundQueueTest {
+
+    @Test
+    void testDropPolicyEvictsOldestProgressFrame() {
+        OutboundQueue queue = new OutboundQueue(3, OverflowPolicy.DROP_PROGRESS);
+        Frame players = Frame.of("players:");
+        Frame oldProgress = Frame.droppable("1:10");
+        Frame newProgress = Frame.droppable("1:20");
+        Frame go = Frame.of("go");
+
+        queue.offer(players);
+        queue.offer(oldProgress);
+        queue.offer(newProgress);
+
+        assertEquals(OutboundQueue.Result.DROPPED, queue.offer(go));
+        assertEquals(1, queue.getDroppedCount());
+
+        // Se conserva el orden y se descartó el progreso más antiguo
+        assertSame(players, queue.poll());
+        assertSame(newProgress, queue.poll());
+        assertSame(go, queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void testDropPolicyOverflowsWhenOnlyCriticalMessagesQueued() {
+        OutboundQueue queue = new OutboundQueue(2, OverflowPolicy.DROP_PROGRESS);
+        queue.offer(Frame.of("countdown:3"));
+        queue.offer(Frame.of("countdown:2"));
+
+        // Un marco de progreso nuevo simplemente se descarta
+        assertEquals(OutboundQueue.Result.DROPPED, queue.offer(Frame.droppable("1:10")));
+        // Un mensaje imprescindible obliga a desconectar
+        assertEquals(OutboundQueue.Result.OVERFLOW, queue.offer(Frame.of("go")));
+    }
+
+    @Test
+    void testDisconnectPolicyOverflowsImmediately() {
+        OutboundQueue queue = new OutboundQueue(1, OverflowPolicy.DISCONNECT);
+        assertEquals(OutboundQueue.Result.ENQUEUED, queue.offer(Frame.droppable("1:10")));
+        assertEquals(OutboundQueue.Result.OVERFLOW, queue.offer(Frame.droppable("1:20")));
+    }
+
+    @Test
+    void testStalledClientDoesNotBlockSenderAndIsDisconnected() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        OutputStream stalled = new OutputStream() {
+            @Override
+            public void write(int b) {
+                awaitQuietly(release);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                awaitQuietly(release);
+            }
+        };
+        AtomicInteger disconnects = new AtomicInteger();
+        long disconnectsBefore = OutboundStats.slowConsumerDisconnects();
+
+        QueuedClientSink sink = new QueuedClientSink(stalled, 4, OverflowPolicy.DISCONNECT,
+                disconnects::incrementAndGet);
+        sink.start(null);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            sink.send("countdown:" + i);
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsedMillis < 1000, "El envío no debe bloquearse por un cliente lento");
+        assertEquals(1, disconnects.get());
+        assertTrue(OutboundStats.slowConsumerDisconnects() > disconnectsBefore);
+        release.countDown();
+    }
+
+    @Test
+    void testQueuedSinkDeliversMessagesInOrderBeforeClosing() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        QueuedClientSink sink = new QueuedClientSink(out, 16, OverflowPolicy.DROP_PROGRESS, () -> {
+        });
+        sink.start(null);
+
+        sink.send("1");
+        sink.sendDroppable("1:10");
+        sink.send("win:A");
+        sink.close();
+
+        assertTrue(sink.awaitTermination(2000));
+        assertEquals("1\n1:10\nwin:A\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
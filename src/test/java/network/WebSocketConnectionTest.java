@@ -0,0 +1,204 @@
+package network;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.gerson.logic.GameManager;
+import com.gerson.network.AdmissionControl;
+import com.gerson.network.NioServer;
+import com.gerson.protocol.WebSocket;
+
+class WebSocketConnectionTest {
+
+    private static final String KEY = "dGhlIHNhbXBsZSBub25jZQ==";
+
+    private NioServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        resetGameManager();
+        server = new NioServer(0, 2, new AdmissionControl(0, 0), 0);
+        server.start();
+        Thread acceptor = new Thread(server::acceptLoop);
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    void testWebSocketAndTcpClientsShareTheSameRace() throws Exception {
+        try (WebSocketClient web = new WebSocketClient(server.getWebSocketPort())) {
+            String webId = web.readLine();
+            web.sendText("Web@mixta\n");
+            assertEquals("roster:0", web.readLine());
+            assertEquals("players:" + webId + "-Web,", web.readLine());
+            assertEquals("wait_players", web.readLine());
+            web.readLine(); // snapshot:
+            assertTrue(web.readLine().startsWith("resume:"));
+
+            try (Socket tcp = new Socket("localhost", server.getLocalPort())) {
+                tcp.setSoTimeout(2000);
+                BufferedReader in = new BufferedReader(new InputStreamReader(tcp.getInputStream()));
+                PrintStream out = new PrintStream(tcp.getOutputStream(), true);
+                String tcpId = in.readLine();
+                out.println("Tcp@mixta");
+                assertEquals("roster:0", in.readLine());
+                assertEquals("players:" + webId + "-Web," + tcpId + "-Tcp,", in.readLine());
+
+                assertEquals("roster:1", web.readLine());
+                assertEquals("player_joined:" + tcpId + "-Tcp", web.readLine());
+                assertEquals("can_start", web.readLine());
+            }
+        }
+    }
+
+    @Test
+    void testLinesQueuedTogetherTravelInOneFrame() throws Exception {
+        try (WebSocketClient web = new WebSocketClient(server.getWebSocketPort())) {
+            web.readLine();
+            // Un mensaje sin salto de línea final también es una línea completa
+            web.sendText("Lote");
+
+            // Todo lo que la llegada encola se agrupa en un solo marco de texto
+            String frame = web.readFrame();
+            assertTrue(frame.startsWith("roster:0\nplayers:"), frame);
+            assertTrue(frame.split("\n").length > 2, frame);
+        }
+    }
+
+    @Test
+    void testPingIsAnsweredAndCloseIsEchoed() throws Exception {
+        try (WebSocketClient web = new WebSocketClient(server.getWebSocketPort())) {
+            web.readLine();
+            web.send(WebSocket.OPCODE_PING, "latido".getBytes(StandardCharsets.UTF_8));
+            assertEquals("pong:latido", web.readControl());
+
+            web.send(WebSocket.OPCODE_CLOSE, new byte[] { 0x03, (byte) 0xE8 });
+            assertEquals("close:1000", web.readControl());
+            assertEquals(-1, web.in.read());
+        }
+    }
+
+    @Test
+    void testInvalidUpgradeIsRejected() throws Exception {
+        try (Socket socket = new Socket("localhost", server.getWebSocketPort())) {
+            socket.setSoTimeout(2000);
+            socket.getOutputStream().write("GET / HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            assertEquals("HTTP/1.1 400 Bad Request", in.readLine());
+        }
+    }
+
+    private void resetGameManager() throws Exception {
+        GameManager gm = GameManager.getGamemanagerinstance();
+        gm.getRoomManager().clear();
+
+        var nextPlayerId = GameManager.class.getDeclaredField("nextPlayerId");
+        nextPlayerId.setAccessible(true);
+        ((java.util.concurrent.atomic.AtomicInteger) nextPlayerId.get(gm)).set(1);
+    }
+
+    /**
+     * Cliente WebSocket mínimo: abre la conexión, envía marcos con máscara y
+     * separa en líneas los marcos de texto del servidor.
+     */
+    private static final class WebSocketClient implements AutoCloseable {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final OutputStream out;
+        private final Deque<String> lines = new ArrayDeque<>();
+
+        WebSocketClient(int port) throws IOException {
+            socket = new Socket("localhost", port);
+            socket.setSoTimeout(2000);
+            in = new DataInputStream(socket.getInputStream());
+            out = socket.getOutputStream();
+            out.write(("GET /carrera HTTP/1.1\r\nHost: localhost\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+                    + "Sec-WebSocket-Key: " + KEY + "\r\nSec-WebSocket-Version: 13\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            StringBuilder response = new StringBuilder();
+            while (!response.toString().endsWith("\r\n\r\n")) {
+                response.append((char) in.readUnsignedByte());
+            }
+            assertTrue(response.toString().startsWith("HTTP/1.1 101 Switching Protocols\r\n"));
+            assertTrue(response.toString().contains("Sec-WebSocket-Accept: s3pPLMBiTxaQ9kYGzzhZRbK+xOo=\r\n"));
+        }
+
+        String readLine() throws IOException {
+            while (lines.isEmpty()) {
+                lines.addAll(Arrays.asList(readFrame().split("\n")));
+            }
+            return lines.poll();
+        }
+
+        String readFrame() throws IOException {
+            int first = in.readUnsignedByte();
+            byte[] payload = readPayload();
+            assertEquals(0x81, first);
+            return new String(payload, StandardCharsets.UTF_8);
+        }
+
+        String readControl() throws IOException {
+            int opcode = in.readUnsignedByte() & 0x0F;
+            byte[] payload = readPayload();
+            if (opcode == WebSocket.OPCODE_PONG) {
+                return "pong:" + new String(payload, StandardCharsets.UTF_8);
+            }
+            assertEquals(WebSocket.OPCODE_CLOSE, opcode);
+            return "close:" + (((payload[0] & 0xFF) << 8) | (payload[1] & 0xFF));
+        }
+
+        void sendText(String text) throws IOException {
+            send(WebSocket.OPCODE_TEXT, text.getBytes(StandardCharsets.UTF_8));
+        }
+
+        void send(int opcode, byte[] data) throws IOException {
+            byte[] mask = { 0x0A, 0x0B, 0x0C, 0x0D };
+            ByteBuffer frame = ByteBuffer.allocate(8 + data.length);
+            frame.put((byte) (0x80 | opcode)).put((byte) (0x80 | data.length)).put(mask);
+            for (int i = 0; i < data.length; i++) {
+                frame.put((byte) (data[i] ^ mask[i & 3]));
+            }
+            out.write(frame.array(), 0, frame.position());
+            out.flush();
+        }
+
+        private byte[] readPayload() throws IOException {
+            int length = in.readUnsignedByte();
+            if (length == 126) {
+                length = in.readUnsignedShort();
+            } else if (length == 127) {
+                length = (int) in.readLong();
+            }
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            return payload;
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package protocol;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.gerson.protocol.BinaryDecoder;
+import com.gerson.protocol.ByteWriter;
+import com.gerson.protocol.InboundHandler;
+import com.gerson.protocol.Opcode;
+import com.gerson.protocol.Varint;
+
+class BinaryDecoderTest {
+
+    private final List<String> events = new ArrayList<>();
+
+    private final InboundHandler recorder = new InboundHandler() {
+        @Override
+        public void onHello(String username, String roomName) {
+            events.add("hello:" + username + "@" + roomName);
+        }
+
+        @Override
+        public void onReady() {
+            events.add("ready");
+        }
+
+        @Override
+        public void onClick() {
+            events.add("click");
+        }
+
+        @Override
+        public void onClicksReported(int clicks) {
+            events.add("clicks:" + clicks);
+        }
+
+        @Override
+        public void onResync() {
+            events.add("resync");
+        }
+
+        @Override
+        public void onResume(String token) {
+            events.add("resume:" + token);
+        }
+
+        @Override
+        public void onRename(String name) {
+            events.add("rename:" + name);
+        }
+    };
+
+    @Test
+    void testDecodesEveryOpcode() throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(concat(
+                new ByteWriter(16).writeByte(Opcode.HELLO).writeString("Ana").writeString("sala-1")
+                        .toLengthPrefixed(),
+                new ByteWriter(1).writeByte(Opcode.READY).toLengthPrefixed(),
+                new ByteWriter(1).writeByte(Opcode.CLICK).toLengthPrefixed(),
+                new ByteWriter(4).writeByte(Opcode.CLICKS_SENT).writeVarint(300).toLengthPrefixed(),
+                new ByteWriter(1).writeByte(Opcode.RESYNC).toLengthPrefixed(),
+                new ByteWriter(8).writeByte(Opcode.RENAME).writeString("Bea").toLengthPrefixed()));
+
+        new BinaryDecoder(recorder).decode(in);
+
+        assertEquals(List.of("hello:Ana@sala-1", "ready", "click", "clicks:300", "resync", "rename:Bea"), events);
+        assertFalse(in.hasRemaining());
+    }
+
+    @Test
+    void testPartialFrameIsLeftForNextRead() throws IOException {
+        byte[] frame = new ByteWriter(4).writeByte(Opcode.CLICKS_SENT).writeVarint(300).toLengthPrefixed();
+        BinaryDecoder decoder = new BinaryDecoder(recorder);
+        ByteBuffer in = ByteBuffer.allocate(16);
+
+        in.put(frame, 0, 2).flip();
+        decoder.decode(in);
+        assertTrue(events.isEmpty());
+        assertEquals(0, in.position());
+
+        in.compact();
+        in.put(frame, 2, frame.length - 2).flip();
+        decoder.decode(in);
+        assertEquals(List.of("clicks:300"), events);
+    }
+
+    @Test
+    void testReadsFramesFromStreamUntilEof() throws IOException {
+        byte[] bytes = concat(
+                new ByteWriter(8).writeByte(Opcode.HELLO).writeString("Beto").toLengthPrefixed(),
+                new ByteWriter(1).writeByte(Opcode.CLICK).toLengthPrefixed());
+        ByteArrayInputStream in = new ByteArrayInputStream(bytes);
+        BinaryDecoder decoder = new BinaryDecoder(recorder);
+
+        assertTrue(decoder.readFrame(in));
+        assertTrue(decoder.readFrame(in));
+        assertFalse(decoder.readFrame(in));
+        assertEquals(List.of("hello:Beto@", "click"), events);
+    }
+
+    @Test
+    void testRejectsOversizedFrame() {
+        byte[] header = new byte[Varint.size(BinaryDecoder.MAX_FRAME_LENGTH + 1)];
+        Varint.write(BinaryDecoder.MAX_FRAME_LENGTH + 1, header, 0);
+
+        assertThrows(IOException.class, () -> new BinaryDecoder(recorder).decode(ByteBuffer.wrap(header)));
+    }
+
+    @Test
+    void testRejectsNegativeLengthsAndCounts() {
+        // FF FF FF FF 0F es -1 en un varint de cinco bytes
+        byte[] negativeName = { 6, Opcode.HELLO, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F };
+        byte[] negativeClicks = { 6, Opcode.CLICKS_SENT, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F };
+
+        assertThrows(IOException.class, () -> new BinaryDecoder(recorder).decode(ByteBuffer.wrap(negativeName)));
+        assertThrows(IOException.class, () -> new BinaryDecoder(recorder).decode(ByteBuffer.wrap(negativeClicks)));
+        assertTrue(events.isEmpty());
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        int length = 0;
+        for (byte[] part : parts) {
+            length += part.length;
+        }
+        ByteBuffer out = ByteBuffer.allocate(length);
+        for (byte[] part : parts) {
+            out.put(part);
+        }
+        return out.array();
+    }
+}
@@ -0,0 +1,153 @@
+package protocol;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.gerson.model.Player;
+import com.gerson.network.Frame;
+import com.gerson.network.WireFormat;
+import com.gerson.protocol.Messages;
+import com.gerson.protocol.Opcode;
+import com.gerson.protocol.RacePhase;
+import com.gerson.protocol.RosterChange;
+import com.gerson.protocol.Varint;
+
+class MessagesTest {
+
+    @Test
+    void testTextEncodingMatchesLegacyProtocol() {
+        Player ana = player(1, "Ana");
+        Player beto = player(2, "Beto");
+        beto.advance(30);
+
+        assertEquals("roster:3\nplayers:1-Ana,2-Beto,", Messages.playerList(3, List.of(ana, beto), false).text());
+        assertEquals("can_start", Messages.startStatus(true, false).text());
+        assertEquals("wait_players", Messages.startStatus(false, false).text());
+        assertEquals("countdown:3", Messages.countdown(3, false).text());
+        assertEquals("go", Messages.go(false).text());
+        assertEquals("seq:4\n1:0\n2:30", Messages.progress(4, List.of(ana, beto), false).text());
+        assertEquals("seq:5\n2:30", Messages.progress(5, beto, false).text());
+        assertEquals("win:Beto", Messages.winner("Beto", false).text());
+        assertTrue(Messages.progress(5, beto, false).isDroppable());
+        assertEquals("snapshot:5:racing:1-0,2-30,",
+                Messages.snapshot(5, RacePhase.RACING, List.of(ana, beto), false).text());
+        assertFalse(Messages.snapshot(5, RacePhase.RACING, List.of(ana, beto), false).isDroppable());
+    }
+
+    @Test
+    void testRosterDeltaFrame() throws IOException {
+        List<RosterChange> changes = List.of(RosterChange.joined(3, "Ana"), RosterChange.left(1),
+                RosterChange.renamed(2, "Bea"));
+
+        Frame frame = Messages.rosterDelta(9, changes, false);
+
+        assertEquals("roster:9\nplayer_joined:3-Ana\nplayer_left:1\nplayer_renamed:2-Bea", frame.text());
+        assertFalse(frame.isDroppable());
+
+        ByteBuffer binary = frame.buffer(WireFormat.BINARY);
+        assertEquals(binary.remaining() - 1, Varint.read(binary));
+        assertEquals(Opcode.ROSTER, binary.get());
+        assertEquals(9, Varint.read(binary));
+        assertEquals(3, Varint.read(binary));
+        assertEquals(RosterChange.Kind.JOINED.code(), binary.get());
+        assertEquals(3, Varint.read(binary));
+        assertEquals(3, Varint.read(binary));
+        binary.position(binary.position() + 3);
+        assertEquals(RosterChange.Kind.LEFT.code(), binary.get());
+        assertEquals(1, Varint.read(binary));
+        assertEquals(RosterChange.Kind.RENAMED.code(), binary.get());
+        assertEquals(2, Varint.read(binary));
+        assertEquals(3, Varint.read(binary));
+        binary.position(binary.position() + 3);
+        assertEquals(0, binary.remaining());
+    }
+
+    @Test
+    void testPendingRosterChangesCombine() {
+        RosterChange joined = RosterChange.joined(4, "Ana");
+
+        assertNull(joined.then(RosterChange.left(4)));
+        RosterChange renamed = joined.then(RosterChange.renamed(4, "Bea"));
+        assertEquals(RosterChange.Kind.JOINED, renamed.getKind());
+        assertEquals("Bea", renamed.getName());
+        assertEquals(RosterChange.Kind.LEFT, RosterChange.renamed(4, "Bea").then(RosterChange.left(4)).getKind());
+    }
+
+    @Test
+    void testBinaryProgressFrame() throws IOException {
+        Player ana = player(1, "Ana");
+        Player beto = player(200, "Beto");
+        ana.advance(10);
+        beto.advance(90);
+
+        ByteBuffer frame = Messages.progress(300, List.of(ana, beto), true).buffer(WireFormat.BINARY);
+
+        assertTrue(frame.isDirect());
+        assertEquals(frame.remaining() - 1, Varint.read(frame));
+        assertEquals(Opcode.PROGRESS, frame.get());
+        assertEquals(300, Varint.read(frame));
+        assertEquals(2, Varint.read(frame));
+        assertEquals(1, Varint.read(frame));
+        assertEquals(10, Varint.read(frame));
+        assertEquals(200, Varint.read(frame));
+        assertEquals(90, Varint.read(frame));
+        assertEquals(0, frame.remaining());
+    }
+
+    @Test
+    void testBinarySnapshotFrame() throws IOException {
+        Player ana = player(1, "Ana");
+        ana.advance(40);
+
+        ByteBuffer frame = Messages.snapshot(7, RacePhase.COUNTDOWN, List.of(ana), false)
+                .buffer(WireFormat.BINARY);
+
+        assertEquals(frame.remaining() - 1, Varint.read(frame));
+        assertEquals(Opcode.SNAPSHOT, frame.get());
+        assertEquals(7, Varint.read(frame));
+        assertEquals(RacePhase.COUNTDOWN.ordinal(), frame.get());
+        assertEquals(1, Varint.read(frame));
+        assertEquals(1, Varint.read(frame));
+        assertEquals(40, Varint.read(frame));
+        assertEquals(0, frame.remaining());
+    }
+
+    @Test
+    void testPlainTextFrameTravelsAsTextOpcode() throws IOException {
+        ByteBuffer frame = Frame.of("7").buffer(WireFormat.BINARY);
+
+        assertEquals(frame.remaining() - 1, Varint.read(frame));
+        assertEquals(Opcode.TEXT, frame.get());
+        assertEquals(1, Varint.read(frame));
+        assertEquals("7", StandardCharsets.UTF_8.decode(frame).toString());
+    }
+
+    @Test
+    void testBinaryFramesAreSmallerThanText() {
+        List<Player> horses = new ArrayList<>();
+        for (int id = 100; id < 110; id++) {
+            Player horse = player(id, "Caballo");
+            horse.advance(90);
+            horses.add(horse);
+        }
+        Frame progress = Messages.progress(1, horses, false);
+        assertTrue(progress.length(WireFormat.BINARY) * 2 < progress.length(WireFormat.TEXT));
+    }
+
+    private static Player player(int id, String name) {
+        Player player = new Player(id, (PrintStream) null);
+        player.setName(name);
+        return player;
+    }
+}
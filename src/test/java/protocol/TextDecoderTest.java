@@ -0,0 +1,108 @@
+package protocol;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.gerson.protocol.InboundHandler;
+import com.gerson.protocol.LineReader;
+import com.gerson.protocol.TextDecoder;
+
+class TextDecoderTest {
+
+    private final List<String> events = new ArrayList<>();
+
+    private final InboundHandler recorder = new InboundHandler() {
+        @Override
+        public void onHello(String username, String roomName) {
+            events.add("hello");
+        }
+
+        @Override
+        public void onReady() {
+            events.add("ready");
+        }
+
+        @Override
+        public void onClick() {
+            events.add("click");
+        }
+
+        @Override
+        public void onClicksReported(int clicks) {
+            events.add("clicks:" + clicks);
+        }
+
+        @Override
+        public void onResync() {
+            events.add("resync");
+        }
+
+        @Override
+        public void onResume(String token) {
+            events.add("resume:" + token);
+        }
+
+        @Override
+        public void onRename(String name) {
+            events.add("rename:" + name);
+        }
+    };
+
+    @Test
+    void testRecognizesMessagesIgnoringCase() {
+        assertTrue(dispatch("click"));
+        assertTrue(dispatch("CLICK"));
+        assertTrue(dispatch("Ready"));
+        assertTrue(dispatch("clicks_sent:15"));
+        assertTrue(dispatch("clicks_sent:7:extra"));
+        assertTrue(dispatch("resync"));
+        assertTrue(dispatch("rename:Caballo Veloz"));
+
+        assertEquals(List.of("click", "click", "ready", "clicks:15", "clicks:7", "resync", "rename:Caballo Veloz"),
+                events);
+    }
+
+    @Test
+    void testRejectsUnknownOrMalformedMessages() {
+        assertFalse(dispatch("clicks"));
+        assertFalse(dispatch("clicks_sent:"));
+        assertFalse(dispatch("clicks_sent:-3"));
+        assertFalse(dispatch("clicks_sent:99999999999"));
+        assertFalse(dispatch("clicking"));
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    void testLineReaderReusesBufferAndAcceptsCrlf() throws IOException {
+        LineReader reader = new LineReader(
+                new ByteArrayInputStream("Ana@sala\r\nclick\nready".getBytes(StandardCharsets.UTF_8)), 64);
+
+        assertEquals("Ana@sala", reader.asString(reader.readLine()));
+        int length = reader.readLine();
+        assertTrue(TextDecoder.dispatch(reader.buffer(), length, recorder));
+        assertEquals("ready", reader.asString(reader.readLine()));
+        assertEquals(-1, reader.readLine());
+        assertEquals(List.of("click"), events);
+    }
+
+    @Test
+    void testLineReaderRejectsOverlongLines() {
+        LineReader reader = new LineReader(new ByteArrayInputStream(new byte[300]), 256);
+        assertThrows(IOException.class, reader::readLine);
+    }
+
+    private boolean dispatch(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        return TextDecoder.dispatch(bytes, bytes.length, recorder);
+    }
+}
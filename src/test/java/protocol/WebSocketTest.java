@@ -0,0 +1,145 @@
+package protocol;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.gerson.protocol.WebSocket;
+import com.gerson.protocol.WebSocketDecoder;
+
+class WebSocketTest {
+
+    private static final String KEY = "dGhlIHNhbXBsZSBub25jZQ==";
+
+    private final List<String> events = new ArrayList<>();
+    private final StringBuilder text = new StringBuilder();
+
+    private final WebSocketDecoder decoder = new WebSocketDecoder(new WebSocketDecoder.Listener() {
+        @Override
+        public void onText(byte[] data, int length) {
+            text.append(new String(data, 0, length, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void onTextEnd() {
+            events.add("text:" + text);
+            text.setLength(0);
+        }
+
+        @Override
+        public void onPing(byte[] payload, int length) {
+            events.add("ping:" + new String(payload, 0, length, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void onClose() {
+            events.add("close");
+        }
+    });
+
+    @Test
+    void testAcceptKeyMatchesTheRfcExample() {
+        assertEquals("s3pPLMBiTxaQ9kYGzzhZRbK+xOo=", WebSocket.acceptKey(KEY));
+    }
+
+    @Test
+    void testUpgradeResponseAcceptsAValidRequest() throws IOException {
+        String request = "GET /carrera HTTP/1.1\r\nHost: localhost\r\nUpgrade: WebSocket\r\n"
+                + "Connection: keep-alive, Upgrade\r\nSec-WebSocket-Key: " + KEY + "\r\n"
+                + "Sec-WebSocket-Version: 13\r\n\r\n";
+
+        String response = new String(WebSocket.upgradeResponse(request), StandardCharsets.US_ASCII);
+
+        assertTrue(response.startsWith("HTTP/1.1 101 Switching Protocols\r\n"));
+        assertTrue(response.contains("Sec-WebSocket-Accept: s3pPLMBiTxaQ9kYGzzhZRbK+xOo=\r\n"));
+        assertTrue(response.endsWith("\r\n\r\n"));
+    }
+
+    @Test
+    void testUpgradeResponseRejectsMissingOrWrongHeaders() {
+        assertThrows(IOException.class, () -> WebSocket.upgradeResponse(
+                "GET / HTTP/1.1\r\nUpgrade: websocket\r\nConnection: Upgrade\r\nSec-WebSocket-Version: 13\r\n\r\n"));
+        assertThrows(IOException.class, () -> WebSocket.upgradeResponse(
+                "GET / HTTP/1.1\r\nUpgrade: websocket\r\nConnection: Upgrade\r\nSec-WebSocket-Key: " + KEY
+                        + "\r\nSec-WebSocket-Version: 8\r\n\r\n"));
+        assertThrows(IOException.class, () -> WebSocket.upgradeResponse(
+                "POST / HTTP/1.1\r\nUpgrade: websocket\r\nConnection: Upgrade\r\nSec-WebSocket-Key: " + KEY
+                        + "\r\nSec-WebSocket-Version: 13\r\n\r\n"));
+    }
+
+    @Test
+    void testHeaderUsesTheShortestLengthEncoding() {
+        ByteBuffer header = ByteBuffer.allocate(WebSocket.MAX_HEADER_LENGTH);
+
+        assertArrayEquals(new byte[] { (byte) 0x81, 5 }, bytes(WebSocket.writeHeader(header, WebSocket.OPCODE_TEXT, 5)));
+        assertArrayEquals(new byte[] { (byte) 0x81, 126, 0x01, 0x00 },
+                bytes(WebSocket.writeHeader(header, WebSocket.OPCODE_TEXT, 256)));
+        assertArrayEquals(new byte[] { (byte) 0x81, 127, 0, 0, 0, 0, 0, 1, 0, 0 },
+                bytes(WebSocket.writeHeader(header, WebSocket.OPCODE_TEXT, 65536)));
+    }
+
+    @Test
+    void testDecodesFragmentedMaskedTextSplitAcrossReads() throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        stream.writeBytes(maskedFrame(false, WebSocket.OPCODE_TEXT, "cli"));
+        stream.writeBytes(maskedFrame(true, WebSocket.OPCODE_PING, "hola"));
+        stream.writeBytes(maskedFrame(true, WebSocket.OPCODE_CONTINUATION, "ck\nready"));
+        stream.writeBytes(maskedFrame(true, WebSocket.OPCODE_CLOSE, ""));
+        byte[] all = stream.toByteArray();
+
+        // Se entrega de tres en tres bytes, como lo haría una red lenta
+        ByteBuffer in = ByteBuffer.allocate(64);
+        for (int offset = 0; offset < all.length; offset += 3) {
+            in.put(all, offset, Math.min(3, all.length - offset)).flip();
+            decoder.decode(in);
+            in.compact();
+        }
+
+        assertEquals(List.of("ping:hola", "text:click\nready", "close"), events);
+    }
+
+    @Test
+    void testRejectsUnmaskedBinaryAndOversizedFrames() {
+        assertThrows(IOException.class, () -> decoder.decode(ByteBuffer.wrap(new byte[] { (byte) 0x81, 1, 'x' })));
+        assertThrows(IOException.class, () -> new WebSocketDecoder(null)
+                .decode(ByteBuffer.wrap(maskedFrame(true, WebSocket.OPCODE_BINARY, "x"))));
+
+        ByteBuffer oversized = ByteBuffer.allocate(14);
+        oversized.put((byte) 0x81).put((byte) (0x80 | 127)).putLong(WebSocketDecoder.MAX_MESSAGE_LENGTH + 1L)
+                .putInt(0).flip();
+        assertThrows(IOException.class, () -> new WebSocketDecoder(null).decode(oversized));
+    }
+
+    static byte[] maskedFrame(boolean fin, int opcode, String payload) {
+        byte[] data = payload.getBytes(StandardCharsets.UTF_8);
+        byte[] mask = { 0x12, 0x34, 0x56, 0x78 };
+        ByteBuffer frame = ByteBuffer.allocate(14 + data.length);
+        frame.put((byte) ((fin ? 0x80 : 0) | opcode));
+        if (data.length <= 125) {
+            frame.put((byte) (0x80 | data.length));
+        } else {
+            frame.put((byte) (0x80 | 126)).putShort((short) data.length);
+        }
+        frame.put(mask);
+        for (int i = 0; i < data.length; i++) {
+            frame.put((byte) (data[i] ^ mask[i & 3]));
+        }
+        return bytes(frame.flip());
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,203 @@
+package server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.gerson.server.Server;
+
+/**
+ * Reinicia el servidor en otro proceso a mitad de carrera y comprueba que
+ * el proceso nuevo recupera la carrera y que el cliente la retoma con su
+ * token. Sin archivo de estado, el servidor se detiene sin esperar ni
+ * avisar.
+ */
+class RestartIntegrationTest {
+
+    private final List<Process> servers = new ArrayList<>();
+    private int port;
+
+    @TempDir
+    Path dir;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (Process server : servers) {
+            server.destroyForcibly().waitFor(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void testRaceSurvivesARestart() throws Exception {
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        Path snapshot = dir.resolve("estado.hrs");
+        Process first = startServer("a", snapshot);
+
+        String token;
+        int ana;
+        try (Socket anaSocket = connect(); Socket betoSocket = connect()) {
+            BufferedReader anaIn = reader(anaSocket);
+            PrintStream anaOut = writer(anaSocket);
+            ana = Integer.parseInt(anaIn.readLine());
+            anaOut.println("Ana@relevo");
+            token = readUntil(anaIn, "resume:").substring("resume:".length());
+
+            BufferedReader betoIn = reader(betoSocket);
+            PrintStream betoOut = writer(betoSocket);
+            betoIn.readLine();
+            betoOut.println("Beto@relevo");
+            readUntil(betoIn, "resume:");
+
+            anaOut.println("ready");
+            betoOut.println("ready");
+            readUntil(anaIn, "go");
+            anaOut.println("click");
+            anaOut.println("click");
+            readUntil(anaIn, ana + ":20");
+
+            // SIGTERM: el servidor guarda la carrera y avisa antes de salir
+            first.destroy();
+            assertEquals("reconnect:300", readUntil(anaIn, "reconnect:"));
+            assertTrue(first.waitFor(10, TimeUnit.SECONDS));
+        }
+        assertTrue(Files.exists(snapshot));
+
+        startServer("b", snapshot);
+        try (Socket socket = connect()) {
+            BufferedReader in = reader(socket);
+            in.readLine();
+            writer(socket).println("/resume:" + token);
+            assertEquals("resumed:" + ana, in.readLine());
+            String state = readUntil(in, "snapshot:");
+            assertTrue(state.contains(":racing:" + ana + "-20,"), state);
+        }
+        assertFalse(Files.exists(snapshot));
+    }
+
+    @Test
+    void testWithoutSnapshotFileShutdownDoesNotDrainOrAskToReconnect() throws Exception {
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        Process server = startServer("sin-estado", null, "-Dhorse.drain.timeout.ms=30000");
+
+        try (Socket anaSocket = connect(); Socket betoSocket = connect()) {
+            BufferedReader anaIn = reader(anaSocket);
+            PrintStream anaOut = writer(anaSocket);
+            anaIn.readLine();
+            anaOut.println("Ana@unica");
+            readUntil(anaIn, "resume:");
+
+            BufferedReader betoIn = reader(betoSocket);
+            PrintStream betoOut = writer(betoSocket);
+            betoIn.readLine();
+            betoOut.println("Beto@unica");
+            readUntil(betoIn, "resume:");
+
+            anaOut.println("ready");
+            betoOut.println("ready");
+            readUntil(anaIn, "go");
+
+            // Con una carrera en curso y sin archivo, no espera los 30 s de drenaje
+            long start = System.nanoTime();
+            server.destroy();
+            assertTrue(server.waitFor(10, TimeUnit.SECONDS));
+            assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 10);
+
+            List<String> rest = readToEnd(anaIn);
+            assertTrue(rest.stream().noneMatch(line -> line.startsWith("reconnect:")), rest.toString());
+        }
+    }
+
+    private Process startServer(String name, Path snapshot, String... properties) throws IOException {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        List<String> command = new ArrayList<>(List.of(java,
+                "-cp", System.getProperty("java.class.path"),
+                "-Dhorse.port=" + port,
+                "-Dhorse.drain.timeout.ms=0",
+                "-Dhorse.reconnect.delay.ms=300"));
+        if (snapshot != null) {
+            command.add("-Dhorse.snapshot.file=" + snapshot);
+        }
+        // Las propiedades propias de la prueba pisan las anteriores
+        command.addAll(List.of(properties));
+        command.add(Server.class.getName());
+        ProcessBuilder builder = new ProcessBuilder(command);
+        builder.redirectErrorStream(true);
+        builder.redirectOutput(ProcessBuilder.Redirect.to(new File(dir.toFile(), ".log-" + name)));
+        Process process = builder.start();
+        servers.add(process);
+        return process;
+    }
+
+    private Socket connect() throws Exception {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (true) {
+            try {
+                Socket socket = new Socket("localhost", port);
+                socket.setSoTimeout(10_000);
+                return socket;
+            } catch (IOException e) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw e;
+                }
+                Thread.sleep(50);
+            }
+        }
+    }
+
+    private static String readUntil(BufferedReader in, String prefix) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.startsWith(prefix)) {
+                return line;
+            }
+        }
+        throw new IOException("Conexion cerrada antes de " + prefix);
+    }
+
+    /**
+     * Lee lo que quede hasta que el servidor cierre la conexion, sea con un
+     * fin de flujo o con un reinicio de la conexion.
+     */
+    private static List<String> readToEnd(BufferedReader in) {
+        List<String> lines = new ArrayList<>();
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                lines.add(line);
+            }
+        } catch (IOException e) {
+            // La conexion se cerro de golpe al terminar el proceso
+        }
+        return lines;
+    }
+
+    private static BufferedReader reader(Socket socket) throws IOException {
+        return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    private static PrintStream writer(Socket socket) throws IOException {
+        return new PrintStream(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,48 @@
+package server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.gerson.server.ServerConfig;
+import com.gerson.server.ServerMode;
+
+class ServerConfigTest {
+
+    @AfterEach
+    void clearProperties() {
+        System.clearProperty("horse.mode");
+        System.clearProperty("horse.metrics.port");
+    }
+
+    @Test
+    void testDefaultModeIsThread() {
+        assertEquals(ServerMode.THREAD, ServerConfig.mode(null));
+    }
+
+    @Test
+    void testModeFromArgumentIgnoresCase() {
+        assertEquals(ServerMode.VIRTUAL, ServerConfig.mode(new String[] { "--mode=Virtual" }));
+        assertEquals(ServerMode.NIO, ServerConfig.mode(new String[] { "otro", "--mode=nio" }));
+    }
+
+    @Test
+    void testArgumentTakesPrecedenceOverProperty() {
+        System.setProperty("horse.mode", "nio");
+        assertEquals(ServerMode.NIO, ServerConfig.mode(new String[0]));
+        assertEquals(ServerMode.VIRTUAL, ServerConfig.mode(new String[] { "--mode=virtual" }));
+    }
+
+    @Test
+    void testUnknownModeFallsBackToThread() {
+        assertEquals(ServerMode.THREAD, ServerConfig.mode(new String[] { "--mode=fibras" }));
+    }
+
+    @Test
+    void testMetricsEndpointIsDisabledByDefault() {
+        assertEquals(0, ServerConfig.metricsPort());
+        System.setProperty("horse.metrics.port", "9180");
+        assertEquals(9180, ServerConfig.metricsPort());
+    }
+}
@@ -0,0 +1,99 @@
+package snapshot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.gerson.protocol.RacePhase;
+import com.gerson.snapshot.RoomSnapshot;
+import com.gerson.snapshot.RoomSnapshot.PlayerSnapshot;
+import com.gerson.snapshot.SnapshotFile;
+
+class SnapshotFileTest {
+
+    private static final String TOKEN = "00112233445566778899aabbccddeeff";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testRoundTripKeepsEveryField() throws IOException {
+        Path file = dir.resolve("estado.hrs");
+        List<RoomSnapshot> rooms = List.of(
+                new RoomSnapshot("principal", RacePhase.RACING, 300, 7, List.of(
+                        new PlayerSnapshot(1, "Rayo", 70, 7, 8, true, TOKEN),
+                        new PlayerSnapshot(200000, "Trueno", 100, 10, 0, false, null))),
+                new RoomSnapshot("sala-2", RacePhase.WAITING, 0, 0, List.of()));
+
+        SnapshotFile.write(file, rooms);
+        List<RoomSnapshot> read = SnapshotFile.read(file);
+
+        assertEquals(2, read.size());
+        RoomSnapshot room = read.get(0);
+        assertEquals("principal", room.getName());
+        assertEquals(RacePhase.RACING, room.getPhase());
+        assertEquals(300, room.getStateSeq());
+        assertEquals(7, room.getRosterVersion());
+        PlayerSnapshot rayo = room.getPlayers().get(0);
+        assertEquals(1, rayo.getId());
+        assertEquals("Rayo", rayo.getName());
+        assertEquals(70, rayo.getProgress());
+        assertEquals(7, rayo.getClicks());
+        assertEquals(8, rayo.getReportedClicks());
+        assertTrue(rayo.isReady());
+        assertEquals(TOKEN, rayo.getResumeToken());
+        PlayerSnapshot trueno = room.getPlayers().get(1);
+        assertEquals(200000, trueno.getId());
+        assertEquals(100, trueno.getProgress());
+        assertFalse(trueno.isReady());
+        assertNull(trueno.getResumeToken());
+        assertEquals("sala-2", read.get(1).getName());
+        assertTrue(read.get(1).getPlayers().isEmpty());
+
+        // Compacto: cabecera, CRC y unos pocos bytes por jugador
+        assertTrue(Files.size(file) < 80, "tamano " + Files.size(file));
+    }
+
+    @Test
+    void testWriteReplacesTheFileAndLeavesNoTemporaries() throws IOException {
+        Path file = dir.resolve("estado.hrs");
+        SnapshotFile.write(file, List.of(new RoomSnapshot("a", RacePhase.WAITING, 0, 0, List.of())));
+        SnapshotFile.write(file, List.of());
+
+        assertTrue(SnapshotFile.read(file).isEmpty());
+        try (var files = Files.list(dir)) {
+            assertEquals(List.of(file), files.toList());
+        }
+        if (Files.getFileStore(file).supportsFileAttributeView("posix")) {
+            // Incluye tokens de reanudacion: solo lo lee el dueno
+            assertEquals(Set.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE),
+                    Files.getPosixFilePermissions(file));
+        }
+    }
+
+    @Test
+    void testRejectsDamagedOrForeignFiles() throws IOException {
+        Path file = dir.resolve("estado.hrs");
+        SnapshotFile.write(file, List.of(new RoomSnapshot("principal", RacePhase.COUNTDOWN, 3, 1,
+                List.of(new PlayerSnapshot(1, "Rayo", 0, 0, 0, true, TOKEN)))));
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 0x01;
+        Files.write(file, bytes);
+        assertThrows(IOException.class, () -> SnapshotFile.read(file));
+
+        Files.writeString(file, "HRJ1 no es un estado");
+        assertThrows(IOException.class, () -> SnapshotFile.read(file));
+    }
+}
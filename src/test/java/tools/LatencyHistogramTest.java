@@ -0,0 +1,48 @@
+package tools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.gerson.tools.LatencyHistogram;
+
+class LatencyHistogramTest {
+
+    @Test
+    void testEmptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.percentile(99));
+    }
+
+    @Test
+    void testSmallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 50; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(25, histogram.percentile(50));
+        assertEquals(50, histogram.percentile(100));
+        assertEquals(25.5, histogram.getMean(), 0.001);
+    }
+
+    @Test
+    void testLargeValuesStayWithinRelativeError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100_000; i++) {
+            histogram.record(i);
+        }
+
+        assertWithinTwoPercent(50_000, histogram.percentile(50));
+        assertWithinTwoPercent(99_000, histogram.percentile(99));
+        assertWithinTwoPercent(99_900, histogram.percentile(99.9));
+        assertEquals(100_000, histogram.getMax());
+    }
+
+    private static void assertWithinTwoPercent(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected * 0.02, "esperado ~" + expected + ", fue " + actual);
+    }
+}
@@ -0,0 +1,76 @@
+package tools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.gerson.logic.GameManager;
+import com.gerson.network.NioServer;
+import com.gerson.tools.LoadConfig;
+import com.gerson.tools.LoadGenerator;
+import com.gerson.tools.LoadReport;
+
+class LoadGeneratorTest {
+
+    private NioServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        resetGameManager();
+        server = new NioServer(0, 1);
+        server.start();
+        Thread acceptor = new Thread(server::acceptLoop);
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        server.stop();
+        resetGameManager();
+    }
+
+    @Test
+    void testParsesArguments() {
+        LoadConfig config = LoadConfig.parse(new String[] { "--port=2000", "--clients=50", "--room-size=5",
+                "--click-rate=20", "--ramp-up=1.5", "--duration=10", "--json" });
+
+        assertEquals(2000, config.getPort());
+        assertEquals(50, config.getClients());
+        assertEquals(5, config.getRoomSize());
+        assertEquals(20.0, config.getClickRate());
+        assertEquals(1500, config.getRampUpMillis());
+        assertEquals(10_000, config.getDurationMillis());
+        assertTrue(config.isJson());
+        assertThrows(IllegalArgumentException.class, () -> LoadConfig.parse(new String[] { "--desconocido" }));
+    }
+
+    @Test
+    void testBotsRaceAndMeasureLatency() throws Exception {
+        LoadConfig config = LoadConfig.parse(new String[] { "--port=" + server.getLocalPort(), "--clients=4",
+                "--room-size=2", "--click-rate=50", "--ramp-up=0.2", "--duration=5" });
+
+        LoadReport report = new LoadGenerator(config).run();
+
+        assertEquals(4, report.getConnectionsOpened());
+        assertEquals(0, report.getConnectionFailures());
+        assertTrue(report.getRacesCompleted() > 0, report.toText());
+        assertTrue(report.getLatency().getCount() > 0, report.toText());
+        assertTrue(report.toJson().contains("\"p999\":"));
+    }
+
+    private static void resetGameManager() throws Exception {
+        GameManager gameManager = GameManager.getGamemanagerinstance();
+        gameManager.getRoomManager().clear();
+        Field nextPlayerId = GameManager.class.getDeclaredField("nextPlayerId");
+        nextPlayerId.setAccessible(true);
+        ((AtomicInteger) nextPlayerId.get(gameManager)).set(1);
+    }
+}
@@ -0,0 +1,109 @@
+package tools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.gerson.journal.FsyncPolicy;
+import com.gerson.journal.Journal;
+import com.gerson.journal.RecordType;
+import com.gerson.logic.Clock;
+import com.gerson.logic.GameManager;
+import com.gerson.tools.RaceReplay;
+import com.gerson.tools.ReplayClock;
+import com.gerson.tools.ReplayReport;
+
+class RaceReplayTest {
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void resetGameManager() throws Exception {
+        GameManager gm = GameManager.getGamemanagerinstance();
+        gm.getRoomManager().clear();
+
+        var nextPlayerId = GameManager.class.getDeclaredField("nextPlayerId");
+        nextPlayerId.setAccessible(true);
+        ((AtomicInteger) nextPlayerId.get(gm)).set(1);
+    }
+
+    @Test
+    void testRecordedRaceReplaysWithTheSameWinnerAndProgress() throws Exception {
+        recordRace("Ana", 10);
+
+        ReplayReport report = new RaceReplay(ReplayClock.unpaced()).run(dir);
+
+        assertTrue(report.matches(), report.toText());
+        assertEquals(1, report.getRaces());
+        assertEquals(1, report.getWinsVerified());
+        assertEquals(10, report.getProgressVerified());
+        assertTrue(report.getEventsPerSecond() > 0);
+        assertTrue(report.toJson().contains("\"matches\":true"));
+    }
+
+    @Test
+    void testRealTimeClockScalesEngineDeadlines() throws Exception {
+        ReplayClock clock = ReplayClock.realTime(50);
+        Clock engine = clock.engineClock();
+        AtomicInteger fired = new AtomicInteger();
+        engine.timers().schedule(fired::incrementAndGet, 500, TimeUnit.MILLISECONDS);
+
+        long start = System.nanoTime();
+        clock.awaitOffset(0);
+        clock.awaitOffset(250);
+        assertEquals(250, engine.millis());
+        assertEquals(0, fired.get());
+
+        // Un segundo grabado a 50x son 20 ms reales, y el plazo del motor vence dentro
+        clock.awaitOffset(1000);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertEquals(1000, engine.millis());
+        assertEquals(1, fired.get());
+        assertTrue(elapsedMillis >= 20 && elapsedMillis < 500, "ms reales: " + elapsedMillis);
+    }
+
+    @Test
+    void testDivergingRecordingIsReported() throws Exception {
+        // Con 20 por clic, la grabación no corresponde a este motor
+        recordRace("Beto", 20);
+
+        ReplayReport report = new RaceReplay(ReplayClock.unpaced()).run(dir);
+
+        assertFalse(report.matches());
+        assertTrue(report.getMismatchCount() > 0);
+        assertTrue(report.getMismatches().get(0).contains("progreso 10, grabado 20"), report.toText());
+    }
+
+    /**
+     * Graba una carrera de la sala {@code replay} que gana el primer jugador.
+     */
+    private void recordRace(String winner, int step) throws Exception {
+        Journal journal = Journal.manual(dir, 64, 1 << 20, FsyncPolicy.NEVER);
+        journal.append(RecordType.JOIN, "replay", 7, 0, winner);
+        journal.append(RecordType.JOIN, "replay", 8, 0, "Rival");
+        journal.append(RecordType.READY, "replay", 7, 1, null);
+        journal.append(RecordType.READY, "replay", 8, 2, null);
+        for (int second = 3; second > 0; second--) {
+            journal.append(RecordType.COUNTDOWN, "replay", -1, second, null);
+        }
+        journal.append(RecordType.RACE_START, "replay", -1, 2, null);
+        int progress = 0;
+        while (progress < 100) {
+            progress = Math.min(100, progress + step);
+            journal.append(RecordType.ADVANCE, "replay", 7, progress, null);
+        }
+        journal.append(RecordType.WIN, "replay", 7, 100, winner);
+        journal.append(RecordType.LEAVE, "replay", 8, 1, null);
+        journal.append(RecordType.LEAVE, "replay", 7, 0, null);
+        journal.close();
+    }
+}